@@ -1,3 +1,4 @@
+import groovy.json.JsonSlurper
 import java.net.URI
 import net.ltgt.gradle.errorprone.CheckSeverity
 import net.ltgt.gradle.errorprone.errorprone
@@ -7,6 +8,7 @@ import org.gradle.api.tasks.testing.logging.TestLogEvent
 
 plugins {
     `java-library`
+    `java-test-fixtures`
     jacoco
     `maven-publish`
     signing
@@ -14,6 +16,7 @@ plugins {
     alias(libs.plugins.nullaway)
     alias(libs.plugins.licenser)
     alias(libs.plugins.spotless)
+    alias(libs.plugins.jmh)
 }
 
 repositories { mavenCentral() }
@@ -39,11 +42,15 @@ dependencies {
     testImplementation(libs.javaparser)
     testImplementation(libs.guava)
     testImplementation(libs.jakartaValidationApi)
+    testImplementation(gradleTestKit())
 
     testRuntimeOnly(libs.junitPlatformLauncher)
 
     testAnnotationProcessor(project)
 
+    jmhImplementation(testFixtures(project))
+    jmhAnnotationProcessor(project)
+
     errorprone(libs.errorProneCore)
     errorprone(libs.nullaway)
 }
@@ -69,6 +76,13 @@ tasks.withType<JavaCompile> {
 tasks.test {
     useJUnitPlatform()
 
+    // IncrementalTest runs a Gradle build against the processor jar of this project
+    val processorPath = files(tasks.jar, configurations.runtimeClasspath)
+    inputs.files(processorPath).withPropertyName("processorPath")
+    jvmArgumentProviders.add(
+        CommandLineArgumentProvider { listOf("-Dcrafter.processorPath=${processorPath.asPath}") }
+    )
+
     testLogging {
         events = setOf(TestLogEvent.PASSED, TestLogEvent.SKIPPED, TestLogEvent.FAILED)
 
@@ -76,6 +90,120 @@ tasks.test {
     }
 }
 
+jmh {
+    jmhVersion = libs.versions.jmh
+    // the benchmarks only need the test fixtures, the test classpath would overflow the jar
+    includeTests = false
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    profilers = listOf("gc")
+    // e.g. `-Pjmh.includes=BuilderBenchmark` to run a single suite
+    includes = providers.gradleProperty("jmh.includes").map { listOf(it) }.orElse(listOf())
+}
+
+// JMH generated code does not follow the NullAway contract of this project
+tasks.named<JavaCompile>("compileJmhJava") { options.errorprone.enabled = false }
+
+// Runs JMH for minutes, so it is deliberately not part of `check`: run it by hand after changing
+// the code generated for `@Builder(sealed = true)`.
+tasks.register<JavaExec>("jmhAllocationCheck") {
+    group = "benchmark"
+    description = "Verifies that builders generated in sealed mode are scalar-replaced."
+
+    // the fat jar contains the benchmarks generated by JMH and their dependencies
+    classpath(tasks.named("jmhJar"))
+    mainClass = "io.github.iyanging.crafter.benchmark.AllocationCheck"
+}
+
+val jmhBaselineFile = layout.projectDirectory.file("src/jmh/baseline/results.json")
+
+tasks.register<Copy>("jmhSaveBaseline") {
+    group = "benchmark"
+    description = "Stores the latest JMH results as the baseline of `jmhCompareBaseline`."
+
+    val baselineName = jmhBaselineFile.asFile.name
+
+    from(jmh.resultsFile)
+    into(jmhBaselineFile.asFile.parentFile)
+    rename { baselineName }
+}
+
+tasks.register("jmhCompareBaseline") {
+    group = "benchmark"
+    description = "Fails if the latest JMH results regressed more than 10% against the baseline."
+
+    val baselineFile = jmhBaselineFile.asFile
+    val resultsFile = jmh.resultsFile.map { it.asFile }
+    val tolerance = 0.10
+
+    doLast {
+        if (!baselineFile.exists()) {
+            logger.warn(
+                "No JMH baseline at $baselineFile, skipping the comparison. " +
+                    "Run `jmh` and `jmhSaveBaseline` to record one."
+            )
+            return@doLast
+        }
+
+        fun load(file: File): Map<String, Map<String, Any?>> {
+            @Suppress("UNCHECKED_CAST")
+            val results = JsonSlurper().parse(file) as List<Map<String, Any?>>
+
+            return results.associateBy { "${it["benchmark"]}${it["params"] ?: ""}" }
+        }
+
+        fun score(result: Map<String, Any?>, metric: String?): Double? {
+            @Suppress("UNCHECKED_CAST")
+            val measured =
+                if (metric == null) {
+                    result["primaryMetric"]
+                } else {
+                    (result["secondaryMetrics"] as Map<String, Any?>)
+                        .entries
+                        .firstOrNull { it.key.endsWith(metric) }
+                        ?.value
+                } as Map<String, Any?>?
+
+            return (measured?.get("score") as Number?)?.toDouble()
+        }
+
+        val baseline = load(baselineFile)
+        val current = load(resultsFile.get())
+
+        val regressions =
+            current.flatMap { (key, result) ->
+                val base = baseline[key] ?: return@flatMap emptyList()
+                val messages = mutableListOf<String>()
+
+                // throughput: higher is better
+                val baseScore = score(base, null)
+                val currentScore = score(result, null)
+                if (baseScore != null && currentScore != null) {
+                    if (currentScore < baseScore * (1 - tolerance)) {
+                        messages += "$key throughput $baseScore -> $currentScore"
+                    }
+                }
+
+                // allocation per operation: lower is better
+                val baseAlloc = score(base, "gc.alloc.rate.norm")
+                val currentAlloc = score(result, "gc.alloc.rate.norm")
+                if (baseAlloc != null && currentAlloc != null) {
+                    if (currentAlloc > baseAlloc * (1 + tolerance) + 1) {
+                        messages += "$key allocation $baseAlloc -> $currentAlloc B/op"
+                    }
+                }
+
+                messages
+            }
+
+        if (regressions.isNotEmpty()) {
+            throw GradleException(
+                "JMH regressions against baseline:\n" + regressions.joinToString("\n")
+            )
+        }
+    }
+}
+
 tasks.jacocoTestReport {
     dependsOn(tasks.test)
 
@@ -87,6 +215,17 @@ tasks.jacocoTestReport {
 
 tasks.check { dependsOn(tasks.jacocoTestReport) }
 
+// the in-memory compiler shared by the tests and the benchmarks is not published
+val javaComponent = components["java"] as AdhocComponentWithVariants
+
+javaComponent.withVariantsFromConfiguration(configurations.testFixturesApiElements.get()) {
+    skip()
+}
+
+javaComponent.withVariantsFromConfiguration(configurations.testFixturesRuntimeElements.get()) {
+    skip()
+}
+
 publishing {
     publications {
         create<MavenPublication>("library") {
@@ -0,0 +1,95 @@
+package io.github.iyanging.crafter.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+
+/**
+ * Run {@link SealedBuilderBenchmark} with the {@link GCProfiler}, and fail if any builder
+ * allocates more per operation than the constructor it wraps, which means the builder was not
+ * scalar-replaced.
+ *
+ * <p>It is not wired into {@code check}, run it manually with {@code ./gradlew jmhAllocationCheck}.
+ */
+public class AllocationCheck {
+    private static final String ALLOC_RATE_NORM = "gc.alloc.rate.norm";
+
+    private static final String BUILDER_SUFFIX = "Builder";
+    private static final String CONSTRUCTOR_SUFFIX = "Constructor";
+
+    // bytes per operation, tolerates the rounding of the profiler
+    private static final double TOLERANCE = 1.0;
+
+    private AllocationCheck() {}
+
+    public static void main(String[] args) throws RunnerException {
+        final var options = new OptionsBuilder()
+            .include(SealedBuilderBenchmark.class.getName())
+            .addProfiler(GCProfiler.class)
+            .build();
+
+        final var allocations = new HashMap<String, Double>();
+        for (final var result : new Runner(options).run()) {
+            allocations.put(
+                benchmarkName(result),
+                allocationPerOperation(result)
+            );
+        }
+
+        final var failures = new ArrayList<String>();
+        for (final Map.Entry<String, Double> entry : allocations.entrySet()) {
+            final var name = entry.getKey();
+            if (! name.endsWith(BUILDER_SUFFIX)) {
+                continue;
+            }
+
+            final var baseName = name.substring(0, name.length() - BUILDER_SUFFIX.length());
+            final var constructorAllocation = allocations.get(baseName + CONSTRUCTOR_SUFFIX);
+
+            if (constructorAllocation == null) {
+                throw new IllegalStateException(
+                    "%s has no constructor counterpart".formatted(name)
+                );
+            }
+
+            if (entry.getValue() > constructorAllocation + TOLERANCE) {
+                failures.add(
+                    "%s allocates %.1f B/op while the constructor allocates %.1f B/op"
+                        .formatted(name, entry.getValue(), constructorAllocation)
+                );
+            }
+        }
+
+        if (! failures.isEmpty()) {
+            throw new IllegalStateException(
+                "Builder allocations survived:\n" + String.join("\n", failures)
+            );
+        }
+    }
+
+    private static String benchmarkName(RunResult result) {
+        final var benchmark = result.getParams().getBenchmark();
+        return benchmark.substring(benchmark.lastIndexOf('.') + 1);
+    }
+
+    private static double allocationPerOperation(RunResult result) {
+        return result.getSecondaryResults()
+            .entrySet()
+            .stream()
+            .filter(e -> e.getKey().endsWith(ALLOC_RATE_NORM))
+            .map(e -> e.getValue().getScore())
+            .findFirst()
+            .orElseThrow(
+                () -> new IllegalStateException(
+                    "%s was not reported for %s".formatted(ALLOC_RATE_NORM, benchmarkName(result))
+                )
+            );
+    }
+}
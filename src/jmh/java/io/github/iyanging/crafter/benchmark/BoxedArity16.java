@@ -0,0 +1,24 @@
+package io.github.iyanging.crafter.benchmark;
+
+import io.github.iyanging.crafter.Builder;
+
+
+@Builder
+public record BoxedArity16(
+    Integer p0,
+    Integer p1,
+    Integer p2,
+    Integer p3,
+    Integer p4,
+    Integer p5,
+    Integer p6,
+    Integer p7,
+    Integer p8,
+    Integer p9,
+    Integer p10,
+    Integer p11,
+    Integer p12,
+    Integer p13,
+    Integer p14,
+    Integer p15
+) {}
@@ -0,0 +1,12 @@
+package io.github.iyanging.crafter.benchmark;
+
+import io.github.iyanging.crafter.Builder;
+
+
+@Builder
+public record BoxedArity4(
+    Integer p0,
+    Integer p1,
+    Integer p2,
+    Integer p3
+) {}
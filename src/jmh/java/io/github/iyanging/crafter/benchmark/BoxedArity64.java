@@ -0,0 +1,72 @@
+package io.github.iyanging.crafter.benchmark;
+
+import io.github.iyanging.crafter.Builder;
+
+
+@Builder
+public record BoxedArity64(
+    Integer p0,
+    Integer p1,
+    Integer p2,
+    Integer p3,
+    Integer p4,
+    Integer p5,
+    Integer p6,
+    Integer p7,
+    Integer p8,
+    Integer p9,
+    Integer p10,
+    Integer p11,
+    Integer p12,
+    Integer p13,
+    Integer p14,
+    Integer p15,
+    Integer p16,
+    Integer p17,
+    Integer p18,
+    Integer p19,
+    Integer p20,
+    Integer p21,
+    Integer p22,
+    Integer p23,
+    Integer p24,
+    Integer p25,
+    Integer p26,
+    Integer p27,
+    Integer p28,
+    Integer p29,
+    Integer p30,
+    Integer p31,
+    Integer p32,
+    Integer p33,
+    Integer p34,
+    Integer p35,
+    Integer p36,
+    Integer p37,
+    Integer p38,
+    Integer p39,
+    Integer p40,
+    Integer p41,
+    Integer p42,
+    Integer p43,
+    Integer p44,
+    Integer p45,
+    Integer p46,
+    Integer p47,
+    Integer p48,
+    Integer p49,
+    Integer p50,
+    Integer p51,
+    Integer p52,
+    Integer p53,
+    Integer p54,
+    Integer p55,
+    Integer p56,
+    Integer p57,
+    Integer p58,
+    Integer p59,
+    Integer p60,
+    Integer p61,
+    Integer p62,
+    Integer p63
+) {}
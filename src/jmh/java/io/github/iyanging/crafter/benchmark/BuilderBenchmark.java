@@ -0,0 +1,464 @@
+package io.github.iyanging.crafter.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/**
+ * Compare the runtime cost of the generated builders with calling the constructor directly.
+ *
+ * <p>Run with {@code ./gradlew jmh}, which also enables the {@code gc} profiler to report the
+ * allocation rate of each benchmark.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuilderBenchmark {
+    // read from non-final fields, so that the JIT cannot constant-fold the arguments
+    int value = 42;
+    Integer boxed = 4242;
+    String name = "name";
+    List<String> names = List.of("a", "b", "c");
+
+    @Benchmark
+    public PrimitiveArity1 primitiveArity1Constructor() {
+        return new PrimitiveArity1(value);
+    }
+
+    @Benchmark
+    public PrimitiveArity1 primitiveArity1Builder() {
+        return PrimitiveArity1Builder.builder()
+            .p0(value)
+            .build();
+    }
+
+    @Benchmark
+    public PrimitiveArity4 primitiveArity4Constructor() {
+        return new PrimitiveArity4(value, value, value, value);
+    }
+
+    @Benchmark
+    public PrimitiveArity4 primitiveArity4Builder() {
+        return PrimitiveArity4Builder.builder()
+            .p0(value)
+            .p1(value)
+            .p2(value)
+            .p3(value)
+            .build();
+    }
+
+    @Benchmark
+    public PrimitiveArity16 primitiveArity16Constructor() {
+        return new PrimitiveArity16(
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value
+        );
+    }
+
+    @Benchmark
+    public PrimitiveArity16 primitiveArity16Builder() {
+        return PrimitiveArity16Builder.builder()
+            .p0(value)
+            .p1(value)
+            .p2(value)
+            .p3(value)
+            .p4(value)
+            .p5(value)
+            .p6(value)
+            .p7(value)
+            .p8(value)
+            .p9(value)
+            .p10(value)
+            .p11(value)
+            .p12(value)
+            .p13(value)
+            .p14(value)
+            .p15(value)
+            .build();
+    }
+
+    @Benchmark
+    public PrimitiveArity64 primitiveArity64Constructor() {
+        return new PrimitiveArity64(
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value
+        );
+    }
+
+    @Benchmark
+    public PrimitiveArity64 primitiveArity64Builder() {
+        return PrimitiveArity64Builder.builder()
+            .p0(value)
+            .p1(value)
+            .p2(value)
+            .p3(value)
+            .p4(value)
+            .p5(value)
+            .p6(value)
+            .p7(value)
+            .p8(value)
+            .p9(value)
+            .p10(value)
+            .p11(value)
+            .p12(value)
+            .p13(value)
+            .p14(value)
+            .p15(value)
+            .p16(value)
+            .p17(value)
+            .p18(value)
+            .p19(value)
+            .p20(value)
+            .p21(value)
+            .p22(value)
+            .p23(value)
+            .p24(value)
+            .p25(value)
+            .p26(value)
+            .p27(value)
+            .p28(value)
+            .p29(value)
+            .p30(value)
+            .p31(value)
+            .p32(value)
+            .p33(value)
+            .p34(value)
+            .p35(value)
+            .p36(value)
+            .p37(value)
+            .p38(value)
+            .p39(value)
+            .p40(value)
+            .p41(value)
+            .p42(value)
+            .p43(value)
+            .p44(value)
+            .p45(value)
+            .p46(value)
+            .p47(value)
+            .p48(value)
+            .p49(value)
+            .p50(value)
+            .p51(value)
+            .p52(value)
+            .p53(value)
+            .p54(value)
+            .p55(value)
+            .p56(value)
+            .p57(value)
+            .p58(value)
+            .p59(value)
+            .p60(value)
+            .p61(value)
+            .p62(value)
+            .p63(value)
+            .build();
+    }
+
+    @Benchmark
+    public BoxedArity1 boxedArity1Constructor() {
+        return new BoxedArity1(boxed);
+    }
+
+    @Benchmark
+    public BoxedArity1 boxedArity1Builder() {
+        return BoxedArity1Builder.builder()
+            .p0(boxed)
+            .build();
+    }
+
+    @Benchmark
+    public BoxedArity4 boxedArity4Constructor() {
+        return new BoxedArity4(boxed, boxed, boxed, boxed);
+    }
+
+    @Benchmark
+    public BoxedArity4 boxedArity4Builder() {
+        return BoxedArity4Builder.builder()
+            .p0(boxed)
+            .p1(boxed)
+            .p2(boxed)
+            .p3(boxed)
+            .build();
+    }
+
+    @Benchmark
+    public BoxedArity16 boxedArity16Constructor() {
+        return new BoxedArity16(
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed
+        );
+    }
+
+    @Benchmark
+    public BoxedArity16 boxedArity16Builder() {
+        return BoxedArity16Builder.builder()
+            .p0(boxed)
+            .p1(boxed)
+            .p2(boxed)
+            .p3(boxed)
+            .p4(boxed)
+            .p5(boxed)
+            .p6(boxed)
+            .p7(boxed)
+            .p8(boxed)
+            .p9(boxed)
+            .p10(boxed)
+            .p11(boxed)
+            .p12(boxed)
+            .p13(boxed)
+            .p14(boxed)
+            .p15(boxed)
+            .build();
+    }
+
+    @Benchmark
+    public BoxedArity64 boxedArity64Constructor() {
+        return new BoxedArity64(
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed,
+            boxed
+        );
+    }
+
+    @Benchmark
+    public BoxedArity64 boxedArity64Builder() {
+        return BoxedArity64Builder.builder()
+            .p0(boxed)
+            .p1(boxed)
+            .p2(boxed)
+            .p3(boxed)
+            .p4(boxed)
+            .p5(boxed)
+            .p6(boxed)
+            .p7(boxed)
+            .p8(boxed)
+            .p9(boxed)
+            .p10(boxed)
+            .p11(boxed)
+            .p12(boxed)
+            .p13(boxed)
+            .p14(boxed)
+            .p15(boxed)
+            .p16(boxed)
+            .p17(boxed)
+            .p18(boxed)
+            .p19(boxed)
+            .p20(boxed)
+            .p21(boxed)
+            .p22(boxed)
+            .p23(boxed)
+            .p24(boxed)
+            .p25(boxed)
+            .p26(boxed)
+            .p27(boxed)
+            .p28(boxed)
+            .p29(boxed)
+            .p30(boxed)
+            .p31(boxed)
+            .p32(boxed)
+            .p33(boxed)
+            .p34(boxed)
+            .p35(boxed)
+            .p36(boxed)
+            .p37(boxed)
+            .p38(boxed)
+            .p39(boxed)
+            .p40(boxed)
+            .p41(boxed)
+            .p42(boxed)
+            .p43(boxed)
+            .p44(boxed)
+            .p45(boxed)
+            .p46(boxed)
+            .p47(boxed)
+            .p48(boxed)
+            .p49(boxed)
+            .p50(boxed)
+            .p51(boxed)
+            .p52(boxed)
+            .p53(boxed)
+            .p54(boxed)
+            .p55(boxed)
+            .p56(boxed)
+            .p57(boxed)
+            .p58(boxed)
+            .p59(boxed)
+            .p60(boxed)
+            .p61(boxed)
+            .p62(boxed)
+            .p63(boxed)
+            .build();
+    }
+
+    @Benchmark
+    public Entity<String> genericConstructor() {
+        return new Entity<>(name, names, name, value);
+    }
+
+    @Benchmark
+    public Entity<String> genericBuilder() {
+        return EntityBuilder.<String>builder()
+            .value(name)
+            .values(names)
+            .name(name)
+            .id(value)
+            .build();
+    }
+}
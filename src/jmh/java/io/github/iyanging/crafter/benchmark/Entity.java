@@ -0,0 +1,14 @@
+package io.github.iyanging.crafter.benchmark;
+
+import java.util.List;
+
+import io.github.iyanging.crafter.Builder;
+
+
+@Builder
+public record Entity<T>(
+    T value,
+    List<T> values,
+    String name,
+    int id
+) {}
@@ -0,0 +1,61 @@
+package io.github.iyanging.crafter.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.github.iyanging.crafter.runtime.JsonReader;
+import io.github.iyanging.crafter.runtime.JsonWriter;
+import org.openjdk.jmh.annotations.*;
+
+
+/**
+ * Compare the generated {@code JsonOrderJson} with a reflection-based databinder, both reading
+ * and writing through the same {@code JsonReader} and {@code JsonWriter}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+    private final ReflectiveJson<JsonOrder> reflectiveJson = new ReflectiveJson<>(JsonOrder.class);
+
+    // read from non-final fields, so that the JIT cannot constant-fold the inputs
+    JsonOrder order = new JsonOrder(
+        42L,
+        "customer",
+        3,
+        19.99,
+        true,
+        List.of("express", "gift")
+    );
+    String json = JsonOrderJson.toJson(order);
+
+    @Benchmark
+    public JsonOrder readGenerated() {
+        return JsonOrderJson.fromJson(json);
+    }
+
+    @Benchmark
+    public JsonOrder readReflective() {
+        final var reader = new JsonReader(json);
+        final var target = reflectiveJson.read(reader);
+        reader.endDocument();
+
+        return target;
+    }
+
+    @Benchmark
+    public String writeGenerated() {
+        return JsonOrderJson.toJson(order);
+    }
+
+    @Benchmark
+    public String writeReflective() {
+        final var writer = new JsonWriter();
+        reflectiveJson.write(writer, order);
+
+        return writer.toString();
+    }
+}
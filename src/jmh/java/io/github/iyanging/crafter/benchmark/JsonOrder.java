@@ -0,0 +1,16 @@
+package io.github.iyanging.crafter.benchmark;
+
+import java.util.List;
+
+import io.github.iyanging.crafter.Builder;
+
+
+@Builder(json = true)
+public record JsonOrder(
+    long id,
+    String customer,
+    int quantity,
+    double price,
+    boolean paid,
+    List<String> tags
+) {}
@@ -0,0 +1,9 @@
+package io.github.iyanging.crafter.benchmark;
+
+import io.github.iyanging.crafter.Builder;
+
+
+@Builder
+public record PrimitiveArity1(
+    int p0
+) {}
@@ -0,0 +1,12 @@
+package io.github.iyanging.crafter.benchmark;
+
+import io.github.iyanging.crafter.Builder;
+
+
+@Builder
+public record PrimitiveArity4(
+    int p0,
+    int p1,
+    int p2,
+    int p3
+) {}
@@ -0,0 +1,61 @@
+package io.github.iyanging.crafter.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+
+import com.sun.source.util.TaskEvent;
+import com.sun.source.util.TaskListener;
+
+
+/**
+ * Measure the annotation processing phase of javac, which spans all processing rounds.
+ */
+public class ProcessingListener implements TaskListener {
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final List<MemoryPoolMXBean> HEAP_POOLS = ManagementFactory
+        .getMemoryPoolMXBeans()
+        .stream()
+        .filter(pool -> pool.getType() == MemoryType.HEAP)
+        .toList();
+
+    private long startNanos;
+    private long startAllocatedBytes;
+
+    private long processingNanos;
+    private long allocatedBytes;
+    private long peakHeapBytes;
+
+    @Override
+    public void started(TaskEvent e) {
+        if (e.getKind() == TaskEvent.Kind.ANNOTATION_PROCESSING) {
+            HEAP_POOLS.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+            startAllocatedBytes = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+            startNanos = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void finished(TaskEvent e) {
+        if (e.getKind() == TaskEvent.Kind.ANNOTATION_PROCESSING) {
+            processingNanos = System.nanoTime() - startNanos;
+            allocatedBytes = THREAD_MX_BEAN.getCurrentThreadAllocatedBytes() - startAllocatedBytes;
+            peakHeapBytes = HEAP_POOLS.stream()
+                .mapToLong(pool -> pool.getPeakUsage().getUsed())
+                .sum();
+        }
+    }
+
+    /** Wall time of the processing phase. */
+    public long processingNanos() { return processingNanos; }
+
+    /** Bytes allocated by the compiling thread during processing. */
+    public long allocatedBytes() { return allocatedBytes; }
+
+    /** Peak heap usage observed during processing. */
+    public long peakHeapBytes() { return peakHeapBytes; }
+}
@@ -0,0 +1,107 @@
+package io.github.iyanging.crafter.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import io.github.iyanging.crafter.Crafter;
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+
+
+/**
+ * Compile synthetic corpora of {@code @Builder} annotated types with {@link Crafter} in process.
+ *
+ * <p>The primary score is the wall time of the whole compilation, while the
+ * {@link ProcessingCounters} isolate the annotation processing phase, so that the scaling of the
+ * processor over the number of types, their arity and their type parameters can be observed.
+ *
+ * <p>The full parameter matrix takes a long time, select a subset with JMH's {@code -p}, e.g.
+ * {@code -p typeCount=1000 -p arity=50 -p aggregate=false,true}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx8g" })
+public class ProcessorBenchmark {
+    @Param({ "100", "1000", "10000", "50000" })
+    public int typeCount;
+
+    @Param({ "1", "10", "50", "200" })
+    public int arity;
+
+    @Param({ "0", "4" })
+    public int typeParameterCount;
+
+    /**
+     * Whether to nest the builders into one {@code Builders} per package, see
+     * {@link Crafter#OPTION_AGGREGATE}, to compare the javac time against one file per type.
+     */
+    @Param({ "false", "true" })
+    public boolean aggregate;
+
+    /**
+     * How builders are generated, see {@link Crafter#OPTION_BACKEND}, to compare the javac time of
+     * class files written directly against generated sources.
+     */
+    @Param({ "source", "bytecode" })
+    public String backend = "source";
+
+    private Map<String, String> sources = Map.of();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sources = SyntheticCorpus.generate(typeCount, arity, typeParameterCount);
+    }
+
+    /**
+     * Measurement of the annotation processing phase of each compilation, reported besides the
+     * primary score.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ProcessingCounters {
+        public long processingMillis;
+        public long processingAllocatedMegabytes;
+        public long processingPeakHeapMegabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            processingMillis = 0;
+            processingAllocatedMegabytes = 0;
+            processingPeakHeapMegabytes = 0;
+        }
+
+        void record(ProcessingListener listener) {
+            processingMillis += TimeUnit.NANOSECONDS.toMillis(listener.processingNanos());
+            processingAllocatedMegabytes += listener.allocatedBytes() >> 20;
+            processingPeakHeapMegabytes += listener.peakHeapBytes() >> 20;
+        }
+    }
+
+    @Benchmark
+    public InMemoryCompiler.Result compile(ProcessingCounters counters) {
+        final var listener = new ProcessingListener();
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(
+                "-nowarn",
+                "-A%s=%s".formatted(Crafter.OPTION_AGGREGATE, aggregate),
+                "-A%s=%s".formatted(Crafter.OPTION_BACKEND, backend)
+            ),
+            sources,
+            List.of(listener)
+        );
+
+        if (! result.success()) {
+            throw new IllegalStateException("Synthetic corpus failed to compile");
+        }
+
+        counters.record(listener);
+
+        return result;
+    }
+}
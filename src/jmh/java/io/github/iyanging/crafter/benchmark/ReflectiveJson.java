@@ -0,0 +1,163 @@
+package io.github.iyanging.crafter.benchmark;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.iyanging.crafter.runtime.JsonReader;
+import io.github.iyanging.crafter.runtime.JsonWriter;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Reflection-based databinder of records, the way a general-purpose JSON library binds them,
+ * as the baseline of {@link JsonBenchmark}.
+ * <p>
+ * The record metadata is resolved once, and the same {@code JsonReader} and {@code JsonWriter}
+ * are used as by the generated {@code XxxJson}, so only the binding itself is compared.
+ */
+final class ReflectiveJson<T extends Record> {
+    private final RecordComponent[] components;
+    private final Map<String, Integer> indexMap = new HashMap<>();
+    private final Constructor<T> constructor;
+
+    ReflectiveJson(Class<T> recordClass) {
+        components = recordClass.getRecordComponents();
+
+        final var parameterTypes = new Class<?>[components.length];
+
+        for (var i = 0; i < components.length; i++) {
+            indexMap.put(components[i].getName(), i);
+            parameterTypes[i] = components[i].getType();
+        }
+
+        try {
+            constructor = recordClass.getDeclaredConstructor(parameterTypes);
+
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    T read(JsonReader reader) {
+        final var arguments = new @Nullable Object[components.length];
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final var index = indexMap.get(reader.nextName());
+
+            if (index == null) {
+                reader.skipValue();
+
+            } else {
+                arguments[index] = readValue(reader, components[index]);
+            }
+        }
+        reader.endObject();
+
+        try {
+            return constructor.newInstance(arguments);
+
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    void write(JsonWriter writer, T target) {
+        writer.beginObject();
+
+        for (final var component : components) {
+            final Object value;
+
+            try {
+                value = component.getAccessor().invoke(target);
+
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException(e);
+            }
+
+            writer.name(component.getName());
+            writeValue(writer, value);
+        }
+
+        writer.endObject();
+    }
+
+    private static @Nullable Object readValue(JsonReader reader, RecordComponent component) {
+        final var type = component.getType();
+
+        if (type == List.class) {
+            final var elementType = ((ParameterizedType) component.getGenericType())
+                .getActualTypeArguments()[0];
+
+            if (elementType != String.class) {
+                throw new UnsupportedOperationException(component.toString());
+            }
+
+            final var list = new ArrayList<@Nullable Object>();
+
+            reader.beginArray();
+            while (reader.hasNext()) {
+                list.add(reader.nextIfNull() ? null : reader.nextString());
+            }
+            reader.endArray();
+
+            return Collections.unmodifiableList(list);
+        }
+
+        return readScalar(reader, type);
+    }
+
+    private static @Nullable Object readScalar(JsonReader reader, Class<?> type) {
+        if (type == long.class) {
+            return reader.nextLong();
+
+        } else if (type == int.class) {
+            return reader.nextInt();
+
+        } else if (type == double.class) {
+            return reader.nextDouble();
+
+        } else if (type == boolean.class) {
+            return reader.nextBoolean();
+
+        } else if (type == String.class) {
+            return reader.nextIfNull() ? null : reader.nextString();
+        }
+
+        throw new UnsupportedOperationException(type.getName());
+    }
+
+    private static void writeValue(JsonWriter writer, @Nullable Object value) {
+        if (value == null) {
+            writer.nullValue();
+
+        } else if (value instanceof String string) {
+            writer.value(string);
+
+        } else if (value instanceof Number number) {
+            writer.value(number);
+
+        } else if (value instanceof Boolean bool) {
+            writer.value(bool);
+
+        } else if (value instanceof List<?> list) {
+            writer.beginArray();
+
+            for (final var element : list) {
+                writeValue(writer, element);
+            }
+
+            writer.endArray();
+
+        } else {
+            throw new UnsupportedOperationException(value.getClass().getName());
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.iyanging.crafter.benchmark;
+
+import io.github.iyanging.crafter.Builder;
+
+
+@Builder(sealed = true)
+public record SealedArity16(
+    int p0,
+    int p1,
+    int p2,
+    int p3,
+    int p4,
+    int p5,
+    int p6,
+    int p7,
+    int p8,
+    int p9,
+    int p10,
+    int p11,
+    int p12,
+    int p13,
+    int p14,
+    int p15
+) {}
@@ -0,0 +1,233 @@
+package io.github.iyanging.crafter.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+
+/**
+ * Builders generated with {@code @Builder(sealed = true)} should be scalar-replaced, so that
+ * each {@code *Builder} benchmark allocates exactly as much as its {@code *Constructor}
+ * counterpart, which is verified by {@link AllocationCheck}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SealedBuilderBenchmark {
+    // read from a non-final field, so that the JIT cannot constant-fold the arguments
+    int value = 42;
+
+    @Benchmark
+    public SealedArity1 arity1Constructor() {
+        return new SealedArity1(value);
+    }
+
+    @Benchmark
+    public SealedArity1 arity1Builder() {
+        return SealedArity1Builder.builder()
+            .p0(value)
+            .build();
+    }
+
+    @Benchmark
+    public SealedArity4 arity4Constructor() {
+        return new SealedArity4(value, value, value, value);
+    }
+
+    @Benchmark
+    public SealedArity4 arity4Builder() {
+        return SealedArity4Builder.builder()
+            .p0(value)
+            .p1(value)
+            .p2(value)
+            .p3(value)
+            .build();
+    }
+
+    @Benchmark
+    public SealedArity16 arity16Constructor() {
+        return new SealedArity16(
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value
+        );
+    }
+
+    @Benchmark
+    public SealedArity16 arity16Builder() {
+        return SealedArity16Builder.builder()
+            .p0(value)
+            .p1(value)
+            .p2(value)
+            .p3(value)
+            .p4(value)
+            .p5(value)
+            .p6(value)
+            .p7(value)
+            .p8(value)
+            .p9(value)
+            .p10(value)
+            .p11(value)
+            .p12(value)
+            .p13(value)
+            .p14(value)
+            .p15(value)
+            .build();
+    }
+
+    @Benchmark
+    public SealedArity64 arity64Constructor() {
+        return new SealedArity64(
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value,
+            value
+        );
+    }
+
+    @Benchmark
+    public SealedArity64 arity64Builder() {
+        return SealedArity64Builder.builder()
+            .p0(value)
+            .p1(value)
+            .p2(value)
+            .p3(value)
+            .p4(value)
+            .p5(value)
+            .p6(value)
+            .p7(value)
+            .p8(value)
+            .p9(value)
+            .p10(value)
+            .p11(value)
+            .p12(value)
+            .p13(value)
+            .p14(value)
+            .p15(value)
+            .p16(value)
+            .p17(value)
+            .p18(value)
+            .p19(value)
+            .p20(value)
+            .p21(value)
+            .p22(value)
+            .p23(value)
+            .p24(value)
+            .p25(value)
+            .p26(value)
+            .p27(value)
+            .p28(value)
+            .p29(value)
+            .p30(value)
+            .p31(value)
+            .p32(value)
+            .p33(value)
+            .p34(value)
+            .p35(value)
+            .p36(value)
+            .p37(value)
+            .p38(value)
+            .p39(value)
+            .p40(value)
+            .p41(value)
+            .p42(value)
+            .p43(value)
+            .p44(value)
+            .p45(value)
+            .p46(value)
+            .p47(value)
+            .p48(value)
+            .p49(value)
+            .p50(value)
+            .p51(value)
+            .p52(value)
+            .p53(value)
+            .p54(value)
+            .p55(value)
+            .p56(value)
+            .p57(value)
+            .p58(value)
+            .p59(value)
+            .p60(value)
+            .p61(value)
+            .p62(value)
+            .p63(value)
+            .build();
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.iyanging.crafter.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+
+/**
+ * Generate sources of {@code @Builder} annotated classes and records.
+ */
+public class SyntheticCorpus {
+    private static final int TYPES_PER_PACKAGE = 1000;
+
+    private static final String[] CONCRETE_TYPES = {
+        "int",
+        "String",
+        "long",
+        "java.util.List<String>",
+        "Integer",
+        "java.util.Map<String, Long>",
+    };
+
+    private SyntheticCorpus() {}
+
+    /**
+     * @param typeCount          number of annotated types, half classes and half records
+     * @param arity              number of creator parameters of each type
+     * @param typeParameterCount number of type parameters of each type, used by some parameters
+     * @return qualified class name to source code
+     */
+    public static Map<String, String> generate(int typeCount, int arity, int typeParameterCount) {
+        final var sources = new LinkedHashMap<String, String>();
+
+        for (var i = 0; i < typeCount; i++) {
+            final var packageName = "corpus.p" + (i / TYPES_PER_PACKAGE);
+            final var isRecord = i % 2 == 0;
+            final var typeName = (isRecord ? "Record" : "Class") + i;
+
+            final var source = isRecord
+                ? makeRecord(packageName, typeName, arity, typeParameterCount)
+                : makeClass(packageName, typeName, arity, typeParameterCount);
+
+            sources.put(packageName + "." + typeName, source);
+        }
+
+        return sources;
+    }
+
+    private static String makeRecord(
+        String packageName,
+        String typeName,
+        int arity,
+        int typeParameterCount
+    ) {
+        return """
+            package %s;
+
+            @io.github.iyanging.crafter.Builder
+            public record %s%s(%s) {}
+            """.formatted(
+            packageName,
+            typeName,
+            makeTypeParameters(typeParameterCount),
+            makeParameters(arity, typeParameterCount)
+        );
+    }
+
+    private static String makeClass(
+        String packageName,
+        String typeName,
+        int arity,
+        int typeParameterCount
+    ) {
+        final var fields = IntStream.range(0, arity)
+            .mapToObj(
+                i -> "    private final %s p%d;\n".formatted(makeType(i, typeParameterCount), i)
+            )
+            .collect(Collectors.joining());
+
+        final var assignments = IntStream.range(0, arity)
+            .mapToObj(i -> "        this.p%1$d = p%1$d;\n".formatted(i))
+            .collect(Collectors.joining());
+
+        return """
+            package %1$s;
+
+            @io.github.iyanging.crafter.Builder
+            public class %2$s%3$s {
+            %4$s
+                public %2$s(%5$s) {
+            %6$s    }
+            }
+            """.formatted(
+            packageName,
+            typeName,
+            makeTypeParameters(typeParameterCount),
+            fields,
+            makeParameters(arity, typeParameterCount),
+            assignments
+        );
+    }
+
+    private static String makeTypeParameters(int typeParameterCount) {
+        if (typeParameterCount == 0) {
+            return "";
+        }
+
+        return IntStream.range(0, typeParameterCount)
+            .mapToObj(i -> "T" + i)
+            .collect(Collectors.joining(", ", "<", ">"));
+    }
+
+    private static String makeParameters(int arity, int typeParameterCount) {
+        return IntStream.range(0, arity)
+            .mapToObj(i -> makeType(i, typeParameterCount) + " p" + i)
+            .collect(Collectors.joining(", "));
+    }
+
+    private static String makeType(int parameterIndex, int typeParameterCount) {
+        // every third parameter uses a type parameter, if there is any
+        if (typeParameterCount > 0 && parameterIndex % 3 == 0) {
+            return "T" + ((parameterIndex / 3) % typeParameterCount);
+        }
+
+        return CONCRETE_TYPES[parameterIndex % CONCRETE_TYPES.length];
+    }
+}
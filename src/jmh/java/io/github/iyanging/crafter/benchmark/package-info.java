@@ -0,0 +1,4 @@
+@NullMarked
+package io.github.iyanging.crafter.benchmark;
+
+import org.jspecify.annotations.NullMarked;
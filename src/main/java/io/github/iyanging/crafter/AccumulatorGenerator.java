@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.util.*;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+import com.palantir.javapoet.*;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Generate the accumulators of {@link Builder.Accumulate} parameters, which collect elements into
+ * a mutable collection owned by the builder.
+ * <p>
+ * {@code build()} hands the collection to the creator through {@code List.copyOf()},
+ * {@code Set.copyOf()} or {@code Map.copyOf()}, so the target gets an immutable collection,
+ * whose own defensive {@code copyOf()} is a no-op, and an immutable collection set as a whole is
+ * not copied at all.
+ */
+class AccumulatorGenerator {
+    private enum Kind {
+        LIST(List.class, ArrayList.class, "add"),
+        SET(Set.class, HashSet.class, "add"),
+        MAP(Map.class, HashMap.class, "put");
+
+        final Class<?> interfaceClass;
+        final Class<?> accumulatorClass;
+        final String verb;
+
+        Kind(Class<?> interfaceClass, Class<?> accumulatorClass, String verb) {
+            this.interfaceClass = interfaceClass;
+            this.accumulatorClass = accumulatorClass;
+            this.verb = verb;
+        }
+    }
+
+    private static final String ACCUMULATOR_SUFFIX = "Accumulator";
+
+    private final ProcessingEnvironment processingEnv;
+    private final ExecutableElement creator;
+
+    AccumulatorGenerator(ProcessingEnvironment processingEnv, ExecutableElement creator) {
+        this.processingEnv = processingEnv;
+        this.creator = creator;
+    }
+
+    /**
+     * Report the accumulated parameters which are not a {@code List}, {@code Set} or {@code Map}
+     * of concrete type arguments, and return whether any is reported.
+     */
+    boolean report() {
+        var hasError = false;
+
+        for (final var parameter : creator.getParameters()) {
+            if (isAccumulated(parameter) && findKind(parameter.asType()) == null) {
+                processingEnv.getMessager()
+                    .printMessage(
+                        Diagnostic.Kind.ERROR,
+                        ("Parameter %s of type %s cannot be accumulated, "
+                            + "which must be a List, Set or Map without wildcards")
+                            .formatted(parameter.getSimpleName(), parameter.asType()),
+                        parameter
+                    );
+                hasError = true;
+            }
+        }
+
+        return hasError;
+    }
+
+    static boolean isAccumulated(VariableElement parameter) {
+        return parameter.getAnnotation(Builder.Accumulate.class) != null;
+    }
+
+    /**
+     * Make the empty immutable collection, which is built when nothing is accumulated.
+     */
+    static @Nullable CodeBlock makeEmptyCode(VariableElement parameter) {
+        final var kind = findKind(parameter.asType());
+
+        return kind == null ? null : CodeBlock.of("$T.of()", kind.interfaceClass);
+    }
+
+    /**
+     * Make the immutable copy of {@code valueCode}, which is the value itself if it is already
+     * immutable.
+     */
+    static CodeBlock makeCopyCode(VariableElement parameter, CodeBlock valueCode) {
+        final var kind = Objects.requireNonNull(findKind(parameter.asType()));
+
+        return CodeBlock.of("$T.copyOf($L)", kind.interfaceClass, valueCode);
+    }
+
+    static String makeAccumulatorFieldName(VariableElement parameter) {
+        return Crafter.makeInternalName(parameter.getSimpleName() + ACCUMULATOR_SUFFIX);
+    }
+
+    List<MethodSpec> makeAbstractMethods(VariableElement parameter, TypeName returnTypeName) {
+        return makeSignatures(parameter, returnTypeName).stream()
+            .map(m -> m.addModifiers(Modifier.ABSTRACT).build())
+            .toList();
+    }
+
+    FieldSpec makeAccumulatorField(VariableElement parameter, Modifier fieldModifier) {
+        return FieldSpec.builder(
+            makeAccumulatorTypeName(parameter),
+            makeAccumulatorFieldName(parameter),
+            fieldModifier
+        )
+            .build();
+    }
+
+    List<MethodSpec> makeMethods(
+        VariableElement parameter,
+        TypeName returnTypeName,
+        boolean isOverride
+    ) {
+        final var kind = Objects.requireNonNull(findKind(parameter.asType()));
+        final var accumulateMethodName = Crafter.makeInternalName(
+            "accumulate" + Crafter.makeUpperCamelCase(parameter.getSimpleName().toString())
+        );
+
+        final var signatureList = makeSignatures(parameter, returnTypeName);
+
+        if (isOverride) {
+            signatureList.forEach(s -> s.addAnnotation(Override.class));
+        }
+
+        final var methodList = new ArrayList<MethodSpec>();
+
+        methodList.add(
+            signatureList.get(0)
+                .addStatement(
+                    "$L().$L($L)",
+                    accumulateMethodName,
+                    kind.verb,
+                    kind == Kind.MAP ? "key, value" : "element"
+                )
+                .addStatement("return this")
+                .build()
+        );
+        methodList.add(
+            signatureList.get(1)
+                .addStatement(
+                    "$L().$LAll($L)",
+                    accumulateMethodName,
+                    kind.verb,
+                    kind == Kind.MAP ? "entries" : "elements"
+                )
+                .addStatement("return this")
+                .build()
+        );
+
+        final var accumulatorFieldName = makeAccumulatorFieldName(parameter);
+        final var assignedFlagName = Crafter.makeAssignedFlagName(
+            parameter.getSimpleName().toString()
+        );
+        final var expectedSize = Objects.requireNonNull(
+            parameter.getAnnotation(Builder.Accumulate.class)
+        )
+            .expectedSize();
+
+        // the accumulator is created on the first element, seeded by the collection set as a
+        // whole, and then also held by the field of the parameter
+        methodList.add(
+            MethodSpec.methodBuilder(accumulateMethodName)
+                .addModifiers(Modifier.PRIVATE)
+                .returns(makeAccumulatorTypeName(parameter))
+                .beginControlFlow("if (this.$L == null)", accumulatorFieldName)
+                .addStatement(
+                    "this.$L = $L",
+                    accumulatorFieldName,
+                    makeNewAccumulatorCode(kind, expectedSize)
+                )
+                .beginControlFlow("if (this.$L)", assignedFlagName)
+                .addStatement(
+                    "this.$L.$LAll(this.$L)",
+                    accumulatorFieldName,
+                    kind.verb,
+                    parameter.getSimpleName()
+                )
+                .endControlFlow()
+                .addStatement("this.$L = this.$L", parameter.getSimpleName(), accumulatorFieldName)
+                .addStatement("this.$L = true", assignedFlagName)
+                .endControlFlow()
+                .addStatement("return this.$L", accumulatorFieldName)
+                .build()
+        );
+
+        return methodList;
+    }
+
+    private List<MethodSpec.Builder> makeSignatures(
+        VariableElement parameter,
+        TypeName returnTypeName
+    ) {
+        final var kind = Objects.requireNonNull(findKind(parameter.asType()));
+        final var typeArgumentList = ((DeclaredType) parameter.asType()).getTypeArguments()
+            .stream()
+            .map(TypeName::get)
+            .toList();
+        final var upperCamelName = Crafter.makeUpperCamelCase(
+            parameter.getSimpleName().toString()
+        );
+
+        final var one = MethodSpec.methodBuilder(kind.verb + upperCamelName)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(returnTypeName);
+        final var all = MethodSpec.methodBuilder(kind.verb + "All" + upperCamelName)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(returnTypeName);
+
+        if (kind == Kind.MAP) {
+            one
+                .addParameter(typeArgumentList.get(0), "key")
+                .addParameter(typeArgumentList.get(1), "value");
+            all.addParameter(
+                ParameterizedTypeName.get(
+                    ClassName.get(Map.class),
+                    WildcardTypeName.subtypeOf(typeArgumentList.get(0)),
+                    WildcardTypeName.subtypeOf(typeArgumentList.get(1))
+                ),
+                "entries"
+            );
+
+        } else {
+            one.addParameter(typeArgumentList.get(0), "element");
+            all.addParameter(
+                ParameterizedTypeName.get(
+                    ClassName.get(Collection.class),
+                    WildcardTypeName.subtypeOf(typeArgumentList.get(0))
+                ),
+                "elements"
+            );
+        }
+
+        return List.of(one, all);
+    }
+
+    private static CodeBlock makeNewAccumulatorCode(Kind kind, int expectedSize) {
+        if (expectedSize <= 0) {
+            return CodeBlock.of("new $T<>()", kind.accumulatorClass);
+
+        } else if (kind == Kind.LIST) {
+            return CodeBlock.of("new $T<>($L)", kind.accumulatorClass, expectedSize);
+
+        } else {
+            // sized by the number of elements instead of buckets
+            return CodeBlock.of(
+                "$T.new$L($L)",
+                kind.accumulatorClass,
+                kind.accumulatorClass.getSimpleName(),
+                expectedSize
+            );
+        }
+    }
+
+    private static TypeName makeAccumulatorTypeName(VariableElement parameter) {
+        final var kind = Objects.requireNonNull(findKind(parameter.asType()));
+
+        return ParameterizedTypeName.get(
+            ClassName.get(kind.accumulatorClass),
+            ((DeclaredType) parameter.asType()).getTypeArguments()
+                .stream()
+                .map(TypeName::get)
+                .toArray(TypeName[]::new)
+        );
+    }
+
+    private static @Nullable Kind findKind(TypeMirror type) {
+        if (! (type instanceof DeclaredType declaredType)
+            || declaredType.getTypeArguments().isEmpty()
+            || declaredType.getTypeArguments()
+                .stream()
+                .anyMatch(a -> a.getKind() == TypeKind.WILDCARD)) {
+            return null;
+        }
+
+        final var qualifiedName = ((TypeElement) declaredType.asElement()).getQualifiedName();
+
+        for (final var kind : Kind.values()) {
+            if (qualifiedName.contentEquals(kind.interfaceClass.getCanonicalName())) {
+                return kind;
+            }
+        }
+
+        return null;
+    }
+}
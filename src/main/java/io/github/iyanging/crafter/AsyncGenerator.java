@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.tools.Diagnostic;
+
+import com.palantir.javapoet.*;
+import io.github.iyanging.crafter.runtime.Futures;
+
+
+/**
+ * Generate the {@code Async} staged API of {@link Builder#async()}.
+ */
+class AsyncGenerator {
+    private static final String ASYNC_CLASS_NAME = "Async";
+    private static final String BUILDER_CLASS_NAME = "Builder";
+    private static final String FIRST_STAGE_NAME = "FirstStage";
+    private static final String FINAL_STAGE_NAME = "FinalStage";
+    private static final String BUILD_ASYNC_METHOD_NAME = "buildAsync";
+
+    private static final String EXECUTOR_NAME = Crafter.makeInternalName("executor");
+    private static final String IGNORED_NAME = Crafter.makeInternalName("ignored");
+
+    private final ProcessingEnvironment processingEnv;
+    private final ExecutableElement creator;
+    private final List<TypeVariableName> typeVariableList;
+
+    AsyncGenerator(ProcessingEnvironment processingEnv, ExecutableElement creator) {
+        this.processingEnv = processingEnv;
+        this.creator = creator;
+        this.typeVariableList = Crafter.calcTypeParameters(processingEnv.getTypeUtils(), creator)
+            .stream()
+            .map(TypeVariableName::get)
+            .toList();
+    }
+
+    /**
+     * Report parameters which cannot be set asynchronously, and return whether any is reported.
+     */
+    boolean report() {
+        final var typeUtils = processingEnv.getTypeUtils();
+        final var completionStageType = typeUtils.erasure(
+            processingEnv.getElementUtils()
+                .getTypeElement(CompletionStage.class.getCanonicalName())
+                .asType()
+        );
+
+        var hasError = false;
+
+        for (final var parameter : creator.getParameters()) {
+            final var parameterType = typeUtils.erasure(parameter.asType());
+
+            // both setters would have the same erasure
+            if (typeUtils.isAssignable(parameterType, completionStageType)) {
+                processingEnv.getMessager()
+                    .printMessage(
+                        Diagnostic.Kind.ERROR,
+                        "Parameter %s of type %s cannot be set asynchronously"
+                            .formatted(parameter.getSimpleName(), parameter.asType()),
+                        parameter,
+                        null
+                    );
+                hasError = true;
+            }
+        }
+
+        return hasError;
+    }
+
+    MethodSpec makeAsyncBuilderMethod() {
+        final var builderClassName = ClassName.get("", ASYNC_CLASS_NAME)
+            .nestedClass(BUILDER_CLASS_NAME);
+
+        return MethodSpec.methodBuilder("asyncBuilder")
+            .addJavadoc(
+                "Start the staged API whose setters also take a {@code CompletionStage}.\n"
+            )
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(typeVariableList)
+            .returns(parameterize(builderClassName))
+            .addStatement(
+                typeVariableList.isEmpty() ? "return new $T()" : "return new $T<>()",
+                builderClassName
+            )
+            .build();
+    }
+
+    TypeSpec makeAsyncClass() {
+        final var asyncClass = TypeSpec.classBuilder(ASYNC_CLASS_NAME)
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+            .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build());
+
+        // reversely make stage interfaces, like the synchronous ones
+        final var requiredParameterList = Crafter.filterRequiredParameters(creator);
+        final var stageInterfaceList = new ArrayList<TypeSpec>();
+
+        final var finalStageTypeName = parameterize(ClassName.get("", FINAL_STAGE_NAME));
+        final var finalStage = TypeSpec.interfaceBuilder(FINAL_STAGE_NAME)
+            .addModifiers(Modifier.PUBLIC)
+            .addTypeVariables(typeVariableList)
+            .addMethod(
+                MethodSpec.methodBuilder(BUILD_ASYNC_METHOD_NAME)
+                    .addJavadoc(
+                        "Invoke the creator on the executor once all parameters are completed,\n"
+                            + "or fail as soon as any of them fails.\n"
+                    )
+                    .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                    .addParameter(Executor.class, EXECUTOR_NAME)
+                    .returns(makeResultTypeName())
+                    .build()
+            );
+
+        for (final var parameter : creator.getParameters()) {
+            if (Crafter.isDefaulted(parameter)) {
+                finalStage.addMethods(makeAbstractSetters(parameter, finalStageTypeName));
+            }
+        }
+
+        stageInterfaceList.add(finalStage.build());
+
+        var nextStageTypeName = finalStageTypeName;
+        for (var i = requiredParameterList.size() - 1; i >= 0; i--) {
+            final var parameter = requiredParameterList.get(i);
+
+            // add some chars to stage name to avoid conflict with "FirstStage" / "FinalStage"
+            final var stageName = i != 0
+                ? Crafter.makeUpperCamelCase(parameter.getSimpleName().toString()) + "_"
+                : FIRST_STAGE_NAME;
+
+            stageInterfaceList.add(
+                TypeSpec.interfaceBuilder(stageName)
+                    .addModifiers(Modifier.PUBLIC)
+                    .addTypeVariables(typeVariableList)
+                    .addMethods(makeAbstractSetters(parameter, nextStageTypeName))
+                    .build()
+            );
+
+            nextStageTypeName = parameterize(ClassName.get("", stageName));
+        }
+
+        Collections.reverse(stageInterfaceList);
+
+        return asyncClass
+            .addTypes(stageInterfaceList)
+            .addType(makeBuilderClass(stageInterfaceList))
+            .build();
+    }
+
+    private TypeSpec makeBuilderClass(List<TypeSpec> stageInterfaceList) {
+        final var builderClass = TypeSpec.classBuilder(BUILDER_CLASS_NAME)
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+            .addTypeVariables(typeVariableList)
+            .addSuperinterfaces(
+                stageInterfaceList.stream()
+                    .map(s -> parameterize(ClassName.get("", s.name())))
+                    .toList()
+            );
+
+        // a parameter is either a value, or a future which takes precedence
+        for (final var parameter : creator.getParameters()) {
+            builderClass
+                .addField(
+                    TypeName.get(parameter.asType()),
+                    parameter.getSimpleName().toString(),
+                    Modifier.PRIVATE
+                )
+                .addField(
+                    makeFutureTypeName(parameter, CompletableFuture.class),
+                    makeFutureFieldName(parameter),
+                    Modifier.PRIVATE
+                );
+
+            if (Crafter.isDefaulted(parameter)) {
+                builderClass.addField(
+                    boolean.class,
+                    makeAssignedFlagName(parameter),
+                    Modifier.PRIVATE
+                );
+            }
+        }
+
+        for (final var stageInterface : stageInterfaceList) {
+            for (final var setter : stageInterface.methodSpecs()) {
+                if (setter.name().equals(BUILD_ASYNC_METHOD_NAME)) {
+                    continue;
+                }
+
+                builderClass.addMethod(makeSetter(setter));
+            }
+        }
+
+        return builderClass
+            .addMethod(makeBuildAsyncMethod())
+            .build();
+    }
+
+    private List<MethodSpec> makeAbstractSetters(
+        VariableElement parameter,
+        TypeName nextStageTypeName
+    ) {
+        final var name = parameter.getSimpleName().toString();
+
+        return List.of(
+            MethodSpec.methodBuilder(name)
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addParameter(ParameterSpec.get(parameter))
+                .returns(nextStageTypeName)
+                .build(),
+            MethodSpec.methodBuilder(name)
+                .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                .addParameter(makeFutureTypeName(parameter, CompletionStage.class), name)
+                .returns(nextStageTypeName)
+                .build()
+        );
+    }
+
+    private MethodSpec makeSetter(MethodSpec abstractSetter) {
+        final var parameter = creator.getParameters()
+            .stream()
+            .filter(p -> p.getSimpleName().contentEquals(abstractSetter.name()))
+            .findFirst()
+            .orElseThrow();
+
+        final var setterParameter = abstractSetter.parameters().get(0);
+        final var isFuture = setterParameter.type() instanceof ParameterizedTypeName ptn
+            && ptn.rawType().equals(ClassName.get(CompletionStage.class));
+
+        final var setter = MethodSpec.methodBuilder(abstractSetter.name())
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .addParameters(abstractSetter.parameters())
+            .returns(abstractSetter.returnType());
+
+        if (isFuture) {
+            setter.addStatement(
+                "this.$L = $L.toCompletableFuture()",
+                makeFutureFieldName(parameter),
+                setterParameter.name()
+            );
+
+        } else {
+            setter
+                .addStatement("this.$1L = $1L", setterParameter.name())
+                .addStatement("this.$L = null", makeFutureFieldName(parameter));
+        }
+
+        if (Crafter.isDefaulted(parameter)) {
+            setter.addStatement("this.$L = true", makeAssignedFlagName(parameter));
+        }
+
+        return setter
+            .addStatement("return this")
+            .build();
+    }
+
+    private MethodSpec makeBuildAsyncMethod() {
+        final var buildAsyncMethod = MethodSpec.methodBuilder(BUILD_ASYNC_METHOD_NAME)
+            .addAnnotation(Override.class)
+            .addModifiers(Modifier.PUBLIC)
+            .addParameter(Executor.class, EXECUTOR_NAME)
+            .returns(makeResultTypeName());
+
+        // snapshot the parameters, so that the builder can be refilled right away
+        for (final var parameter : creator.getParameters()) {
+            buildAsyncMethod
+                .addStatement("final var $1L = this.$1L", parameter.getSimpleName())
+                .addStatement("final var $1L = this.$1L", makeFutureFieldName(parameter));
+
+            if (Crafter.isDefaulted(parameter)) {
+                buildAsyncMethod
+                    .addStatement("final var $1L = this.$1L", makeAssignedFlagName(parameter));
+            }
+        }
+
+        // the futures are completed when the creator is invoked, so `join()` never blocks
+        return buildAsyncMethod
+            .addStatement(
+                "return $T.allOrFirstFailure($L)\n.thenApplyAsync($L -> $L, $L)",
+                Futures.class,
+                String.join(
+                    ", ",
+                    creator.getParameters()
+                        .stream()
+                        .map(AsyncGenerator::makeFutureFieldName)
+                        .toList()
+                ),
+                IGNORED_NAME,
+                Crafter.makeCreatorInvocation(creator, this::makeArgument),
+                EXECUTOR_NAME
+            )
+            .build();
+    }
+
+    private CodeBlock makeArgument(VariableElement parameter) {
+        final var valueArgument = CodeBlock.of(
+            "($1L == null ? $2L : $1L.join())",
+            makeFutureFieldName(parameter),
+            parameter.getSimpleName()
+        );
+
+        final var defaultCode = Crafter.makeDefaultCode(
+            processingEnv.getTypeUtils(),
+            creator,
+            parameter
+        );
+
+        return defaultCode == null
+            ? valueArgument
+            : CodeBlock.of(
+                "($L ? $L : $L)",
+                makeAssignedFlagName(parameter),
+                valueArgument,
+                defaultCode
+            );
+    }
+
+    private TypeName makeResultTypeName() {
+        return ParameterizedTypeName.get(
+            ClassName.get(CompletableFuture.class),
+            TypeName.get(Crafter.extractTargetClass(creator))
+        );
+    }
+
+    private TypeName makeFutureTypeName(VariableElement parameter, Class<?> futureClass) {
+        return ParameterizedTypeName.get(
+            ClassName.get(futureClass),
+            WildcardTypeName.subtypeOf(
+                TypeName.get(parameter.asType()).withoutAnnotations().box()
+            )
+        );
+    }
+
+    private TypeName parameterize(ClassName className) {
+        return typeVariableList.isEmpty()
+            ? className
+            : ParameterizedTypeName.get(className, typeVariableList.toArray(new TypeName[0]));
+    }
+
+    private static String makeFutureFieldName(VariableElement parameter) {
+        return Crafter.makeInternalName(parameter.getSimpleName() + "Future");
+    }
+
+    private static String makeAssignedFlagName(VariableElement parameter) {
+        return Crafter.makeInternalName(parameter.getSimpleName() + "Assigned");
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.tools.Diagnostic;
+
+import com.palantir.javapoet.*;
+
+
+/**
+ * Generate the batch methods of {@link Builder#batch()}, which build many targets from parallel
+ * arrays, one per creator parameter, by invoking the creator directly.
+ * <p>
+ * All arrays must have the same length, which is checked once before any target is built.
+ */
+class BatchGenerator {
+    private static final String BATCH_TARGETS_NAME = Crafter.makeInternalName("targets");
+    private static final String BATCH_INDEX_NAME = Crafter.makeInternalName("index");
+    private static final String BATCH_SIZE_NAME = Crafter.makeInternalName("size");
+    private static final String BATCH_CHECK_METHOD_NAME = "checkBatchSize";
+
+    private final ProcessingEnvironment processingEnv;
+    private final ExecutableElement creator;
+
+    BatchGenerator(ProcessingEnvironment processingEnv, ExecutableElement creator) {
+        this.processingEnv = processingEnv;
+        this.creator = creator;
+    }
+
+    /**
+     * Report a creator without parameters, which has no array to take the batch size from, and
+     * return whether it is reported.
+     */
+    boolean report() {
+        if (! creator.getParameters().isEmpty()) {
+            return false;
+        }
+
+        processingEnv.getMessager()
+            .printMessage(
+                Diagnostic.Kind.ERROR,
+                "@%s(batch = true) needs at least one parameter to take the batch size from"
+                    .formatted(Builder.class.getCanonicalName()),
+                creator
+            );
+        return true;
+    }
+
+    /**
+     * Make {@code buildAll()}, {@code buildInto()} and {@code buildIntoParallel()}, which take one
+     * array per creator parameter, and the check of the array lengths they share.
+     */
+    List<MethodSpec> makeBatchMethods() {
+        final var creatorTypeParameterList = Crafter.calcTypeParameters(
+            processingEnv.getTypeUtils(),
+            creator
+        )
+            .stream()
+            .map(TypeVariableName::get)
+            .toList();
+        final var targetTypeName = TypeName.get(Crafter.extractTargetClass(creator));
+        final var creatorParameterList = creator.getParameters();
+
+        // one array per creator parameter, primitive arrays stay unboxed
+        final var columnList = creatorParameterList.stream()
+            .map(
+                p -> ParameterSpec.builder(
+                    ArrayTypeName.of(TypeName.get(p.asType())),
+                    p.getSimpleName().toString()
+                )
+                    .build()
+            )
+            .toList();
+
+        final var rowInvocation = Crafter.makeCreatorInvocation(
+            creator,
+            p -> CodeBlock.of("$L[$L]", p.getSimpleName(), BATCH_INDEX_NAME)
+        );
+
+        final var sizeCheck = CodeBlock.builder();
+        for (final var column : columnList) {
+            sizeCheck.addStatement(
+                "$L($S, $L.length, $L)",
+                BATCH_CHECK_METHOD_NAME,
+                column.name(),
+                column.name(),
+                BATCH_SIZE_NAME
+            );
+        }
+
+        final var buildAllMethod = MethodSpec.methodBuilder("buildAll")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(creatorTypeParameterList)
+            .returns(ParameterizedTypeName.get(ClassName.get(List.class), targetTypeName))
+            .addParameters(columnList)
+            .addStatement("final var $L = $L.length", BATCH_SIZE_NAME, columnList.get(0).name())
+            .addCode(sizeCheck.build())
+            .addStatement(
+                "final var $L = new $T<$T>($L)",
+                BATCH_TARGETS_NAME,
+                ArrayList.class,
+                targetTypeName,
+                BATCH_SIZE_NAME
+            )
+            .beginControlFlow(
+                "for (var $1L = 0; $1L < $2L; $1L++)",
+                BATCH_INDEX_NAME,
+                BATCH_SIZE_NAME
+            )
+            .addStatement("$L.add($L)", BATCH_TARGETS_NAME, rowInvocation)
+            .endControlFlow()
+            .addStatement("return $L", BATCH_TARGETS_NAME)
+            .build();
+
+        final var targetsParameter = ParameterSpec.builder(
+            ArrayTypeName.of(targetTypeName),
+            BATCH_TARGETS_NAME
+        )
+            .build();
+
+        final var buildIntoMethod = MethodSpec.methodBuilder("buildInto")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(creatorTypeParameterList)
+            .addParameter(targetsParameter)
+            .addParameters(columnList)
+            .addStatement("final var $L = $L.length", BATCH_SIZE_NAME, BATCH_TARGETS_NAME)
+            .addCode(sizeCheck.build())
+            .beginControlFlow(
+                "for (var $1L = 0; $1L < $2L; $1L++)",
+                BATCH_INDEX_NAME,
+                BATCH_SIZE_NAME
+            )
+            .addStatement("$L[$L] = $L", BATCH_TARGETS_NAME, BATCH_INDEX_NAME, rowInvocation)
+            .endControlFlow()
+            .build();
+
+        final var buildIntoParallelMethod = MethodSpec.methodBuilder("buildIntoParallel")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(creatorTypeParameterList)
+            .addParameter(targetsParameter)
+            .addParameters(columnList)
+            .addStatement("final var $L = $L.length", BATCH_SIZE_NAME, BATCH_TARGETS_NAME)
+            .addCode(sizeCheck.build())
+            // parallel streams split the range on the common ForkJoinPool
+            .addStatement(
+                "$T.range(0, $L).parallel().forEach($L -> $L[$L] = $L)",
+                IntStream.class,
+                BATCH_SIZE_NAME,
+                BATCH_INDEX_NAME,
+                BATCH_TARGETS_NAME,
+                BATCH_INDEX_NAME,
+                rowInvocation
+            )
+            .build();
+
+        final var checkMethod = MethodSpec.methodBuilder(BATCH_CHECK_METHOD_NAME)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(String.class, "name")
+            .addParameter(int.class, "length")
+            .addParameter(int.class, "size")
+            .beginControlFlow("if (length != size)")
+            .addStatement(
+                "throw new $T($S.formatted(name, length, size))",
+                IllegalArgumentException.class,
+                "%s has %d elements, but the batch size is %d"
+            )
+            .endControlFlow()
+            .build();
+
+        return List.of(buildAllMethod, buildIntoMethod, buildIntoParallelMethod, checkMethod);
+    }
+}
@@ -0,0 +1,886 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import com.palantir.javapoet.*;
+import io.github.iyanging.crafter.runtime.BinaryBuffers;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Generate the {@code XxxCodec} of {@link Builder#binary()}.
+ */
+class BinaryGenerator {
+    private record PrimitiveLayout(int size, String accessorSuffix) {}
+
+    private static final Map<TypeKind, PrimitiveLayout> PRIMITIVE_LAYOUTS = Map.of(
+        TypeKind.BOOLEAN,
+        new PrimitiveLayout(Byte.BYTES, ""),
+        TypeKind.BYTE,
+        new PrimitiveLayout(Byte.BYTES, ""),
+        TypeKind.SHORT,
+        new PrimitiveLayout(Short.BYTES, "Short"),
+        TypeKind.CHAR,
+        new PrimitiveLayout(Character.BYTES, "Char"),
+        TypeKind.INT,
+        new PrimitiveLayout(Integer.BYTES, "Int"),
+        TypeKind.LONG,
+        new PrimitiveLayout(Long.BYTES, "Long"),
+        TypeKind.FLOAT,
+        new PrimitiveLayout(Float.BYTES, "Float"),
+        TypeKind.DOUBLE,
+        new PrimitiveLayout(Double.BYTES, "Double")
+    );
+
+    private static final String BUFFER_NAME = Crafter.makeInternalName("buffer");
+    private static final String TARGET_NAME = Crafter.makeInternalName("target");
+    private static final String SIZE_NAME = Crafter.makeInternalName("size");
+    private static final String FILE_NAME = Crafter.makeInternalName("file");
+    private static final String CHANNEL_NAME = Crafter.makeInternalName("channel");
+    private static final String INDEX_NAME = Crafter.makeInternalName("i");
+    private static final String FINGERPRINT_NAME = Crafter.makeInternalName("fingerprint");
+
+    private static final String FINGERPRINT_FIELD_NAME = "FINGERPRINT";
+    private static final String CONSTANTS_FIELD_SUFFIX = "_CONSTANTS";
+
+    private final ProcessingEnvironment processingEnv;
+
+    BinaryGenerator(ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+    }
+
+    Optional<JavaFile> generate(ExecutableElement creator, String packageName) {
+        final var elementUtils = processingEnv.getElementUtils();
+        final var typeUtils = processingEnv.getTypeUtils();
+
+        final var targetClass = Crafter.extractTargetClass(creator);
+        final var targetClassElement = (TypeElement) typeUtils.asElement(targetClass);
+        final var targetTypeName = TypeName.get(targetClass);
+        final var typeVariableList = Crafter.calcTypeParameters(typeUtils, creator)
+            .stream()
+            .map(TypeVariableName::get)
+            .toList();
+
+        final var codecClassName = ClassName.get(
+            packageName,
+            targetClassElement.getSimpleName() + "Codec"
+        );
+
+        // every parameter is decoded in parameter order, and encoded through its accessor
+        final var valueMap = new LinkedHashMap<VariableElement, BinaryValue>();
+        final var accessorMap = new HashMap<VariableElement, String>();
+        var hasError = false;
+
+        for (final var parameter : creator.getParameters()) {
+            final var value = makeBinaryValue(parameter.asType(), true);
+
+            if (value == null) {
+                printError(
+                    parameter,
+                    "Parameter %s of type %s cannot be encoded in binary"
+                        .formatted(parameter.getSimpleName(), parameter.asType())
+                );
+                hasError = true;
+                continue;
+            }
+
+            final var accessor = Crafter.findAccessor(
+                elementUtils,
+                typeUtils,
+                targetClass,
+                parameter
+            );
+
+            if (accessor == null) {
+                printError(
+                    parameter,
+                    "Cannot find an accessible accessor or field of %s to encode parameter %s"
+                        .formatted(targetClass, parameter.getSimpleName())
+                );
+                hasError = true;
+                continue;
+            }
+
+            valueMap.put(parameter, value);
+            accessorMap.put(parameter, accessor);
+        }
+
+        if (hasError) {
+            return Optional.empty();
+        }
+
+        final var codecClass = TypeSpec.classBuilder(codecClassName)
+            .addAnnotation(Crafter.makeGenerated())
+            .addModifiers(Modifier.FINAL)
+            .addOriginatingElement(Crafter.extractOriginatingElement(creator));
+
+        if (targetClassElement.getModifiers().contains(Modifier.PUBLIC)) {
+            codecClass.addModifiers(Modifier.PUBLIC);
+        }
+
+        codecClass.addField(
+            FieldSpec.builder(
+                long.class,
+                FINGERPRINT_FIELD_NAME,
+                Modifier.PUBLIC,
+                Modifier.STATIC,
+                Modifier.FINAL
+            )
+                .addJavadoc(
+                    "Fingerprint of the layout, which changes with the creator signature.\n"
+                )
+                .initializer("0x$LL", Long.toHexString(makeFingerprint(creator, valueMap)))
+                .build()
+        );
+
+        for (final var entry : valueMap.entrySet()) {
+            final var constantsField = makeConstantsField(entry.getKey(), entry.getValue());
+
+            if (constantsField != null) {
+                codecClass.addField(constantsField);
+            }
+        }
+
+        codecClass
+            .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build())
+            .addMethod(makeWriteHeaderMethod())
+            .addMethod(makeReadHeaderMethod(targetClassElement))
+            .addMethod(makeSizeOfMethod(targetTypeName, typeVariableList, valueMap, accessorMap))
+            .addMethod(makeWriteMethod(targetTypeName, typeVariableList, valueMap, accessorMap))
+            .addMethod(makeReadMethod(creator, targetTypeName, typeVariableList, valueMap))
+            .addMethod(makeBufferStreamMethod(targetTypeName, typeVariableList))
+            .addMethod(makeFileStreamMethod(targetTypeName, typeVariableList));
+
+        return Optional.of(JavaFile.builder(packageName, codecClass.build()).build());
+    }
+
+    private MethodSpec makeWriteHeaderMethod() {
+        return MethodSpec.methodBuilder("writeHeader")
+            .addJavadoc("Write the header, which precedes the targets of a file.\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter(ByteBuffer.class, BUFFER_NAME)
+            .addStatement("$L.putLong($L)", BUFFER_NAME, FINGERPRINT_FIELD_NAME)
+            .build();
+    }
+
+    private MethodSpec makeReadHeaderMethod(TypeElement targetClassElement) {
+        return MethodSpec.methodBuilder("readHeader")
+            .addJavadoc(
+                "Read the header, which must have been written with the same layout.\n"
+            )
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter(ByteBuffer.class, BUFFER_NAME)
+            .addStatement("final var $L = $L.getLong()", FINGERPRINT_NAME, BUFFER_NAME)
+            .beginControlFlow("if ($L != $L)", FINGERPRINT_NAME, FINGERPRINT_FIELD_NAME)
+            .addStatement(
+                "throw new $T($S.formatted($L, $L))",
+                IllegalArgumentException.class,
+                "Incompatible layout of %s: fingerprint %%x instead of %%x"
+                    .formatted(targetClassElement.getSimpleName()),
+                FINGERPRINT_NAME,
+                FINGERPRINT_FIELD_NAME
+            )
+            .endControlFlow()
+            .build();
+    }
+
+    private MethodSpec makeSizeOfMethod(
+        TypeName targetTypeName,
+        List<TypeVariableName> typeVariableList,
+        Map<VariableElement, BinaryValue> valueMap,
+        Map<VariableElement, String> accessorMap
+    ) {
+        final var fixedSize = valueMap.values()
+            .stream()
+            .mapToInt(BinaryValue::fixedSize)
+            .filter(s -> s >= 0)
+            .sum();
+
+        final var sizeOfMethod = MethodSpec.methodBuilder("sizeOf")
+            .addJavadoc("The number of bytes written by {@code write()}.\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(typeVariableList)
+            .addParameter(targetTypeName, TARGET_NAME)
+            .returns(int.class)
+            .addStatement("var $L = $L", SIZE_NAME, fixedSize);
+
+        for (final var entry : valueMap.entrySet()) {
+            final var parameter = entry.getKey();
+
+            if (entry.getValue().fixedSize() < 0) {
+                sizeOfMethod.addCode(
+                    makeSizeCode(
+                        entry.getValue(),
+                        parameter.getSimpleName().toString(),
+                        CodeBlock.of("$L.$L", TARGET_NAME, accessorMap.get(parameter))
+                    )
+                );
+            }
+        }
+
+        return sizeOfMethod
+            .addStatement("return $L", SIZE_NAME)
+            .build();
+    }
+
+    private MethodSpec makeWriteMethod(
+        TypeName targetTypeName,
+        List<TypeVariableName> typeVariableList,
+        Map<VariableElement, BinaryValue> valueMap,
+        Map<VariableElement, String> accessorMap
+    ) {
+        final var writeMethod = MethodSpec.methodBuilder("write")
+            .addJavadoc(
+                "Write the target at the position of the buffer, in the byte order of the buffer.\n"
+            )
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(typeVariableList)
+            .addParameter(ByteBuffer.class, BUFFER_NAME)
+            .addParameter(targetTypeName, TARGET_NAME);
+
+        for (final var entry : valueMap.entrySet()) {
+            final var parameter = entry.getKey();
+
+            writeMethod.addCode(
+                makeWriteCode(
+                    entry.getValue(),
+                    parameter.getSimpleName().toString(),
+                    CodeBlock.of("$L.$L", TARGET_NAME, accessorMap.get(parameter))
+                )
+            );
+        }
+
+        return writeMethod.build();
+    }
+
+    private MethodSpec makeReadMethod(
+        ExecutableElement creator,
+        TypeName targetTypeName,
+        List<TypeVariableName> typeVariableList,
+        Map<VariableElement, BinaryValue> valueMap
+    ) {
+        final var readMethod = MethodSpec.methodBuilder("read")
+            .addJavadoc(
+                "Read the target at the position of the buffer, in the byte order of the buffer.\n"
+            )
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(typeVariableList)
+            .addParameter(ByteBuffer.class, BUFFER_NAME)
+            .returns(targetTypeName);
+
+        for (final var entry : valueMap.entrySet()) {
+            final var parameter = entry.getKey();
+            final var name = parameter.getSimpleName().toString();
+            final var constantsFieldName = makeConstantsFieldName(parameter);
+
+            if (entry.getValue().kind() != Kind.LIST) {
+                readMethod.addStatement(
+                    "final $T $L = $L",
+                    TypeName.get(parameter.asType()),
+                    name,
+                    makeReadExpression(entry.getValue(), constantsFieldName)
+                );
+                continue;
+            }
+
+            final var elementValue = Objects.requireNonNull(entry.getValue().element());
+            final var listName = Crafter.makeInternalName(name);
+            final var listSizeName = Crafter.makeInternalName(name + "Size");
+
+            readMethod
+                .addStatement("final $T $L", TypeName.get(parameter.asType()), name)
+                .addStatement(
+                    "final var $L = $T.getLength($L)",
+                    listSizeName,
+                    BinaryBuffers.class,
+                    BUFFER_NAME
+                )
+                .beginControlFlow("if ($L < 0)", listSizeName)
+                .addStatement("$L = null", name)
+                .nextControlFlow("else")
+                .addStatement(
+                    "final var $L = new $T<$T>($L)",
+                    listName,
+                    ArrayList.class,
+                    elementValue.typeName().withoutAnnotations(),
+                    listSizeName
+                )
+                .beginControlFlow(
+                    "for (var $1L = 0; $1L < $2L; $1L++)",
+                    INDEX_NAME,
+                    listSizeName
+                )
+                .addStatement(
+                    "$L.add($L)",
+                    listName,
+                    makeReadExpression(elementValue, constantsFieldName)
+                )
+                .endControlFlow()
+                .addStatement("$L = $T.unmodifiableList($L)", name, Collections.class, listName)
+                .endControlFlow();
+        }
+
+        return readMethod
+            .addStatement(
+                "return $L",
+                Crafter.makeCreatorInvocation(creator, p -> CodeBlock.of("$L", p.getSimpleName()))
+            )
+            .build();
+    }
+
+    private MethodSpec makeBufferStreamMethod(
+        TypeName targetTypeName,
+        List<TypeVariableName> typeVariableList
+    ) {
+        final var spliterator = TypeSpec.anonymousClassBuilder(
+            "$T.MAX_VALUE, $T.ORDERED | $T.NONNULL",
+            Long.class,
+            Spliterator.class,
+            Spliterator.class
+        )
+            .superclass(
+                ParameterizedTypeName.get(
+                    ClassName.get(Spliterators.AbstractSpliterator.class),
+                    targetTypeName
+                )
+            )
+            .addMethod(
+                MethodSpec.methodBuilder("tryAdvance")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(boolean.class)
+                    .addParameter(
+                        ParameterizedTypeName.get(
+                            ClassName.get(Consumer.class),
+                            WildcardTypeName.supertypeOf(targetTypeName)
+                        ),
+                        "action"
+                    )
+                    .beginControlFlow("if (! $L.hasRemaining())", BUFFER_NAME)
+                    .addStatement("return false")
+                    .endControlFlow()
+                    .addStatement("action.accept(read($L))", BUFFER_NAME)
+                    .addStatement("return true")
+                    .build()
+            )
+            .build();
+
+        return MethodSpec.methodBuilder("stream")
+            .addJavadoc(
+                "Lazily read the targets following the header, until the limit of the buffer.\n"
+            )
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(typeVariableList)
+            .addParameter(ByteBuffer.class, BUFFER_NAME)
+            .returns(ParameterizedTypeName.get(ClassName.get(Stream.class), targetTypeName))
+            .addStatement("readHeader($L)", BUFFER_NAME)
+            .addStatement("return $T.stream($L, false)", StreamSupport.class, spliterator)
+            .build();
+    }
+
+    private MethodSpec makeFileStreamMethod(
+        TypeName targetTypeName,
+        List<TypeVariableName> typeVariableList
+    ) {
+        return MethodSpec.methodBuilder("stream")
+            .addJavadoc(
+                "Map the whole file, which is a header followed by targets, and lazily read the\n"
+                    + "targets. The mapping stays valid after the file is closed, until it is\n"
+                    + "collected, so a file must be smaller than 2 GiB.\n"
+            )
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(typeVariableList)
+            .addParameter(Path.class, FILE_NAME)
+            .addException(IOException.class)
+            .returns(ParameterizedTypeName.get(ClassName.get(Stream.class), targetTypeName))
+            .beginControlFlow(
+                "try (var $L = $T.open($L, $T.READ))",
+                CHANNEL_NAME,
+                FileChannel.class,
+                FILE_NAME,
+                StandardOpenOption.class
+            )
+            .addStatement(
+                "return stream($L.map($T.MapMode.READ_ONLY, 0, $L.size()))",
+                CHANNEL_NAME,
+                FileChannel.class,
+                CHANNEL_NAME
+            )
+            .endControlFlow()
+            .build();
+    }
+
+    private enum Kind {
+        PRIMITIVE,
+        BOXED,
+        STRING,
+        BYTES,
+        ENUM,
+        OBJECT,
+        LIST
+    }
+
+    /**
+     * How a value is laid out.
+     *
+     * @param type the Java type of the value
+     * @param layout the layout of {@code PRIMITIVE} and {@code BOXED}
+     * @param companion the {@code XxxCodec} of {@code OBJECT}
+     * @param element the element of {@code LIST}
+     */
+    private record BinaryValue(
+        Kind kind,
+        TypeMirror type,
+        @Nullable PrimitiveLayout layout,
+        @Nullable ClassName companion,
+        @Nullable BinaryValue element
+    ) {
+        TypeName typeName() {
+            return TypeName.get(type);
+        }
+
+        /** The size of values of a fixed layout, or {@code -1}. */
+        int fixedSize() {
+            return switch (kind) {
+                case PRIMITIVE -> Objects.requireNonNull(layout).size();
+                case ENUM -> Integer.BYTES;
+                default -> -1;
+            };
+        }
+    }
+
+    private @Nullable BinaryValue makeBinaryValue(TypeMirror type, boolean allowList) {
+        if (type.getKind().isPrimitive()) {
+            final var layout = PRIMITIVE_LAYOUTS.get(type.getKind());
+
+            return layout == null
+                ? null
+                : new BinaryValue(Kind.PRIMITIVE, type, layout, null, null);
+        }
+
+        final var unboxedType = unbox(type);
+        if (unboxedType != null) {
+            final var layout = PRIMITIVE_LAYOUTS.get(unboxedType.getKind());
+
+            return layout == null
+                ? null
+                : new BinaryValue(Kind.BOXED, type, layout, null, null);
+        }
+
+        if (type instanceof ArrayType arrayType) {
+            return arrayType.getComponentType().getKind() == TypeKind.BYTE
+                ? new BinaryValue(Kind.BYTES, type, null, null, null)
+                : null;
+        }
+
+        if (! (type instanceof DeclaredType declaredType)) {
+            return null;
+        }
+
+        final var element = (TypeElement) declaredType.asElement();
+        final var qualifiedName = element.getQualifiedName().toString();
+
+        if (qualifiedName.equals(String.class.getCanonicalName())) {
+            return new BinaryValue(Kind.STRING, type, null, null, null);
+
+        } else if (element.getKind() == ElementKind.ENUM) {
+            return new BinaryValue(Kind.ENUM, type, null, null, null);
+        }
+
+        if (qualifiedName.equals(List.class.getCanonicalName())) {
+            // only one level, so a nested list must be wrapped by a target of its own
+            final var elementValue = allowList && declaredType.getTypeArguments().size() == 1
+                ? makeBinaryValue(declaredType.getTypeArguments().get(0), false)
+                : null;
+
+            return elementValue == null || elementValue.kind() == Kind.PRIMITIVE
+                ? null
+                : new BinaryValue(Kind.LIST, type, null, null, elementValue);
+        }
+
+        final var companion = declaredType.getTypeArguments().isEmpty()
+            ? Crafter.findCompanion(
+                processingEnv.getElementUtils(),
+                element,
+                Builder::binary,
+                "Codec"
+            )
+            : null;
+
+        return companion == null
+            ? null
+            : new BinaryValue(Kind.OBJECT, type, null, companion, null);
+    }
+
+    private CodeBlock makeReadExpression(BinaryValue value, String constantsFieldName) {
+        return switch (value.kind()) {
+            case PRIMITIVE -> makePrimitiveReadExpression(value);
+
+            // a presence byte precedes nullable values of a fixed layout
+            case BOXED -> CodeBlock.of(
+                "$L.get() == 0 ? null : $L",
+                BUFFER_NAME,
+                makePrimitiveReadExpression(value)
+            );
+
+            case STRING -> CodeBlock.of("$T.getString($L)", BinaryBuffers.class, BUFFER_NAME);
+            case BYTES -> CodeBlock.of("$T.getBytes($L)", BinaryBuffers.class, BUFFER_NAME);
+
+            // ordinals are shifted by one, so that zero is null
+            case ENUM -> CodeBlock.of("$L[$L.getInt()]", constantsFieldName, BUFFER_NAME);
+
+            case OBJECT -> CodeBlock.of(
+                "$L.get() == 0 ? null : $T.read($L)",
+                BUFFER_NAME,
+                value.companion(),
+                BUFFER_NAME
+            );
+
+            case LIST -> throw new IllegalArgumentException("Nested list");
+        };
+    }
+
+    private CodeBlock makePrimitiveReadExpression(BinaryValue value) {
+        final var layout = Objects.requireNonNull(value.layout());
+
+        return isBoolean(value)
+            ? CodeBlock.of("$L.get() != 0", BUFFER_NAME)
+            : CodeBlock.of("$L.get$L()", BUFFER_NAME, layout.accessorSuffix());
+    }
+
+    private CodeBlock makeWriteCode(BinaryValue value, String name, CodeBlock source) {
+        final var valueName = Crafter.makeInternalName(name + "Value");
+
+        return switch (value.kind()) {
+            case PRIMITIVE -> makePrimitiveWriteCode(value, source);
+
+            case BOXED -> CodeBlock.builder()
+                .addStatement("final var $L = $L", valueName, source)
+                .beginControlFlow("if ($L == null)", valueName)
+                .addStatement("$L.put((byte) 0)", BUFFER_NAME)
+                .nextControlFlow("else")
+                .addStatement("$L.put((byte) 1)", BUFFER_NAME)
+                .add(makePrimitiveWriteCode(value, CodeBlock.of("$L", valueName)))
+                .endControlFlow()
+                .build();
+
+            case STRING -> CodeBlock.builder()
+                .addStatement("$T.putString($L, $L)", BinaryBuffers.class, BUFFER_NAME, source)
+                .build();
+
+            case BYTES -> CodeBlock.builder()
+                .addStatement("$T.putBytes($L, $L)", BinaryBuffers.class, BUFFER_NAME, source)
+                .build();
+
+            case ENUM -> CodeBlock.builder()
+                .addStatement("final var $L = $L", valueName, source)
+                .addStatement(
+                    "$L.putInt($L == null ? 0 : $L.ordinal() + 1)",
+                    BUFFER_NAME,
+                    valueName,
+                    valueName
+                )
+                .build();
+
+            case OBJECT -> CodeBlock.builder()
+                .addStatement("final var $L = $L", valueName, source)
+                .beginControlFlow("if ($L == null)", valueName)
+                .addStatement("$L.put((byte) 0)", BUFFER_NAME)
+                .nextControlFlow("else")
+                .addStatement("$L.put((byte) 1)", BUFFER_NAME)
+                .addStatement("$T.write($L, $L)", value.companion(), BUFFER_NAME, valueName)
+                .endControlFlow()
+                .build();
+
+            case LIST -> {
+                final var elementName = name + "Element";
+
+                yield CodeBlock.builder()
+                    .addStatement("final var $L = $L", valueName, source)
+                    .beginControlFlow("if ($L == null)", valueName)
+                    .addStatement("$L.putInt(-1)", BUFFER_NAME)
+                    .nextControlFlow("else")
+                    .addStatement("$L.putInt($L.size())", BUFFER_NAME, valueName)
+                    .beginControlFlow(
+                        "for (final var $L : $L)",
+                        Crafter.makeInternalName(elementName),
+                        valueName
+                    )
+                    .add(
+                        makeWriteCode(
+                            Objects.requireNonNull(value.element()),
+                            elementName,
+                            CodeBlock.of("$L", Crafter.makeInternalName(elementName))
+                        )
+                    )
+                    .endControlFlow()
+                    .endControlFlow()
+                    .build();
+            }
+        };
+    }
+
+    private CodeBlock makePrimitiveWriteCode(BinaryValue value, CodeBlock source) {
+        final var layout = Objects.requireNonNull(value.layout());
+
+        return isBoolean(value)
+            ? CodeBlock.builder()
+                .addStatement("$L.put((byte) ($L ? 1 : 0))", BUFFER_NAME, source)
+                .build()
+            : CodeBlock.builder()
+                .addStatement("$L.put$L($L)", BUFFER_NAME, layout.accessorSuffix(), source)
+                .build();
+    }
+
+    /**
+     * Add the size of a value, which is not of a fixed layout, to the size of the target.
+     */
+    private CodeBlock makeSizeCode(BinaryValue value, String name, CodeBlock source) {
+        final var valueName = Crafter.makeInternalName(name + "Value");
+
+        return switch (value.kind()) {
+            case PRIMITIVE, ENUM -> CodeBlock.builder()
+                .addStatement("$L += $L", SIZE_NAME, value.fixedSize())
+                .build();
+
+            case BOXED -> CodeBlock.builder()
+                .addStatement(
+                    "$L += $L == null ? 1 : $L",
+                    SIZE_NAME,
+                    source,
+                    1 + Objects.requireNonNull(value.layout()).size()
+                )
+                .build();
+
+            case STRING, BYTES -> CodeBlock.builder()
+                .addStatement("$L += $T.sizeOf($L)", SIZE_NAME, BinaryBuffers.class, source)
+                .build();
+
+            case OBJECT -> CodeBlock.builder()
+                .addStatement("final var $L = $L", valueName, source)
+                .addStatement(
+                    "$L += $L == null ? 1 : 1 + $T.sizeOf($L)",
+                    SIZE_NAME,
+                    valueName,
+                    value.companion(),
+                    valueName
+                )
+                .build();
+
+            case LIST -> {
+                final var elementValue = Objects.requireNonNull(value.element());
+                final var elementName = name + "Element";
+
+                final var sizeCode = CodeBlock.builder()
+                    .addStatement("final var $L = $L", valueName, source)
+                    .addStatement("$L += $L", SIZE_NAME, Integer.BYTES)
+                    .beginControlFlow("if ($L != null)", valueName);
+
+                if (elementValue.fixedSize() >= 0) {
+                    sizeCode.addStatement(
+                        "$L += $L * $L.size()",
+                        SIZE_NAME,
+                        elementValue.fixedSize(),
+                        valueName
+                    );
+
+                } else {
+                    sizeCode
+                        .beginControlFlow(
+                            "for (final var $L : $L)",
+                            Crafter.makeInternalName(elementName),
+                            valueName
+                        )
+                        .add(
+                            makeSizeCode(
+                                elementValue,
+                                elementName,
+                                CodeBlock.of("$L", Crafter.makeInternalName(elementName))
+                            )
+                        )
+                        .endControlFlow();
+                }
+
+                yield sizeCode
+                    .endControlFlow()
+                    .build();
+            }
+        };
+    }
+
+    /**
+     * The constants of an enum parameter, or of the elements of a list parameter, indexed by
+     * their encoded ordinals.
+     */
+    private @Nullable FieldSpec makeConstantsField(VariableElement parameter, BinaryValue value) {
+        final var enumValue = value.kind() == Kind.LIST
+            ? Objects.requireNonNull(value.element())
+            : value;
+
+        if (enumValue.kind() != Kind.ENUM) {
+            return null;
+        }
+
+        final var enumTypeName = enumValue.typeName().withoutAnnotations();
+        final var constantList = listEnumConstants(enumValue.type())
+            .stream()
+            .map(c -> CodeBlock.of("$T.$L", enumTypeName, c))
+            .toList();
+
+        return FieldSpec.builder(
+            ArrayTypeName.of(enumTypeName),
+            makeConstantsFieldName(parameter),
+            Modifier.PRIVATE,
+            Modifier.STATIC,
+            Modifier.FINAL
+        )
+            .initializer(
+                "{ null, $L }",
+                CodeBlock.join(constantList, ", ")
+            )
+            .build();
+    }
+
+    private long makeFingerprint(
+        ExecutableElement creator,
+        Map<VariableElement, BinaryValue> valueMap
+    ) {
+        final var signature = new StringBuilder()
+            .append(Crafter.extractOriginatingElement(creator).getQualifiedName())
+            .append('(');
+
+        for (final var entry : valueMap.entrySet()) {
+            signature.append(entry.getKey().getSimpleName()).append(':');
+            appendSignature(signature, entry.getValue());
+            signature.append(';');
+        }
+
+        signature.append(')');
+
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256")
+                .digest(signature.toString().getBytes(StandardCharsets.UTF_8));
+
+            return ByteBuffer.wrap(digest).getLong();
+
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void appendSignature(StringBuilder signature, BinaryValue value) {
+        final var typeUtils = processingEnv.getTypeUtils();
+
+        switch (value.kind()) {
+            case ENUM -> signature.append(typeUtils.erasure(value.type()))
+                .append(String.join(",", listEnumConstants(value.type())));
+
+            // nested targets are identified by their fields, which is their layout in practice
+            case OBJECT -> signature.append(typeUtils.erasure(value.type()))
+                .append(
+                    ElementFilter
+                        .fieldsIn(typeUtils.asElement(value.type()).getEnclosedElements())
+                        .stream()
+                        .filter(f -> ! f.getModifiers().contains(Modifier.STATIC))
+                        .map(f -> f.getSimpleName() + ":" + typeUtils.erasure(f.asType()))
+                        .collect(Collectors.joining(",", "{", "}"))
+                );
+
+            case LIST -> {
+                signature.append("List<");
+                appendSignature(signature, Objects.requireNonNull(value.element()));
+                signature.append('>');
+            }
+
+            default -> signature.append(typeUtils.erasure(value.type()));
+        }
+    }
+
+    private List<String> listEnumConstants(TypeMirror enumType) {
+        return processingEnv.getTypeUtils()
+            .asElement(enumType)
+            .getEnclosedElements()
+            .stream()
+            .filter(e -> e.getKind() == ElementKind.ENUM_CONSTANT)
+            .map(e -> e.getSimpleName().toString())
+            .toList();
+    }
+
+    private static boolean isBoolean(BinaryValue value) {
+        return value.kind() == Kind.PRIMITIVE
+            ? value.type().getKind() == TypeKind.BOOLEAN
+            : value.typeName().withoutAnnotations().equals(TypeName.BOOLEAN.box());
+    }
+
+    private static String makeConstantsFieldName(VariableElement parameter) {
+        final var name = parameter.getSimpleName().toString();
+        final var fieldName = new StringBuilder();
+
+        for (var i = 0; i < name.length(); i++) {
+            final var c = name.charAt(i);
+
+            if (Character.isUpperCase(c) && i > 0) {
+                fieldName.append('_');
+            }
+
+            fieldName.append(Character.toUpperCase(c));
+        }
+
+        return Crafter.makeInternalName(fieldName.append(CONSTANTS_FIELD_SUFFIX).toString());
+    }
+
+    private @Nullable TypeMirror unbox(TypeMirror type) {
+        try {
+            return processingEnv.getTypeUtils().unboxedType(type);
+
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void printError(Element element, String message) {
+        processingEnv.getMessager()
+            .printMessage(
+                Diagnostic.Kind.ERROR,
+                message,
+                element,
+                null
+            );
+    }
+}
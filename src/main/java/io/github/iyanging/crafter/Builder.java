@@ -22,8 +22,263 @@ import java.lang.annotation.*;
 @Target(
     {
         ElementType.TYPE,
-        ElementType.CONSTRUCTOR
+        ElementType.CONSTRUCTOR,
+        ElementType.METHOD
     }
 )
 @Retention(RetentionPolicy.SOURCE)
-public @interface Builder {}
+public @interface Builder {
+    /**
+     * Generate a {@code final} {@code Builder} with {@code private} fields, whose stage interfaces
+     * are {@code sealed} and only permit the {@code Builder}.
+     * <p>
+     * This shape lets the JIT reliably inline the whole chain and eliminate the builder allocation
+     * by escape analysis, even when the chain is long.
+     */
+    boolean sealed() default false;
+
+    /**
+     * Generate a {@code Builder} which can be reused to build any number of targets.
+     * <p>
+     * {@code build()} resets the {@code Builder}, so that it is ready for the next target, and
+     * {@code reset()} can be called to discard a partially filled {@code Builder}. Besides the
+     * caller-owned {@code builder()}, a {@code reusable()} method returns the {@code Builder}
+     * cached by the current thread. That cached {@code Builder} must not be used to build a target
+     * of the same type while it is filling another one, e.g. in a parameter expression.
+     */
+    boolean reusable() default false;
+
+    /**
+     * Generate batch methods, which take one array per creator parameter in parameter order, and
+     * directly invoke the creator for each index.
+     * <ul>
+     * <li>{@code buildAll(...)} returns the targets as a {@code List}</li>
+     * <li>{@code buildInto(targets, ...)} fills the given {@code targets} array</li>
+     * <li>{@code buildIntoParallel(targets, ...)} fills the given {@code targets} array on the
+     * common {@code ForkJoinPool}</li>
+     * </ul>
+     * All arrays must have the same length.
+     */
+    boolean batch() default false;
+
+    /**
+     * Generate a companion {@code XxxRowMapper}, which maps rows of a JDBC {@code ResultSet} to
+     * the target by invoking the creator directly.
+     * <p>
+     * Columns are matched to creator parameters by label, ignoring case and underscores, so
+     * {@code created_at} matches {@code createdAt}. Their indexes are resolved once per
+     * {@code ResultSetMetaData}, and each column is read with the getter of the parameter type.
+     * <p>
+     * The column of a {@link Default} parameter may be absent, and its default is also used when a
+     * primitive column is SQL {@code NULL}. Other primitive columns reject {@code NULL}.
+     */
+    boolean rowMapper() default false;
+
+    /**
+     * Generate methods to derive a new target from an existing one, which read the parameters
+     * back through record accessors, getters or fields of the target.
+     * <ul>
+     * <li>{@code from(source)} returns a {@code Builder} filled with the parameters of
+     * {@code source}, any of them can be replaced by calling its setter on the {@code Builder}
+     * before {@code build()}</li>
+     * <li>{@code withXxx(source, xxx)} directly invokes the creator with {@code xxx} replaced, and
+     * the other parameters copied from {@code source}</li>
+     * </ul>
+     */
+    boolean copy() default false;
+
+    /**
+     * Generate a single {@code Builder} class instead of one stage interface per parameter, whose
+     * setters can be called in any order.
+     * <p>
+     * Which parameters are set is tracked by a bitmask, checked by a single branch in
+     * {@code build()}, which throws an {@code IllegalStateException} naming every missing
+     * parameter. This cuts the number of generated classes to be loaded at startup, at the cost
+     * of checking at runtime instead of compile time.
+     */
+    boolean unordered() default false;
+
+    /**
+     * Make {@code build()} return a canonical target for equal parameters, like
+     * {@link String#intern()}.
+     * <p>
+     * Targets are kept in a concurrent map, keyed by the list of parameters, whose values are
+     * weakly referenced, so canonical targets no longer in use are still collected. The creator is
+     * only invoked when no equal target is interned. Parameters are compared by {@code equals()},
+     * so arrays are compared by identity. Only {@code build()} interns, the other generated
+     * methods always invoke the creator.
+     */
+    boolean intern() default false;
+
+    /**
+     * Validate the Jakarta Bean Validation constraints of creator parameters in {@code build()},
+     * which throws an {@code IllegalArgumentException} naming every violation.
+     * <p>
+     * The checks are generated at compile time, so no reflection or metadata is involved at
+     * runtime. Patterns are compiled once, and nothing is allocated unless a constraint is
+     * violated. {@code @NotNull}, {@code @NotEmpty}, {@code @NotBlank}, {@code @Size},
+     * {@code @Min}, {@code @Max}, {@code @Positive}, {@code @PositiveOrZero}, {@code @Negative},
+     * {@code @NegativeOrZero} and {@code @Pattern} are supported, others are reported as
+     * warnings.
+     */
+    boolean validate() default false;
+
+    /**
+     * Generate a companion {@code XxxJson}, which reads the target from JSON by invoking the
+     * creator directly, and writes it back through its accessors, without any reflection.
+     * <p>
+     * Members are matched to creator parameters by name with a {@code switch}, unknown members are
+     * skipped, and an {@code IllegalArgumentException} names every missing member, except
+     * {@code @Nullable} and {@link Default} parameters. Primitives are parsed and written without
+     * boxing. Parameters can be primitives and their boxes, {@code String}, {@code BigDecimal},
+     * {@code BigInteger}, enums, classes with {@code @Builder(json = true)} on the class or a
+     * constructor, and {@code List} of them. The generated code uses the {@code JsonReader} and
+     * {@code JsonWriter} of {@code io.github.iyanging.crafter.runtime}, so crafter must be on the
+     * runtime classpath.
+     */
+    boolean json() default false;
+
+    /**
+     * Generate a companion {@code XxxCodec}, which writes the target to a {@code ByteBuffer} in a
+     * compact binary layout through its accessors, and reads it back by invoking the creator
+     * directly.
+     * <p>
+     * Parameters are laid out in parameter order, primitives at their fixed size, and strings,
+     * {@code byte[]} and lists with a length prefix. Nullable values of a fixed size are preceded
+     * by a presence byte, and enums are written as ordinals. Values are put into the buffer
+     * without intermediate byte arrays, in the byte order of the buffer. Parameters can be
+     * primitives and their boxes, {@code String}, {@code byte[]}, enums, classes with
+     * {@code @Builder(binary = true)} on the class or a constructor, and {@code List} of them.
+     * <p>
+     * A file of targets starts with a header holding the {@code FINGERPRINT} of the layout,
+     * derived from the creator signature, and {@code stream(path)} maps such a file to lazily
+     * read all of its targets. The generated code uses the {@code BinaryBuffers} of
+     * {@code io.github.iyanging.crafter.runtime}, so crafter must be on the runtime classpath.
+     */
+    boolean binary() default false;
+
+    /**
+     * Generate methods to bind the target from flattened configuration, which look up each
+     * creator parameter by its key, and convert the value without any reflection.
+     * <ul>
+     * <li>{@code fromMap(map)} and {@code fromMap(map, prefix)} bind from a {@code Map}</li>
+     * <li>{@code fromProperties(properties)} and {@code fromProperties(properties, prefix)} bind
+     * from {@code Properties}, including their defaults</li>
+     * <li>{@code fromConfig(reader)} binds from any {@code ConfigReader} of
+     * {@code io.github.iyanging.crafter.runtime}</li>
+     * </ul>
+     * The key of a parameter is its name in the {@link #configKeyStyle()}, preceded by the prefix.
+     * Strings are converted to primitives and their boxes, {@code BigDecimal}, enums and
+     * {@code Duration}. Keys of {@code @Nullable} and {@link Default} parameters are optional.
+     * An {@code IllegalArgumentException} names every missing key and invalid value at once.
+     */
+    boolean config() default false;
+
+    /**
+     * How keys of {@link #config()} are derived from parameter names.
+     */
+    KeyStyle configKeyStyle() default KeyStyle.CAMEL;
+
+    enum KeyStyle {
+        /** {@code maxPoolSize} is looked up by {@code maxPoolSize}. */
+        CAMEL,
+
+        /** {@code maxPoolSize} is looked up by {@code max-pool-size}. */
+        KEBAB
+    }
+
+    /**
+     * Generate an {@code Async} staged API, started by {@code asyncBuilder()}, whose setters take
+     * either a value or a {@code CompletionStage} of it.
+     * <p>
+     * {@code buildAsync(executor)} returns a {@code CompletableFuture}, which completes once all
+     * stages are completed, by invoking the creator exactly once on the executor. It fails as soon
+     * as any stage fails, without waiting for the others. The creator is invoked directly, so
+     * {@link #validate()} and {@link #intern()} do not apply. The generated code uses the
+     * {@code Futures} of {@code io.github.iyanging.crafter.runtime}, so crafter must be on the
+     * runtime classpath.
+     */
+    boolean async() default false;
+
+    /**
+     * Monitor the targets built by {@code build()}, by a JFR event and a counter per target type.
+     * <p>
+     * Each {@code build()} emits an {@code io.github.iyanging.crafter.Build} event, which carries
+     * the target class and the duration of the creator call. The event is guarded by
+     * {@code isEnabled()}, so it costs nothing while it is disabled. The builds are also counted
+     * by a {@code LongAdder} of the builder container, registered as the MXBean
+     * {@code io.github.iyanging.crafter:type=BuildCounter} named by the target class, which keeps
+     * the class loader reachable until {@code BuildCounter.unregister} is called. Only
+     * {@code build()} is monitored, the other generated methods invoke the creator directly. The
+     * generated code uses the {@code BuildEvent} and {@code BuildCounter} of
+     * {@code io.github.iyanging.crafter.runtime}, so crafter must be on the runtime classpath.
+     */
+    boolean monitored() default false;
+
+    /**
+     * Make the annotated creator parameter optional, whose setter is moved to the
+     * {@code FinalStage}.
+     * <p>
+     * If the setter is not called, {@code build()} takes the default from the static member of
+     * the type declaring the creator named by {@link #value()}. A static method is only invoked
+     * then, so expensive defaults are not computed for nothing.
+     */
+    @Documented
+    @Target(ElementType.PARAMETER)
+    @Retention(RetentionPolicy.SOURCE)
+    @interface Default {
+        /**
+         * Name of a static field, or of a static method without parameters, of the type declaring
+         * the creator, whose type is assignable to the parameter.
+         */
+        String value();
+    }
+
+    /**
+     * Accumulate the annotated {@code List}, {@code Set} or {@code Map} creator parameter, whose
+     * setter is moved to the {@code FinalStage} along with its accumulators.
+     * <p>
+     * Besides the setter of the whole collection, {@code addXxx(element)} and
+     * {@code addAllXxx(elements)}, or {@code putXxx(key, value)} and {@code putAllXxx(entries)}
+     * for a {@code Map}, collect into a mutable collection of the {@code Builder}, which starts
+     * with the collection set by the setter, if any. {@code build()} hands the collection to the
+     * creator through {@code List.copyOf()}, {@code Set.copyOf()} or {@code Map.copyOf()}, so
+     * the target receives an immutable collection, and an immutable collection passed to the
+     * setter is not copied at all. Like them, {@code null} elements, keys and values are
+     * rejected. If nothing is set, the target receives an empty collection, or the
+     * {@link Default} of the parameter.
+     */
+    @Documented
+    @Target(ElementType.PARAMETER)
+    @Retention(RetentionPolicy.SOURCE)
+    @interface Accumulate {
+        /**
+         * Number of elements the collection is created for, to avoid growing it while
+         * accumulating, or {@code 0} for the default capacity.
+         */
+        int expectedSize() default 0;
+    }
+
+    /**
+     * Collect the annotated creator parameter from the elements of a stream, by the
+     * {@code Collector} named by {@link #value()}.
+     * <p>
+     * If any creator parameter is annotated, a {@code collector(...)} method is generated, whose
+     * {@code Collector} combines the collectors of all annotated parameters, and takes the other
+     * parameters as its arguments, except the {@link Default} ones. It accumulates every split of
+     * a parallel stream separately, merges the splits by the combiners of the parameters, and
+     * finishes by filling a {@code Builder} to {@code build()} the target. It is
+     * {@code UNORDERED} if all combined collectors are.
+     */
+    @Documented
+    @Target(ElementType.PARAMETER)
+    @Retention(RetentionPolicy.SOURCE)
+    @interface Collect {
+        /**
+         * Name of a static field, or of a static method without parameters, of the type declaring
+         * the creator, which is a {@code Collector} of the stream elements, whose result is
+         * assignable to the parameter. All collectors must take the same type of elements.
+         */
+        String value();
+    }
+}
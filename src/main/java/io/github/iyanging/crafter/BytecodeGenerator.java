@@ -0,0 +1,611 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import static io.github.iyanging.crafter.ClassFileWriter.*;
+
+import java.util.*;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Generate the builder of a creator directly as class files, the same classes as the rendered
+ * source would be compiled to, so that neither rendering nor compiling the source is needed.
+ * <p>
+ * Only plain builders are supported: without type parameters, {@link Builder} options or
+ * parameters other than {@link Builder.Default} ones, whose defaults need no conversion.
+ * Defaults are read by a private method of the {@code Builder} per parameter, so that
+ * {@code build()} stays straight-line code.
+ */
+class BytecodeGenerator {
+    private static final String OBJECT_NAME = "java/lang/Object";
+    private static final String CONSTRUCTOR_NAME = "<init>";
+
+    private final ProcessingEnvironment processingEnv;
+    private final ExecutableElement creator;
+    private final String containerName;
+
+    BytecodeGenerator(
+        ProcessingEnvironment processingEnv,
+        ExecutableElement creator,
+        String packageName,
+        String builderContainerName
+    ) {
+        this.processingEnv = processingEnv;
+        this.creator = creator;
+        this.containerName = packageName.isEmpty()
+            ? builderContainerName
+            : packageName.replace('.', '/') + "/" + builderContainerName;
+    }
+
+    /**
+     * Whether the builder can be generated as class files, otherwise it falls back to source.
+     */
+    boolean isSupported(Builder builderAnno) {
+        final var typeUtils = processingEnv.getTypeUtils();
+        final var targetElement = typeUtils.asElement(Crafter.extractTargetClass(creator));
+
+        final var hasOption = builderAnno.sealed() || builderAnno.reusable()
+            || builderAnno.batch() || builderAnno.rowMapper() || builderAnno.copy()
+            || builderAnno.unordered() || builderAnno.intern() || builderAnno.validate()
+            || builderAnno.json() || builderAnno.binary() || builderAnno.config()
+            || builderAnno.async() || builderAnno.monitored();
+
+        if (hasOption
+            || ! Crafter.calcTypeParameters(typeUtils, creator).isEmpty()
+            || ! (targetElement instanceof TypeElement)
+            || targetElement.getModifiers().contains(Modifier.PRIVATE)
+            || targetElement.getModifiers().contains(Modifier.PROTECTED)) {
+            return false;
+        }
+
+        for (final var parameter : creator.getParameters()) {
+            if (parameter.getAnnotation(Builder.Accumulate.class) != null
+                || parameter.getAnnotation(Builder.Collect.class) != null
+                || makeSignature(parameter.asType()) == null) {
+                return false;
+            }
+
+            if (Crafter.isDefaulted(parameter)) {
+                final var member = Crafter.findDefaultMember(typeUtils, creator, parameter);
+
+                if (member == null) {
+                    return false;
+                }
+
+                // a default which is boxed, unboxed or widened needs a conversion
+                final var defaultType = typeUtils.erasure(makeDefaultType(member));
+                final var parameterType = typeUtils.erasure(parameter.asType());
+                final var isConverted = defaultType.getKind().isPrimitive()
+                    || parameterType.getKind().isPrimitive()
+                        ? ! typeUtils.isSameType(defaultType, parameterType)
+                        : ! typeUtils.isAssignable(defaultType, parameterType);
+
+                if (isConverted) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Generate the class files of the builder container and its nested classes, by their binary
+     * names.
+     */
+    Map<String, byte[]> generate() {
+        final var requiredParameterList = Crafter.filterRequiredParameters(creator);
+
+        // stage names in order, like the source builder
+        final var stageNameList = new ArrayList<String>();
+        for (var i = 0; i < requiredParameterList.size(); i++) {
+            stageNameList.add(
+                i == 0
+                    ? "FirstStage"
+                    : Crafter.makeUpperCamelCase(
+                        requiredParameterList.get(i).getSimpleName().toString()
+                    ) + "_"
+            );
+        }
+        stageNameList.add("FinalStage");
+
+        final var classFileMap = new LinkedHashMap<String, byte[]>();
+
+        classFileMap.put(containerName, makeContainer(stageNameList));
+
+        for (var i = 0; i < stageNameList.size(); i++) {
+            final var isFinalStage = i == stageNameList.size() - 1;
+
+            classFileMap.put(
+                makeNestedName(stageNameList.get(i)),
+                makeStage(
+                    stageNameList,
+                    stageNameList.get(i),
+                    isFinalStage ? null : requiredParameterList.get(i),
+                    isFinalStage ? null : stageNameList.get(i + 1)
+                )
+            );
+        }
+
+        classFileMap.put(makeNestedName(Crafter.BUILDER_CLASS_NAME), makeBuilder(stageNameList));
+
+        final var binaryNameMap = new LinkedHashMap<String, byte[]>();
+        classFileMap.forEach((name, bytes) -> binaryNameMap.put(name.replace('/', '.'), bytes));
+
+        return binaryNameMap;
+    }
+
+    private byte[] makeContainer(List<String> stageNameList) {
+        final var isPublic = isTargetPublic();
+        final var builderName = makeNestedName(Crafter.BUILDER_CLASS_NAME);
+
+        final var container = new ClassFileWriter(
+            calcMajorVersion(),
+            (isPublic ? ACC_PUBLIC : 0) | ACC_SUPER,
+            containerName,
+            OBJECT_NAME,
+            List.of()
+        );
+
+        addInnerClasses(container, stageNameList);
+
+        // make constructor private to prevent instantiation of container
+        container.addMethod(ACC_PRIVATE, CONSTRUCTOR_NAME, "()V", null)
+            .load("L" + containerName + ";", 0)
+            .invokeSpecial(OBJECT_NAME, CONSTRUCTOR_NAME, "()V")
+            .returnValue("V");
+
+        final var builderDescriptor = "L" + builderName + ";";
+
+        container.addMethod(ACC_PUBLIC | ACC_STATIC, "builder", "()" + builderDescriptor, null)
+            .newObject(builderName)
+            .dup()
+            .invokeSpecial(builderName, CONSTRUCTOR_NAME, "()V")
+            .returnValue(builderDescriptor);
+
+        return container.toByteArray();
+    }
+
+    private byte[] makeStage(
+        List<String> stageNameList,
+        String stageName,
+        @Nullable VariableElement parameter,
+        @Nullable String nextStageName
+    ) {
+        final var stage = new ClassFileWriter(
+            calcMajorVersion(),
+            ACC_PUBLIC | ACC_INTERFACE | ACC_ABSTRACT,
+            makeNestedName(stageName),
+            OBJECT_NAME,
+            List.of()
+        );
+
+        addInnerClasses(stage, stageNameList);
+
+        if (parameter != null && nextStageName != null) {
+            stage.addAbstractMethod(
+                ACC_PUBLIC,
+                parameter.getSimpleName().toString(),
+                makeSetterDescriptor(parameter, nextStageName, false),
+                makeSetterDescriptor(parameter, nextStageName, true)
+            );
+
+        } else {
+            // `build()` is followed by the setters of defaulted parameters
+            stage.addAbstractMethod(ACC_PUBLIC, "build", makeBuildDescriptor(), null);
+
+            for (final var defaultedParameter : creator.getParameters()) {
+                if (Crafter.isDefaulted(defaultedParameter)) {
+                    stage.addAbstractMethod(
+                        ACC_PUBLIC,
+                        defaultedParameter.getSimpleName().toString(),
+                        makeSetterDescriptor(defaultedParameter, stageName, false),
+                        makeSetterDescriptor(defaultedParameter, stageName, true)
+                    );
+                }
+            }
+        }
+
+        return stage.toByteArray();
+    }
+
+    private byte[] makeBuilder(List<String> stageNameList) {
+        final var builderName = makeNestedName(Crafter.BUILDER_CLASS_NAME);
+        final var builderDescriptor = "L" + builderName + ";";
+        final var requiredParameterList = Crafter.filterRequiredParameters(creator);
+
+        final var builder = new ClassFileWriter(
+            calcMajorVersion(),
+            ACC_PUBLIC | ACC_SUPER,
+            builderName,
+            OBJECT_NAME,
+            stageNameList.stream().map(this::makeNestedName).toList()
+        );
+
+        addInnerClasses(builder, stageNameList);
+
+        builder.addMethod(ACC_PUBLIC, CONSTRUCTOR_NAME, "()V", null)
+            .load(builderDescriptor, 0)
+            .invokeSpecial(OBJECT_NAME, CONSTRUCTOR_NAME, "()V")
+            .returnValue("V");
+
+        for (final var parameter : creator.getParameters()) {
+            final var name = parameter.getSimpleName().toString();
+            final var descriptor = makeDescriptor(parameter.asType());
+            final var isDefaulted = Crafter.isDefaulted(parameter);
+
+            builder.addField(
+                ACC_PROTECTED,
+                name,
+                descriptor,
+                makeSignature(parameter.asType())
+            );
+
+            if (isDefaulted) {
+                builder.addField(
+                    ACC_PROTECTED,
+                    Crafter.makeAssignedFlagName(name),
+                    "Z",
+                    null
+                );
+            }
+
+            // required parameters lead to the next stage, defaulted ones stay at the final stage
+            final var nextStageName = isDefaulted
+                ? stageNameList.get(stageNameList.size() - 1)
+                : stageNameList.get(requiredParameterList.indexOf(parameter) + 1);
+
+            final var setter = builder.addMethod(
+                ACC_PUBLIC,
+                name,
+                makeSetterDescriptor(parameter, nextStageName, false),
+                makeSetterDescriptor(parameter, nextStageName, true)
+            )
+                .load(builderDescriptor, 0)
+                .load(descriptor, 1)
+                .putField(builderName, name, descriptor);
+
+            if (isDefaulted) {
+                setter
+                    .load(builderDescriptor, 0)
+                    .pushTrue()
+                    .putField(builderName, Crafter.makeAssignedFlagName(name), "Z");
+            }
+
+            setter
+                .load(builderDescriptor, 0)
+                .returnValue("L" + makeNestedName(nextStageName) + ";");
+
+            if (isDefaulted) {
+                addDefaultedGetter(builder, parameter);
+            }
+        }
+
+        addBuildMethod(builder);
+
+        return builder.toByteArray();
+    }
+
+    private void addDefaultedGetter(ClassFileWriter builder, VariableElement parameter) {
+        final var builderName = makeNestedName(Crafter.BUILDER_CLASS_NAME);
+        final var builderDescriptor = "L" + builderName + ";";
+        final var name = parameter.getSimpleName().toString();
+        final var descriptor = makeDescriptor(parameter.asType());
+        final var member = Objects.requireNonNull(
+            Crafter.findDefaultMember(processingEnv.getTypeUtils(), creator, parameter)
+        );
+        final var ownerElement = Crafter.extractOriginatingElement(creator);
+        final var ownerName = makeInternalName(ownerElement);
+
+        addInnerClass(builder, ownerElement);
+
+        final var getter = builder.addMethod(
+            ACC_PRIVATE,
+            makeDefaultedGetterName(parameter),
+            "()" + descriptor,
+            null
+        )
+            .load(builderDescriptor, 0)
+            .getField(builderName, Crafter.makeAssignedFlagName(name), "Z");
+
+        final var notAssigned = getter.ifZero();
+
+        getter
+            .load(builderDescriptor, 0)
+            .getField(builderName, name, descriptor)
+            .returnValue(descriptor)
+            .bind(notAssigned);
+
+        final var memberDescriptor = makeDescriptor(makeDefaultType(member));
+
+        if (member.getKind() == ElementKind.METHOD) {
+            getter.invokeStatic(
+                ownerName,
+                member.getSimpleName().toString(),
+                "()" + memberDescriptor,
+                ownerElement.getKind().isInterface()
+            );
+
+        } else {
+            getter.getStatic(ownerName, member.getSimpleName().toString(), memberDescriptor);
+        }
+
+        getter.returnValue(descriptor);
+    }
+
+    private void addBuildMethod(ClassFileWriter builder) {
+        final var builderName = makeNestedName(Crafter.BUILDER_CLASS_NAME);
+        final var builderDescriptor = "L" + builderName + ";";
+        final var buildDescriptor = makeBuildDescriptor();
+        final var code = builder.addMethod(ACC_PUBLIC, "build", buildDescriptor, null);
+
+        final var creatorDescriptor = new StringBuilder("(");
+        for (final var parameter : creator.getParameters()) {
+            creatorDescriptor.append(makeDescriptor(parameter.asType()));
+        }
+
+        final var ownerElement = Crafter.extractOriginatingElement(creator);
+        final var ownerName = makeInternalName(ownerElement);
+        final var isConstructor = creator.getKind() == ElementKind.CONSTRUCTOR;
+
+        addInnerClass(builder, ownerElement);
+
+        if (isConstructor) {
+            code.newObject(ownerName).dup();
+        }
+
+        for (final var parameter : creator.getParameters()) {
+            final var descriptor = makeDescriptor(parameter.asType());
+
+            code.load(builderDescriptor, 0);
+
+            if (Crafter.isDefaulted(parameter)) {
+                code.invokeSpecial(
+                    builderName,
+                    makeDefaultedGetterName(parameter),
+                    "()" + descriptor
+                );
+
+            } else {
+                code.getField(builderName, parameter.getSimpleName().toString(), descriptor);
+            }
+        }
+
+        if (isConstructor) {
+            code.invokeSpecial(ownerName, CONSTRUCTOR_NAME, creatorDescriptor + ")V");
+
+        } else {
+            code.invokeStatic(
+                ownerName,
+                creator.getSimpleName().toString(),
+                creatorDescriptor + ")" + makeDescriptor(creator.getReturnType()),
+                ownerElement.getKind().isInterface()
+            );
+        }
+
+        code.returnValue(buildDescriptor.substring(2));
+    }
+
+    /**
+     * Declare the nested classes of the container, and the class of the target if it is nested.
+     */
+    private void addInnerClasses(ClassFileWriter classFile, List<String> stageNameList) {
+        for (final var stageName : stageNameList) {
+            classFile.addInnerClass(
+                makeNestedName(stageName),
+                containerName,
+                stageName,
+                ACC_PUBLIC | ACC_STATIC | ACC_INTERFACE | ACC_ABSTRACT
+            );
+        }
+
+        classFile.addInnerClass(
+            makeNestedName(Crafter.BUILDER_CLASS_NAME),
+            containerName,
+            Crafter.BUILDER_CLASS_NAME,
+            ACC_PUBLIC | ACC_STATIC
+        );
+
+        addInnerClass(
+            classFile,
+            (TypeElement) processingEnv.getTypeUtils()
+                .asElement(Crafter.extractTargetClass(creator))
+        );
+    }
+
+    private void addInnerClass(ClassFileWriter classFile, TypeElement typeElement) {
+        if (! (typeElement.getEnclosingElement() instanceof TypeElement outerElement)) {
+            return;
+        }
+
+        var access = 0;
+        for (final var modifier : typeElement.getModifiers()) {
+            access |= switch (modifier) {
+                case PUBLIC -> ACC_PUBLIC;
+                case PROTECTED -> ACC_PROTECTED;
+                case PRIVATE -> ACC_PRIVATE;
+                case STATIC -> ACC_STATIC;
+                case FINAL -> ACC_FINAL;
+                case ABSTRACT -> ACC_ABSTRACT;
+                default -> 0;
+            };
+        }
+
+        access |= switch (typeElement.getKind()) {
+            case INTERFACE -> ACC_INTERFACE | ACC_ABSTRACT | ACC_STATIC;
+            case ANNOTATION_TYPE -> ACC_ANNOTATION | ACC_INTERFACE | ACC_ABSTRACT | ACC_STATIC;
+            case ENUM -> ACC_ENUM | ACC_STATIC;
+            case RECORD -> ACC_FINAL | ACC_STATIC;
+            default -> 0;
+        };
+
+        classFile.addInnerClass(
+            makeInternalName(typeElement),
+            makeInternalName(outerElement),
+            typeElement.getSimpleName().toString(),
+            access
+        );
+
+        addInnerClass(classFile, outerElement);
+    }
+
+    private String makeBuildDescriptor() {
+        return "()" + makeDescriptor(
+            processingEnv.getTypeUtils().erasure(Crafter.extractTargetClass(creator))
+        );
+    }
+
+    private String makeSetterDescriptor(
+        VariableElement parameter,
+        String nextStageName,
+        boolean isSignature
+    ) {
+        final var parameterType = isSignature
+            ? Objects.requireNonNull(makeSignature(parameter.asType()))
+            : makeDescriptor(parameter.asType());
+
+        return "(" + parameterType + ")L" + makeNestedName(nextStageName) + ";";
+    }
+
+    private String makeNestedName(String simpleName) {
+        return containerName + "$" + simpleName;
+    }
+
+    private boolean isTargetPublic() {
+        return processingEnv.getTypeUtils()
+            .asElement(Crafter.extractTargetClass(creator))
+            .getModifiers()
+            .contains(Modifier.PUBLIC);
+    }
+
+    private int calcMajorVersion() {
+        // the class files are read by the same compilation, so they follow its source version,
+        // and have stack map frames since Java 7
+        final var sourceVersion = Math.max(
+            processingEnv.getSourceVersion().ordinal(),
+            SourceVersion.RELEASE_7.ordinal()
+        );
+
+        return sourceVersion + 44;
+    }
+
+    private String makeDescriptor(TypeMirror type) {
+        final var erasure = processingEnv.getTypeUtils().erasure(type);
+
+        return switch (erasure.getKind()) {
+            case BOOLEAN -> "Z";
+            case BYTE -> "B";
+            case SHORT -> "S";
+            case CHAR -> "C";
+            case INT -> "I";
+            case LONG -> "J";
+            case FLOAT -> "F";
+            case DOUBLE -> "D";
+            case ARRAY -> "[" + makeDescriptor(((ArrayType) erasure).getComponentType());
+            default -> "L" + makeInternalName(
+                (TypeElement) processingEnv.getTypeUtils().asElement(erasure)
+            ) + ";";
+        };
+    }
+
+    /**
+     * Make the generic signature of the type, or return null if the type cannot be expressed,
+     * like a type variable.
+     */
+    private @Nullable String makeSignature(TypeMirror type) {
+        return switch (type.getKind()) {
+            case BOOLEAN, BYTE, SHORT, CHAR, INT, LONG, FLOAT, DOUBLE -> makeDescriptor(type);
+
+            case ARRAY -> {
+                final var componentSignature = makeSignature(
+                    ((ArrayType) type).getComponentType()
+                );
+                yield componentSignature == null ? null : "[" + componentSignature;
+            }
+
+            case DECLARED -> {
+                final var declaredType = (DeclaredType) type;
+                final var signature = new StringBuilder("L")
+                    .append(makeInternalName((TypeElement) declaredType.asElement()));
+
+                if (! declaredType.getTypeArguments().isEmpty()) {
+                    signature.append('<');
+
+                    for (final var typeArgument : declaredType.getTypeArguments()) {
+                        final var argumentSignature = makeArgumentSignature(typeArgument);
+
+                        if (argumentSignature == null) {
+                            yield null;
+                        }
+
+                        signature.append(argumentSignature);
+                    }
+
+                    signature.append('>');
+                }
+
+                yield signature.append(';').toString();
+            }
+
+            default -> null;
+        };
+    }
+
+    private @Nullable String makeArgumentSignature(TypeMirror typeArgument) {
+        if (! (typeArgument instanceof WildcardType wildcardType)) {
+            return makeSignature(typeArgument);
+        }
+
+        final var extendsBound = wildcardType.getExtendsBound();
+        final var superBound = wildcardType.getSuperBound();
+
+        if (extendsBound != null) {
+            final var boundSignature = makeSignature(extendsBound);
+            return boundSignature == null ? null : "+" + boundSignature;
+
+        } else if (superBound != null) {
+            final var boundSignature = makeSignature(superBound);
+            return boundSignature == null ? null : "-" + boundSignature;
+
+        } else {
+            return "*";
+        }
+    }
+
+    private String makeInternalName(TypeElement typeElement) {
+        return processingEnv.getElementUtils()
+            .getBinaryName(typeElement)
+            .toString()
+            .replace('.', '/');
+    }
+
+    private static TypeMirror makeDefaultType(Element member) {
+        return member instanceof ExecutableElement method
+            ? method.getReturnType()
+            : member.asType();
+    }
+
+    private static String makeDefaultedGetterName(VariableElement parameter) {
+        return Crafter.makeInternalName(parameter.getSimpleName() + "OrDefault");
+    }
+}
@@ -0,0 +1,566 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+import java.util.function.Supplier;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * A minimal writer of class files, which only supports what {@link BytecodeGenerator} emits.
+ * <p>
+ * Methods are made of straight-line code, and forward branches to the frame of the method entry,
+ * whose locals are the parameters and whose stack is empty. Constants are deduplicated, so the
+ * class file is the same for the same calls.
+ */
+final class ClassFileWriter {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_PROTECTED = 0x0004;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+    static final int ACC_INTERFACE = 0x0200;
+    static final int ACC_ABSTRACT = 0x0400;
+    static final int ACC_ANNOTATION = 0x2000;
+    static final int ACC_ENUM = 0x4000;
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private record InnerClass(String innerName, String outerName, String simpleName, int access) {}
+
+    private final int majorVersion;
+    private final int access;
+    private final String internalName;
+    private final String superName;
+    private final List<String> interfaceNameList;
+
+    private final Bytes constantPool = new Bytes();
+    private final Map<String, Integer> constantMap = new HashMap<>();
+    private int constantCount = 1;
+
+    private final List<Bytes> fieldList = new ArrayList<>();
+    private final List<Bytes> methodList = new ArrayList<>();
+    private final List<Code> codeList = new ArrayList<>();
+    private final Map<String, InnerClass> innerClassMap = new LinkedHashMap<>();
+
+    ClassFileWriter(
+        int majorVersion,
+        int access,
+        String internalName,
+        String superName,
+        List<String> interfaceNameList
+    ) {
+        this.majorVersion = majorVersion;
+        this.access = access;
+        this.internalName = internalName;
+        this.superName = superName;
+        this.interfaceNameList = interfaceNameList;
+    }
+
+    /**
+     * Declare a nested class, which must be declared for every nested class referred by the
+     * class file, including the class itself.
+     */
+    void addInnerClass(String innerName, String outerName, String simpleName, int access) {
+        innerClassMap.putIfAbsent(
+            innerName,
+            new InnerClass(innerName, outerName, simpleName, access)
+        );
+    }
+
+    void addField(int access, String name, String descriptor, @Nullable String signature) {
+        final var field = new Bytes()
+            .u2(access)
+            .u2(utf8(name))
+            .u2(utf8(descriptor));
+
+        writeSignature(field, descriptor, signature);
+        fieldList.add(field);
+    }
+
+    void addAbstractMethod(int access, String name, String descriptor, @Nullable String signature) {
+        final var method = new Bytes()
+            .u2(access | ACC_ABSTRACT)
+            .u2(utf8(name))
+            .u2(utf8(descriptor));
+
+        writeSignature(method, descriptor, signature);
+        methodList.add(method);
+    }
+
+    /**
+     * Add a method, whose code is to be written into the returned {@link Code} before
+     * {@link #toByteArray()}.
+     */
+    Code addMethod(int access, String name, String descriptor, @Nullable String signature) {
+        final var method = new Bytes()
+            .u2(access)
+            .u2(utf8(name))
+            .u2(utf8(descriptor));
+
+        final var code = new Code(
+            method,
+            signature != null && ! signature.equals(descriptor) ? signature : null,
+            calcArgumentSize(descriptor) + ((access & ACC_STATIC) != 0 ? 0 : 1)
+        );
+
+        methodList.add(method);
+        codeList.add(code);
+
+        return code;
+    }
+
+    byte[] toByteArray() {
+        for (final var code : codeList) {
+            code.finish();
+        }
+
+        final var thisIndex = classConstant(internalName);
+        final var superIndex = classConstant(superName);
+        final var interfaceIndexList = interfaceNameList.stream()
+            .map(this::classConstant)
+            .toList();
+
+        final var innerClasses = new Bytes().u2(innerClassMap.size());
+        for (final var innerClass : innerClassMap.values()) {
+            innerClasses
+                .u2(classConstant(innerClass.innerName()))
+                .u2(classConstant(innerClass.outerName()))
+                .u2(utf8(innerClass.simpleName()))
+                .u2(innerClass.access());
+        }
+
+        final var innerClassesIndex = innerClassMap.isEmpty() ? 0 : utf8("InnerClasses");
+
+        // the constant pool is complete from here
+        final var classFile = new Bytes()
+            .u4(MAGIC)
+            .u2(0)
+            .u2(majorVersion)
+            .u2(constantCount)
+            .bytes(constantPool)
+            .u2(access)
+            .u2(thisIndex)
+            .u2(superIndex)
+            .u2(interfaceIndexList.size());
+
+        interfaceIndexList.forEach(classFile::u2);
+
+        classFile.u2(fieldList.size());
+        fieldList.forEach(classFile::bytes);
+
+        classFile.u2(methodList.size());
+        methodList.forEach(classFile::bytes);
+
+        if (innerClassMap.isEmpty()) {
+            classFile.u2(0);
+
+        } else {
+            classFile
+                .u2(1)
+                .u2(innerClassesIndex)
+                .u4(innerClasses.size())
+                .bytes(innerClasses);
+        }
+
+        return classFile.toByteArray();
+    }
+
+    private void writeSignature(Bytes member, String descriptor, @Nullable String signature) {
+        // generic signatures are only kept when they are not erased already
+        if (signature == null || signature.equals(descriptor)) {
+            member.u2(0);
+
+        } else {
+            member
+                .u2(1)
+                .u2(utf8("Signature"))
+                .u4(2)
+                .u2(utf8(signature));
+        }
+    }
+
+    private int utf8(String value) {
+        return constant(
+            "Utf8:" + value,
+            () -> {
+                final var bytes = encodeModifiedUtf8(value);
+
+                return new Bytes()
+                    .u1(CONSTANT_UTF8)
+                    .u2(bytes.length)
+                    .bytes(bytes);
+            }
+        );
+    }
+
+    private int classConstant(String internalName) {
+        return constant(
+            "Class:" + internalName,
+            () -> new Bytes()
+                .u1(CONSTANT_CLASS)
+                .u2(utf8(internalName))
+        );
+    }
+
+    private int memberConstant(int tag, String owner, String name, String descriptor) {
+        return constant(
+            "%d:%s.%s:%s".formatted(tag, owner, name, descriptor),
+            () -> new Bytes()
+                .u1(tag)
+                .u2(classConstant(owner))
+                .u2(
+                    constant(
+                        "NameAndType:%s:%s".formatted(name, descriptor),
+                        () -> new Bytes()
+                            .u1(CONSTANT_NAME_AND_TYPE)
+                            .u2(utf8(name))
+                            .u2(utf8(descriptor))
+                    )
+                )
+        );
+    }
+
+    private int constant(String key, Supplier<Bytes> entry) {
+        final var index = constantMap.get(key);
+
+        if (index != null) {
+            return index;
+        }
+
+        // the entry may add the constants it refers to, so it is appended after them
+        final var bytes = entry.get();
+        constantPool.bytes(bytes);
+        constantMap.put(key, constantCount);
+
+        return constantCount++;
+    }
+
+    /**
+     * Number of local variable slots taken by the arguments of a method descriptor.
+     */
+    static int calcArgumentSize(String descriptor) {
+        var size = 0;
+        var i = 1;
+
+        while (descriptor.charAt(i) != ')') {
+            final var type = descriptor.charAt(i);
+            var end = i;
+
+            while (descriptor.charAt(end) == '[') {
+                end++;
+            }
+
+            if (descriptor.charAt(end) == 'L') {
+                end = descriptor.indexOf(';', end);
+            }
+
+            size += end == i && (type == 'J' || type == 'D') ? 2 : 1;
+            i = end + 1;
+        }
+
+        return size;
+    }
+
+    /**
+     * Number of stack slots taken by a value of a field descriptor, or by the return value of a
+     * method descriptor.
+     */
+    static int calcValueSize(String descriptor) {
+        final var type = descriptor.charAt(descriptor.lastIndexOf(')') + 1);
+
+        return switch (type) {
+            case 'V' -> 0;
+            case 'J', 'D' -> 2;
+            default -> 1;
+        };
+    }
+
+    private static byte[] encodeModifiedUtf8(String value) {
+        final var output = new ByteArrayOutputStream(value.length());
+
+        for (var i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+
+            if (c != 0 && c < 0x80) {
+                output.write(c);
+
+            } else if (c < 0x800) {
+                output.write(0xC0 | c >> 6);
+                output.write(0x80 | c & 0x3F);
+
+            } else {
+                output.write(0xE0 | c >> 12);
+                output.write(0x80 | c >> 6 & 0x3F);
+                output.write(0x80 | c & 0x3F);
+            }
+        }
+
+        return output.toByteArray();
+    }
+
+    /**
+     * The code of a method, whose max stack is tracked along the instructions.
+     */
+    final class Code {
+        private final Bytes method;
+        private final @Nullable String signature;
+        private final int maxLocals;
+
+        private final Bytes code = new Bytes();
+        private final List<Integer> frameOffsetList = new ArrayList<>();
+        private int stack = 0;
+        private int maxStack = 0;
+
+        private Code(Bytes method, @Nullable String signature, int maxLocals) {
+            this.method = method;
+            this.signature = signature;
+            this.maxLocals = maxLocals;
+        }
+
+        /**
+         * Load the local variable of the given descriptor type.
+         */
+        Code load(String descriptor, int slot) {
+            final var opcode = switch (descriptor.charAt(0)) {
+                case 'Z', 'B', 'C', 'S', 'I' -> 0x15;
+                case 'J' -> 0x16;
+                case 'F' -> 0x17;
+                case 'D' -> 0x18;
+                default -> 0x19;
+            };
+
+            code.u1(opcode).u1(slot);
+            return push(calcValueSize(descriptor));
+        }
+
+        /**
+         * Return the value of the given descriptor type, or nothing for {@code V}.
+         */
+        Code returnValue(String descriptor) {
+            final var opcode = switch (descriptor.charAt(0)) {
+                case 'V' -> 0xB1;
+                case 'Z', 'B', 'C', 'S', 'I' -> 0xAC;
+                case 'J' -> 0xAD;
+                case 'F' -> 0xAE;
+                case 'D' -> 0xAF;
+                default -> 0xB0;
+            };
+
+            code.u1(opcode);
+            return push(-calcValueSize(descriptor));
+        }
+
+        Code newObject(String internalName) {
+            code.u1(0xBB).u2(classConstant(internalName));
+            return push(1);
+        }
+
+        Code pushTrue() {
+            code.u1(0x04);
+            return push(1);
+        }
+
+        Code dup() {
+            code.u1(0x59);
+            return push(1);
+        }
+
+        Code getField(String owner, String name, String descriptor) {
+            code.u1(0xB4).u2(memberConstant(CONSTANT_FIELDREF, owner, name, descriptor));
+            return push(calcValueSize(descriptor) - 1);
+        }
+
+        Code putField(String owner, String name, String descriptor) {
+            code.u1(0xB5).u2(memberConstant(CONSTANT_FIELDREF, owner, name, descriptor));
+            return push(-calcValueSize(descriptor) - 1);
+        }
+
+        Code getStatic(String owner, String name, String descriptor) {
+            code.u1(0xB2).u2(memberConstant(CONSTANT_FIELDREF, owner, name, descriptor));
+            return push(calcValueSize(descriptor));
+        }
+
+        Code invokeSpecial(String owner, String name, String descriptor) {
+            code.u1(0xB7).u2(memberConstant(CONSTANT_METHODREF, owner, name, descriptor));
+            return push(calcValueSize(descriptor) - calcArgumentSize(descriptor) - 1);
+        }
+
+        Code invokeStatic(String owner, String name, String descriptor, boolean isInterface) {
+            code.u1(0xB8)
+                .u2(
+                    memberConstant(
+                        isInterface ? CONSTANT_INTERFACE_METHODREF : CONSTANT_METHODREF,
+                        owner,
+                        name,
+                        descriptor
+                    )
+                );
+            return push(calcValueSize(descriptor) - calcArgumentSize(descriptor));
+        }
+
+        /**
+         * Branch if the {@code int} on the stack is zero, to be bound by {@link #bind(int)}.
+         *
+         * @return the branch to be bound
+         */
+        int ifZero() {
+            final var branch = code.size();
+
+            code.u1(0x99).u2(0);
+            push(-1);
+
+            return branch;
+        }
+
+        /**
+         * Bind the branch to the current instruction, where the stack must be empty.
+         */
+        Code bind(int branch) {
+            if (stack != 0) {
+                throw new IllegalStateException("Branches must target an empty stack");
+            }
+
+            code.patchU2(branch + 1, code.size() - branch);
+            frameOffsetList.add(code.size());
+
+            return this;
+        }
+
+        private Code push(int slots) {
+            stack += slots;
+            maxStack = Math.max(maxStack, stack);
+            return this;
+        }
+
+        private void finish() {
+            // all frames are the frame of the method entry
+            final var stackMapTable = new Bytes().u2(frameOffsetList.size());
+            var previousOffset = -1;
+
+            for (final var offset : frameOffsetList) {
+                final var delta = offset - previousOffset - 1;
+
+                if (delta < 64) {
+                    stackMapTable.u1(delta);
+
+                } else {
+                    stackMapTable.u1(251).u2(delta);
+                }
+
+                previousOffset = offset;
+            }
+
+            final var codeAttributeList = new ArrayList<Bytes>();
+
+            if (! frameOffsetList.isEmpty()) {
+                codeAttributeList.add(
+                    new Bytes()
+                        .u2(utf8("StackMapTable"))
+                        .u4(stackMapTable.size())
+                        .bytes(stackMapTable)
+                );
+            }
+
+            final var codeAttribute = new Bytes()
+                .u2(maxStack)
+                .u2(maxLocals)
+                .u4(code.size())
+                .bytes(code)
+                // no exception handlers
+                .u2(0)
+                .u2(codeAttributeList.size());
+
+            codeAttributeList.forEach(codeAttribute::bytes);
+
+            method
+                .u2(signature != null ? 2 : 1)
+                .u2(utf8("Code"))
+                .u4(codeAttribute.size())
+                .bytes(codeAttribute);
+
+            if (signature != null) {
+                method
+                    .u2(utf8("Signature"))
+                    .u4(2)
+                    .u2(utf8(signature));
+            }
+        }
+    }
+
+    /**
+     * A growable big-endian byte array.
+     */
+    private static final class Bytes {
+        private byte[] array = new byte[64];
+        private int size = 0;
+
+        Bytes u1(int value) {
+            ensureCapacity(1);
+            array[size++] = (byte) value;
+            return this;
+        }
+
+        Bytes u2(int value) {
+            return u1(value >>> 8).u1(value);
+        }
+
+        Bytes u4(int value) {
+            return u2(value >>> 16).u2(value);
+        }
+
+        Bytes bytes(byte[] value) {
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, array, size, value.length);
+            size += value.length;
+            return this;
+        }
+
+        Bytes bytes(Bytes value) {
+            return bytes(value.toByteArray());
+        }
+
+        void patchU2(int position, int value) {
+            array[position] = (byte) (value >>> 8);
+            array[position + 1] = (byte) value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(array, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > array.length) {
+                array = Arrays.copyOf(array, Math.max(array.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.util.*;
+import java.util.stream.Collector;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+import com.palantir.javapoet.*;
+
+
+/**
+ * Generate the {@code collector()} of {@link Builder.Collect} parameters, which reduces a stream
+ * into the target by combining the collectors of the parameters.
+ * <p>
+ * The partial results of all parameters are held by one state object, so that every split of a
+ * parallel stream accumulates on its own, and the states of two splits are merged by the
+ * combiners of the parameters. The finisher fills a {@code Builder}, and returns its
+ * {@code build()}.
+ */
+class CollectorGenerator {
+    private static final String COLLECTOR_METHOD_NAME = "collector";
+    private static final String DELEGATE_METHOD_NAME = Crafter.makeInternalName(
+        COLLECTOR_METHOD_NAME
+    );
+    private static final String STATE_CLASS_NAME = Crafter.makeInternalName("CollectorState");
+
+    private static final String STATE_NAME = Crafter.makeInternalName("state");
+    private static final String ELEMENT_NAME = Crafter.makeInternalName("element");
+    private static final String LEFT_NAME = Crafter.makeInternalName("left");
+    private static final String RIGHT_NAME = Crafter.makeInternalName("right");
+    private static final String CHARACTERISTICS_NAME = Crafter.makeInternalName("characteristics");
+
+    private record Member(CodeBlock code, TypeMirror elementType, TypeMirror resultType) {}
+
+    private final ProcessingEnvironment processingEnv;
+    private final ExecutableElement creator;
+
+    private final Map<VariableElement, Member> memberMap = new LinkedHashMap<>();
+    private final Map<Element, String> errorMap = new LinkedHashMap<>();
+
+    CollectorGenerator(ProcessingEnvironment processingEnv, ExecutableElement creator) {
+        this.processingEnv = processingEnv;
+        this.creator = creator;
+
+        for (final var parameter : creator.getParameters()) {
+            final var collectAnno = parameter.getAnnotation(Builder.Collect.class);
+
+            if (collectAnno != null) {
+                collectMember(parameter, collectAnno.value());
+            }
+        }
+
+        if (! memberMap.isEmpty()
+            && ! Crafter.calcTypeParameters(processingEnv.getTypeUtils(), creator).isEmpty()) {
+            errorMap.put(creator, "Generic targets cannot be collected");
+        }
+
+        // all collectors must take the same elements
+        final var elementType = memberMap.values()
+            .stream()
+            .map(Member::elementType)
+            .findFirst();
+
+        memberMap.forEach((parameter, member) -> {
+            if (elementType.isPresent()
+                && ! processingEnv.getTypeUtils()
+                    .isSameType(member.elementType(), elementType.get())) {
+                errorMap.put(
+                    parameter,
+                    "Collector of parameter %s takes %s instead of %s".formatted(
+                        parameter.getSimpleName(),
+                        member.elementType(),
+                        elementType.get()
+                    )
+                );
+            }
+        });
+    }
+
+    /**
+     * Report the parameters which cannot be collected, and return whether any is reported.
+     */
+    boolean report() {
+        errorMap.forEach(
+            (element, message) -> processingEnv.getMessager()
+                .printMessage(Diagnostic.Kind.ERROR, message, element)
+        );
+
+        return ! errorMap.isEmpty();
+    }
+
+    boolean hasCollectedParameters() {
+        return ! memberMap.isEmpty();
+    }
+
+    /**
+     * Make the public {@code collector()}, which takes the parameters that are neither collected
+     * nor defaulted, and the private method it delegates to, which captures the accumulation
+     * types of the collectors.
+     */
+    List<MethodSpec> makeCollectorMethods() {
+        final var targetTypeName = TypeName.get(Crafter.extractTargetClass(creator));
+        final var elementTypeName = TypeName.get(
+            memberMap.values().iterator().next().elementType()
+        );
+        final var collectorTypeName = ParameterizedTypeName.get(
+            ClassName.get(Collector.class),
+            elementTypeName,
+            WildcardTypeName.subtypeOf(Object.class),
+            targetTypeName
+        );
+
+        final var passedParameterList = creator.getParameters()
+            .stream()
+            .filter(p -> ! memberMap.containsKey(p) && ! Crafter.isDefaulted(p))
+            .map(p -> (VariableElement) p)
+            .toList();
+
+        final var collectorMethod = MethodSpec.methodBuilder(COLLECTOR_METHOD_NAME)
+            .addJavadoc(
+                "Collect the elements into the target, whose other parameters are given.\n"
+            )
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameters(passedParameterList.stream().map(ParameterSpec::get).toList())
+            .returns(collectorTypeName)
+            .addStatement(
+                "return $L($L)",
+                DELEGATE_METHOD_NAME,
+                CodeBlock.join(
+                    creator.getParameters()
+                        .stream()
+                        .filter(p -> memberMap.containsKey(p) || passedParameterList.contains(p))
+                        .map(
+                            p -> memberMap.containsKey(p)
+                                ? Objects.requireNonNull(memberMap.get(p)).code()
+                                : CodeBlock.of("$L", p.getSimpleName())
+                        )
+                        .toList(),
+                    ", "
+                )
+            );
+
+        final var stateTypeName = ParameterizedTypeName.get(
+            ClassName.get("", STATE_CLASS_NAME),
+            memberMap.keySet()
+                .stream()
+                .map(CollectorGenerator::makeStateTypeVariableName)
+                .toArray(TypeName[]::new)
+        );
+
+        final var delegateMethod = MethodSpec.methodBuilder(DELEGATE_METHOD_NAME)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addTypeVariables(
+                memberMap.keySet()
+                    .stream()
+                    .map(CollectorGenerator::makeStateTypeVariableName)
+                    .toList()
+            )
+            .returns(collectorTypeName);
+
+        for (final var parameter : creator.getParameters()) {
+            final var member = memberMap.get(parameter);
+
+            if (member != null) {
+                delegateMethod.addParameter(
+                    ParameterizedTypeName.get(
+                        ClassName.get(Collector.class),
+                        elementTypeName,
+                        makeStateTypeVariableName(parameter),
+                        TypeName.get(member.resultType())
+                    ),
+                    makeCollectorName(parameter)
+                );
+
+            } else if (passedParameterList.contains(parameter)) {
+                delegateMethod.addParameter(ParameterSpec.get(parameter));
+            }
+        }
+
+        // the functions are only looked up once, instead of once per element
+        for (final var parameter : memberMap.keySet()) {
+            for (final var function : List.of("supplier", "accumulator", "combiner", "finisher")) {
+                delegateMethod.addStatement(
+                    "final var $L = $L.$L()",
+                    makeFunctionName(parameter, function),
+                    makeCollectorName(parameter),
+                    function
+                );
+            }
+        }
+
+        // the target is unordered only if every parameter is
+        delegateMethod.addStatement(
+            "final var $L = $L\n? new $T[] { $T.UNORDERED }\n: new $T[0]",
+            CHARACTERISTICS_NAME,
+            CodeBlock.join(
+                memberMap.keySet()
+                    .stream()
+                    .map(
+                        p -> CodeBlock.of(
+                            "$L.characteristics().contains($T.UNORDERED)",
+                            makeCollectorName(p),
+                            Collector.Characteristics.class
+                        )
+                    )
+                    .toList(),
+                "\n&& "
+            ),
+            Collector.Characteristics.class,
+            Collector.Characteristics.class,
+            Collector.Characteristics.class
+        );
+
+        final var supplierCode = CodeBlock.builder()
+            .addStatement("final var $L = new $T()", STATE_NAME, stateTypeName);
+        final var accumulatorCode = CodeBlock.builder();
+        final var combinerCode = CodeBlock.builder();
+
+        for (final var parameter : memberMap.keySet()) {
+            final var name = parameter.getSimpleName();
+
+            supplierCode.addStatement(
+                "$L.$L = $L.get()",
+                STATE_NAME,
+                name,
+                makeFunctionName(parameter, "supplier")
+            );
+            accumulatorCode.addStatement(
+                "$L.accept($L.$L, $L)",
+                makeFunctionName(parameter, "accumulator"),
+                STATE_NAME,
+                name,
+                ELEMENT_NAME
+            );
+            combinerCode.addStatement(
+                "$L.$L = $L.apply($L.$L, $L.$L)",
+                LEFT_NAME,
+                name,
+                makeFunctionName(parameter, "combiner"),
+                LEFT_NAME,
+                name,
+                RIGHT_NAME,
+                name
+            );
+        }
+
+        // the builder is filled in stage order, required parameters first
+        final var finisherCode = CodeBlock.builder().add("builder()");
+
+        for (final var parameter : Crafter.filterRequiredParameters(creator)) {
+            finisherCode.add("\n.$L($L)", parameter.getSimpleName(), makeFinishedCode(parameter));
+        }
+
+        for (final var parameter : creator.getParameters()) {
+            if (Crafter.isDefaulted(parameter) && memberMap.containsKey(parameter)) {
+                finisherCode.add(
+                    "\n.$L($L)",
+                    parameter.getSimpleName(),
+                    makeFinishedCode(parameter)
+                );
+            }
+        }
+
+        supplierCode.addStatement("return $L", STATE_NAME);
+        combinerCode.addStatement("return $L", LEFT_NAME);
+
+        delegateMethod.addCode(
+            CodeBlock.builder()
+                .add("return $T.of(\n$>", Collector.class)
+                .add("() -> {\n$>$L$<},\n", supplierCode.build())
+                .add("($L, $L) -> {\n$>$L$<},\n", STATE_NAME, ELEMENT_NAME, accumulatorCode.build())
+                .add("($L, $L) -> {\n$>$L$<},\n", LEFT_NAME, RIGHT_NAME, combinerCode.build())
+                .add("$L -> $L\n.build(),\n", STATE_NAME, finisherCode.build())
+                .add("$L\n$<);\n", CHARACTERISTICS_NAME)
+                .build()
+        );
+
+        return List.of(collectorMethod.build(), delegateMethod.build());
+    }
+
+    /**
+     * Make the class holding the partial results of the collectors.
+     */
+    TypeSpec makeStateClass() {
+        final var stateClass = TypeSpec.classBuilder(STATE_CLASS_NAME)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .addTypeVariables(
+                memberMap.keySet()
+                    .stream()
+                    .map(CollectorGenerator::makeStateTypeVariableName)
+                    .toList()
+            );
+
+        for (final var parameter : memberMap.keySet()) {
+            stateClass.addField(
+                makeStateTypeVariableName(parameter),
+                parameter.getSimpleName().toString()
+            );
+        }
+
+        return stateClass.build();
+    }
+
+    private void collectMember(VariableElement parameter, String memberName) {
+        final var typeUtils = processingEnv.getTypeUtils();
+        final var targetElement = Crafter.extractOriginatingElement(creator);
+        final var collectorElement = processingEnv.getElementUtils()
+            .getTypeElement(Collector.class.getCanonicalName());
+
+        for (final var member : targetElement.getEnclosedElements()) {
+            final var isField = member.getKind() == ElementKind.FIELD;
+            final var isGetter = member.getKind() == ElementKind.METHOD
+                && ((ExecutableElement) member).getParameters().isEmpty();
+
+            if (! member.getSimpleName().contentEquals(memberName)
+                || ! member.getModifiers().contains(Modifier.STATIC)
+                || member.getModifiers().contains(Modifier.PRIVATE)
+                || ! isField && ! isGetter) {
+                continue;
+            }
+
+            final var memberType = member instanceof ExecutableElement method
+                ? method.getReturnType()
+                : member.asType();
+
+            if (! (memberType instanceof DeclaredType declaredType)
+                || ! declaredType.asElement().equals(collectorElement)
+                || declaredType.getTypeArguments().size() != 3) {
+                continue;
+            }
+
+            final var elementType = declaredType.getTypeArguments().get(0);
+            final var resultType = declaredType.getTypeArguments().get(2);
+
+            if (elementType.getKind() == TypeKind.WILDCARD
+                || resultType.getKind() == TypeKind.WILDCARD
+                || ! typeUtils.isAssignable(resultType, parameter.asType())) {
+                continue;
+            }
+
+            memberMap.put(
+                parameter,
+                new Member(
+                    isGetter
+                        ? CodeBlock.of(
+                            "$T.$L()",
+                            ClassName.get(targetElement),
+                            member.getSimpleName()
+                        )
+                        : CodeBlock.of(
+                            "$T.$L",
+                            ClassName.get(targetElement),
+                            member.getSimpleName()
+                        ),
+                    elementType,
+                    resultType
+                )
+            );
+            return;
+        }
+
+        errorMap.put(
+            parameter,
+            ("Cannot find a static field or a static method without parameters %s of %s, "
+                + "which is a Collector of concrete elements into parameter %s")
+                .formatted(memberName, targetElement, parameter.getSimpleName())
+        );
+    }
+
+    private CodeBlock makeFinishedCode(VariableElement parameter) {
+        return memberMap.containsKey(parameter)
+            ? CodeBlock.of(
+                "$L.apply($L.$L)",
+                makeFunctionName(parameter, "finisher"),
+                STATE_NAME,
+                parameter.getSimpleName()
+            )
+            : CodeBlock.of("$L", parameter.getSimpleName());
+    }
+
+    private static TypeVariableName makeStateTypeVariableName(VariableElement parameter) {
+        return TypeVariableName.get(
+            Crafter.makeInternalName(
+                Crafter.makeUpperCamelCase(parameter.getSimpleName().toString()) + "State"
+            )
+        );
+    }
+
+    private static String makeCollectorName(VariableElement parameter) {
+        return Crafter.makeInternalName(parameter.getSimpleName() + "Collector");
+    }
+
+    private static String makeFunctionName(VariableElement parameter, String function) {
+        return Crafter.makeInternalName(
+            parameter.getSimpleName() + Crafter.makeUpperCamelCase(function)
+        );
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.*;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+import com.palantir.javapoet.*;
+import io.github.iyanging.crafter.runtime.ConfigReader;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Generate the {@code fromMap()} and {@code fromProperties()} of {@link Builder#config()}.
+ */
+class ConfigGenerator {
+    private static final Map<TypeKind, String> PRIMITIVE_CONVERTERS = Map.of(
+        TypeKind.BOOLEAN,
+        "asBoolean",
+        TypeKind.BYTE,
+        "asByte",
+        TypeKind.SHORT,
+        "asShort",
+        TypeKind.INT,
+        "asInt",
+        TypeKind.LONG,
+        "asLong",
+        TypeKind.FLOAT,
+        "asFloat",
+        TypeKind.DOUBLE,
+        "asDouble"
+    );
+
+    private static final Map<String, String> REFERENCE_CONVERTERS = Map.of(
+        String.class.getCanonicalName(),
+        "asString",
+        BigDecimal.class.getCanonicalName(),
+        "asBigDecimal",
+        Duration.class.getCanonicalName(),
+        "asDuration"
+    );
+
+    private static final String READER_NAME = Crafter.makeInternalName("reader");
+    private static final String MAP_NAME = Crafter.makeInternalName("map");
+    private static final String PROPERTIES_NAME = Crafter.makeInternalName("properties");
+    private static final String PREFIX_NAME = Crafter.makeInternalName("prefix");
+    private static final String VALUE_NAME = Crafter.makeInternalName("value");
+
+    private static final String FROM_CONFIG_METHOD_NAME = "fromConfig";
+
+    private final ProcessingEnvironment processingEnv;
+
+    ConfigGenerator(ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+    }
+
+    @Nullable List<MethodSpec> generate(ExecutableElement creator, Builder.KeyStyle keyStyle) {
+        final var typeUtils = processingEnv.getTypeUtils();
+
+        final var targetTypeName = TypeName.get(Crafter.extractTargetClass(creator));
+        final var typeVariableList = Crafter.calcTypeParameters(typeUtils, creator)
+            .stream()
+            .map(TypeVariableName::get)
+            .toList();
+
+        final var fromConfigMethod = MethodSpec.methodBuilder(FROM_CONFIG_METHOD_NAME)
+            .addJavadoc(
+                "Bind the target from the reader, which reports every missing key and invalid\n"
+                    + "value at once.\n"
+            )
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(typeVariableList)
+            .addParameter(ConfigReader.class, READER_NAME)
+            .returns(targetTypeName);
+
+        final var converterMethodList = new ArrayList<MethodSpec>();
+        var hasError = false;
+
+        for (final var parameter : creator.getParameters()) {
+            final var name = parameter.getSimpleName().toString();
+            final var key = switch (keyStyle) {
+                case CAMEL -> name;
+                case KEBAB -> makeKebabCase(name);
+            };
+
+            // an optional key is only converted if it is present
+            final var defaultCode = Crafter.makeDefaultCode(typeUtils, creator, parameter);
+            final var isOptional = defaultCode != null || Crafter.isNullable(parameter);
+            final var valueName = Crafter.makeInternalName(name + "Value");
+
+            final var conversionCode = makeConversionCode(
+                parameter.asType(),
+                name,
+                key,
+                isOptional
+                    ? CodeBlock.of("$L", valueName)
+                    : CodeBlock.of("$L.require($S)", READER_NAME, key),
+                converterMethodList
+            );
+
+            if (conversionCode == null) {
+                printError(
+                    parameter,
+                    "Parameter %s of type %s cannot be converted from configuration"
+                        .formatted(name, parameter.asType())
+                );
+                hasError = true;
+                continue;
+            }
+
+            if (! isOptional) {
+                fromConfigMethod.addStatement(
+                    "final $T $L = $L",
+                    TypeName.get(parameter.asType()),
+                    name,
+                    conversionCode
+                );
+                continue;
+            }
+
+            fromConfigMethod
+                .addStatement("final var $L = $L.find($S)", valueName, READER_NAME, key)
+                .addStatement(
+                    "final $T $L = $L == null ? $L : $L",
+                    TypeName.get(parameter.asType()),
+                    name,
+                    valueName,
+                    defaultCode == null ? CodeBlock.of("null") : defaultCode,
+                    conversionCode
+                );
+        }
+
+        if (hasError) {
+            return null;
+        }
+
+        fromConfigMethod
+            .addStatement(
+                "$L.check($S)",
+                READER_NAME,
+                Crafter.extractOriginatingElement(creator).getSimpleName()
+            )
+            .addStatement(
+                "return $L",
+                Crafter.makeCreatorInvocation(creator, p -> CodeBlock.of("$L", p.getSimpleName()))
+            );
+
+        final var mapTypeName = ParameterizedTypeName.get(
+            ClassName.get(Map.class),
+            ClassName.get(String.class),
+            WildcardTypeName.subtypeOf(Object.class)
+        );
+
+        final var methodList = new ArrayList<>(List.of(
+            makeEntryMethod("fromMap", targetTypeName, typeVariableList, mapTypeName, MAP_NAME),
+            makePrefixedEntryMethod(
+                "fromMap",
+                targetTypeName,
+                typeVariableList,
+                mapTypeName,
+                MAP_NAME,
+                CodeBlock.of("$L::get", MAP_NAME)
+            ),
+            makeEntryMethod(
+                "fromProperties",
+                targetTypeName,
+                typeVariableList,
+                ClassName.get(Properties.class),
+                PROPERTIES_NAME
+            ),
+            makePrefixedEntryMethod(
+                "fromProperties",
+                targetTypeName,
+                typeVariableList,
+                ClassName.get(Properties.class),
+                PROPERTIES_NAME,
+                // unlike `get()`, `getProperty()` falls back to the defaults of `Properties`
+                CodeBlock.of("$L::getProperty", PROPERTIES_NAME)
+            ),
+            fromConfigMethod.build()
+        ));
+
+        methodList.addAll(converterMethodList);
+
+        return methodList;
+    }
+
+    private MethodSpec makeEntryMethod(
+        String methodName,
+        TypeName targetTypeName,
+        List<TypeVariableName> typeVariableList,
+        TypeName sourceTypeName,
+        String sourceName
+    ) {
+        return MethodSpec.methodBuilder(methodName)
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(typeVariableList)
+            .addParameter(sourceTypeName, sourceName)
+            .returns(targetTypeName)
+            .addStatement("return $L($L, $S)", methodName, sourceName, "")
+            .build();
+    }
+
+    private MethodSpec makePrefixedEntryMethod(
+        String methodName,
+        TypeName targetTypeName,
+        List<TypeVariableName> typeVariableList,
+        TypeName sourceTypeName,
+        String sourceName,
+        CodeBlock lookupCode
+    ) {
+        return MethodSpec.methodBuilder(methodName)
+            .addJavadoc("Bind the target from the values of keys starting with the prefix.\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(typeVariableList)
+            .addParameter(sourceTypeName, sourceName)
+            .addParameter(String.class, PREFIX_NAME)
+            .returns(targetTypeName)
+            .addStatement(
+                "return $L(new $T($L, $L))",
+                FROM_CONFIG_METHOD_NAME,
+                ConfigReader.class,
+                lookupCode,
+                PREFIX_NAME
+            )
+            .build();
+    }
+
+    private @Nullable CodeBlock makeConversionCode(
+        TypeMirror type,
+        String name,
+        String key,
+        CodeBlock valueCode,
+        List<MethodSpec> converterMethodList
+    ) {
+        final var unboxedType = unbox(type);
+        final var primitiveType = unboxedType == null ? type : unboxedType;
+
+        if (primitiveType.getKind().isPrimitive()) {
+            final var converter = PRIMITIVE_CONVERTERS.get(primitiveType.getKind());
+
+            return converter == null
+                ? null
+                : CodeBlock.of("$L.$L($S, $L)", READER_NAME, converter, key, valueCode);
+        }
+
+        if (! (type instanceof DeclaredType declaredType)) {
+            return null;
+        }
+
+        final var element = (TypeElement) declaredType.asElement();
+
+        if (element.getKind() == ElementKind.ENUM) {
+            final var converterMethod = makeEnumConverterMethod(
+                Crafter.makeInternalName("as" + Crafter.makeUpperCamelCase(name)),
+                element,
+                key
+            );
+            converterMethodList.add(converterMethod);
+
+            return CodeBlock.of("$N($L, $L)", converterMethod, READER_NAME, valueCode);
+        }
+
+        final var converter = REFERENCE_CONVERTERS.get(element.getQualifiedName().toString());
+
+        return converter == null
+            ? null
+            : CodeBlock.of("$L.$L($S, $L)", READER_NAME, converter, key, valueCode);
+    }
+
+    /**
+     * Convert a value to the enum by switching on the constant names, which are known at
+     * compile time, instead of reflecting on the constants of the enum class.
+     */
+    private MethodSpec makeEnumConverterMethod(String methodName, TypeElement element, String key) {
+        final var enumTypeName = ClassName.get(element);
+
+        final var switchCode = CodeBlock.builder()
+            .add("return switch ($T.asConstantName($L)) {\n$>", ConfigReader.class, VALUE_NAME);
+
+        final var labelSet = new HashSet<String>();
+
+        for (final var enclosed : element.getEnclosedElements()) {
+            if (enclosed.getKind() != ElementKind.ENUM_CONSTANT) {
+                continue;
+            }
+
+            final var constantName = enclosed.getSimpleName().toString();
+            final var label = constantName.toUpperCase(Locale.ROOT);
+
+            // constant names differing only in case share a label, the first constant wins
+            if (labelSet.add(label)) {
+                switchCode.add("case $S -> $T.$L;\n", label, enumTypeName, constantName);
+            }
+        }
+
+        switchCode.add(
+            "default -> $L.reportInvalidEnum($S, $L, $S);\n$<};\n",
+            READER_NAME,
+            key,
+            VALUE_NAME,
+            element.getSimpleName()
+        );
+
+        return MethodSpec.methodBuilder(methodName)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(ConfigReader.class, READER_NAME)
+            .addParameter(Object.class, VALUE_NAME)
+            .returns(enumTypeName)
+            .beginControlFlow(
+                "if ($1L == null || $1L instanceof $2T)",
+                VALUE_NAME,
+                enumTypeName
+            )
+            .addStatement("return ($T) $L", enumTypeName, VALUE_NAME)
+            .endControlFlow()
+            .addCode(switchCode.build())
+            .build();
+    }
+
+    private static String makeKebabCase(String lowerCamelCase) {
+        final var kebabCase = new StringBuilder();
+
+        for (var i = 0; i < lowerCamelCase.length(); i++) {
+            final var c = lowerCamelCase.charAt(i);
+
+            if (Character.isUpperCase(c) && i > 0) {
+                kebabCase.append('-');
+            }
+
+            kebabCase.append(Character.toLowerCase(c));
+        }
+
+        return kebabCase.toString();
+    }
+
+    private @Nullable TypeMirror unbox(TypeMirror type) {
+        try {
+            return processingEnv.getTypeUtils().unboxedType(type);
+
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void printError(Element element, String message) {
+        processingEnv.getMessager()
+            .printMessage(
+                Diagnostic.Kind.ERROR,
+                message,
+                element,
+                null
+            );
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.util.*;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+
+import com.palantir.javapoet.*;
+
+
+/**
+ * Generate the copy methods of {@link Builder#copy()}, {@code from()}, which returns a
+ * {@code Builder} filled from an existing target, and one {@code withXxx()} per parameter, which
+ * returns a copy of the target with only that parameter replaced.
+ * <p>
+ * Every parameter is read back from the target by its record accessor, getter or field.
+ * {@code withXxx()} invokes the creator directly, so it allocates nothing but the new target.
+ */
+class CopyGenerator {
+    private static final String COPY_SOURCE_NAME = Crafter.makeInternalName("source");
+    private static final String COPY_BUILDER_NAME = Crafter.makeInternalName("builder");
+
+    private final ProcessingEnvironment processingEnv;
+    private final ExecutableElement creator;
+
+    private final Map<VariableElement, CodeBlock> accessorMap = new LinkedHashMap<>();
+    private final Map<Element, String> errorMap = new LinkedHashMap<>();
+
+    CopyGenerator(ProcessingEnvironment processingEnv, ExecutableElement creator) {
+        this.processingEnv = processingEnv;
+        this.creator = creator;
+
+        final var targetClass = Crafter.extractTargetClass(creator);
+
+        // read every parameter back from the target
+        for (final var parameter : creator.getParameters()) {
+            final var accessor = Crafter.findAccessor(
+                processingEnv.getElementUtils(),
+                processingEnv.getTypeUtils(),
+                targetClass,
+                parameter
+            );
+
+            if (accessor == null) {
+                errorMap.put(
+                    parameter,
+                    "Cannot find an accessible accessor or field of %s to copy parameter %s"
+                        .formatted(targetClass, parameter.getSimpleName())
+                );
+
+            } else {
+                accessorMap.put(parameter, CodeBlock.of("$L.$L", COPY_SOURCE_NAME, accessor));
+            }
+        }
+    }
+
+    /**
+     * Report the parameters which cannot be read back from the target, and return whether any is
+     * reported.
+     */
+    boolean report() {
+        errorMap.forEach(
+            (element, message) -> processingEnv.getMessager()
+                .printMessage(Diagnostic.Kind.ERROR, message, element)
+        );
+
+        return ! errorMap.isEmpty();
+    }
+
+    List<MethodSpec> makeCopyMethods(Builder builderAnno) {
+        final var creatorTypeParameterList = Crafter.calcTypeParameters(
+            processingEnv.getTypeUtils(),
+            creator
+        )
+            .stream()
+            .map(TypeVariableName::get)
+            .toList();
+        final var targetTypeName = TypeName.get(Crafter.extractTargetClass(creator));
+        final var builderTypeName = Crafter.makeBuilderTypeName(
+            processingEnv.getTypeUtils(),
+            creator
+        );
+
+        final var copyMethodList = new ArrayList<MethodSpec>();
+
+        // `from()` fills the fields of the builder directly, without going through the stages
+        final var fromMethod = MethodSpec.methodBuilder("from")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(creatorTypeParameterList)
+            .addParameter(targetTypeName, COPY_SOURCE_NAME)
+            .returns(builderTypeName)
+            .addStatement("final var $L = new $T()", COPY_BUILDER_NAME, builderTypeName);
+
+        accessorMap.forEach(
+            (parameter, accessor) -> fromMethod.addStatement(
+                "$L.$L = $L",
+                COPY_BUILDER_NAME,
+                parameter.getSimpleName(),
+                accessor
+            )
+        );
+
+        for (final var parameter : creator.getParameters()) {
+            if (Crafter.isDefaulted(parameter)) {
+                fromMethod.addStatement(
+                    "$L.$L = true",
+                    COPY_BUILDER_NAME,
+                    Crafter.makeAssignedFlagName(parameter.getSimpleName().toString())
+                );
+            }
+        }
+
+        if (builderAnno.unordered()) {
+            fromMethod.addCode(
+                new UnorderedGenerator(creator).makeAssignAllCode(COPY_BUILDER_NAME)
+            );
+        }
+
+        copyMethodList.add(
+            fromMethod
+                .addStatement("return $L", COPY_BUILDER_NAME)
+                .build()
+        );
+
+        // `withXxx()` invokes the creator directly, only replacing one parameter
+        for (final var parameter : creator.getParameters()) {
+            final var parameterName = parameter.getSimpleName().toString();
+
+            copyMethodList.add(
+                MethodSpec.methodBuilder("with" + Crafter.makeUpperCamelCase(parameterName))
+                    .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                    .addTypeVariables(creatorTypeParameterList)
+                    .addParameter(targetTypeName, COPY_SOURCE_NAME)
+                    .addParameter(ParameterSpec.get(parameter))
+                    .returns(targetTypeName)
+                    .addStatement(
+                        "return $L",
+                        Crafter.makeCreatorInvocation(
+                            creator,
+                            p -> p.equals(parameter)
+                                ? CodeBlock.of("$L", parameterName)
+                                : Objects.requireNonNull(accessorMap.get(p))
+                        )
+                    )
+                    .build()
+            );
+        }
+
+        return copyMethodList;
+    }
+}
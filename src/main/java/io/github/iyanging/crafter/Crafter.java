@@ -18,15 +18,24 @@ package io.github.iyanging.crafter;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Generated;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.*;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
 
 import com.palantir.javapoet.*;
 import org.jspecify.annotations.Nullable;
@@ -35,11 +44,168 @@ import org.jspecify.annotations.Nullable;
 public class Crafter extends AbstractProcessor {
     public static final String TOOL_NAME = "Crafter";
 
+    /**
+     * Number of threads rendering the generated files, defaults to 1.
+     * <p>
+     * Elements are still analyzed on the processing thread, because the model of javac is not
+     * thread-safe, and files are written in the order of the elements, so the output is identical
+     * whatever the parallelism is.
+     */
+    public static final String OPTION_PARALLELISM = "crafter.parallelism";
+
+    /**
+     * Whether to report timers and counters of the processor, defaults to false.
+     * <p>
+     * The report is written as the resource {@code crafter-stats.json} in the class output, and
+     * summarized as a note.
+     */
+    public static final String OPTION_STATS = "crafter.stats";
+
+    /**
+     * Directory of the cache of rendered builders, the cache is disabled if not given.
+     * <p>
+     * Builders whose creators are unchanged are not generated again, but read from the cache.
+     */
+    public static final String OPTION_CACHE_DIR = "crafter.cacheDir";
+
+    /**
+     * Max number of entries kept in the cache directory, defaults to 10000.
+     */
+    public static final String OPTION_CACHE_MAX_ENTRIES = "crafter.cacheMaxEntries";
+
+    /**
+     * Whether to nest the builders of each package into a single {@code Builders} class, defaults
+     * to false.
+     * <p>
+     * The builders are collected across rounds, and each {@code Builders} is written in the last
+     * round, which javac notes with a warning, so it cannot be processed by other processors.
+     * This cuts the number of files to be written, parsed and compiled, and of top-level classes,
+     * for packages holding many small types. Builders are then referred as
+     * {@code Builders.XxxBuilder}, companions like {@code XxxJson} are still written on their
+     * own, and the cache is not used.
+     */
+    public static final String OPTION_AGGREGATE = "crafter.aggregate";
+
+    /**
+     * How builders are generated, either {@code source} or {@code bytecode}, defaults to
+     * {@code source}.
+     * <p>
+     * With {@code bytecode}, the builder container, its stage interfaces and {@code Builder} are
+     * written directly as class files, so that javac neither parses nor compiles them. Only
+     * builders without options and with no other parameters than {@link Builder.Default} ones are
+     * supported, others are still generated as source. Builders are not aggregated then, and the
+     * cache is not used.
+     */
+    public static final String OPTION_BACKEND = "crafter.backend";
+
+    /**
+     * Qualified name of a {@code BuilderIndex} of {@code io.github.iyanging.crafter.runtime} to be
+     * generated, the index is not generated if not given.
+     * <p>
+     * The index holds a {@code BuilderFactory} for the target of every builder of the
+     * compilation, looked up by a {@code switch} on the name of the target class, and is
+     * registered in {@code META-INF/services}, so that {@code BuilderRegistry} merges the indexes
+     * of all jars. Targets which the index cannot access, like non-public types of other
+     * packages, are left out with a warning. The index is written in the last round, like
+     * {@link #OPTION_AGGREGATE}.
+     */
+    public static final String OPTION_INDEX = "crafter.index";
+
+    private static final String BACKEND_SOURCE = "source";
+    private static final String BACKEND_BYTECODE = "bytecode";
+
+    private static final String STATS_RESOURCE_NAME = "crafter-stats.json";
+
+    // the processor is declared as "dynamic" to Gradle, which asks for its incremental type here
+    private static final String GRADLE_ISOLATING = "org.gradle.annotation.processing.isolating";
+    private static final String GRADLE_AGGREGATING = "org.gradle.annotation.processing.aggregating";
+
     private static final String ANNO_BUILDER_CANONICAL_NAME = Builder.class.getCanonicalName();
 
+    static final String BUILDER_CLASS_NAME = "Builder";
+
+    private static final String AGGREGATE_CLASS_NAME = "Builders";
+
+    private static final String INTERNAL_NAME_SUFFIX = "$";
+
+    private static final String DEFAULT_ASSIGNED_SUFFIX = "Assigned";
+
+    private int parallelism = 1;
+
+    private @Nullable ForkJoinPool renderPool = null;
+
+    private ProcessingStats stats = new ProcessingStats(false);
+
+    private @Nullable GenerationCache cache = null;
+
+    private boolean aggregate = false;
+
+    private boolean bytecode = false;
+
+    private @Nullable IndexGenerator indexGenerator = null;
+
+    // builder containers of each package, to be nested into its `Builders` in the last round
+    private final Map<String, List<TypeSpec>> aggregatedContainerMap = new TreeMap<>();
+
+    /**
+     * A generated file to be rendered and written at the end of the round.
+     *
+     * @param fingerprint the cache key to store the rendered source, or null if not to be cached
+     */
+    private record PendingFile(
+        String qualifiedName,
+        List<Element> originatingElements,
+        Supplier<String> renderer,
+        @Nullable String fingerprint
+    ) {}
+
+    private final List<PendingFile> pendingFileList = new ArrayList<>();
+
+    // creators by the qualified name of their builder container, which must be unique
+    private final Map<String, ExecutableElement> containerCreatorMap = new HashMap<>();
+
+    // stages of the creators whose pending files are to be cached, by fingerprint
+    private final Map<String, Integer> pendingStageMap = new HashMap<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+
+        parallelism = parseParallelism(processingEnv.getOptions().get(OPTION_PARALLELISM));
+        stats = new ProcessingStats(
+            Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_STATS))
+        );
+        aggregate = Boolean.parseBoolean(processingEnv.getOptions().get(OPTION_AGGREGATE));
+        bytecode = parseBackend(processingEnv.getOptions().get(OPTION_BACKEND));
+
+        final var indexName = processingEnv.getOptions().get(OPTION_INDEX);
+        indexGenerator = indexName != null && ! indexName.isBlank()
+            ? new IndexGenerator(processingEnv, indexName.strip())
+            : null;
+        // cached files are whole files, which cannot be nested, and class files are not cached
+        cache = aggregate || bytecode ? null : GenerationCache.open(processingEnv);
+    }
+
     @Override
     public Set<String> getSupportedAnnotationTypes() { return Set.of(ANNO_BUILDER_CANONICAL_NAME); }
 
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Set.of(
+            OPTION_PARALLELISM,
+            OPTION_STATS,
+            OPTION_CACHE_DIR,
+            OPTION_CACHE_MAX_ENTRIES,
+            OPTION_AGGREGATE,
+            OPTION_BACKEND,
+            OPTION_INDEX,
+            // the stats resource, `Builders` and the index are aggregated from all elements
+            stats.isEnabled() || aggregate || indexGenerator != null
+                ? GRADLE_AGGREGATING
+                : GRADLE_ISOLATING
+        );
+    }
+
     @Override
     public SourceVersion getSupportedSourceVersion() { return SourceVersion.latestSupported(); }
 
@@ -48,18 +214,50 @@ public class Crafter extends AbstractProcessor {
         Set<? extends TypeElement> annotations,
         RoundEnvironment roundEnv
     ) {
-        for (final var element : roundEnv.getElementsAnnotatedWith(Builder.class)) {
+        final var processStart = stats.start();
+
+        final var elements = roundEnv.getElementsAnnotatedWith(Builder.class);
+        stats.countRound(elements.size());
+
+        for (final var element : elements) {
+
+            final var builderAnno = Objects.requireNonNull(element.getAnnotation(Builder.class));
 
             final var elementKind = element.getKind();
             switch (elementKind) {
 
-                case CLASS, RECORD -> generateBuilderForClass((TypeElement) element);
+                case CLASS, RECORD -> {
+                    final var start = stats.start();
+                    generateBuilderForClass((TypeElement) element, builderAnno);
+                    stats.stop(ProcessingStats.Phase.GENERATE_FOR_CLASS, start);
+                }
 
-                case CONSTRUCTOR -> generateBuilderForCreator(
+                case CONSTRUCTOR -> processCreator(
                     (ExecutableElement) element,
-                    makeBuilderContainerName(element)
+                    makeBuilderContainerName(element),
+                    builderAnno
                 );
 
+                case METHOD -> {
+                    final var modifiers = element.getModifiers();
+
+                    if (! modifiers.contains(Modifier.STATIC)
+                        || modifiers.contains(Modifier.PRIVATE)) {
+                        printError(
+                            element,
+                            "@%s can only be placed on non-private static factory methods"
+                                .formatted(ANNO_BUILDER_CANONICAL_NAME)
+                        );
+
+                    } else {
+                        processCreator(
+                            (ExecutableElement) element,
+                            makeBuilderContainerName(element),
+                            builderAnno
+                        );
+                    }
+                }
+
                 default -> printError(
                     element,
                     "@%s cannot be placed on this position %s"
@@ -69,10 +267,32 @@ public class Crafter extends AbstractProcessor {
 
         }
 
+        if (roundEnv.processingOver()) {
+            queueAggregatedFiles();
+            queueIndexFile();
+        }
+
+        writePendingFiles();
+
+        if (roundEnv.processingOver() && renderPool != null) {
+            renderPool.shutdown();
+            renderPool = null;
+        }
+
+        if (roundEnv.processingOver() && cache != null) {
+            cache.close();
+        }
+
+        stats.stop(ProcessingStats.Phase.PROCESS, processStart);
+
+        if (roundEnv.processingOver() && stats.isEnabled()) {
+            writeStats();
+        }
+
         return false;
     }
 
-    private void generateBuilderForClass(TypeElement clazz) {
+    private void generateBuilderForClass(TypeElement clazz, Builder builderAnno) {
         final var usableCtorList = clazz.getEnclosedElements()
             .stream()
             .filter(e -> e.getKind() == ElementKind.CONSTRUCTOR)
@@ -98,22 +318,104 @@ public class Crafter extends AbstractProcessor {
 
         final var ctor = usableCtorList.get(0);
 
-        generateBuilderForCreator(
+        processCreator(
             ctor,
-            makeBuilderContainerName(clazz)
+            makeBuilderContainerName(clazz),
+            builderAnno
         );
     }
 
-    private void generateBuilderForCreator(
+    private void processCreator(
+        ExecutableElement creator,
+        String builderContainerName,
+        Builder builderAnno
+    ) {
+        if (isBuilderContainerClashed(creator, builderContainerName)) {
+            return;
+        }
+
+        final var start = stats.start();
+
+        final var fingerprint = cache != null
+            ? cache.fingerprint(creator, builderContainerName)
+            : null;
+        final var cachedEntry = cache != null && fingerprint != null
+            ? cache.load(fingerprint)
+            : null;
+
+        if (cachedEntry != null) {
+            for (final var cachedFile : cachedEntry.fileList()) {
+                pendingFileList.add(
+                    new PendingFile(
+                        cachedFile.qualifiedName(),
+                        List.of(extractOriginatingElement(creator)),
+                        cachedFile::source,
+                        null
+                    )
+                );
+            }
+
+            stats.countBuilder(cachedEntry.stages());
+            indexBuilder(creator, builderContainerName);
+
+        } else {
+            generateBuilderForCreator(creator, builderContainerName, builderAnno, fingerprint);
+        }
+
+        stats.stop(ProcessingStats.Phase.GENERATE_FOR_CREATOR, start);
+    }
+
+    /**
+     * Report the creator if another creator already claimed its builder container, e.g. two
+     * static factories returning the same type, which would make the Filer fail.
+     */
+    private boolean isBuilderContainerClashed(
         ExecutableElement creator,
         String builderContainerName
     ) {
-        final var creatorTypeParameterList = calcTypeParameters(creator);
+        final var packageName = processingEnv.getElementUtils()
+            .getPackageOf(creator)
+            .getQualifiedName()
+            .toString();
+        final var qualifiedName = packageName.isEmpty()
+            ? builderContainerName
+            : packageName + "." + builderContainerName;
+
+        final var claimingCreator = containerCreatorMap.putIfAbsent(qualifiedName, creator);
+
+        if (claimingCreator == null || claimingCreator.equals(creator)) {
+            return false;
+        }
 
+        printError(
+            creator,
+            ("%s is already generated for %s, builders of static factories are named after "
+                + "the type they return")
+                .formatted(qualifiedName, describeCreator(claimingCreator))
+        );
+        return true;
+    }
+
+    private static String describeCreator(ExecutableElement creator) {
+        final var targetName = extractOriginatingElement(creator).getQualifiedName();
+
+        return creator.getKind() == ElementKind.METHOD
+            ? targetName + "." + creator
+            : targetName.toString();
+    }
+
+    private void generateBuilderForCreator(
+        ExecutableElement creator,
+        String builderContainerName,
+        Builder builderAnno,
+        @Nullable String fingerprint
+    ) {
         // initialize builder container class
         final var builderContainer = TypeSpec.classBuilder(builderContainerName)
             .addAnnotation(makeGenerated())
             .addModifiers(calcModifiers(creator))
+            // tie the generated file to its source, so that Gradle can process it incrementally
+            .addOriginatingElement(extractOriginatingElement(creator))
             .addMethod(
                 // make constructor private to prevent instantiation of container
                 MethodSpec.constructorBuilder()
@@ -121,10 +423,6 @@ public class Crafter extends AbstractProcessor {
                     .build()
             );
 
-        // reversely make stages interfaces
-        final var stageInterfaceList = new ArrayList<TypeSpec>();
-
-        final var creatorParameterList = creator.getParameters();
         final var creatorTargetClass = extractTargetClass(creator);
         final var creatorTargetClassName = extractClassName(creatorTargetClass);
 
@@ -143,13 +441,568 @@ public class Crafter extends AbstractProcessor {
             return;
         }
 
-        final var finalStage = makeStageInterface(
+        if (new AccumulatorGenerator(processingEnv, creator).report()) {
+            return;
+        }
+
+        var hasDefaultError = false;
+        for (final var parameter : creator.getParameters()) {
+            if (isDefaulted(parameter) && makeDefaultCode(creator, parameter) == null) {
+                printError(
+                    parameter,
+                    ("Cannot find a static field or a static method without parameters %s of %s, "
+                        + "which is assignable to parameter %s")
+                        .formatted(
+                            Objects.requireNonNull(parameter.getAnnotation(Builder.Default.class))
+                                .value(),
+                            extractOriginatingElement(creator),
+                            parameter.getSimpleName()
+                        )
+                );
+                hasDefaultError = true;
+            }
+        }
+
+        if (hasDefaultError) {
+            return;
+        }
+
+        if (builderAnno.batch() && new BatchGenerator(processingEnv, creator).report()) {
+            return;
+        }
+
+        if (builderAnno.copy() && new CopyGenerator(processingEnv, creator).report()) {
+            return;
+        }
+
+        // warnings would not be reported again on cache hits
+        var hasWarning = false;
+
+        if (builderAnno.validate()) {
+            final var validationGenerator = new ValidationGenerator(processingEnv, creator);
+
+            if (validationGenerator.report()) {
+                return;
+            }
+
+            hasWarning = validationGenerator.hasProblems();
+        }
+
+        if (builderAnno.async() && new AsyncGenerator(processingEnv, creator).report()) {
+            return;
+        }
+
+        final var collectorGenerator = new CollectorGenerator(processingEnv, creator);
+
+        if (collectorGenerator.report()) {
+            return;
+        }
+
+        if (bytecode && ! aggregate) {
+            final var bytecodeGenerator = new BytecodeGenerator(
+                processingEnv,
+                creator,
+                processingEnv.getElementUtils().getPackageOf(creator).getQualifiedName().toString(),
+                builderContainerName
+            );
+
+            if (bytecodeGenerator.isSupported(builderAnno)) {
+                final var classFileMap = bytecodeGenerator.generate();
+
+                classFileMap.forEach(
+                    (binaryName, bytes) -> writeClassFile(binaryName, creator, bytes)
+                );
+                // all class files but the container and `Builder` are stages
+                stats.countBuilder(classFileMap.size() - 2);
+                indexBuilder(creator, builderContainerName);
+                return;
+            }
+        }
+
+        final List<TypeSpec> stageInterfaceList;
+        final TypeSpec builderClass;
+
+        final var makeBuilderClassStart = stats.start();
+
+        if (builderAnno.unordered()) {
+            // a single class instead of one stage interface per parameter
+            stageInterfaceList = List.of();
+            builderClass = makeUnorderedBuilderClass(creator, creatorTargetClassName, builderAnno);
+
+        } else {
+            stageInterfaceList = makeStageInterfaceList(
+                creator,
+                creatorTargetClassName,
+                builderAnno
+            );
+
+            // add stages interfaces
+            builderContainer.addTypes(stageInterfaceList);
+
+            // make builder class
+            builderClass = makeBuilderClass(
+                stageInterfaceList,
+                stageInterfaceList.get(stageInterfaceList.size() - 1),
+                creator,
+                builderAnno
+            );
+        }
+
+        stats.stop(ProcessingStats.Phase.MAKE_BUILDER_CLASS, makeBuilderClassStart);
+
+        builderContainer.addType(builderClass);
+
+        // make `builder()` method
+        final var builderMethod = makeBuilderMethod(builderClass);
+
+        builderContainer.addMethod(builderMethod);
+
+        if (builderAnno.reusable()) {
+            final var reusableGenerator = new ReusableGenerator(processingEnv, creator);
+
+            builderContainer
+                .addField(reusableGenerator.makeReusableField())
+                .addMethod(reusableGenerator.makeReusableMethod());
+        }
+
+        if (builderAnno.batch()) {
+            builderContainer.addMethods(
+                new BatchGenerator(processingEnv, creator).makeBatchMethods()
+            );
+        }
+
+        if (builderAnno.monitored()) {
+            builderContainer.addField(
+                new MonitoredGenerator(processingEnv, creator).makeBuildCounterField()
+            );
+        }
+
+        if (builderAnno.validate()) {
+            final var validationGenerator = new ValidationGenerator(processingEnv, creator);
+
+            if (validationGenerator.hasConstraints()) {
+                builderContainer
+                    .addFields(validationGenerator.makePatternFields())
+                    .addMethod(validationGenerator.makeAddViolationMethod());
+            }
+        }
+
+        if (builderAnno.intern()) {
+            final var internGenerator = new InternGenerator(processingEnv, creator);
+
+            builderContainer
+                .addFields(internGenerator.makeInternFields())
+                .addType(internGenerator.makeInternedReferenceClass())
+                .addMethods(internGenerator.makeInternMethods());
+        }
+
+        if (builderAnno.copy()) {
+            builderContainer.addMethods(
+                new CopyGenerator(processingEnv, creator).makeCopyMethods(builderAnno)
+            );
+        }
+
+        if (builderAnno.config()) {
+            final var configMethodList = new ConfigGenerator(processingEnv)
+                .generate(creator, builderAnno.configKeyStyle());
+
+            if (configMethodList == null) {
+                return;
+            }
+
+            builderContainer.addMethods(configMethodList);
+        }
+
+        if (builderAnno.async()) {
+            final var asyncGenerator = new AsyncGenerator(processingEnv, creator);
+
+            builderContainer
+                .addMethod(asyncGenerator.makeAsyncBuilderMethod())
+                .addType(asyncGenerator.makeAsyncClass());
+        }
+
+        if (collectorGenerator.hasCollectedParameters()) {
+            builderContainer
+                .addMethods(collectorGenerator.makeCollectorMethods())
+                .addType(collectorGenerator.makeStateClass());
+        }
+
+        final var packageName = processingEnv.getElementUtils()
+            .getPackageOf(creator)
+            .getQualifiedName()
+            .toString();
+
+        // an empty companion failed with errors, which have been reported
+        final var companionFileList = new ArrayList<Optional<JavaFile>>();
+
+        if (builderAnno.rowMapper()) {
+            companionFileList.add(
+                new RowMapperGenerator(processingEnv).generate(creator, packageName)
+            );
+        }
+
+        if (builderAnno.json()) {
+            companionFileList.add(new JsonGenerator(processingEnv).generate(creator, packageName));
+        }
+
+        if (builderAnno.binary()) {
+            companionFileList.add(
+                new BinaryGenerator(processingEnv).generate(creator, packageName)
+            );
+        }
+
+        // only cache complete generations, whose errors would be lost on hits
+        final var isComplete = companionFileList.stream().allMatch(Optional::isPresent);
+        final var cacheKey = isComplete && ! hasWarning ? fingerprint : null;
+
+        if (cacheKey != null) {
+            pendingStageMap.put(cacheKey, stageInterfaceList.size());
+        }
+
+        if (aggregate) {
+            // nested into the `Builders` of its package, which is written in the last round
+            aggregatedContainerMap.computeIfAbsent(packageName, k -> new ArrayList<>())
+                .add(builderContainer.addModifiers(Modifier.STATIC).build());
+
+        } else {
+            final var builderFile = JavaFile.builder(
+                packageName,
+                builderContainer.build()
+            ).build();
+
+            pendingFileList.add(makePendingFile(builderFile, creator, cacheKey));
+        }
+
+        for (final var companionFile : companionFileList) {
+            companionFile.ifPresent(
+                f -> pendingFileList.add(makePendingFile(f, creator, cacheKey))
+            );
+        }
+
+        stats.countBuilder(stageInterfaceList.size());
+        indexBuilder(creator, builderContainerName);
+    }
+
+    private void indexBuilder(ExecutableElement creator, String builderContainerName) {
+        if (indexGenerator == null) {
+            return;
+        }
+
+        final var packageName = processingEnv.getElementUtils()
+            .getPackageOf(creator)
+            .getQualifiedName()
+            .toString();
+
+        indexGenerator.add(
+            creator,
+            aggregate
+                ? ClassName.get(packageName, AGGREGATE_CLASS_NAME, builderContainerName)
+                : ClassName.get(packageName, builderContainerName)
+        );
+    }
+
+    private static PendingFile makePendingFile(
+        JavaFile javaFile,
+        ExecutableElement creator,
+        @Nullable String fingerprint
+    ) {
+        final var typeName = javaFile.typeSpec().name();
+        final var qualifiedName = javaFile.packageName().isEmpty()
+            ? typeName
+            : javaFile.packageName() + "." + typeName;
+
+        return new PendingFile(
+            qualifiedName,
+            List.of(extractOriginatingElement(creator)),
+            javaFile::toString,
+            fingerprint
+        );
+    }
+
+    /**
+     * Nest the builder containers of each package into its {@code Builders}, to be written with
+     * the pending files.
+     */
+    private void queueAggregatedFiles() {
+        aggregatedContainerMap.forEach((packageName, containerList) -> {
+            final var aggregateClass = TypeSpec.classBuilder(AGGREGATE_CLASS_NAME)
+                .addAnnotation(makeGenerated())
+                .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+                .addMethod(
+                    MethodSpec.constructorBuilder()
+                        .addModifiers(Modifier.PRIVATE)
+                        .build()
+                )
+                // the order of elements may vary between rounds
+                .addTypes(
+                    containerList.stream()
+                        .sorted(Comparator.comparing(TypeSpec::name))
+                        .toList()
+                )
+                .build();
+
+            final var aggregateFile = JavaFile.builder(packageName, aggregateClass).build();
+
+            pendingFileList.add(
+                new PendingFile(
+                    packageName.isEmpty()
+                        ? AGGREGATE_CLASS_NAME
+                        : packageName + "." + AGGREGATE_CLASS_NAME,
+                    containerList.stream()
+                        .flatMap(c -> c.originatingElements().stream())
+                        .toList(),
+                    aggregateFile::toString,
+                    null
+                )
+            );
+        });
+
+        aggregatedContainerMap.clear();
+    }
+
+    /**
+     * Queue the index of all builders to be written with the pending files, and register it as a
+     * service.
+     */
+    private void queueIndexFile() {
+        if (indexGenerator == null || indexGenerator.isEmpty()) {
+            return;
+        }
+
+        final var indexFile = indexGenerator.generate();
+
+        pendingFileList.add(
+            new PendingFile(
+                indexGenerator.indexName(),
+                indexGenerator.originatingElements(),
+                indexFile::toString,
+                null
+            )
+        );
+
+        indexGenerator.writeServiceFile();
+    }
+
+    private void writePendingFiles() {
+        final var renderStart = stats.start();
+        final var sourceList = renderPendingFiles();
+        stats.stop(ProcessingStats.Phase.RENDER, renderStart);
+
+        // the Filer is not thread-safe, and the order of writes is kept deterministic
+        final var cacheEntryMap = new LinkedHashMap<String, List<GenerationCache.CachedFile>>();
+
+        for (var i = 0; i < pendingFileList.size(); i++) {
+            final var pendingFile = pendingFileList.get(i);
+            final var source = sourceList.get(i);
+
+            writeSourceFile(pendingFile, source);
+
+            final var fingerprint = pendingFile.fingerprint();
+            if (fingerprint != null) {
+                cacheEntryMap
+                    .computeIfAbsent(fingerprint, k -> new ArrayList<>())
+                    .add(new GenerationCache.CachedFile(pendingFile.qualifiedName(), source));
+            }
+        }
+
+        if (cache != null) {
+            for (final var entry : cacheEntryMap.entrySet()) {
+                final var stages = pendingStageMap.getOrDefault(entry.getKey(), 0);
+
+                cache.store(
+                    entry.getKey(),
+                    new GenerationCache.CachedEntry(stages, entry.getValue())
+                );
+            }
+        }
+
+        pendingFileList.clear();
+        pendingStageMap.clear();
+    }
+
+    private List<String> renderPendingFiles() {
+        if (parallelism == 1 || pendingFileList.size() < 2) {
+            return pendingFileList.stream()
+                .map(f -> f.renderer().get())
+                .toList();
+        }
+
+        if (renderPool == null) {
+            renderPool = new ForkJoinPool(parallelism);
+        }
+
+        try {
+            // an ordered parallel stream keeps the order of pending files
+            return renderPool
+                .submit(
+                    () -> pendingFileList.parallelStream()
+                        .map(f -> f.renderer().get())
+                        .toList()
+                )
+                .get();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void writeSourceFile(PendingFile pendingFile, String source) {
+        final var writeStart = stats.start();
+
+        try {
+            final var sourceFile = processingEnv.getFiler()
+                .createSourceFile(
+                    pendingFile.qualifiedName(),
+                    pendingFile.originatingElements().toArray(new Element[0])
+                );
+
+            try (var writer = sourceFile.openWriter()) {
+                writer.write(source);
+            }
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        stats.stop(ProcessingStats.Phase.WRITE, writeStart);
+        stats.countFile(source);
+    }
+
+    private void writeClassFile(String binaryName, ExecutableElement creator, byte[] bytes) {
+        final var writeStart = stats.start();
+
+        try {
+            final var classFile = processingEnv.getFiler()
+                .createClassFile(binaryName, extractOriginatingElement(creator));
+
+            try (var outputStream = classFile.openOutputStream()) {
+                outputStream.write(bytes);
+            }
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        stats.stop(ProcessingStats.Phase.WRITE, writeStart);
+        stats.countFile(bytes);
+    }
+
+    private void writeStats() {
+        try {
+            final var statsFile = processingEnv.getFiler()
+                .createResource(StandardLocation.CLASS_OUTPUT, "", STATS_RESOURCE_NAME);
+
+            try (var writer = statsFile.openWriter()) {
+                writer.write(stats.toJson());
+            }
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, stats.toSummary());
+    }
+
+    private int parseParallelism(@Nullable String option) {
+        if (option == null) {
+            return 1;
+        }
+
+        try {
+            final var value = Integer.parseInt(option.strip());
+
+            if (value >= 1) {
+                return value;
+            }
+
+        } catch (NumberFormatException e) {
+            // fall through
+        }
+
+        processingEnv.getMessager()
+            .printMessage(
+                Diagnostic.Kind.ERROR,
+                "-A%s must be a positive integer, but got %s".formatted(OPTION_PARALLELISM, option)
+            );
+
+        return 1;
+    }
+
+    private boolean parseBackend(@Nullable String option) {
+        if (option == null || option.strip().equals(BACKEND_SOURCE)) {
+            return false;
+
+        } else if (option.strip().equals(BACKEND_BYTECODE)) {
+            return true;
+        }
+
+        processingEnv.getMessager()
+            .printMessage(
+                Diagnostic.Kind.ERROR,
+                "-A%s must be %s or %s, but got %s"
+                    .formatted(OPTION_BACKEND, BACKEND_SOURCE, BACKEND_BYTECODE, option)
+            );
+
+        return false;
+    }
+
+    private List<TypeSpec> makeStageInterfaceList(
+        ExecutableElement creator,
+        ClassName creatorTargetClassName,
+        Builder builderAnno
+    ) {
+        final var creatorTypeParameterList = calcTypeParameters(creator);
+        // defaulted parameters have no stage
+        final var creatorParameterList = filterRequiredParameters(creator);
+
+        // reversely make stages interfaces
+        final var stageInterfaceList = new ArrayList<TypeSpec>();
+
+        final var finalStageBuilder = makeStageInterface(
             "FinalStage",
             creatorTypeParameterList,
             "build",
             null,
-            creatorTargetClassName
-        );
+            makeTargetTypeName(creator, creatorTargetClassName),
+            builderAnno
+        ).toBuilder();
+
+        // defaulted parameters can be optionally set right before `build()`
+        final var finalStageClassName = ClassName.get("", "FinalStage");
+        final var finalStageTypeName = creatorTypeParameterList.isEmpty()
+            ? finalStageClassName
+            : ParameterizedTypeName.get(
+                finalStageClassName,
+                creatorTypeParameterList.stream()
+                    .map(TypeVariableName::get)
+                    .toArray(TypeName[]::new)
+            );
+
+        final var accumulatorGenerator = new AccumulatorGenerator(processingEnv, creator);
+
+        for (final var parameter : creator.getParameters()) {
+            if (isDefaulted(parameter)) {
+                finalStageBuilder.addMethod(
+                    MethodSpec.methodBuilder(parameter.getSimpleName().toString())
+                        .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+                        .addParameter(ParameterSpec.get(parameter))
+                        .returns(finalStageTypeName)
+                        .build()
+                );
+            }
+
+            if (AccumulatorGenerator.isAccumulated(parameter)) {
+                finalStageBuilder.addMethods(
+                    accumulatorGenerator.makeAbstractMethods(parameter, finalStageTypeName)
+                );
+            }
+        }
+
+        final var finalStage = finalStageBuilder.build();
         stageInterfaceList.add(finalStage);
 
         var nextStage = finalStage;
@@ -168,62 +1021,45 @@ public class Crafter extends AbstractProcessor {
                 creatorTypeParameterList,
                 creatorParameter.getSimpleName().toString(),
                 creatorParameter,
-                nextStage
+                nextStage,
+                builderAnno
             );
 
             stageInterfaceList.add(stage);
             nextStage = stage;
         }
 
-        Collections.reverse(stageInterfaceList); // reverse the reversed list
-
-        // add stages interfaces
-        builderContainer.addTypes(stageInterfaceList);
-
-        // make builder class
-        final var builderClass = makeBuilderClass(
-            stageInterfaceList,
-            finalStage,
-            creator
-        );
-
-        builderContainer.addType(builderClass);
-
-        // make `builder()` method
-        final var builderMethod = makeBuilderMethod(builderClass);
-
-        builderContainer.addMethod(builderMethod);
-
-        final var builderFile = JavaFile.builder(
-            processingEnv.getElementUtils()
-                .getPackageOf(creator)
-                .getQualifiedName()
-                .toString(),
-            builderContainer.build()
-        ).build();
-
-        try {
-            builderFile.writeTo(processingEnv.getFiler());
-
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
-        }
-
+        Collections.reverse(stageInterfaceList); // reverse the reversed list
+
+        return stageInterfaceList;
     }
 
     private TypeSpec makeStageInterface(
         String interfaceName,
-        List<TypeParameterElement> typeParameter,
+        List<TypeParameterElement> typeParameterList,
         String methodName,
         @Nullable VariableElement parameter,
-        TypeSpec nextStage
+        TypeSpec nextStage,
+        Builder builderAnno
     ) {
+        final var nextStageClassName = extractClassName(nextStage);
+
         return makeStageInterface(
             interfaceName,
-            typeParameter,
+            typeParameterList,
             methodName,
             parameter,
-            extractClassName(nextStage)
+            typeParameterList.isEmpty()
+                ? nextStageClassName
+                : ParameterizedTypeName
+                    .get(
+                        nextStageClassName,
+                        // all stages share the same ordered type parameters
+                        typeParameterList.stream()
+                            .map(TypeVariableName::get)
+                            .toArray(TypeName[]::new)
+                    ),
+            builderAnno
         );
     }
 
@@ -232,7 +1068,8 @@ public class Crafter extends AbstractProcessor {
         List<TypeParameterElement> typeParameterList,
         String methodName,
         @Nullable VariableElement parameter,
-        ClassName nextStage
+        TypeName nextStageTypeName,
+        Builder builderAnno
     ) {
         final var typeParameterNameList = typeParameterList.stream()
             .map(TypeVariableName::get)
@@ -242,14 +1079,9 @@ public class Crafter extends AbstractProcessor {
             .addModifiers(Modifier.PUBLIC)
             .addTypeVariables(typeParameterNameList);
 
-        final var nextStageTypeName = typeParameterList.isEmpty()
-            ? nextStage
-            : ParameterizedTypeName
-                .get(
-                    nextStage,
-                    // all stages share the same ordered type parameters
-                    typeParameterNameList.toArray(new TypeVariableName[0])
-                );
+        if (builderAnno.sealed()) {
+            SealedGenerator.sealStageInterface(stageInterface);
+        }
 
         final var stageMethod = MethodSpec.methodBuilder(methodName)
             .addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
@@ -269,13 +1101,14 @@ public class Crafter extends AbstractProcessor {
     private TypeSpec makeBuilderClass(
         List<TypeSpec> stageInterfaceList,
         TypeSpec finalStage,
-        ExecutableElement creator
+        ExecutableElement creator,
+        Builder builderAnno
     ) {
         final var creatorTypeParameterList = calcTypeParameters(creator).stream()
             .map(TypeVariableName::get)
             .toList();
 
-        final var builderClass = TypeSpec.classBuilder("Builder")
+        final var builderClass = TypeSpec.classBuilder(BUILDER_CLASS_NAME)
             .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
             .addTypeVariables(creatorTypeParameterList)
             .addSuperinterfaces(
@@ -297,6 +1130,12 @@ public class Crafter extends AbstractProcessor {
                     .toList()
             );
 
+        final var fieldModifier = SealedGenerator.makeFieldModifier(builderAnno);
+
+        if (builderAnno.sealed()) {
+            SealedGenerator.sealBuilderClass(builderClass);
+        }
+
         builderClass.addFields(
             stageInterfaceList.stream()
                 .filter(s -> {
@@ -310,7 +1149,7 @@ public class Crafter extends AbstractProcessor {
                     p -> FieldSpec.builder(
                         p.type(),
                         p.name(),
-                        Modifier.PROTECTED
+                        fieldModifier
                     )
                         .addAnnotations(p.annotations())
                         .build()
@@ -339,57 +1178,596 @@ public class Crafter extends AbstractProcessor {
                 .toList()
         );
 
-        final var creatorInvocationLiteral = String.join(
-            ", ",
-            creator.getParameters()
-                .stream()
-                .map(p -> p.getSimpleName().toString())
-                .toList()
+        // `build()` is followed by the setters of defaulted parameters
+        final var buildMethod = finalStage.methodSpecs().get(0);
+
+        builderClass.addMethod(
+            MethodSpec.methodBuilder(buildMethod.name())
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotations(makeBuildAnnotations(creator, builderAnno))
+                .returns(buildMethod.returnType())
+                .addCode(makeBuildCode(creator, builderAnno))
+                .build()
         );
 
-        builderClass.addMethods(
-            Stream.of(onlyOne(finalStage.methodSpecs()))
-                .map(
-                    buildMethod -> MethodSpec.methodBuilder(buildMethod.name())
+        final var accumulatorGenerator = new AccumulatorGenerator(processingEnv, creator);
+
+        for (final var defaultSetter : finalStage.methodSpecs()
+            .subList(1, finalStage.methodSpecs().size())) {
+            final var defaultedParameter = creator.getParameters()
+                .stream()
+                .filter(p -> p.getSimpleName().contentEquals(defaultSetter.name()))
+                .findFirst();
+
+            // accumulators are made along with the setter of their parameter
+            if (defaultedParameter.isEmpty()) {
+                continue;
+            }
+
+            final var parameter = onlyOne(defaultSetter.parameters());
+
+            builderClass
+                .addFields(makeDefaultedFields(parameter, fieldModifier))
+                .addMethod(
+                    MethodSpec.methodBuilder(defaultSetter.name())
                         .addAnnotation(Override.class)
                         .addModifiers(Modifier.PUBLIC)
-                        .returns(buildMethod.returnType())
-                        .addStatement(
-                            switch (creator.getKind()) {
-                                case CONSTRUCTOR -> CodeBlock.builder()
-                                    .add(
-                                        "return new $T($L)",
-                                        extractTargetClass(creator),
-                                        creatorInvocationLiteral
-                                    )
-                                    .build();
-
-                                case METHOD -> CodeBlock.builder()
-                                    .add(
-                                        "return $T.$L($L)",
-                                        // using ClassName gets rid of any type parameters
-                                        // the class might have
-                                        ClassName.get((TypeElement) creator.getEnclosingElement()),
-                                        creator.getSimpleName(),
-                                        creatorInvocationLiteral
-                                    )
-                                    .build();
-
-                                default -> throw new IllegalStateException();
-                            }
+                        .returns(defaultSetter.returnType())
+                        .addParameters(defaultSetter.parameters())
+                        .addCode(makeDefaultedSetterCode(defaultedParameter.get()))
+                        .build()
+                );
+
+            if (AccumulatorGenerator.isAccumulated(defaultedParameter.get())) {
+                builderClass
+                    .addField(
+                        accumulatorGenerator.makeAccumulatorField(
+                            defaultedParameter.get(),
+                            fieldModifier
+                        )
+                    )
+                    .addMethods(
+                        accumulatorGenerator.makeMethods(
+                            defaultedParameter.get(),
+                            defaultSetter.returnType(),
+                            true
                         )
+                    );
+            }
+        }
+
+        if (builderAnno.reusable()) {
+            builderClass.addMethod(
+                new ReusableGenerator(processingEnv, creator).makeResetMethod(CodeBlock.of(""))
+            );
+        }
+
+        return builderClass.build();
+    }
+
+    private TypeSpec makeUnorderedBuilderClass(
+        ExecutableElement creator,
+        ClassName creatorTargetClassName,
+        Builder builderAnno
+    ) {
+        final var creatorTypeParameterList = calcTypeParameters(creator).stream()
+            .map(TypeVariableName::get)
+            .toList();
+        final var requiredParameterList = filterRequiredParameters(creator);
+        final var builderTypeName = makeBuilderTypeName(creator);
+        final var targetTypeName = makeTargetTypeName(creator, creatorTargetClassName);
+        final var unorderedGenerator = new UnorderedGenerator(creator);
+
+        final var builderClass = TypeSpec.classBuilder(BUILDER_CLASS_NAME)
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(creatorTypeParameterList);
+
+        final var fieldModifier = SealedGenerator.makeFieldModifier(builderAnno);
+
+        if (builderAnno.sealed()) {
+            SealedGenerator.sealBuilderClass(builderClass);
+        }
+
+        builderClass
+            .addField(unorderedGenerator.makeNamesField())
+            .addField(unorderedGenerator.makeAssignedField(fieldModifier));
+
+        for (var i = 0; i < requiredParameterList.size(); i++) {
+            final var parameter = ParameterSpec.get(requiredParameterList.get(i));
+
+            builderClass.addField(
+                FieldSpec.builder(parameter.type(), parameter.name(), fieldModifier)
+                    .addAnnotations(parameter.annotations())
+                    .build()
+            );
+
+            builderClass.addMethod(
+                MethodSpec.methodBuilder(parameter.name())
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(builderTypeName)
+                    .addParameter(parameter)
+                    .addStatement("this.$1L = $1L", parameter.name())
+                    .addCode(unorderedGenerator.makeAssignCode(i))
+                    .addStatement("return this")
+                    .build()
+            );
+        }
+
+        final var accumulatorGenerator = new AccumulatorGenerator(processingEnv, creator);
+
+        for (final var defaultedParameter : creator.getParameters()) {
+            if (! isDefaulted(defaultedParameter)) {
+                continue;
+            }
+
+            final var parameter = ParameterSpec.get(defaultedParameter);
+
+            builderClass
+                .addFields(makeDefaultedFields(parameter, fieldModifier))
+                .addMethod(
+                    MethodSpec.methodBuilder(parameter.name())
+                        .addModifiers(Modifier.PUBLIC)
+                        .returns(builderTypeName)
+                        .addParameter(parameter)
+                        .addCode(makeDefaultedSetterCode(defaultedParameter))
                         .build()
+                );
+
+            if (AccumulatorGenerator.isAccumulated(defaultedParameter)) {
+                builderClass
+                    .addField(
+                        accumulatorGenerator.makeAccumulatorField(
+                            defaultedParameter,
+                            fieldModifier
+                        )
+                    )
+                    .addMethods(
+                        accumulatorGenerator.makeMethods(
+                            defaultedParameter,
+                            builderTypeName,
+                            false
+                        )
+                    );
+            }
+        }
+
+        builderClass.addMethod(
+            MethodSpec.methodBuilder("build")
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotations(makeBuildAnnotations(creator, builderAnno))
+                .returns(targetTypeName)
+                .addCode(makeBuildCode(creator, builderAnno))
+                .build()
+        );
+
+        if (builderAnno.reusable()) {
+            builderClass.addMethod(
+                new ReusableGenerator(processingEnv, creator)
+                    .makeResetMethod(unorderedGenerator.makeResetCode())
+            );
+        }
+
+        return builderClass
+            .addMethod(unorderedGenerator.makeMissingMethod(creatorTargetClassName))
+            .build();
+    }
+
+    static boolean isDefaulted(VariableElement parameter) {
+        return parameter.getAnnotation(Builder.Default.class) != null
+            || AccumulatorGenerator.isAccumulated(parameter);
+    }
+
+    /**
+     * Whether the parameter is annotated by any {@code @Nullable}, on its declaration or type.
+     */
+    static boolean isNullable(VariableElement parameter) {
+        return Stream.concat(
+            parameter.getAnnotationMirrors().stream(),
+            parameter.asType().getAnnotationMirrors().stream()
+        )
+            .anyMatch(
+                a -> a.getAnnotationType()
+                    .asElement()
+                    .getSimpleName()
+                    .contentEquals("Nullable")
+            );
+    }
+
+    static List<VariableElement> filterRequiredParameters(ExecutableElement creator) {
+        return creator.getParameters()
+            .stream()
+            .filter(p -> ! isDefaulted(p))
+            .map(p -> (VariableElement) p)
+            .toList();
+    }
+
+    static String makeAssignedFlagName(String parameterName) {
+        return makeInternalName(parameterName + DEFAULT_ASSIGNED_SUFFIX);
+    }
+
+    private static List<FieldSpec> makeDefaultedFields(
+        ParameterSpec parameter,
+        Modifier fieldModifier
+    ) {
+        return List.of(
+            FieldSpec.builder(parameter.type(), parameter.name(), fieldModifier)
+                .addAnnotations(parameter.annotations())
+                .build(),
+            FieldSpec.builder(
+                boolean.class,
+                makeAssignedFlagName(parameter.name()),
+                fieldModifier
+            )
+                .build()
+        );
+    }
+
+    private static CodeBlock makeDefaultedSetterCode(VariableElement parameter) {
+        final var setterCode = CodeBlock.builder()
+            .addStatement("this.$1L = $1L", parameter.getSimpleName())
+            .addStatement(
+                "this.$L = true",
+                makeAssignedFlagName(parameter.getSimpleName().toString())
+            );
+
+        if (AccumulatorGenerator.isAccumulated(parameter)) {
+            // replace whatever has been accumulated
+            setterCode.addStatement(
+                "this.$L = null",
+                AccumulatorGenerator.makeAccumulatorFieldName(parameter)
+            );
+        }
+
+        return setterCode
+            .addStatement("return this")
+            .build();
+    }
+
+    /**
+     * Make the expression of the default of {@code parameter}, a static field or a static method
+     * without parameters of the target type, or return null if there is no such member.
+     */
+    private @Nullable CodeBlock makeDefaultCode(
+        ExecutableElement creator,
+        VariableElement parameter
+    ) {
+        return makeDefaultCode(processingEnv.getTypeUtils(), creator, parameter);
+    }
+
+    static @Nullable CodeBlock makeDefaultCode(
+        Types typeUtils,
+        ExecutableElement creator,
+        VariableElement parameter
+    ) {
+        if (parameter.getAnnotation(Builder.Default.class) == null) {
+            // nothing accumulated is an empty collection
+            return AccumulatorGenerator.makeEmptyCode(parameter);
+        }
+
+        final var member = findDefaultMember(typeUtils, creator, parameter);
+        final var targetElement = extractOriginatingElement(creator);
+
+        if (member == null) {
+            return null;
+
+        } else if (member.getKind() == ElementKind.METHOD) {
+            return CodeBlock.of("$T.$L()", ClassName.get(targetElement), member.getSimpleName());
+
+        } else {
+            return CodeBlock.of("$T.$L", ClassName.get(targetElement), member.getSimpleName());
+        }
+    }
+
+    /**
+     * Find the static field or the static method without parameters named by the
+     * {@link Builder.Default} of {@code parameter}, or return null if there is no such member.
+     */
+    static @Nullable Element findDefaultMember(
+        Types typeUtils,
+        ExecutableElement creator,
+        VariableElement parameter
+    ) {
+        final var defaultAnno = parameter.getAnnotation(Builder.Default.class);
+
+        if (defaultAnno == null) {
+            return null;
+        }
+
+        final var targetElement = extractOriginatingElement(creator);
+        final var parameterType = typeUtils.erasure(parameter.asType());
+
+        for (final var member : targetElement.getEnclosedElements()) {
+            if (! member.getSimpleName().contentEquals(defaultAnno.value())
+                || ! member.getModifiers().contains(Modifier.STATIC)
+                || member.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+
+            final var memberType = member instanceof ExecutableElement method
+                ? method.getReturnType()
+                : member.asType();
+
+            if (! typeUtils.isAssignable(typeUtils.erasure(memberType), parameterType)) {
+                continue;
+            }
+
+            if (member.getKind() == ElementKind.METHOD
+                && ((ExecutableElement) member).getParameters().isEmpty()
+                || member.getKind() == ElementKind.FIELD) {
+                return member;
+            }
+        }
+
+        return null;
+    }
+
+    private List<AnnotationSpec> makeBuildAnnotations(
+        ExecutableElement creator,
+        Builder builderAnno
+    ) {
+        return builderAnno.intern()
+            ? new InternGenerator(processingEnv, creator).makeBuildAnnotations()
+            : List.of();
+    }
+
+    private CodeBlock makeBuildCode(ExecutableElement creator, Builder builderAnno) {
+        final var buildCode = CodeBlock.builder();
+
+        if (builderAnno.unordered()) {
+            buildCode.add(new UnorderedGenerator(creator).makeAssignedCheckCode());
+        }
+
+        // the arguments are read several times to be validated or interned,
+        // so evaluate the defaults once
+        final var needsArgumentLocals = builderAnno.validate() || builderAnno.intern();
+        final Function<VariableElement, CodeBlock> argumentMaker = needsArgumentLocals
+            ? p -> isDefaulted(p)
+                ? CodeBlock.of("$L", makeInternalName(p.getSimpleName().toString()))
+                : makeArgument(creator, p)
+            : p -> makeArgument(creator, p);
+
+        if (needsArgumentLocals) {
+            for (final var parameter : creator.getParameters()) {
+                if (isDefaulted(parameter)) {
+                    buildCode.addStatement(
+                        "final $T $L = $L",
+                        TypeName.get(parameter.asType()),
+                        makeInternalName(parameter.getSimpleName().toString()),
+                        makeArgument(creator, parameter)
+                    );
+                }
+            }
+        }
+
+        if (builderAnno.validate()) {
+            buildCode.add(
+                new ValidationGenerator(processingEnv, creator).makeValidationCode(argumentMaker)
+            );
+        }
+
+        final CodeBlock creatorInvocation;
+
+        if (builderAnno.intern()) {
+            final var targetTypeName = makeTargetTypeName(
+                creator,
+                Objects.requireNonNull(extractClassName(extractTargetClass(creator)))
+            );
+
+            final var internGenerator = new InternGenerator(processingEnv, creator);
+
+            buildCode.add(internGenerator.makeLookupCode(argumentMaker));
+            creatorInvocation = internGenerator.makeInternInvocation(
+                targetTypeName,
+                makeCreatorInvocation(creator, argumentMaker)
+            );
+
+        } else {
+            creatorInvocation = makeCreatorInvocation(creator, argumentMaker);
+        }
+
+        if (builderAnno.monitored()) {
+            final var monitoredGenerator = new MonitoredGenerator(processingEnv, creator);
+
+            buildCode
+                .add(monitoredGenerator.makeStartCode())
+                .addStatement("final var target = $L", creatorInvocation)
+                .add(monitoredGenerator.makeFinishCode());
+
+            if (builderAnno.reusable()) {
+                buildCode.addStatement("$L()", ReusableGenerator.RESET_METHOD_NAME);
+            }
+
+            return buildCode
+                .addStatement("return target")
+                .build();
+
+        } else if (builderAnno.reusable()) {
+            // leave the builder ready for the next target,
+            // and do not keep the parameters reachable from a cached builder
+            return buildCode
+                .addStatement("final var target = $L", creatorInvocation)
+                .addStatement("$L()", ReusableGenerator.RESET_METHOD_NAME)
+                .addStatement("return target")
+                .build();
+
+        } else {
+            return buildCode
+                .addStatement("return $L", creatorInvocation)
+                .build();
+        }
+    }
+
+    // qualify the fields, so that they cannot be shadowed by local variables of `build()`,
+    // and only compute defaults when they are not set
+    private CodeBlock makeArgument(ExecutableElement creator, VariableElement parameter) {
+        final var fieldCode = CodeBlock.of("this.$L", parameter.getSimpleName());
+
+        if (isDefaulted(parameter)) {
+            return CodeBlock.of(
+                "(this.$L ? $L : $L)",
+                makeAssignedFlagName(parameter.getSimpleName().toString()),
+                AccumulatorGenerator.isAccumulated(parameter)
+                    ? AccumulatorGenerator.makeCopyCode(parameter, fieldCode)
+                    : fieldCode,
+                Objects.requireNonNull(makeDefaultCode(creator, parameter))
+            );
+
+        } else {
+            return fieldCode;
+        }
+    }
+
+    static CodeBlock makeCreatorInvocation(
+        ExecutableElement creator,
+        Function<VariableElement, CodeBlock> argumentMaker
+    ) {
+        final var creatorInvocationLiteral = CodeBlock.join(
+            creator.getParameters()
+                .stream()
+                .map(argumentMaker)
+                .toList(),
+            ", "
+        );
+
+        return switch (creator.getKind()) {
+            case CONSTRUCTOR -> CodeBlock.builder()
+                .add(
+                    "new $T($L)",
+                    extractTargetClass(creator),
+                    creatorInvocationLiteral
                 )
-                .toList()
+                .build();
+
+            case METHOD -> CodeBlock.builder()
+                .add(
+                    "$T.$L($L)",
+                    // using ClassName gets rid of any type parameters
+                    // the class might have
+                    ClassName.get((TypeElement) creator.getEnclosingElement()),
+                    creator.getSimpleName(),
+                    creatorInvocationLiteral
+                )
+                .build();
+
+            default -> throw new IllegalStateException();
+        };
+    }
+
+    static @Nullable String findAccessor(
+        Elements elementUtils,
+        Types typeUtils,
+        TypeMirror targetClass,
+        VariableElement parameter
+    ) {
+        final var targetClassElement = (TypeElement) typeUtils.asElement(targetClass);
+        final var parameterName = parameter.getSimpleName().toString();
+        final var parameterType = typeUtils.erasure(parameter.asType());
+        // the generated code lives in the package of the creator, so it cannot reach protected
+        // and package-private members inherited from other packages
+        final var generatedPackage = elementUtils.getPackageOf(parameter);
+
+        final var memberList = elementUtils.getAllMembers(targetClassElement)
+            .stream()
+            .filter(
+                m -> ! m.getModifiers().contains(Modifier.PRIVATE)
+                    && ! m.getModifiers().contains(Modifier.STATIC)
+            )
+            .filter(
+                m -> m.getModifiers().contains(Modifier.PUBLIC)
+                    || elementUtils.getPackageOf(m).equals(generatedPackage)
+            )
+            .toList();
+
+        // prefer record accessors and getters, then fall back to fields
+        final var accessorNameList = List.of(
+            parameterName,
+            "get" + makeUpperCamelCase(parameterName),
+            "is" + makeUpperCamelCase(parameterName)
         );
 
-        return builderClass.build();
+        for (final var accessorName : accessorNameList) {
+            final var accessor = memberList.stream()
+                .filter(m -> m.getKind() == ElementKind.METHOD)
+                .map(ExecutableElement.class::cast)
+                .filter(m -> m.getSimpleName().contentEquals(accessorName))
+                .filter(m -> m.getParameters().isEmpty())
+                .filter(
+                    m -> typeUtils.isAssignable(
+                        typeUtils.erasure(m.getReturnType()),
+                        parameterType
+                    )
+                )
+                .findFirst();
+
+            if (accessor.isPresent()) {
+                return accessorName + "()";
+            }
+        }
+
+        final var field = memberList.stream()
+            .filter(m -> m.getKind() == ElementKind.FIELD)
+            .filter(m -> m.getSimpleName().contentEquals(parameterName))
+            .filter(m -> typeUtils.isAssignable(typeUtils.erasure(m.asType()), parameterType))
+            .findFirst();
+
+        return field.isPresent() ? parameterName : null;
+    }
+
+    private TypeName makeTargetTypeName(
+        ExecutableElement creator,
+        ClassName creatorTargetClassName
+    ) {
+        if (creator.getKind() == ElementKind.METHOD) {
+            // the return type is expressed by the type parameters of the factory
+            return TypeName.get(creator.getReturnType());
+        }
+
+        final var creatorTypeParameterList = calcTypeParameters(creator);
+
+        return creatorTypeParameterList.isEmpty()
+            ? creatorTargetClassName
+            : ParameterizedTypeName.get(
+                creatorTargetClassName,
+                creatorTypeParameterList.stream()
+                    .map(TypeVariableName::get)
+                    .toArray(TypeName[]::new)
+            );
+    }
+
+    private TypeName makeBuilderTypeName(ExecutableElement creator) {
+        return makeBuilderTypeName(processingEnv.getTypeUtils(), creator);
+    }
+
+    static TypeName makeBuilderTypeName(Types typeUtils, ExecutableElement creator) {
+        final var builderClassName = ClassName.get("", BUILDER_CLASS_NAME);
+        final var creatorTypeParameterList = calcTypeParameters(typeUtils, creator);
+
+        if (creatorTypeParameterList.isEmpty()) {
+            return builderClassName;
+
+        } else {
+            return ParameterizedTypeName.get(
+                builderClassName,
+                creatorTypeParameterList.stream()
+                    .map(TypeVariableName::get)
+                    .toArray(TypeName[]::new)
+            );
+        }
     }
 
     private MethodSpec makeBuilderMethod(TypeSpec builderClass) {
         final var builderClassName = extractClassName(builderClass);
         final var builderTypeParameterList = builderClass.typeVariables();
 
+        if (builderTypeParameterList.isEmpty()) {
+            return MethodSpec.methodBuilder("builder")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(builderClassName)
+                .addStatement("return new $T()", builderClassName)
+                .build();
+        }
+
         return MethodSpec.methodBuilder("builder")
             .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
             .addTypeVariables(builderTypeParameterList)
@@ -399,11 +1777,11 @@ public class Crafter extends AbstractProcessor {
                     builderTypeParameterList.toArray(new TypeVariableName[0])
                 )
             )
-            .addStatement("return new $T()", builderClassName)
+            .addStatement("return new $T<>()", builderClassName)
             .build();
     }
 
-    private TypeMirror extractTargetClass(ExecutableElement creator) {
+    static TypeMirror extractTargetClass(ExecutableElement creator) {
         return switch (creator.getKind()) {
             case CONSTRUCTOR -> Objects
                 .requireNonNull(creator.getEnclosingElement())
@@ -417,6 +1795,11 @@ public class Crafter extends AbstractProcessor {
         };
     }
 
+    static TypeElement extractOriginatingElement(ExecutableElement creator) {
+        // isolating processors must only depend on the type which declares the creator
+        return (TypeElement) Objects.requireNonNull(creator.getEnclosingElement());
+    }
+
     private ClassName extractClassName(TypeSpec type) {
         return ClassName.get(
             "", // directly access
@@ -441,22 +1824,38 @@ public class Crafter extends AbstractProcessor {
     }
 
     private Modifier[] calcModifiers(ExecutableElement creator) {
-        return new Modifier[] {
-            processingEnv.getTypeUtils()
-                .asElement(extractTargetClass(creator))
-                .getModifiers()
-                .stream()
-                .filter(
-                    modifier -> modifier == Modifier.PUBLIC
-                        || modifier == Modifier.PROTECTED
-                        || modifier == Modifier.PRIVATE
-                )
-                .findFirst()
-                .orElse(Modifier.DEFAULT) };
+        return calcModifiers(processingEnv.getTypeUtils(), creator);
+    }
+
+    static Modifier[] calcModifiers(Types typeUtils, ExecutableElement creator) {
+        // a package-private target has no access modifier to copy
+        return typeUtils
+            .asElement(extractTargetClass(creator))
+            .getModifiers()
+            .stream()
+            .filter(
+                modifier -> modifier == Modifier.PUBLIC
+                    || modifier == Modifier.PROTECTED
+                    || modifier == Modifier.PRIVATE
+            )
+            .limit(1)
+            .toArray(Modifier[]::new);
     }
 
     private List<TypeParameterElement> calcTypeParameters(ExecutableElement creator) {
-        final var targetClassElement = (TypeElement) processingEnv.getTypeUtils()
+        return calcTypeParameters(processingEnv.getTypeUtils(), creator);
+    }
+
+    static List<TypeParameterElement> calcTypeParameters(
+        Types typeUtils,
+        ExecutableElement creator
+    ) {
+        if (creator.getKind() == ElementKind.METHOD) {
+            // a static factory cannot use the type parameters of the class it returns
+            return List.copyOf(creator.getTypeParameters());
+        }
+
+        final var targetClassElement = (TypeElement) typeUtils
             .asElement(extractTargetClass(creator));
 
         final var targetClassTypeParameterList = targetClassElement.getTypeParameters();
@@ -467,7 +1866,36 @@ public class Crafter extends AbstractProcessor {
         ).toList();
     }
 
-    private AnnotationSpec makeGenerated() {
+    /**
+     * The companion of a class whose {@code @Builder} is on the class or a constructor, so it is
+     * known to be generated next to the class with the given suffix.
+     */
+    static @Nullable ClassName findCompanion(
+        Elements elementUtils,
+        TypeElement element,
+        Predicate<Builder> isEnabled,
+        String suffix
+    ) {
+        final var isAnnotated = Stream.concat(
+            Stream.of(element),
+            element.getEnclosedElements()
+                .stream()
+                .filter(e -> e.getKind() == ElementKind.CONSTRUCTOR)
+        )
+            .map(e -> e.getAnnotation(Builder.class))
+            .anyMatch(anno -> anno != null && isEnabled.test(anno));
+
+        if (! isAnnotated) {
+            return null;
+        }
+
+        return ClassName.get(
+            elementUtils.getPackageOf(element).getQualifiedName().toString(),
+            element.getSimpleName() + suffix
+        );
+    }
+
+    static AnnotationSpec makeGenerated() {
         return AnnotationSpec.builder(Generated.class)
             .addMember("value", "$S", TOOL_NAME)
             .build();
@@ -483,6 +1911,16 @@ public class Crafter extends AbstractProcessor {
                 .getSimpleName()
                 .toString();
 
+            // named after the type built by the factory
+            case METHOD -> Optional
+                .ofNullable(
+                    processingEnv.getTypeUtils()
+                        .asElement(((ExecutableElement) element).getReturnType())
+                )
+                .orElse(element)
+                .getSimpleName()
+                .toString();
+
             default -> throw new IllegalArgumentException(
                 "Unsupported element kind: " + element.getKind()
             );
@@ -511,7 +1949,25 @@ public class Crafter extends AbstractProcessor {
         return list.get(0);
     }
 
-    private static String makeUpperCamelCase(String lowerCamelCase) {
+    static String makeZeroValueLiteral(TypeMirror type) {
+        return switch (type.getKind()) {
+            case BOOLEAN -> "false";
+            case BYTE, SHORT, CHAR, INT, LONG, FLOAT, DOUBLE -> "0";
+            default -> "null";
+        };
+    }
+
+    /**
+     * Name a variable, member or type declared by the generated code itself. Generated methods
+     * declare the creator parameters as their own parameters or local variables, and hand written
+     * identifiers practically never end with {@code $}, so the suffix keeps these names clear of
+     * the parameter names.
+     */
+    static String makeInternalName(String name) {
+        return name + INTERNAL_NAME_SUFFIX;
+    }
+
+    static String makeUpperCamelCase(String lowerCamelCase) {
         return lowerCamelCase.substring(0, 1).toUpperCase(Locale.ENGLISH)
             + lowerCamelCase.substring(1);
     }
@@ -0,0 +1,476 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.tools.Diagnostic;
+
+import com.palantir.javapoet.JavaFile;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Content-addressed cache of rendered sources, enabled by {@code -Acrafter.cacheDir=<dir>}.
+ * <p>
+ * An entry is keyed by the SHA-256 fingerprint of everything the generation of one creator
+ * depends on, including the jars or class directories of the processor and JavaPoet, so a changed
+ * processor never reuses stale entries. Entries are evicted in LRU order by their modification
+ * time, which is refreshed on every hit.
+ */
+final class GenerationCache {
+    record CachedFile(String qualifiedName, String source) {}
+
+    /**
+     * The files generated for one creator, and the number of its stages to be counted by
+     * {@link ProcessingStats} on hits.
+     */
+    record CachedEntry(int stages, List<CachedFile> fileList) {}
+
+    private static final String ENTRY_SUFFIX = ".crafter";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // entries being stored by a concurrent build are younger than this
+    private static final long STALE_TEMP_MILLIS = Duration.ofHours(1).toMillis();
+
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    // the output depends on the code of the processor, and of JavaPoet rendering it
+    private static final List<Class<?>> CODE_SOURCE_CLASSES = List.of(
+        Crafter.class,
+        JavaFile.class
+    );
+
+    private final ProcessingEnvironment processingEnv;
+    private final Path directory;
+    private final int maxEntries;
+    private final byte[] generatorDigest;
+
+    // types are read by the creators of many targets, so they are digested once per compilation
+    private final Map<TypeElement, byte[]> typeDigestMap = new HashMap<>();
+
+    private int hits = 0;
+    private int misses = 0;
+
+    private GenerationCache(
+        ProcessingEnvironment processingEnv,
+        Path directory,
+        int maxEntries,
+        byte[] generatorDigest
+    ) {
+        this.processingEnv = processingEnv;
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+        this.generatorDigest = generatorDigest;
+    }
+
+    static @Nullable GenerationCache open(ProcessingEnvironment processingEnv) {
+        final var options = processingEnv.getOptions();
+        final var directoryOption = options.get(Crafter.OPTION_CACHE_DIR);
+
+        if (directoryOption == null || directoryOption.isBlank()) {
+            return null;
+        }
+
+        final var maxEntriesOption = options.get(Crafter.OPTION_CACHE_MAX_ENTRIES);
+        var maxEntries = DEFAULT_MAX_ENTRIES;
+
+        if (maxEntriesOption != null) {
+            try {
+                maxEntries = Integer.parseInt(maxEntriesOption.strip());
+
+            } catch (NumberFormatException e) {
+                maxEntries = 0;
+            }
+
+            if (maxEntries < 1) {
+                processingEnv.getMessager()
+                    .printMessage(
+                        Diagnostic.Kind.ERROR,
+                        "-A%s must be a positive integer, but got %s"
+                            .formatted(Crafter.OPTION_CACHE_MAX_ENTRIES, maxEntriesOption)
+                    );
+                return null;
+            }
+        }
+
+        final byte[] generatorDigest;
+
+        try {
+            generatorDigest = digestCodeSources();
+
+        } catch (IOException e) {
+            processingEnv.getMessager()
+                .printMessage(
+                    Diagnostic.Kind.WARNING,
+                    "%s cache is disabled, because its code cannot be fingerprinted: %s"
+                        .formatted(Crafter.TOOL_NAME, e.getMessage())
+                );
+            return null;
+        }
+
+        try {
+            final var directory = Files.createDirectories(Path.of(directoryOption.strip()));
+
+            return new GenerationCache(processingEnv, directory, maxEntries, generatorDigest);
+
+        } catch (IOException | InvalidPathException e) {
+            // the cache is only an optimization
+            processingEnv.getMessager()
+                .printMessage(
+                    Diagnostic.Kind.WARNING,
+                    "%s cache is disabled, because %s cannot be used: %s"
+                        .formatted(Crafter.TOOL_NAME, directoryOption, e.getMessage())
+                );
+            return null;
+        }
+    }
+
+    /**
+     * Fingerprint the inputs of generating the builder of {@code creator}: the container name,
+     * the creator and its parameters, type parameters, modifiers and annotations, the signatures
+     * of the target type and its enclosing types, and the members of every type the generators
+     * read, see {@link #collectTypes(TypeMirror, Set)}.
+     */
+    String fingerprint(ExecutableElement creator, String builderContainerName) {
+        final var digest = newDigest();
+        digest.update(generatorDigest);
+
+        final var target = Crafter.extractOriginatingElement(creator);
+
+        update(digest, processingEnv.getElementUtils().getPackageOf(creator).toString());
+        update(digest, builderContainerName);
+
+        // the target and its enclosing types decide the names and modifiers
+        for (
+            Element e = target;
+            e.getKind() != ElementKind.PACKAGE;
+            e = Objects.requireNonNull(e.getEnclosingElement())
+        ) {
+            updateDeclaration(digest, e);
+
+            if (e instanceof TypeElement type) {
+                updateTypeParameters(digest, type.getTypeParameters());
+            }
+        }
+
+        updateDeclaration(digest, creator);
+        updateTypeParameters(digest, creator.getTypeParameters());
+        update(digest, creator.getReturnType().toString());
+
+        for (final var parameter : creator.getParameters()) {
+            updateDeclaration(digest, parameter);
+            update(digest, parameter.asType().toString());
+        }
+
+        final var typeSet = new LinkedHashSet<TypeElement>();
+        collectTypes(target.asType(), typeSet);
+        // a static factory may build another type than the one declaring it
+        collectTypes(creator.getReturnType(), typeSet);
+
+        for (final var parameter : creator.getParameters()) {
+            collectTypes(parameter.asType(), typeSet);
+        }
+
+        for (final var type : typeSet) {
+            digest.update(digestType(type));
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Load an entry, or return null when it is missing or unreadable.
+     */
+    @Nullable CachedEntry load(String fingerprint) {
+        final var entry = directory.resolve(fingerprint + ENTRY_SUFFIX);
+
+        try (
+            var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))
+        ) {
+            final var stages = input.readInt();
+            final var count = input.readInt();
+            final var fileList = new ArrayList<CachedFile>(count);
+
+            for (var i = 0; i < count; i++) {
+                final var qualifiedName = input.readUTF();
+                final var source = new String(
+                    input.readNBytes(input.readInt()),
+                    StandardCharsets.UTF_8
+                );
+
+                fileList.add(new CachedFile(qualifiedName, source));
+            }
+
+            // refresh the LRU order
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+
+            hits += 1;
+            return new CachedEntry(stages, fileList);
+
+        } catch (IOException e) {
+            misses += 1;
+            return null;
+        }
+    }
+
+    void store(String fingerprint, CachedEntry entry) {
+        try {
+            final var temp = Files.createTempFile(directory, fingerprint, TEMP_SUFFIX);
+
+            try (
+                var output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp))
+                )
+            ) {
+                output.writeInt(entry.stages());
+                output.writeInt(entry.fileList().size());
+
+                for (final var file : entry.fileList()) {
+                    final var bytes = file.source().getBytes(StandardCharsets.UTF_8);
+
+                    output.writeUTF(file.qualifiedName());
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                }
+            }
+
+            // concurrent builds sharing the directory only ever see complete entries
+            Files.move(
+                temp,
+                directory.resolve(fingerprint + ENTRY_SUFFIX),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+
+        } catch (IOException e) {
+            processingEnv.getMessager()
+                .printMessage(
+                    Diagnostic.Kind.WARNING,
+                    "%s cannot store the cache entry %s: %s"
+                        .formatted(Crafter.TOOL_NAME, fingerprint, e.getMessage())
+                );
+        }
+    }
+
+    /**
+     * Evict the least recently used entries beyond the max entries, sweep the temporary files
+     * left by interrupted builds, and report the hits and misses.
+     */
+    void close() {
+        try (var entries = Files.list(directory)) {
+            final var fileList = entries.toList();
+
+            // most recently used first
+            final var entryList = fileList.stream()
+                .filter(p -> p.getFileName().toString().endsWith(ENTRY_SUFFIX))
+                .map(p -> new AbstractMap.SimpleEntry<>(p, lastModifiedMillis(p)))
+                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
+                .toList();
+
+            for (var i = maxEntries; i < entryList.size(); i++) {
+                Files.deleteIfExists(entryList.get(i).getKey());
+            }
+
+            final var staleMillis = System.currentTimeMillis() - STALE_TEMP_MILLIS;
+
+            for (final var file : fileList) {
+                if (
+                    file.getFileName().toString().endsWith(TEMP_SUFFIX)
+                        && lastModifiedMillis(file) < staleMillis
+                ) {
+                    Files.deleteIfExists(file);
+                }
+            }
+
+        } catch (IOException e) {
+            processingEnv.getMessager()
+                .printMessage(
+                    Diagnostic.Kind.WARNING,
+                    "%s cannot evict cache entries: %s".formatted(Crafter.TOOL_NAME, e.getMessage())
+                );
+        }
+
+        processingEnv.getMessager()
+            .printMessage(
+                Diagnostic.Kind.NOTE,
+                "%s cache: %d hits, %d misses".formatted(Crafter.TOOL_NAME, hits, misses)
+            );
+    }
+
+    private static long lastModifiedMillis(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+
+        } catch (IOException e) {
+            // evicted first
+            return Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Collect the types a generator may read through {@code type}: the target for its defaults
+     * and accessors, parameter types for their companions, enum constants and fields, their type
+     * arguments, and the supertypes of all of them for inherited members.
+     */
+    private void collectTypes(TypeMirror type, Set<TypeElement> typeSet) {
+        // type variables are fingerprinted by their bounds, primitives by their kind
+        if (type instanceof DeclaredType declaredType) {
+            final var element = (TypeElement) declaredType.asElement();
+
+            if (! typeSet.add(element)) {
+                return;
+            }
+
+            declaredType.getTypeArguments().forEach(t -> collectTypes(t, typeSet));
+            collectTypes(element.getSuperclass(), typeSet);
+            element.getInterfaces().forEach(t -> collectTypes(t, typeSet));
+
+        } else if (type instanceof ArrayType arrayType) {
+            collectTypes(arrayType.getComponentType(), typeSet);
+
+        } else if (type instanceof WildcardType wildcardType) {
+            final var extendsBound = wildcardType.getExtendsBound();
+            final var superBound = wildcardType.getSuperBound();
+
+            if (extendsBound != null) {
+                collectTypes(extendsBound, typeSet);
+            }
+
+            if (superBound != null) {
+                collectTypes(superBound, typeSet);
+            }
+        }
+    }
+
+    private byte[] digestType(TypeElement type) {
+        return typeDigestMap.computeIfAbsent(type, t -> {
+            final var digest = newDigest();
+
+            update(digest, t.getQualifiedName().toString());
+            updateDeclaration(digest, t);
+
+            // private fields included, which make up the layout of a nested binary target
+            for (final var member : t.getEnclosedElements()) {
+                updateDeclaration(digest, member);
+                update(digest, member.asType().toString());
+            }
+
+            return digest.digest();
+        });
+    }
+
+    private static void updateDeclaration(MessageDigest digest, Element element) {
+        update(digest, element.getKind().name());
+        update(digest, element.getSimpleName().toString());
+        update(digest, element.getModifiers().toString());
+        update(digest, element.getAnnotationMirrors().toString());
+    }
+
+    private static void updateTypeParameters(
+        MessageDigest digest,
+        List<? extends TypeParameterElement> typeParameterList
+    ) {
+        for (final var typeParameter : typeParameterList) {
+            update(digest, typeParameter.getSimpleName().toString());
+            update(digest, typeParameter.getBounds().toString());
+            update(digest, typeParameter.getAnnotationMirrors().toString());
+        }
+
+        update(digest, "");
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        // separate the values, so that ("ab", "c") differs from ("a", "bc")
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Digest the jars, or the class directories during development, that the processor and
+     * JavaPoet are loaded from.
+     */
+    private static byte[] digestCodeSources() throws IOException {
+        final var digest = newDigest();
+        final var locationSet = new LinkedHashSet<Path>();
+
+        for (final var clazz : CODE_SOURCE_CLASSES) {
+            locationSet.add(locateCodeSource(clazz));
+        }
+
+        for (final var location : locationSet) {
+            if (Files.isDirectory(location)) {
+                try (var files = Files.walk(location)) {
+                    final var fileList = files.filter(Files::isRegularFile).sorted().toList();
+
+                    for (final var file : fileList) {
+                        update(digest, location.relativize(file).toString());
+                        digest.update(Files.readAllBytes(file));
+                    }
+                }
+
+            } else {
+                digest.update(Files.readAllBytes(location));
+            }
+        }
+
+        return digest.digest();
+    }
+
+    private static Path locateCodeSource(Class<?> clazz) throws IOException {
+        final var codeSource = clazz.getProtectionDomain().getCodeSource();
+
+        if (codeSource == null) {
+            throw new FileNotFoundException("code source of " + clazz.getName());
+        }
+
+        try {
+            return Path.of(codeSource.getLocation().toURI());
+
+        } catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+            throw new IOException(
+                "code source of %s is not a file: %s"
+                    .formatted(clazz.getName(), codeSource.getLocation()),
+                e
+            );
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform must support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+
+import com.palantir.javapoet.*;
+import io.github.iyanging.crafter.runtime.BuilderFactory;
+import io.github.iyanging.crafter.runtime.BuilderIndex;
+
+
+/**
+ * Generate the {@link BuilderIndex} of {@link Crafter#OPTION_INDEX}, which is collected from
+ * the builders of all rounds, and registered as a service.
+ */
+class IndexGenerator {
+    private static final String SERVICE_RESOURCE_NAME = "META-INF/services/"
+        + BuilderIndex.class.getName();
+
+    private static final String TARGET_CLASS_NAME = "targetClass";
+    private static final String ARGUMENTS_NAME = Crafter.makeInternalName("arguments");
+
+    private record Entry(ClassName targetClassName, CodeBlock factoryCode) {}
+
+    private final ProcessingEnvironment processingEnv;
+    private final ClassName indexClassName;
+
+    // factories by the binary names of their target classes, to be sorted between rounds
+    private final Map<String, Entry> entryMap = new TreeMap<>();
+    private final List<Element> originatingElementList = new ArrayList<>();
+
+    IndexGenerator(ProcessingEnvironment processingEnv, String indexName) {
+        this.processingEnv = processingEnv;
+
+        final var lastDot = indexName.lastIndexOf('.');
+        this.indexClassName = lastDot < 0
+            ? ClassName.get("", indexName)
+            : ClassName.get(indexName.substring(0, lastDot), indexName.substring(lastDot + 1));
+    }
+
+    String indexName() {
+        return indexClassName.canonicalName();
+    }
+
+    boolean isEmpty() { return entryMap.isEmpty(); }
+
+    List<Element> originatingElements() {
+        return List.copyOf(originatingElementList);
+    }
+
+    /**
+     * Add the target of the creator, whose builder is started by {@code builderContainer}, unless
+     * the index cannot access it, which is warned.
+     */
+    void add(ExecutableElement creator, ClassName builderContainerClassName) {
+        final var typeUtils = processingEnv.getTypeUtils();
+        final var targetElement = (TypeElement) typeUtils.asElement(
+            Crafter.extractTargetClass(creator)
+        );
+
+        if (! isAccessible(targetElement) || ! isAccessible(creator)) {
+            processingEnv.getMessager()
+                .printMessage(
+                    Diagnostic.Kind.WARNING,
+                    "%s is left out of %s, which cannot access it"
+                        .formatted(targetElement.getQualifiedName(), indexName()),
+                    creator
+                );
+            return;
+        }
+
+        final var parameterList = creator.getParameters();
+        final var targetClassName = ClassName.get(targetElement);
+
+        final var argumentList = new ArrayList<CodeBlock>();
+        for (var i = 0; i < parameterList.size(); i++) {
+            final var parameterTypeName = TypeName.get(
+                typeUtils.erasure(parameterList.get(i).asType())
+            );
+
+            // type variables are erased to `Object`, which needs no cast
+            argumentList.add(
+                parameterTypeName.equals(ClassName.OBJECT)
+                    ? CodeBlock.of("$L[$L]", ARGUMENTS_NAME, i)
+                    : CodeBlock.of("($T) $L[$L]", parameterTypeName, ARGUMENTS_NAME, i)
+            );
+        }
+
+        final var creatorCode = creator.getKind() == ElementKind.CONSTRUCTOR
+            ? CodeBlock.of(
+                // diamond infers the type arguments of generic targets
+                targetElement.getTypeParameters().isEmpty() ? "new $T($L)" : "new $T<>($L)",
+                targetClassName,
+                CodeBlock.join(argumentList, ", ")
+            )
+            : CodeBlock.of(
+                "$T.$L($L)",
+                ClassName.get(Crafter.extractOriginatingElement(creator)),
+                creator.getSimpleName(),
+                CodeBlock.join(argumentList, ", ")
+            );
+
+        final var factoryCode = CodeBlock.builder()
+            .add("new $T<$T>(\n", BuilderFactory.class, targetClassName)
+            .indent()
+            .add("$T.class,\n", targetClassName)
+            .add(
+                "$T.of($L),\n",
+                List.class,
+                CodeBlock.join(
+                    parameterList.stream()
+                        .map(p -> CodeBlock.of("$S", p.getSimpleName()))
+                        .toList(),
+                    ", "
+                )
+            )
+            .add(
+                "$T.of($L),\n",
+                List.class,
+                CodeBlock.join(
+                    parameterList.stream()
+                        .map(p -> CodeBlock.of("$T.class", typeUtils.erasure(p.asType())))
+                        .toList(),
+                    ", "
+                )
+            )
+            .add("$T::builder,\n", builderContainerClassName)
+            .add("$L -> $L\n", ARGUMENTS_NAME, creatorCode)
+            .unindent()
+            .add(")")
+            .build();
+
+        final var binaryName = processingEnv.getElementUtils()
+            .getBinaryName(targetElement)
+            .toString();
+
+        // a target built by several creators is indexed by the first one
+        if (entryMap.putIfAbsent(binaryName, new Entry(targetClassName, factoryCode)) == null) {
+            originatingElementList.add(Crafter.extractOriginatingElement(creator));
+        }
+    }
+
+    /**
+     * Generate the index, which looks up the factory by the name of the target class, and
+     * creates it on each lookup, so only the target classes looked up are loaded.
+     */
+    JavaFile generate() {
+        final var findMethod = MethodSpec.methodBuilder("find")
+            .addAnnotation(Override.class)
+            .addAnnotation(
+                AnnotationSpec.builder(SuppressWarnings.class)
+                    .addMember("value", "{$S, $S}", "rawtypes", "unchecked")
+                    .build()
+            )
+            .addModifiers(Modifier.PUBLIC)
+            .addTypeVariable(TypeVariableName.get("T"))
+            .returns(
+                ParameterizedTypeName.get(
+                    ClassName.get(BuilderFactory.class),
+                    TypeVariableName.get("T")
+                )
+            )
+            .addParameter(
+                ParameterizedTypeName.get(ClassName.get(Class.class), TypeVariableName.get("T")),
+                TARGET_CLASS_NAME
+            )
+            .beginControlFlow("switch ($L.getName())", TARGET_CLASS_NAME);
+
+        entryMap.forEach(
+            (binaryName, entry) -> findMethod
+                .addCode("case $S:\n$>", binaryName)
+                // a class of the same name may be loaded by another class loader
+                .addStatement(
+                    "return $L == $T.class ? ($T) $L : null",
+                    TARGET_CLASS_NAME,
+                    entry.targetClassName(),
+                    BuilderFactory.class,
+                    entry.factoryCode()
+                )
+                .addCode("$<")
+        );
+
+        findMethod
+            .addCode("default:\n$>")
+            .addStatement("return null")
+            .addCode("$<")
+            .endControlFlow();
+
+        final var indexClass = TypeSpec.classBuilder(indexClassName)
+            .addAnnotation(Crafter.makeGenerated())
+            .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+            .addSuperinterface(BuilderIndex.class)
+            .addMethod(findMethod.build());
+
+        originatingElementList.forEach(indexClass::addOriginatingElement);
+
+        return JavaFile.builder(indexClassName.packageName(), indexClass.build()).build();
+    }
+
+    /**
+     * Register the index as a service, so that it is found by {@code ServiceLoader}.
+     */
+    void writeServiceFile() {
+        try {
+            final var serviceFile = processingEnv.getFiler()
+                .createResource(
+                    StandardLocation.CLASS_OUTPUT,
+                    "",
+                    SERVICE_RESOURCE_NAME,
+                    originatingElementList.toArray(new Element[0])
+                );
+
+            try (var writer = serviceFile.openWriter()) {
+                writer.write(indexName() + "\n");
+            }
+
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Whether the element and the types enclosing it are accessible from the package of the
+     * index.
+     */
+    private boolean isAccessible(Element element) {
+        final var packageName = processingEnv.getElementUtils()
+            .getPackageOf(element)
+            .getQualifiedName()
+            .toString();
+        final var isSamePackage = packageName.equals(indexClassName.packageName());
+
+        var enclosed = element;
+
+        while (enclosed.getKind() != ElementKind.PACKAGE) {
+            final var enclosing = Objects.requireNonNull(enclosed.getEnclosingElement());
+            final var modifiers = enclosed.getModifiers();
+            // members of interfaces are implicitly public
+            final var isPublic = modifiers.contains(Modifier.PUBLIC)
+                || enclosing.getKind().isInterface();
+
+            if (modifiers.contains(Modifier.PRIVATE) || ! isSamePackage && ! isPublic) {
+                return false;
+            }
+
+            enclosed = enclosing;
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.VariableElement;
+
+import com.palantir.javapoet.*;
+
+
+/**
+ * Generate the interning of {@link Builder#intern()}, which makes {@code build()} return the
+ * existing target built from equal arguments, instead of invoking the creator again.
+ * <p>
+ * Interned targets are held by weak references in a {@code ConcurrentHashMap} keyed by the list
+ * of arguments, so a target is only kept while it is used elsewhere, and the entries of collected
+ * targets are expunged on the next interning.
+ */
+class InternGenerator {
+    private static final String INTERNED_FIELD_NAME = "INTERNED";
+    private static final String INTERN_QUEUE_FIELD_NAME = "INTERN_QUEUE";
+    private static final String INTERNED_REFERENCE_CLASS_NAME = "InternedReference";
+    private static final String INTERN_METHOD_NAME = "intern";
+    private static final String LOOKUP_INTERNED_METHOD_NAME = "lookupInterned";
+    private static final String EXPUNGE_INTERNED_METHOD_NAME = "expungeInterned";
+    private static final String INTERN_KEY_NAME = Crafter.makeInternalName("key");
+    private static final String INTERNED_NAME = Crafter.makeInternalName("interned");
+
+    private final ProcessingEnvironment processingEnv;
+    private final ExecutableElement creator;
+
+    InternGenerator(ProcessingEnvironment processingEnv, ExecutableElement creator) {
+        this.processingEnv = processingEnv;
+        this.creator = creator;
+    }
+
+    /**
+     * Make the annotations of {@code build()}, which casts the interned target.
+     */
+    List<AnnotationSpec> makeBuildAnnotations() {
+        if (Crafter.calcTypeParameters(processingEnv.getTypeUtils(), creator).isEmpty()) {
+            return List.of();
+        }
+
+        // interned targets of any type arguments share the same map
+        return List.of(
+            AnnotationSpec.builder(SuppressWarnings.class)
+                .addMember("value", "$S", "unchecked")
+                .build()
+        );
+    }
+
+    /**
+     * Make the statements of {@code build()} looking up the target interned for the arguments.
+     *
+     * @param argumentMaker makes the expression of the argument of a parameter
+     */
+    CodeBlock makeLookupCode(Function<VariableElement, CodeBlock> argumentMaker) {
+        return CodeBlock.builder()
+            .addStatement(
+                "final var $L = $T.asList(new Object[] { $L })",
+                INTERN_KEY_NAME,
+                Arrays.class,
+                CodeBlock.join(creator.getParameters().stream().map(argumentMaker).toList(), ", ")
+            )
+            .addStatement(
+                "final var $L = $L($L)",
+                INTERNED_NAME,
+                LOOKUP_INTERNED_METHOD_NAME,
+                INTERN_KEY_NAME
+            )
+            .build();
+    }
+
+    /**
+     * Make the expression of the target, which only invokes the creator when no equal target is
+     * interned.
+     */
+    CodeBlock makeInternInvocation(TypeName targetTypeName, CodeBlock creatorInvocation) {
+        return CodeBlock.of(
+            "($T) ($L != null ? $L : $L($L, $L))",
+            targetTypeName,
+            INTERNED_NAME,
+            INTERNED_NAME,
+            INTERN_METHOD_NAME,
+            INTERN_KEY_NAME,
+            creatorInvocation
+        );
+    }
+
+    /**
+     * Make the map of the interned targets by their arguments, and the queue of the references
+     * to the collected ones.
+     */
+    List<FieldSpec> makeInternFields() {
+        final var keyTypeName = ParameterizedTypeName.get(
+            ClassName.get(List.class),
+            WildcardTypeName.subtypeOf(Object.class)
+        );
+
+        return List.of(
+            FieldSpec.builder(
+                ParameterizedTypeName.get(ReferenceQueue.class, Object.class),
+                INTERN_QUEUE_FIELD_NAME,
+                Modifier.PRIVATE,
+                Modifier.STATIC,
+                Modifier.FINAL
+            )
+                .initializer("new $T<>()", ReferenceQueue.class)
+                .build(),
+            FieldSpec.builder(
+                ParameterizedTypeName.get(
+                    ClassName.get(ConcurrentHashMap.class),
+                    keyTypeName,
+                    ClassName.get("", INTERNED_REFERENCE_CLASS_NAME)
+                ),
+                INTERNED_FIELD_NAME,
+                Modifier.PRIVATE,
+                Modifier.STATIC,
+                Modifier.FINAL
+            )
+                .initializer("new $T<>()", ConcurrentHashMap.class)
+                .build()
+        );
+    }
+
+    TypeSpec makeInternedReferenceClass() {
+        final var keyTypeName = ParameterizedTypeName.get(
+            ClassName.get(List.class),
+            WildcardTypeName.subtypeOf(Object.class)
+        );
+
+        // remembers its key, so that the entry can be removed once the target is collected
+        return TypeSpec.classBuilder(INTERNED_REFERENCE_CLASS_NAME)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+            .superclass(ParameterizedTypeName.get(WeakReference.class, Object.class))
+            .addField(keyTypeName, "key", Modifier.PRIVATE, Modifier.FINAL)
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PRIVATE)
+                    .addParameter(keyTypeName, "key")
+                    .addParameter(Object.class, "target")
+                    .addStatement("super(target, $L)", INTERN_QUEUE_FIELD_NAME)
+                    .addStatement("this.key = key")
+                    .build()
+            )
+            .build();
+    }
+
+    /**
+     * Make the lookup, the interning and the expunging of the collected targets, which are
+     * invoked by {@code build()}.
+     */
+    List<MethodSpec> makeInternMethods() {
+        final var keyTypeName = ParameterizedTypeName.get(
+            ClassName.get(List.class),
+            WildcardTypeName.subtypeOf(Object.class)
+        );
+        final var referenceClassName = ClassName.get("", INTERNED_REFERENCE_CLASS_NAME);
+
+        final var lookupMethod = MethodSpec.methodBuilder(LOOKUP_INTERNED_METHOD_NAME)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(keyTypeName, "key")
+            .returns(Object.class)
+            .addStatement("final var reference = $L.get(key)", INTERNED_FIELD_NAME)
+            .addStatement("return reference != null ? reference.get() : null")
+            .build();
+
+        final var internMethod = MethodSpec.methodBuilder(INTERN_METHOD_NAME)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(keyTypeName, "key")
+            .addParameter(Object.class, "target")
+            .returns(Object.class)
+            .addStatement("$L()", EXPUNGE_INTERNED_METHOD_NAME)
+            .addStatement("final var reference = new $T(key, target)", referenceClassName)
+            .beginControlFlow("while (true)")
+            .addStatement(
+                "final var existing = $L.putIfAbsent(key, reference)",
+                INTERNED_FIELD_NAME
+            )
+            .beginControlFlow("if (existing == null)")
+            .addStatement("return target")
+            .endControlFlow()
+            // another thread interned an equal target first
+            .addStatement("final var existingTarget = existing.get()")
+            .beginControlFlow("if (existingTarget != null)")
+            .addStatement("return existingTarget")
+            .endControlFlow()
+            // the existing target was collected, but its entry is not expunged yet
+            .addStatement("$L.remove(key, existing)", INTERNED_FIELD_NAME)
+            .endControlFlow()
+            .build();
+
+        final var expungeMethod = MethodSpec.methodBuilder(EXPUNGE_INTERNED_METHOD_NAME)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addStatement("$T<?> reference", Reference.class)
+            .beginControlFlow("while ((reference = $L.poll()) != null)", INTERN_QUEUE_FIELD_NAME)
+            .addStatement(
+                "$L.remove((($T) reference).key, reference)",
+                INTERNED_FIELD_NAME,
+                referenceClassName
+            )
+            .endControlFlow()
+            .build();
+
+        return List.of(lookupMethod, internMethod, expungeMethod);
+    }
+}
@@ -0,0 +1,549 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+import com.palantir.javapoet.*;
+import io.github.iyanging.crafter.runtime.JsonReader;
+import io.github.iyanging.crafter.runtime.JsonWriter;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Generate the {@code XxxJson} of {@link Builder#json()}.
+ */
+class JsonGenerator {
+    private static final Map<TypeKind, String> PRIMITIVE_READERS = Map.of(
+        TypeKind.BOOLEAN,
+        "nextBoolean",
+        TypeKind.INT,
+        "nextInt",
+        TypeKind.LONG,
+        "nextLong",
+        TypeKind.FLOAT,
+        "nextFloat",
+        TypeKind.DOUBLE,
+        "nextDouble"
+    );
+
+    private static final Set<String> NUMBER_CLASS_NAMES = Set.of(
+        BigDecimal.class.getCanonicalName(),
+        BigInteger.class.getCanonicalName()
+    );
+
+    private static final String READER_NAME = Crafter.makeInternalName("reader");
+    private static final String WRITER_NAME = Crafter.makeInternalName("writer");
+    private static final String TARGET_NAME = Crafter.makeInternalName("target");
+    private static final String JSON_NAME = Crafter.makeInternalName("json");
+    private static final String MISSING_NAME = Crafter.makeInternalName("missing");
+
+    private final ProcessingEnvironment processingEnv;
+
+    JsonGenerator(ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+    }
+
+    Optional<JavaFile> generate(ExecutableElement creator, String packageName) {
+        final var elementUtils = processingEnv.getElementUtils();
+        final var typeUtils = processingEnv.getTypeUtils();
+
+        final var targetClass = Crafter.extractTargetClass(creator);
+        final var targetClassElement = (TypeElement) typeUtils.asElement(targetClass);
+        final var targetTypeName = TypeName.get(targetClass);
+        final var typeVariableList = Crafter.calcTypeParameters(typeUtils, creator)
+            .stream()
+            .map(TypeVariableName::get)
+            .toList();
+
+        final var jsonClassName = ClassName.get(
+            packageName,
+            targetClassElement.getSimpleName() + "Json"
+        );
+
+        // every parameter is read as a member and written back through its accessor
+        final var valueMap = new LinkedHashMap<VariableElement, JsonValue>();
+        final var accessorMap = new HashMap<VariableElement, String>();
+        var hasError = false;
+
+        for (final var parameter : creator.getParameters()) {
+            final var value = makeJsonValue(parameter.asType(), true);
+
+            if (value == null) {
+                printError(
+                    parameter,
+                    "Parameter %s of type %s cannot be mapped to JSON"
+                        .formatted(parameter.getSimpleName(), parameter.asType())
+                );
+                hasError = true;
+                continue;
+            }
+
+            final var accessor = Crafter.findAccessor(
+                elementUtils,
+                typeUtils,
+                targetClass,
+                parameter
+            );
+
+            if (accessor == null) {
+                printError(
+                    parameter,
+                    "Cannot find an accessible accessor or field of %s to write parameter %s"
+                        .formatted(targetClass, parameter.getSimpleName())
+                );
+                hasError = true;
+                continue;
+            }
+
+            valueMap.put(parameter, value);
+            accessorMap.put(parameter, accessor);
+        }
+
+        if (hasError) {
+            return Optional.empty();
+        }
+
+        final var jsonClass = TypeSpec.classBuilder(jsonClassName)
+            .addAnnotation(Crafter.makeGenerated())
+            .addModifiers(Modifier.FINAL)
+            .addOriginatingElement(Crafter.extractOriginatingElement(creator));
+
+        if (targetClassElement.getModifiers().contains(Modifier.PUBLIC)) {
+            jsonClass.addModifiers(Modifier.PUBLIC);
+        }
+
+        jsonClass
+            .addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build())
+            .addMethod(makeFromJsonMethod(targetTypeName, typeVariableList))
+            .addMethod(makeReadMethod(creator, targetTypeName, typeVariableList, valueMap))
+            .addMethod(makeToJsonMethod(targetTypeName, typeVariableList))
+            .addMethod(
+                makeWriteMethod(targetTypeName, typeVariableList, valueMap, accessorMap)
+            );
+
+        return Optional.of(JavaFile.builder(packageName, jsonClass.build()).build());
+    }
+
+    private MethodSpec makeFromJsonMethod(
+        TypeName targetTypeName,
+        List<TypeVariableName> typeVariableList
+    ) {
+        return MethodSpec.methodBuilder("fromJson")
+            .addJavadoc("Read a document, which holds nothing but a single target.\n")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(typeVariableList)
+            .addParameter(String.class, JSON_NAME)
+            .returns(targetTypeName)
+            .addStatement("final var $L = new $T($L)", READER_NAME, JsonReader.class, JSON_NAME)
+            .addStatement("final $T $L = read($L)", targetTypeName, TARGET_NAME, READER_NAME)
+            .addStatement("$L.endDocument()", READER_NAME)
+            .addStatement("return $L", TARGET_NAME)
+            .build();
+    }
+
+    private MethodSpec makeReadMethod(
+        ExecutableElement creator,
+        TypeName targetTypeName,
+        List<TypeVariableName> typeVariableList,
+        Map<VariableElement, JsonValue> valueMap
+    ) {
+        final var readMethod = MethodSpec.methodBuilder("read")
+            .addJavadoc(
+                "Read the next object of the reader, whose unknown members are skipped.\n"
+            )
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(typeVariableList)
+            .addParameter(JsonReader.class, READER_NAME)
+            .returns(targetTypeName);
+
+        for (final var parameter : creator.getParameters()) {
+            readMethod
+                .addStatement(
+                    "$T $L = $L",
+                    TypeName.get(parameter.asType()),
+                    parameter.getSimpleName(),
+                    Crafter.makeZeroValueLiteral(parameter.asType())
+                )
+                .addStatement("var $L = false", makePresentFlagName(parameter));
+        }
+
+        // member names are dispatched by the hash-based string switch
+        readMethod
+            .addStatement("$L.beginObject()", READER_NAME)
+            .beginControlFlow("while ($L.hasNext())", READER_NAME)
+            .beginControlFlow("switch ($L.nextName())", READER_NAME);
+
+        for (final var entry : valueMap.entrySet()) {
+            final var parameter = entry.getKey();
+
+            readMethod
+                .beginControlFlow("case $S ->", parameter.getSimpleName())
+                .addCode(makeReadCode(entry.getValue(), parameter.getSimpleName().toString()))
+                .addStatement("$L = true", makePresentFlagName(parameter))
+                .endControlFlow();
+        }
+
+        readMethod
+            .addStatement("default -> $L.skipValue()", READER_NAME)
+            .endControlFlow()
+            .endControlFlow()
+            .addStatement("$L.endObject()", READER_NAME);
+
+        // absent nullable members are read as null, and defaulted ones take their defaults
+        final var requiredParameterList = creator.getParameters()
+            .stream()
+            .filter(p -> ! Crafter.isDefaulted(p) && ! Crafter.isNullable(p))
+            .toList();
+
+        if (! requiredParameterList.isEmpty()) {
+            readMethod
+                .beginControlFlow(
+                    "if ($L)",
+                    String.join(
+                        " || ",
+                        requiredParameterList.stream()
+                            .map(p -> "! " + makePresentFlagName(p))
+                            .toList()
+                    )
+                )
+                .addStatement("final var $L = new $T<String>()", MISSING_NAME, ArrayList.class);
+
+            for (final var parameter : requiredParameterList) {
+                readMethod
+                    .beginControlFlow("if (! $L)", makePresentFlagName(parameter))
+                    .addStatement("$L.add($S)", MISSING_NAME, parameter.getSimpleName())
+                    .endControlFlow();
+            }
+
+            readMethod
+                .addStatement(
+                    "throw new $T($S + String.join($S, $L))",
+                    IllegalArgumentException.class,
+                    "Missing members of %s: "
+                        .formatted(Crafter.extractOriginatingElement(creator).getSimpleName()),
+                    ", ",
+                    MISSING_NAME
+                )
+                .endControlFlow();
+        }
+
+        return readMethod
+            .addStatement(
+                "return $L",
+                Crafter.makeCreatorInvocation(creator, p -> makeArgument(creator, p))
+            )
+            .build();
+    }
+
+    private MethodSpec makeToJsonMethod(
+        TypeName targetTypeName,
+        List<TypeVariableName> typeVariableList
+    ) {
+        return MethodSpec.methodBuilder("toJson")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(typeVariableList)
+            .addParameter(targetTypeName, TARGET_NAME)
+            .returns(String.class)
+            .addStatement("final var $L = new $T()", WRITER_NAME, JsonWriter.class)
+            .addStatement("write($L, $L)", WRITER_NAME, TARGET_NAME)
+            .addStatement("return $L.toString()", WRITER_NAME)
+            .build();
+    }
+
+    private MethodSpec makeWriteMethod(
+        TypeName targetTypeName,
+        List<TypeVariableName> typeVariableList,
+        Map<VariableElement, JsonValue> valueMap,
+        Map<VariableElement, String> accessorMap
+    ) {
+        final var writeMethod = MethodSpec.methodBuilder("write")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(typeVariableList)
+            .addParameter(JsonWriter.class, WRITER_NAME)
+            .addParameter(targetTypeName, TARGET_NAME)
+            .addStatement("$L.beginObject()", WRITER_NAME);
+
+        for (final var entry : valueMap.entrySet()) {
+            final var parameter = entry.getKey();
+
+            writeMethod
+                .addStatement("$L.name($S)", WRITER_NAME, parameter.getSimpleName())
+                .addCode(
+                    makeWriteCode(
+                        entry.getValue(),
+                        parameter.getSimpleName().toString(),
+                        CodeBlock.of("$L.$L", TARGET_NAME, accessorMap.get(parameter))
+                    )
+                );
+        }
+
+        return writeMethod
+            .addStatement("$L.endObject()", WRITER_NAME)
+            .build();
+    }
+
+    private enum Kind {
+        PRIMITIVE,
+        BOXED,
+        STRING,
+        NUMBER,
+        ENUM,
+        OBJECT,
+        LIST
+    }
+
+    /**
+     * How a value is mapped to JSON.
+     *
+     * @param typeName the Java type of the value
+     * @param readerMethod the {@code JsonReader} method of {@code PRIMITIVE} and {@code BOXED}
+     * @param companion the {@code XxxJson} of {@code OBJECT}
+     * @param element the element of {@code LIST}
+     */
+    private record JsonValue(
+        Kind kind,
+        TypeName typeName,
+        @Nullable String readerMethod,
+        @Nullable ClassName companion,
+        @Nullable JsonValue element
+    ) {}
+
+    private @Nullable JsonValue makeJsonValue(TypeMirror type, boolean allowList) {
+        final var typeName = TypeName.get(type);
+
+        if (type.getKind().isPrimitive()) {
+            final var readerMethod = PRIMITIVE_READERS.get(type.getKind());
+
+            return readerMethod == null
+                ? null
+                : new JsonValue(Kind.PRIMITIVE, typeName, readerMethod, null, null);
+        }
+
+        final var unboxedType = unbox(type);
+        if (unboxedType != null) {
+            final var readerMethod = PRIMITIVE_READERS.get(unboxedType.getKind());
+
+            return readerMethod == null
+                ? null
+                : new JsonValue(Kind.BOXED, typeName, readerMethod, null, null);
+        }
+
+        if (! (type instanceof DeclaredType declaredType)) {
+            return null;
+        }
+
+        final var element = (TypeElement) declaredType.asElement();
+        final var qualifiedName = element.getQualifiedName().toString();
+
+        if (qualifiedName.equals(String.class.getCanonicalName())) {
+            return new JsonValue(Kind.STRING, typeName, null, null, null);
+
+        } else if (NUMBER_CLASS_NAMES.contains(qualifiedName)) {
+            return new JsonValue(Kind.NUMBER, typeName, null, null, null);
+
+        } else if (element.getKind() == ElementKind.ENUM) {
+            return new JsonValue(Kind.ENUM, typeName, null, null, null);
+        }
+
+        if (qualifiedName.equals(List.class.getCanonicalName())) {
+            // only one level, so a nested list must be wrapped by a target of its own
+            final var elementValue = allowList && declaredType.getTypeArguments().size() == 1
+                ? makeJsonValue(declaredType.getTypeArguments().get(0), false)
+                : null;
+
+            return elementValue == null
+                ? null
+                : new JsonValue(Kind.LIST, typeName, null, null, elementValue);
+        }
+
+        final var companion = declaredType.getTypeArguments().isEmpty()
+            ? Crafter.findCompanion(
+                processingEnv.getElementUtils(),
+                element,
+                Builder::json,
+                "Json"
+            )
+            : null;
+
+        return companion == null
+            ? null
+            : new JsonValue(Kind.OBJECT, typeName, null, companion, null);
+    }
+
+    private CodeBlock makeReadCode(JsonValue value, String name) {
+        if (value.kind() != Kind.LIST) {
+            return CodeBlock.builder()
+                .addStatement("$L = $L", name, makeReadExpression(value))
+                .build();
+        }
+
+        final var elementValue = Objects.requireNonNull(value.element());
+        final var listName = Crafter.makeInternalName(name);
+
+        return CodeBlock.builder()
+            .beginControlFlow("if ($L.nextIfNull())", READER_NAME)
+            .addStatement("$L = null", name)
+            .nextControlFlow("else")
+            .addStatement(
+                "final var $L = new $T<$T>()",
+                listName,
+                ArrayList.class,
+                elementValue.typeName().withoutAnnotations()
+            )
+            .addStatement("$L.beginArray()", READER_NAME)
+            .beginControlFlow("while ($L.hasNext())", READER_NAME)
+            .addStatement("$L.add($L)", listName, makeReadExpression(elementValue))
+            .endControlFlow()
+            .addStatement("$L.endArray()", READER_NAME)
+            .addStatement("$L = $T.unmodifiableList($L)", name, Collections.class, listName)
+            .endControlFlow()
+            .build();
+    }
+
+    private CodeBlock makeReadExpression(JsonValue value) {
+        final var readCode = switch (value.kind()) {
+            case PRIMITIVE, BOXED -> CodeBlock.of("$L.$L()", READER_NAME, value.readerMethod());
+            case STRING -> CodeBlock.of("$L.nextString()", READER_NAME);
+
+            case NUMBER -> CodeBlock.of(
+                "new $T($L.nextNumberText())",
+                value.typeName().withoutAnnotations(),
+                READER_NAME
+            );
+
+            case ENUM -> CodeBlock.of(
+                "$T.valueOf($L.nextString())",
+                value.typeName().withoutAnnotations(),
+                READER_NAME
+            );
+
+            case OBJECT -> CodeBlock.of("$T.read($L)", value.companion(), READER_NAME);
+            case LIST -> throw new IllegalArgumentException("Nested list");
+        };
+
+        // primitives are read without boxing, and cannot be null
+        return value.kind() == Kind.PRIMITIVE
+            ? readCode
+            : CodeBlock.of("$L.nextIfNull() ? null : $L", READER_NAME, readCode);
+    }
+
+    private CodeBlock makeWriteCode(JsonValue value, String name, CodeBlock source) {
+        final var valueName = Crafter.makeInternalName(name + "Value");
+
+        return switch (value.kind()) {
+            // overloads of `JsonWriter.value()` write primitives without boxing
+            case PRIMITIVE, BOXED, STRING, NUMBER -> CodeBlock.builder()
+                .addStatement("$L.value($L)", WRITER_NAME, source)
+                .build();
+
+            case ENUM -> CodeBlock.builder()
+                .addStatement("final var $L = $L", valueName, source)
+                .addStatement(
+                    "$L.value($L == null ? null : $L.name())",
+                    WRITER_NAME,
+                    valueName,
+                    valueName
+                )
+                .build();
+
+            case OBJECT -> CodeBlock.builder()
+                .addStatement("final var $L = $L", valueName, source)
+                .beginControlFlow("if ($L == null)", valueName)
+                .addStatement("$L.nullValue()", WRITER_NAME)
+                .nextControlFlow("else")
+                .addStatement("$T.write($L, $L)", value.companion(), WRITER_NAME, valueName)
+                .endControlFlow()
+                .build();
+
+            case LIST -> {
+                final var elementName = name + "Element";
+
+                yield CodeBlock.builder()
+                    .addStatement("final var $L = $L", valueName, source)
+                    .beginControlFlow("if ($L == null)", valueName)
+                    .addStatement("$L.nullValue()", WRITER_NAME)
+                    .nextControlFlow("else")
+                    .addStatement("$L.beginArray()", WRITER_NAME)
+                    .beginControlFlow(
+                        "for (final var $L : $L)",
+                        Crafter.makeInternalName(elementName),
+                        valueName
+                    )
+                    .add(
+                        makeWriteCode(
+                            Objects.requireNonNull(value.element()),
+                            elementName,
+                            CodeBlock.of("$L", Crafter.makeInternalName(elementName))
+                        )
+                    )
+                    .endControlFlow()
+                    .addStatement("$L.endArray()", WRITER_NAME)
+                    .endControlFlow()
+                    .build();
+            }
+        };
+    }
+
+    private CodeBlock makeArgument(ExecutableElement creator, VariableElement parameter) {
+        final var defaultCode = Crafter.makeDefaultCode(
+            processingEnv.getTypeUtils(),
+            creator,
+            parameter
+        );
+
+        return defaultCode == null
+            ? CodeBlock.of("$L", parameter.getSimpleName())
+            : CodeBlock.of(
+                "($L ? $L : $L)",
+                makePresentFlagName(parameter),
+                parameter.getSimpleName(),
+                defaultCode
+            );
+    }
+
+    private static String makePresentFlagName(VariableElement parameter) {
+        return Crafter.makeInternalName(parameter.getSimpleName() + "Present");
+    }
+
+    private @Nullable TypeMirror unbox(TypeMirror type) {
+        try {
+            return processingEnv.getTypeUtils().unboxedType(type);
+
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void printError(Element element, String message) {
+        processingEnv.getMessager()
+            .printMessage(
+                Diagnostic.Kind.ERROR,
+                message,
+                element,
+                null
+            );
+    }
+}
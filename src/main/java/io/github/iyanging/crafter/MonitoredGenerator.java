@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+import com.palantir.javapoet.ClassName;
+import com.palantir.javapoet.CodeBlock;
+import com.palantir.javapoet.FieldSpec;
+import io.github.iyanging.crafter.runtime.BuildCounter;
+import io.github.iyanging.crafter.runtime.BuildEvent;
+
+
+/**
+ * Generate the monitoring of {@link Builder#monitored()}, a JFR {@code BuildEvent} around the
+ * creator call of {@code build()}, and a {@code BuildCounter} of the container counting the
+ * builds.
+ * <p>
+ * The event is only committed while it is enabled, and the counter is a {@code LongAdder}, so
+ * the monitoring stays cheap on the hot path of {@code build()}.
+ */
+class MonitoredGenerator {
+    private static final String BUILD_COUNTER_FIELD_NAME = "BUILD_COUNTER";
+    private static final String BUILD_EVENT_NAME = Crafter.makeInternalName("buildEvent");
+
+    private final ClassName targetClassName;
+
+    MonitoredGenerator(ProcessingEnvironment processingEnv, ExecutableElement creator) {
+        // the raw class, whatever the type arguments of the target are
+        this.targetClassName = ClassName.get(
+            (TypeElement) processingEnv.getTypeUtils()
+                .asElement(Crafter.extractTargetClass(creator))
+        );
+    }
+
+    FieldSpec makeBuildCounterField() {
+        return FieldSpec.builder(
+            BuildCounter.class,
+            BUILD_COUNTER_FIELD_NAME,
+            Modifier.PRIVATE,
+            Modifier.STATIC,
+            Modifier.FINAL
+        )
+            .initializer("$T.register($T.class)", BuildCounter.class, targetClassName)
+            .build();
+    }
+
+    /**
+     * Make the statement of {@code build()} starting the event, before the creator is invoked.
+     */
+    CodeBlock makeStartCode() {
+        return CodeBlock.builder()
+            .addStatement("final var $L = $T.start()", BUILD_EVENT_NAME, BuildEvent.class)
+            .build();
+    }
+
+    /**
+     * Make the statements of {@code build()} finishing the event and counting the build, after
+     * the creator returned.
+     */
+    CodeBlock makeFinishCode() {
+        return CodeBlock.builder()
+            .addStatement("$L.finish($T.class)", BUILD_EVENT_NAME, targetClassName)
+            .addStatement("$L.increment()", BUILD_COUNTER_FIELD_NAME)
+            .build();
+    }
+}
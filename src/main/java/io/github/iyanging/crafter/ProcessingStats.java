@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Timers and counters of {@link Crafter}, enabled by {@code -Acrafter.stats=true}.
+ * <p>
+ * Timers are inclusive, e.g. the time of {@link Phase#MAKE_BUILDER_CLASS} is also counted in
+ * {@link Phase#GENERATE_FOR_CREATOR}. When disabled, every method returns immediately.
+ */
+final class ProcessingStats {
+    enum Phase {
+        PROCESS("process"),
+        GENERATE_FOR_CLASS("generateBuilderForClass"),
+        GENERATE_FOR_CREATOR("generateBuilderForCreator"),
+        MAKE_BUILDER_CLASS("makeBuilderClass"),
+        RENDER("render"),
+        WRITE("write");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+    }
+
+    private final boolean enabled;
+
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private final long[] phaseCalls = new long[Phase.values().length];
+
+    private final List<Integer> elementsPerRound = new ArrayList<>();
+    private long buildersGenerated = 0;
+    private long stagesGenerated = 0;
+    private long filesWritten = 0;
+    private long bytesWritten = 0;
+
+    ProcessingStats(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    boolean isEnabled() { return enabled; }
+
+    long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    void stop(Phase phase, long startNanos) {
+        if (! enabled) {
+            return;
+        }
+
+        phaseNanos[phase.ordinal()] += System.nanoTime() - startNanos;
+        phaseCalls[phase.ordinal()] += 1;
+    }
+
+    void countRound(int elements) {
+        if (enabled) {
+            elementsPerRound.add(elements);
+        }
+    }
+
+    void countBuilder(int stages) {
+        if (enabled) {
+            buildersGenerated += 1;
+            stagesGenerated += stages;
+        }
+    }
+
+    void countFile(String source) {
+        if (enabled) {
+            filesWritten += 1;
+            bytesWritten += utf8Length(source);
+        }
+    }
+
+    void countFile(byte[] classFile) {
+        if (enabled) {
+            filesWritten += 1;
+            bytesWritten += classFile.length;
+        }
+    }
+
+    String toJson() {
+        final var json = new StringBuilder();
+
+        json.append("{\n");
+        json.append("  \"tool\": \"").append(Crafter.TOOL_NAME).append("\",\n");
+        json.append("  \"rounds\": ").append(elementsPerRound.size()).append(",\n");
+        json.append("  \"elementsPerRound\": ").append(elementsPerRound).append(",\n");
+        json.append("  \"buildersGenerated\": ").append(buildersGenerated).append(",\n");
+        json.append("  \"stagesGenerated\": ").append(stagesGenerated).append(",\n");
+        json.append("  \"filesWritten\": ").append(filesWritten).append(",\n");
+        json.append("  \"bytesWritten\": ").append(bytesWritten).append(",\n");
+        json.append("  \"phases\": {\n");
+
+        final var phases = Phase.values();
+        for (var i = 0; i < phases.length; i++) {
+            json.append("    \"")
+                .append(phases[i].label)
+                .append("\": { \"calls\": ")
+                .append(phaseCalls[i])
+                .append(", \"nanos\": ")
+                .append(phaseNanos[i])
+                .append(" }")
+                .append(i < phases.length - 1 ? ",\n" : "\n");
+        }
+
+        json.append("  }\n");
+        json.append("}\n");
+
+        return json.toString();
+    }
+
+    String toSummary() {
+        return ("%s generated %d builders with %d stages in %d rounds, "
+            + "wrote %d files of %d bytes, took %d ms")
+            .formatted(
+                Crafter.TOOL_NAME,
+                buildersGenerated,
+                stagesGenerated,
+                elementsPerRound.size(),
+                filesWritten,
+                bytesWritten,
+                phaseNanos[Phase.PROCESS.ordinal()] / 1_000_000
+            );
+    }
+
+    // same as `source.getBytes(UTF_8).length`, without copying the source
+    private static long utf8Length(String source) {
+        long length = 0;
+
+        for (var i = 0; i < source.length(); i++) {
+            final var c = source.charAt(i);
+
+            if (c < 0x80) {
+                length += 1;
+
+            } else if (c < 0x800) {
+                length += 2;
+
+            } else if (Character.isHighSurrogate(c)
+                && i + 1 < source.length()
+                && Character.isLowSurrogate(source.charAt(i + 1))) {
+                length += 4;
+                i += 1;
+
+            } else {
+                length += 3;
+            }
+        }
+
+        return length;
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+
+import com.palantir.javapoet.*;
+
+
+/**
+ * Generate the members of {@link Builder#reusable()}, the {@code reset()} of the
+ * {@code Builder}, and the {@code reusable()} of the container, which returns the builder cached
+ * by the current thread.
+ * <p>
+ * {@code build()} resets the builder once the target is created, so that the next target can be
+ * built right away, and a cached builder does not keep the parameters of its last target
+ * reachable.
+ */
+class ReusableGenerator {
+    static final String RESET_METHOD_NAME = "reset";
+
+    private static final String REUSABLE_FIELD_NAME = "REUSABLE_BUILDER";
+
+    private final ProcessingEnvironment processingEnv;
+    private final ExecutableElement creator;
+
+    ReusableGenerator(ProcessingEnvironment processingEnv, ExecutableElement creator) {
+        this.processingEnv = processingEnv;
+        this.creator = creator;
+    }
+
+    /**
+     * Make the thread-local cache of the container, which holds one builder per thread.
+     */
+    FieldSpec makeReusableField() {
+        final var builderClassName = ClassName.get("", Crafter.BUILDER_CLASS_NAME);
+        final var creatorTypeParameterList = Crafter.calcTypeParameters(
+            processingEnv.getTypeUtils(),
+            creator
+        );
+
+        // one cached builder of any type arguments per thread
+        final var cachedBuilderTypeName = creatorTypeParameterList.isEmpty()
+            ? builderClassName
+            : ParameterizedTypeName.get(
+                builderClassName,
+                creatorTypeParameterList.stream()
+                    .map(t -> WildcardTypeName.subtypeOf(Object.class))
+                    .toArray(TypeName[]::new)
+            );
+
+        return FieldSpec.builder(
+            ParameterizedTypeName.get(ClassName.get(ThreadLocal.class), cachedBuilderTypeName),
+            REUSABLE_FIELD_NAME,
+            Modifier.PRIVATE,
+            Modifier.STATIC,
+            Modifier.FINAL
+        )
+            .initializer("$T.withInitial($T::new)", ThreadLocal.class, builderClassName)
+            .build();
+    }
+
+    MethodSpec makeReusableMethod() {
+        final var creatorTypeParameterList = Crafter.calcTypeParameters(
+            processingEnv.getTypeUtils(),
+            creator
+        )
+            .stream()
+            .map(TypeVariableName::get)
+            .toList();
+        final var builderTypeName = Crafter.makeBuilderTypeName(
+            processingEnv.getTypeUtils(),
+            creator
+        );
+
+        final var reusableMethod = MethodSpec.methodBuilder("reusable")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(creatorTypeParameterList)
+            .returns(builderTypeName);
+
+        if (creatorTypeParameterList.isEmpty()) {
+            reusableMethod.addStatement(
+                "return $L.get().$L()",
+                REUSABLE_FIELD_NAME,
+                RESET_METHOD_NAME
+            );
+
+        } else {
+            // the cached builder holds no value between two targets,
+            // so it can serve any type arguments
+            reusableMethod
+                .addAnnotation(
+                    AnnotationSpec.builder(SuppressWarnings.class)
+                        .addMember("value", "$S", "unchecked")
+                        .build()
+                )
+                .addStatement(
+                    "return ($T) $L.get().$L()",
+                    builderTypeName,
+                    REUSABLE_FIELD_NAME,
+                    RESET_METHOD_NAME
+                );
+        }
+
+        return reusableMethod.build();
+    }
+
+    /**
+     * Make the {@code reset()} of the {@code Builder}, which clears every parameter and every
+     * flag of defaulted and accumulated parameters.
+     *
+     * @param assignedResetCode clears the flags of the assigned parameters of the unordered mode,
+     *     or is empty
+     */
+    MethodSpec makeResetMethod(CodeBlock assignedResetCode) {
+        final var resetMethod = MethodSpec.methodBuilder(RESET_METHOD_NAME)
+            .addModifiers(Modifier.PUBLIC)
+            .returns(Crafter.makeBuilderTypeName(processingEnv.getTypeUtils(), creator));
+
+        for (final var parameter : creator.getParameters()) {
+            resetMethod.addStatement(
+                "this.$L = $L",
+                parameter.getSimpleName(),
+                Crafter.makeZeroValueLiteral(parameter.asType())
+            );
+        }
+
+        for (final var parameter : creator.getParameters()) {
+            if (Crafter.isDefaulted(parameter)) {
+                resetMethod.addStatement(
+                    "this.$L = false",
+                    Crafter.makeAssignedFlagName(parameter.getSimpleName().toString())
+                );
+            }
+
+            if (AccumulatorGenerator.isAccumulated(parameter)) {
+                resetMethod.addStatement(
+                    "this.$L = null",
+                    AccumulatorGenerator.makeAccumulatorFieldName(parameter)
+                );
+            }
+        }
+
+        return resetMethod
+            .addCode(assignedResetCode)
+            .addStatement("return this")
+            .build();
+    }
+}
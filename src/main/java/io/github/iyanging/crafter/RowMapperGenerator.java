@@ -0,0 +1,602 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+import com.palantir.javapoet.*;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Generate the {@code XxxRowMapper} of {@link Builder#rowMapper()}.
+ */
+class RowMapperGenerator {
+    private static final ClassName RESULT_SET = ClassName.get("java.sql", "ResultSet");
+    private static final ClassName RESULT_SET_META_DATA = ClassName.get(
+        "java.sql",
+        "ResultSetMetaData"
+    );
+    private static final ClassName SQL_EXCEPTION = ClassName.get("java.sql", "SQLException");
+
+    private static final Map<TypeKind, String> PRIMITIVE_GETTERS = Map.of(
+        TypeKind.BOOLEAN,
+        "getBoolean",
+        TypeKind.BYTE,
+        "getByte",
+        TypeKind.SHORT,
+        "getShort",
+        TypeKind.INT,
+        "getInt",
+        TypeKind.LONG,
+        "getLong",
+        TypeKind.FLOAT,
+        "getFloat",
+        TypeKind.DOUBLE,
+        "getDouble"
+    );
+
+    private static final Map<String, String> REFERENCE_GETTERS = Map.of(
+        "java.lang.String",
+        "getString",
+        "java.math.BigDecimal",
+        "getBigDecimal"
+    );
+
+    private static final String RESULT_SET_NAME = Crafter.makeInternalName("resultSet");
+    private static final String META_DATA_NAME = Crafter.makeInternalName("metaData");
+    private static final String COLUMN_NAME = Crafter.makeInternalName("column");
+    private static final String MISSING_NAME = Crafter.makeInternalName("missing");
+    private static final String MAPPER_NAME = Crafter.makeInternalName("mapper");
+
+    private static final String NORMALIZE_METHOD_NAME = "normalizeLabel";
+
+    private final ProcessingEnvironment processingEnv;
+
+    RowMapperGenerator(ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+    }
+
+    Optional<JavaFile> generate(ExecutableElement creator, String packageName) {
+        final var typeUtils = processingEnv.getTypeUtils();
+
+        final var targetClass = Crafter.extractTargetClass(creator);
+        final var targetClassElement = (TypeElement) typeUtils.asElement(targetClass);
+        final var targetTypeName = TypeName.get(targetClass);
+        final var typeVariableList = Crafter.calcTypeParameters(typeUtils, creator)
+            .stream()
+            .map(TypeVariableName::get)
+            .toList();
+
+        final var mapperClassName = ClassName.get(
+            packageName,
+            targetClassElement.getSimpleName() + "RowMapper"
+        );
+
+        final var creatorParameterList = creator.getParameters();
+
+        // read every column into a local variable named after the parameter
+        final var readCode = CodeBlock.builder();
+        var hasUncheckedRead = false;
+        var hasError = false;
+
+        final var labelSet = new HashSet<String>();
+
+        for (final var parameter : creatorParameterList) {
+            if (! labelSet.add(normalizeLabel(parameter.getSimpleName().toString()))) {
+                printError(
+                    parameter,
+                    "Parameter %s is indistinguishable from another one by column label"
+                        .formatted(parameter.getSimpleName())
+                );
+                hasError = true;
+                continue;
+            }
+
+            // defaults have been checked by `Crafter` before generating companions
+            final var defaultCode = Crafter.isDefaulted(parameter)
+                ? Crafter.makeDefaultCode(typeUtils, creator, parameter)
+                : null;
+            final var columnRead = makeColumnRead(targetClassElement, parameter, defaultCode);
+
+            if (columnRead == null) {
+                printError(
+                    parameter,
+                    "Parameter %s of type %s cannot be read from a ResultSet"
+                        .formatted(parameter.getSimpleName(), parameter.asType())
+                );
+                hasError = true;
+                continue;
+            }
+
+            readCode.addStatement(
+                "final $T $L",
+                TypeName.get(parameter.asType()),
+                parameter.getSimpleName()
+            );
+
+            if (defaultCode == null) {
+                readCode.add(columnRead.code());
+
+            } else {
+                // a defaulted column may be absent from the result set
+                readCode
+                    .beginControlFlow("if (this.$L == 0)", makeColumnFieldName(parameter))
+                    .addStatement("$L = $L", parameter.getSimpleName(), defaultCode)
+                    .nextControlFlow("else")
+                    .add(columnRead.code())
+                    .endControlFlow();
+            }
+
+            hasUncheckedRead |= columnRead.unchecked();
+        }
+
+        if (hasError) {
+            return Optional.empty();
+        }
+
+        final var mapperClass = TypeSpec.classBuilder(mapperClassName)
+            .addAnnotation(Crafter.makeGenerated())
+            .addModifiers(Modifier.FINAL)
+            .addOriginatingElement(Crafter.extractOriginatingElement(creator));
+
+        if (targetClassElement.getModifiers().contains(Modifier.PUBLIC)) {
+            mapperClass.addModifiers(Modifier.PUBLIC);
+        }
+
+        // column indexes, resolved once per `ResultSetMetaData`
+        final var constructor = MethodSpec.constructorBuilder()
+            .addModifiers(Modifier.PRIVATE);
+
+        for (final var parameter : creatorParameterList) {
+            final var fieldName = makeColumnFieldName(parameter);
+
+            mapperClass.addField(int.class, fieldName, Modifier.PRIVATE, Modifier.FINAL);
+            constructor
+                .addParameter(int.class, fieldName)
+                .addStatement("this.$1L = $1L", fieldName);
+        }
+
+        mapperClass
+            .addMethod(constructor.build())
+            .addMethod(makeOfMethod(mapperClassName, targetClassElement, creator))
+            .addMethod(
+                makeMapMethod(
+                    creator,
+                    targetTypeName,
+                    typeVariableList,
+                    readCode.build(),
+                    hasUncheckedRead
+                )
+            )
+            .addMethod(makeStreamMethod(mapperClassName, targetTypeName, typeVariableList))
+            .addMethod(makeNormalizeMethod());
+
+        return Optional.of(JavaFile.builder(packageName, mapperClass.build()).build());
+    }
+
+    private MethodSpec makeOfMethod(
+        ClassName mapperClassName,
+        TypeElement targetClassElement,
+        ExecutableElement creator
+    ) {
+        final var creatorParameterList = creator.getParameters();
+
+        final var ofMethod = MethodSpec.methodBuilder("of")
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addParameter(RESULT_SET_META_DATA, META_DATA_NAME)
+            .addException(SQL_EXCEPTION)
+            .returns(mapperClassName);
+
+        for (final var parameter : creatorParameterList) {
+            ofMethod.addStatement("var $L = 0", makeColumnFieldName(parameter));
+        }
+
+        ofMethod
+            .beginControlFlow(
+                "for (var $1L = 1; $1L <= $2L.getColumnCount(); $1L++)",
+                COLUMN_NAME,
+                META_DATA_NAME
+            )
+            .beginControlFlow(
+                "switch ($L($L.getColumnLabel($L)))",
+                NORMALIZE_METHOD_NAME,
+                META_DATA_NAME,
+                COLUMN_NAME
+            );
+
+        for (final var parameter : creatorParameterList) {
+            final var fieldName = makeColumnFieldName(parameter);
+
+            // like `ResultSet.findColumn()`, the first matching column wins
+            ofMethod
+                .beginControlFlow(
+                    "case $S ->",
+                    normalizeLabel(parameter.getSimpleName().toString())
+                )
+                .beginControlFlow("if ($L == 0)", fieldName)
+                .addStatement("$L = $L", fieldName, COLUMN_NAME)
+                .endControlFlow()
+                .endControlFlow();
+        }
+
+        ofMethod
+            .beginControlFlow("default ->")
+            .endControlFlow()
+            .endControlFlow()
+            .endControlFlow();
+
+        // report every missing column at once, defaulted columns are optional
+        ofMethod.addStatement("final var $L = new $T<String>()", MISSING_NAME, ArrayList.class);
+
+        for (final var parameter : Crafter.filterRequiredParameters(creator)) {
+            ofMethod
+                .beginControlFlow("if ($L == 0)", makeColumnFieldName(parameter))
+                .addStatement("$L.add($S)", MISSING_NAME, parameter.getSimpleName())
+                .endControlFlow();
+        }
+
+        return ofMethod
+            .beginControlFlow("if (! $L.isEmpty())", MISSING_NAME)
+            .addStatement(
+                "throw new $T($S + String.join($S, $L))",
+                SQL_EXCEPTION,
+                "Missing columns of %s: ".formatted(targetClassElement.getSimpleName()),
+                ", ",
+                MISSING_NAME
+            )
+            .endControlFlow()
+            .addStatement(
+                "return new $T($L)",
+                mapperClassName,
+                String.join(
+                    ", ",
+                    creatorParameterList.stream().map(this::makeColumnFieldName).toList()
+                )
+            )
+            .build();
+    }
+
+    private MethodSpec makeMapMethod(
+        ExecutableElement creator,
+        TypeName targetTypeName,
+        List<TypeVariableName> typeVariableList,
+        CodeBlock readCode,
+        boolean hasUncheckedRead
+    ) {
+        final var mapMethod = MethodSpec.methodBuilder("map");
+
+        if (hasUncheckedRead) {
+            mapMethod.addAnnotation(
+                AnnotationSpec.builder(SuppressWarnings.class)
+                    .addMember("value", "$S", "unchecked")
+                    .build()
+            );
+        }
+
+        return mapMethod
+            .addModifiers(Modifier.PUBLIC)
+            .addTypeVariables(typeVariableList)
+            .addParameter(RESULT_SET, RESULT_SET_NAME)
+            .addException(SQL_EXCEPTION)
+            .returns(targetTypeName)
+            .addCode(readCode)
+            .addStatement(
+                "return $L",
+                Crafter.makeCreatorInvocation(creator, p -> CodeBlock.of("$L", p.getSimpleName()))
+            )
+            .build();
+    }
+
+    private MethodSpec makeStreamMethod(
+        ClassName mapperClassName,
+        TypeName targetTypeName,
+        List<TypeVariableName> typeVariableList
+    ) {
+        final var spliterator = TypeSpec.anonymousClassBuilder(
+            "$T.MAX_VALUE, $T.ORDERED | $T.NONNULL",
+            Long.class,
+            Spliterator.class,
+            Spliterator.class
+        )
+            .superclass(
+                ParameterizedTypeName.get(
+                    ClassName.get(Spliterators.AbstractSpliterator.class),
+                    targetTypeName
+                )
+            )
+            .addMethod(
+                MethodSpec.methodBuilder("tryAdvance")
+                    .addAnnotation(Override.class)
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(boolean.class)
+                    .addParameter(
+                        ParameterizedTypeName.get(
+                            ClassName.get(Consumer.class),
+                            WildcardTypeName.supertypeOf(targetTypeName)
+                        ),
+                        "action"
+                    )
+                    .beginControlFlow("try")
+                    .beginControlFlow("if (! $L.next())", RESULT_SET_NAME)
+                    .addStatement("return false")
+                    .endControlFlow()
+                    .addStatement("action.accept($L.map($L))", MAPPER_NAME, RESULT_SET_NAME)
+                    .addStatement("return true")
+                    .nextControlFlow("catch ($T e)", SQL_EXCEPTION)
+                    .addStatement("throw new $T(e)", IllegalStateException.class)
+                    .endControlFlow()
+                    .build()
+            )
+            .build();
+
+        return MethodSpec.methodBuilder("stream")
+            .addJavadoc(
+                "Lazily map the remaining rows, the {@code $T} stays owned by the caller.\n",
+                RESULT_SET
+            )
+            .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+            .addTypeVariables(typeVariableList)
+            .addParameter(RESULT_SET, RESULT_SET_NAME)
+            .addException(SQL_EXCEPTION)
+            .returns(ParameterizedTypeName.get(ClassName.get(Stream.class), targetTypeName))
+            .addStatement(
+                "final var $L = $T.of($L.getMetaData())",
+                MAPPER_NAME,
+                mapperClassName,
+                RESULT_SET_NAME
+            )
+            .addStatement("return $T.stream($L, false)", StreamSupport.class, spliterator)
+            .build();
+    }
+
+    private MethodSpec makeNormalizeMethod() {
+        return MethodSpec.methodBuilder(NORMALIZE_METHOD_NAME)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .addParameter(String.class, "label")
+            .returns(String.class)
+            .addStatement(
+                "return label.replace($S, $S).toLowerCase($T.ROOT)",
+                "_",
+                "",
+                Locale.class
+            )
+            .build();
+    }
+
+    private record ColumnRead(CodeBlock code, boolean unchecked) {}
+
+    /**
+     * Make the code assigning the column of {@code parameter} to the local variable named after
+     * it, or return null if the parameter type cannot be read.
+     */
+    private @Nullable ColumnRead makeColumnRead(
+        TypeElement targetClassElement,
+        VariableElement parameter,
+        @Nullable CodeBlock defaultCode
+    ) {
+        final var typeUtils = processingEnv.getTypeUtils();
+
+        final var name = parameter.getSimpleName().toString();
+        // the value read before SQL NULL is told apart
+        final var valueName = Crafter.makeInternalName(name);
+        final var column = "this." + makeColumnFieldName(parameter);
+        final var type = parameter.asType();
+        final var typeName = TypeName.get(type);
+
+        if (type.getKind().isPrimitive()) {
+            final var getter = PRIMITIVE_GETTERS.get(type.getKind());
+
+            if (getter == null) {
+                return null;
+            }
+
+            final var readCode = CodeBlock.builder()
+                .addStatement(
+                    "final $T $L = $L.$L($L)",
+                    typeName,
+                    valueName,
+                    RESULT_SET_NAME,
+                    getter,
+                    column
+                );
+
+            // a primitive cannot hold SQL NULL, which the driver reads as zero or false
+            if (defaultCode != null) {
+                readCode.addStatement(
+                    "$L = $L.wasNull() ? $L : $L",
+                    name,
+                    RESULT_SET_NAME,
+                    defaultCode,
+                    valueName
+                );
+
+            } else {
+                readCode
+                    .beginControlFlow("if ($L.wasNull())", RESULT_SET_NAME)
+                    .addStatement(
+                        "throw new $T($S)",
+                        SQL_EXCEPTION,
+                        "Column of primitive parameter %s of %s is NULL"
+                            .formatted(name, targetClassElement.getSimpleName())
+                    )
+                    .endControlFlow()
+                    .addStatement("$L = $L", name, valueName);
+            }
+
+            return new ColumnRead(readCode.build(), false);
+        }
+
+        final var unboxedType = unbox(type);
+        if (unboxedType != null && PRIMITIVE_GETTERS.containsKey(unboxedType.getKind())) {
+            // read without boxing, then tell SQL NULL apart from zero
+            return new ColumnRead(
+                CodeBlock.builder()
+                    .addStatement(
+                        "final $T $L = $L.$L($L)",
+                        TypeName.get(unboxedType),
+                        valueName,
+                        RESULT_SET_NAME,
+                        PRIMITIVE_GETTERS.get(unboxedType.getKind()),
+                        column
+                    )
+                    .addStatement(
+                        "$L = $L.wasNull() ? null : $L",
+                        name,
+                        RESULT_SET_NAME,
+                        valueName
+                    )
+                    .build(),
+                false
+            );
+        }
+
+        if (type.getKind() == TypeKind.ARRAY) {
+            final var componentKind = ((ArrayType) type)
+                .getComponentType()
+                .getKind();
+
+            if (componentKind != TypeKind.BYTE) {
+                return null;
+            }
+
+            return new ColumnRead(
+                CodeBlock.builder()
+                    .addStatement(
+                        "$L = $L.getBytes($L)",
+                        name,
+                        RESULT_SET_NAME,
+                        column
+                    )
+                    .build(),
+                false
+            );
+        }
+
+        if (type instanceof DeclaredType declaredType) {
+            final var element = (TypeElement) declaredType.asElement();
+            final var getter = REFERENCE_GETTERS.get(element.getQualifiedName().toString());
+
+            if (getter != null) {
+                return new ColumnRead(
+                    CodeBlock.builder()
+                        .addStatement(
+                            "$L = $L.$L($L)",
+                            name,
+                            RESULT_SET_NAME,
+                            getter,
+                            column
+                        )
+                        .build(),
+                    false
+                );
+            }
+
+            if (element.getKind() == ElementKind.ENUM) {
+                return new ColumnRead(
+                    CodeBlock.builder()
+                        .addStatement(
+                            "final var $L = $L.getString($L)",
+                            valueName,
+                            RESULT_SET_NAME,
+                            column
+                        )
+                        .addStatement(
+                            "$L = $L == null ? null : $T.valueOf($L)",
+                            name,
+                            valueName,
+                            typeName.withoutAnnotations(),
+                            valueName
+                        )
+                        .build(),
+                    false
+                );
+            }
+
+            if (declaredType.getTypeArguments().isEmpty()) {
+                // let the driver convert, e.g. to `LocalDate` or `UUID`
+                return new ColumnRead(
+                    CodeBlock.builder()
+                        .addStatement(
+                            "$L = $L.getObject($L, $T.class)",
+                            name,
+                            RESULT_SET_NAME,
+                            column,
+                            typeName.withoutAnnotations()
+                        )
+                        .build(),
+                    false
+                );
+            }
+        }
+
+        if (type.getKind() == TypeKind.DECLARED || type.getKind() == TypeKind.TYPEVAR) {
+            // type arguments are erased, trust the driver
+            return new ColumnRead(
+                CodeBlock.builder()
+                    .addStatement(
+                        "$L = ($T) $L.getObject($L)",
+                        name,
+                        typeName.withoutAnnotations(),
+                        RESULT_SET_NAME,
+                        column
+                    )
+                    .build(),
+                true
+            );
+        }
+
+        return null;
+    }
+
+    private @Nullable TypeMirror unbox(TypeMirror type) {
+        try {
+            return processingEnv.getTypeUtils().unboxedType(type);
+
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private String makeColumnFieldName(VariableElement parameter) {
+        return parameter.getSimpleName() + "Column";
+    }
+
+    private static String normalizeLabel(String label) {
+        return label.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private void printError(Element element, String message) {
+        processingEnv.getMessager()
+            .printMessage(
+                Diagnostic.Kind.ERROR,
+                message,
+                element,
+                null
+            );
+    }
+}
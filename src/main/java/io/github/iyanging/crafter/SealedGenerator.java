@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import javax.lang.model.element.Modifier;
+
+import com.palantir.javapoet.ClassName;
+import com.palantir.javapoet.MethodSpec;
+import com.palantir.javapoet.TypeSpec;
+
+
+/**
+ * Generate the shape of {@link Builder#sealed()}, in which the JIT can inline the whole chain of
+ * stage calls and scalar-replace the builder.
+ * <p>
+ * Every stage interface is {@code sealed} and only permits the {@code Builder}, so that call
+ * sites of stage methods stay monomorphic. The {@code Builder} is {@code final}, with private
+ * fields and a private constructor, so that it can only be instantiated by {@code builder()}.
+ */
+class SealedGenerator {
+    static void sealStageInterface(TypeSpec.Builder stageInterface) {
+        stageInterface
+            .addModifiers(Modifier.SEALED)
+            .addPermittedSubclass(ClassName.get("", Crafter.BUILDER_CLASS_NAME));
+    }
+
+    static void sealBuilderClass(TypeSpec.Builder builderClass) {
+        builderClass
+            .addModifiers(Modifier.FINAL)
+            .addMethod(
+                MethodSpec.constructorBuilder()
+                    .addModifiers(Modifier.PRIVATE)
+                    .build()
+            );
+    }
+
+    /**
+     * The modifier of the fields of the {@code Builder}, which are only private if it is sealed.
+     */
+    static Modifier makeFieldModifier(Builder builderAnno) {
+        return builderAnno.sealed() ? Modifier.PRIVATE : Modifier.PROTECTED;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.stream.IntStream;
+
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.VariableElement;
+
+import com.palantir.javapoet.*;
+
+
+/**
+ * Generate the bitmask of {@link Builder#unordered()}, which tracks the required parameters that
+ * are set on the single {@code Builder}, instead of one stage interface per parameter.
+ * <p>
+ * Each required parameter has a bit of a {@code long}, or of a {@code long[]} beyond 64
+ * parameters, so {@code build()} checks all of them by a single branch. Defaulted parameters have
+ * their own flags, and no bit.
+ */
+class UnorderedGenerator {
+    private static final String ASSIGNED_NAME = Crafter.makeInternalName("assigned");
+    private static final String NAMES_NAME = Crafter.makeInternalName("PARAMETER_NAMES");
+    private static final String MISSING_METHOD_NAME = Crafter.makeInternalName("missing");
+
+    private final List<VariableElement> requiredParameterList;
+
+    UnorderedGenerator(ExecutableElement creator) {
+        this.requiredParameterList = Crafter.filterRequiredParameters(creator);
+    }
+
+    /**
+     * Make the names of the required parameters in bit order, only read to report the missing
+     * ones.
+     */
+    FieldSpec makeNamesField() {
+        return FieldSpec.builder(
+            String[].class,
+            NAMES_NAME,
+            Modifier.PRIVATE,
+            Modifier.STATIC,
+            Modifier.FINAL
+        )
+            .initializer(
+                "{ $L }",
+                requiredParameterList.stream()
+                    .map(p -> CodeBlock.of("$S", p.getSimpleName()))
+                    .collect(CodeBlock.joining(", "))
+            )
+            .build();
+    }
+
+    FieldSpec makeAssignedField(Modifier fieldModifier) {
+        return isMaskArray()
+            ? FieldSpec.builder(long[].class, ASSIGNED_NAME, fieldModifier)
+                .initializer("new long[$L]", makeMaskWordCount())
+                .build()
+            : FieldSpec.builder(long.class, ASSIGNED_NAME, fieldModifier).build();
+    }
+
+    /**
+     * Make the statement setting the bit of the required parameter at {@code index}.
+     */
+    CodeBlock makeAssignCode(int index) {
+        return CodeBlock.builder()
+            .addStatement(
+                "this.$L |= $L",
+                isMaskArray() ? "%s[%d]".formatted(ASSIGNED_NAME, index >>> 6) : ASSIGNED_NAME,
+                makeMaskLiteral(1L << (index & 63))
+            )
+            .build();
+    }
+
+    /**
+     * Make the method naming the missing parameters, kept out of {@code build()}, so that the hot
+     * path stays small enough to be inlined.
+     */
+    MethodSpec makeMissingMethod(ClassName creatorTargetClassName) {
+        return MethodSpec.methodBuilder(MISSING_METHOD_NAME)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .returns(String.class)
+            .addParameter(isMaskArray() ? long[].class : long.class, ASSIGNED_NAME)
+            .addStatement(
+                "final var missing = new $T($S, $S, $S)",
+                StringJoiner.class,
+                ", ",
+                "Missing parameters of %s: ".formatted(creatorTargetClassName.simpleName()),
+                ""
+            )
+            .beginControlFlow("for (var index = 0; index < $L.length; index++)", NAMES_NAME)
+            .beginControlFlow(
+                "if (($L & (1L << index)) == 0)",
+                isMaskArray() ? ASSIGNED_NAME + "[index >>> 6]" : ASSIGNED_NAME
+            )
+            .addStatement("missing.add($L[index])", NAMES_NAME)
+            .endControlFlow()
+            .endControlFlow()
+            .addStatement("return missing.toString()")
+            .build();
+    }
+
+    /**
+     * Make the check of {@code build()} that every required parameter is set.
+     */
+    CodeBlock makeAssignedCheckCode() {
+        // a single branch, even when the mask spans several words
+        final var condition = isMaskArray()
+            ? IntStream.range(0, makeMaskWordCount())
+                .mapToObj(
+                    word -> CodeBlock.of(
+                        "this.$L[$L] != $L",
+                        ASSIGNED_NAME,
+                        word,
+                        makeMaskLiteral(makeFullMaskWord(word))
+                    )
+                )
+                .collect(CodeBlock.joining(" | "))
+            : CodeBlock.of(
+                "this.$L != $L",
+                ASSIGNED_NAME,
+                makeMaskLiteral(makeFullMaskWord(0))
+            );
+
+        return CodeBlock.builder()
+            .beginControlFlow("if ($L)", condition)
+            .addStatement(
+                "throw new $T($L(this.$L))",
+                IllegalStateException.class,
+                MISSING_METHOD_NAME,
+                ASSIGNED_NAME
+            )
+            .endControlFlow()
+            .build();
+    }
+
+    /**
+     * Make the statements marking every required parameter of the builder named
+     * {@code builderName} as set, e.g. when it is filled from an existing target.
+     */
+    CodeBlock makeAssignAllCode(String builderName) {
+        final var assignAllCode = CodeBlock.builder();
+
+        if (isMaskArray()) {
+            for (var word = 0; word < makeMaskWordCount(); word++) {
+                assignAllCode.addStatement(
+                    "$L.$L[$L] = $L",
+                    builderName,
+                    ASSIGNED_NAME,
+                    word,
+                    makeMaskLiteral(makeFullMaskWord(word))
+                );
+            }
+
+        } else {
+            assignAllCode.addStatement(
+                "$L.$L = $L",
+                builderName,
+                ASSIGNED_NAME,
+                makeMaskLiteral(makeFullMaskWord(0))
+            );
+        }
+
+        return assignAllCode.build();
+    }
+
+    /**
+     * Make the statement of {@code reset()} clearing every bit.
+     */
+    CodeBlock makeResetCode() {
+        return isMaskArray()
+            ? CodeBlock.builder()
+                .addStatement("$T.fill(this.$L, 0L)", Arrays.class, ASSIGNED_NAME)
+                .build()
+            : CodeBlock.builder()
+                .addStatement("this.$L = 0L", ASSIGNED_NAME)
+                .build();
+    }
+
+    private boolean isMaskArray() {
+        return requiredParameterList.size() > Long.SIZE;
+    }
+
+    private int makeMaskWordCount() {
+        return (requiredParameterList.size() + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private long makeFullMaskWord(int word) {
+        final var bitCount = Math.min(Long.SIZE, requiredParameterList.size() - word * Long.SIZE);
+
+        return bitCount == Long.SIZE ? -1L : (1L << bitCount) - 1;
+    }
+
+    private static String makeMaskLiteral(long mask) {
+        return "0x%xL".formatted(mask);
+    }
+}
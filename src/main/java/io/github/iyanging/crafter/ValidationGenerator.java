@@ -0,0 +1,637 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+
+import com.palantir.javapoet.*;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Generate the straight-line checks of {@link Builder#validate()} from the Jakarta Bean
+ * Validation constraints of creator parameters.
+ * <p>
+ * Like Bean Validation, {@code null} is valid for every constraint but {@code @NotNull},
+ * {@code @NotEmpty} and {@code @NotBlank}.
+ */
+class ValidationGenerator {
+    private static final List<String> CONSTRAINT_PACKAGES = List.of(
+        "jakarta.validation.constraints",
+        "javax.validation.constraints"
+    );
+
+    private static final String VIOLATIONS_NAME = Crafter.makeInternalName("violations");
+    private static final String ADD_VIOLATION_METHOD_NAME = "addViolation";
+    private static final String PATTERN_FIELD_SUFFIX = "_PATTERN";
+
+    private enum Category {
+        PRIMITIVE_NUMBER,
+        BOXED_NUMBER,
+        BIG_DECIMAL,
+        BIG_INTEGER,
+        CHAR_SEQUENCE,
+        COLLECTION,
+        MAP,
+        ARRAY,
+        OTHER_PRIMITIVE,
+        OTHER
+    }
+
+    /**
+     * @param ordinal the ordinal among the constraints of the same name on the parameter, which
+     *     may be repeated through their {@code List} container
+     */
+    private record Constraint(
+        VariableElement parameter,
+        String name,
+        int ordinal,
+        Category category,
+        Map<String, Object> values
+    ) {}
+
+    private record Problem(Element element, Diagnostic.Kind kind, String message) {}
+
+    private final ProcessingEnvironment processingEnv;
+    private final ExecutableElement creator;
+
+    private final List<Constraint> constraintList = new ArrayList<>();
+    private final List<Problem> problemList = new ArrayList<>();
+
+    ValidationGenerator(ProcessingEnvironment processingEnv, ExecutableElement creator) {
+        this.processingEnv = processingEnv;
+        this.creator = creator;
+
+        for (final var parameter : creator.getParameters()) {
+            collectConstraints(parameter);
+        }
+    }
+
+    /**
+     * Report the unsupported constraints, and return whether any of them is an error.
+     */
+    boolean report() {
+        for (final var problem : problemList) {
+            processingEnv.getMessager()
+                .printMessage(problem.kind(), problem.message(), problem.element());
+        }
+
+        return problemList.stream().anyMatch(p -> p.kind() == Diagnostic.Kind.ERROR);
+    }
+
+    /**
+     * Whether {@link #report()} reports anything, which would be lost if the output was cached.
+     */
+    boolean hasProblems() {
+        return ! problemList.isEmpty();
+    }
+
+    boolean hasConstraints() {
+        return ! constraintList.isEmpty();
+    }
+
+    /**
+     * Make the precompiled patterns of {@code @Pattern}.
+     */
+    List<FieldSpec> makePatternFields() {
+        return constraintList.stream()
+            .filter(c -> c.name().equals("Pattern"))
+            .map(
+                c -> FieldSpec.builder(
+                    Pattern.class,
+                    makePatternFieldName(c),
+                    Modifier.PRIVATE,
+                    Modifier.STATIC,
+                    Modifier.FINAL
+                )
+                    .initializer(makePatternInitializer(c))
+                    .build()
+            )
+            .toList();
+    }
+
+    /**
+     * Make the method adding a violation to the list, which is only allocated on the first one.
+     */
+    MethodSpec makeAddViolationMethod() {
+        final var listTypeName = ParameterizedTypeName.get(List.class, String.class);
+
+        return MethodSpec.methodBuilder(ADD_VIOLATION_METHOD_NAME)
+            .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+            .returns(listTypeName)
+            .addParameter(listTypeName, "violations")
+            .addParameter(String.class, "violation")
+            .addStatement(
+                "final var list = violations != null ? violations : new $T<$T>()",
+                ArrayList.class,
+                String.class
+            )
+            .addStatement("list.add(violation)")
+            .addStatement("return list")
+            .build();
+    }
+
+    /**
+     * Make the checks of every constraint, which throw an {@code IllegalArgumentException} naming
+     * all violations.
+     *
+     * @param argumentMaker makes the expression of the argument of a parameter, which is evaluated
+     *     once per check
+     */
+    CodeBlock makeValidationCode(Function<VariableElement, CodeBlock> argumentMaker) {
+        final var validationCode = CodeBlock.builder();
+
+        if (constraintList.isEmpty()) {
+            return validationCode.build();
+        }
+
+        validationCode.addStatement(
+            "$T $L = null",
+            ParameterizedTypeName.get(List.class, String.class),
+            VIOLATIONS_NAME
+        );
+
+        for (final var constraint : constraintList) {
+            final var condition = makeViolationCondition(
+                constraint,
+                argumentMaker.apply(constraint.parameter())
+            );
+
+            if (condition == null) {
+                continue;
+            }
+
+            validationCode
+                .beginControlFlow("if ($L)", condition)
+                .addStatement(
+                    "$L = $L($L, $S)",
+                    VIOLATIONS_NAME,
+                    ADD_VIOLATION_METHOD_NAME,
+                    VIOLATIONS_NAME,
+                    makeViolationMessage(constraint)
+                )
+                .endControlFlow();
+        }
+
+        return validationCode
+            .beginControlFlow("if ($L != null)", VIOLATIONS_NAME)
+            .addStatement(
+                "throw new $T($S + $T.join($S, $L))",
+                IllegalArgumentException.class,
+                "Invalid %s: ".formatted(
+                    processingEnv.getTypeUtils()
+                        .asElement(Crafter.extractTargetClass(creator))
+                        .getSimpleName()
+                ),
+                String.class,
+                ", ",
+                VIOLATIONS_NAME
+            )
+            .endControlFlow()
+            .build();
+    }
+
+    private void collectConstraints(VariableElement parameter) {
+        final var category = categorize(parameter.asType());
+
+        // constraints may be declaration annotations, type annotations, or both
+        final var annotationMap = new LinkedHashMap<String, AnnotationMirror>();
+        for (final var mirror : parameter.getAnnotationMirrors()) {
+            annotationMap.putIfAbsent(qualifiedNameOf(mirror), mirror);
+        }
+        for (final var mirror : parameter.asType().getAnnotationMirrors()) {
+            annotationMap.putIfAbsent(qualifiedNameOf(mirror), mirror);
+        }
+
+        for (final var mirror : annotationMap.values()) {
+            for (final var constraintMirror : unwrapContainer(mirror)) {
+                final var qualifiedName = qualifiedNameOf(constraintMirror);
+                final var lastDot = qualifiedName.lastIndexOf('.');
+
+                if (lastDot < 0
+                    || ! CONSTRAINT_PACKAGES.contains(qualifiedName.substring(0, lastDot))) {
+                    continue;
+                }
+
+                final var name = qualifiedName.substring(lastDot + 1);
+                final var values = new HashMap<String, Object>();
+                processingEnv.getElementUtils()
+                    .getElementValuesWithDefaults(constraintMirror)
+                    .forEach((k, v) -> values.put(k.getSimpleName().toString(), v.getValue()));
+
+                final var ordinal = (int) constraintList.stream()
+                    .filter(c -> c.parameter().equals(parameter) && c.name().equals(name))
+                    .count();
+
+                final var constraint = new Constraint(parameter, name, ordinal, category, values);
+
+                if (! isSupported(constraint)) {
+                    continue;
+                }
+
+                constraintList.add(constraint);
+            }
+        }
+    }
+
+    /**
+     * Unwrap the constraints of a {@code List} container, e.g. {@code @Pattern.List}, which
+     * repeated constraints are wrapped in.
+     */
+    private static List<AnnotationMirror> unwrapContainer(AnnotationMirror mirror) {
+        final var annotationElement = mirror.getAnnotationType().asElement();
+
+        if (! annotationElement.getSimpleName().contentEquals("List")
+            || ! (annotationElement.getEnclosingElement() instanceof TypeElement)) {
+            return List.of(mirror);
+        }
+
+        for (final var entry : mirror.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")
+                && entry.getValue().getValue() instanceof List<?> valueList) {
+                return valueList.stream()
+                    .map(v -> ((AnnotationValue) v).getValue())
+                    .filter(AnnotationMirror.class::isInstance)
+                    .map(AnnotationMirror.class::cast)
+                    .toList();
+            }
+        }
+
+        return List.of(mirror);
+    }
+
+    private boolean isSupported(Constraint constraint) {
+        final var category = constraint.category();
+
+        final boolean applicable;
+
+        switch (constraint.name()) {
+            case "NotNull" -> applicable = true;
+            case "NotEmpty", "Size" -> applicable = category == Category.CHAR_SEQUENCE
+                || category == Category.COLLECTION
+                || category == Category.MAP
+                || category == Category.ARRAY;
+            case "NotBlank", "Pattern" -> applicable = category == Category.CHAR_SEQUENCE;
+            case "Min", "Max", "Positive", "PositiveOrZero", "Negative", "NegativeOrZero" ->
+                applicable = category == Category.PRIMITIVE_NUMBER
+                    || category == Category.BOXED_NUMBER
+                    || category == Category.BIG_DECIMAL
+                    || category == Category.BIG_INTEGER;
+
+            // skipped with a warning only, it may well apply to the parameter
+            default -> {
+                problemList.add(
+                    new Problem(
+                        constraint.parameter(),
+                        Diagnostic.Kind.WARNING,
+                        "@%s is not supported by %s, and is not validated"
+                            .formatted(constraint.name(), Crafter.TOOL_NAME)
+                    )
+                );
+                return false;
+            }
+        }
+
+        if (! applicable) {
+            problemList.add(
+                new Problem(
+                    constraint.parameter(),
+                    Diagnostic.Kind.ERROR,
+                    "@%s cannot be applied to parameter %s of type %s"
+                        .formatted(
+                            constraint.name(),
+                            constraint.parameter().getSimpleName(),
+                            constraint.parameter().asType()
+                        )
+                )
+            );
+            return false;
+        }
+
+        if (constraint.name().equals("Pattern")) {
+            try {
+                Pattern.compile(
+                    (String) Objects.requireNonNull(constraint.values().get("regexp")),
+                    makePatternFlags(constraint)
+                );
+
+            } catch (PatternSyntaxException e) {
+                problemList.add(
+                    new Problem(
+                        constraint.parameter(),
+                        Diagnostic.Kind.ERROR,
+                        "@Pattern of parameter %s is not a valid regular expression: %s"
+                            .formatted(constraint.parameter().getSimpleName(), e.getMessage())
+                    )
+                );
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private @Nullable CodeBlock makeViolationCondition(Constraint constraint, CodeBlock argument) {
+        final var category = constraint.category();
+        final var isPrimitive = category == Category.PRIMITIVE_NUMBER
+            || category == Category.OTHER_PRIMITIVE;
+
+        return switch (constraint.name()) {
+            // a primitive is never null
+            case "NotNull" -> isPrimitive ? null : CodeBlock.of("$L == null", argument);
+
+            case "NotEmpty" -> CodeBlock.of(
+                "$L == null || $L == 0",
+                argument,
+                makeSizeCode(category, argument)
+            );
+
+            case "NotBlank" -> CodeBlock.of(
+                "$L == null || $L.toString().isBlank()",
+                argument,
+                argument
+            );
+
+            case "Size" -> {
+                final var min = (int) Objects.requireNonNull(constraint.values().get("min"));
+                final var max = (int) Objects.requireNonNull(constraint.values().get("max"));
+                final var size = makeSizeCode(category, argument);
+
+                final var boundList = new ArrayList<CodeBlock>();
+                if (min > 0) {
+                    boundList.add(CodeBlock.of("$L < $L", size, min));
+                }
+                if (max < Integer.MAX_VALUE) {
+                    boundList.add(CodeBlock.of("$L > $L", size, max));
+                }
+
+                yield boundList.isEmpty()
+                    ? null
+                    : CodeBlock.of(
+                        "$L != null && ($L)",
+                        argument,
+                        CodeBlock.join(boundList, " || ")
+                    );
+            }
+
+            case "Min" -> makeCompareCondition(
+                constraint,
+                argument,
+                "<",
+                (long) Objects.requireNonNull(constraint.values().get("value"))
+            );
+            case "Max" -> makeCompareCondition(
+                constraint,
+                argument,
+                ">",
+                (long) Objects.requireNonNull(constraint.values().get("value"))
+            );
+            case "Positive" -> makeCompareCondition(constraint, argument, "<=", 0);
+            case "PositiveOrZero" -> makeCompareCondition(constraint, argument, "<", 0);
+            case "Negative" -> makeCompareCondition(constraint, argument, ">=", 0);
+            case "NegativeOrZero" -> makeCompareCondition(constraint, argument, ">", 0);
+
+            case "Pattern" -> CodeBlock.of(
+                "$L != null && ! $L.matcher($L).matches()",
+                argument,
+                makePatternFieldName(constraint),
+                argument
+            );
+
+            default -> throw new IllegalStateException(constraint.name());
+        };
+    }
+
+    private static CodeBlock makeCompareCondition(
+        Constraint constraint,
+        CodeBlock argument,
+        String violationOperator,
+        long bound
+    ) {
+        return switch (constraint.category()) {
+            case PRIMITIVE_NUMBER -> CodeBlock.of("$L $L $LL", argument, violationOperator, bound);
+
+            case BOXED_NUMBER -> CodeBlock.of(
+                "$L != null && $L $L $LL",
+                argument,
+                argument,
+                violationOperator,
+                bound
+            );
+
+            case BIG_DECIMAL, BIG_INTEGER -> CodeBlock.of(
+                "$L != null && $L.compareTo($T.valueOf($LL)) $L 0",
+                argument,
+                argument,
+                constraint.category() == Category.BIG_DECIMAL ? BigDecimal.class : BigInteger.class,
+                bound,
+                violationOperator
+            );
+
+            default -> throw new IllegalStateException(constraint.category().name());
+        };
+    }
+
+    private static CodeBlock makeSizeCode(Category category, CodeBlock argument) {
+        return switch (category) {
+            case CHAR_SEQUENCE -> CodeBlock.of("$L.length()", argument);
+            case COLLECTION, MAP -> CodeBlock.of("$L.size()", argument);
+            case ARRAY -> CodeBlock.of("$L.length", argument);
+            default -> throw new IllegalStateException(category.name());
+        };
+    }
+
+    private static String makeViolationMessage(Constraint constraint) {
+        final var parameterName = constraint.parameter().getSimpleName();
+        final var message = (String) constraint.values().get("message");
+
+        // `{...}` is a message key of Bean Validation
+        if (message != null && ! message.startsWith("{")) {
+            return "%s %s".formatted(parameterName, message);
+        }
+
+        final var defaultMessage = switch (constraint.name()) {
+            case "NotNull" -> "must not be null";
+            case "NotEmpty" -> "must not be empty";
+            case "NotBlank" -> "must not be blank";
+            case "Size" -> "size must be between %s and %s"
+                .formatted(constraint.values().get("min"), constraint.values().get("max"));
+            case "Min" -> "must be greater than or equal to %s"
+                .formatted(constraint.values().get("value"));
+            case "Max" -> "must be less than or equal to %s"
+                .formatted(constraint.values().get("value"));
+            case "Positive" -> "must be greater than 0";
+            case "PositiveOrZero" -> "must be greater than or equal to 0";
+            case "Negative" -> "must be less than 0";
+            case "NegativeOrZero" -> "must be less than or equal to 0";
+            case "Pattern" -> "must match \"%s\"".formatted(constraint.values().get("regexp"));
+            default -> throw new IllegalStateException(constraint.name());
+        };
+
+        return "%s %s".formatted(parameterName, defaultMessage);
+    }
+
+    private static CodeBlock makePatternInitializer(Constraint constraint) {
+        final var flagNameList = makePatternFlagNames(constraint);
+
+        if (flagNameList.isEmpty()) {
+            return CodeBlock.of(
+                "$T.compile($S)",
+                Pattern.class,
+                constraint.values().get("regexp")
+            );
+
+        } else {
+            return CodeBlock.of(
+                "$T.compile($S, $L)",
+                Pattern.class,
+                constraint.values().get("regexp"),
+                flagNameList.stream()
+                    .map(f -> CodeBlock.of("$T.$L", Pattern.class, f))
+                    .collect(CodeBlock.joining(" | "))
+            );
+        }
+    }
+
+    private static int makePatternFlags(Constraint constraint) {
+        var flags = 0;
+
+        for (final var flagName : makePatternFlagNames(constraint)) {
+            try {
+                flags |= Pattern.class.getField(flagName).getInt(null);
+
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        return flags;
+    }
+
+    // the constants of `Pattern.Flag` are named after the flags of `java.util.regex.Pattern`
+    private static List<String> makePatternFlagNames(Constraint constraint) {
+        final var flags = (List<?>) constraint.values().getOrDefault("flags", List.of());
+
+        return flags.stream()
+            .map(f -> ((AnnotationValue) f).getValue().toString())
+            .toList();
+    }
+
+    /**
+     * Name the pattern after its parameter in UPPER_SNAKE case, followed by the index of the
+     * parameter and the ordinal of the pattern, since e.g. {@code fooBar} and {@code foo_bar} are
+     * both {@code FOO_BAR}.
+     */
+    private String makePatternFieldName(Constraint constraint) {
+        final var parameter = constraint.parameter();
+        final var name = parameter.getSimpleName().toString();
+        final var fieldName = new StringBuilder();
+
+        for (var i = 0; i < name.length(); i++) {
+            final var c = name.charAt(i);
+
+            if (Character.isUpperCase(c) && i > 0) {
+                fieldName.append('_');
+            }
+
+            fieldName.append(Character.toUpperCase(c));
+        }
+
+        return fieldName.append(PATTERN_FIELD_SUFFIX)
+            .append('_')
+            .append(creator.getParameters().indexOf(parameter))
+            .append('_')
+            .append(constraint.ordinal())
+            .toString();
+    }
+
+    private Category categorize(TypeMirror type) {
+        final var typeUtils = processingEnv.getTypeUtils();
+        final var elementUtils = processingEnv.getElementUtils();
+
+        if (type.getKind().isPrimitive()) {
+            return type.getKind() == TypeKind.BOOLEAN || type.getKind() == TypeKind.CHAR
+                ? Category.OTHER_PRIMITIVE
+                : Category.PRIMITIVE_NUMBER;
+        }
+
+        if (type.getKind() == TypeKind.ARRAY) {
+            return Category.ARRAY;
+        }
+
+        if (type.getKind() != TypeKind.DECLARED) {
+            return Category.OTHER;
+        }
+
+        try {
+            final var unboxed = typeUtils.unboxedType(type);
+
+            if (unboxed.getKind() != TypeKind.BOOLEAN && unboxed.getKind() != TypeKind.CHAR) {
+                return Category.BOXED_NUMBER;
+            }
+
+        } catch (IllegalArgumentException e) {
+            // not a boxed type
+        }
+
+        final var erasure = typeUtils.erasure(type);
+        final var qualifiedName = ((TypeElement) typeUtils.asElement(type)).getQualifiedName();
+
+        if (qualifiedName.contentEquals(BigDecimal.class.getCanonicalName())) {
+            return Category.BIG_DECIMAL;
+
+        } else if (qualifiedName.contentEquals(BigInteger.class.getCanonicalName())) {
+            return Category.BIG_INTEGER;
+        }
+
+        final Predicate<Class<?>> isSubtypeOf = clazz -> typeUtils.isAssignable(
+            erasure,
+            typeUtils.erasure(
+                Objects.requireNonNull(elementUtils.getTypeElement(clazz.getCanonicalName()))
+                    .asType()
+            )
+        );
+
+        if (isSubtypeOf.test(CharSequence.class)) {
+            return Category.CHAR_SEQUENCE;
+
+        } else if (isSubtypeOf.test(Collection.class)) {
+            return Category.COLLECTION;
+
+        } else if (isSubtypeOf.test(Map.class)) {
+            return Category.MAP;
+
+        } else {
+            return Category.OTHER;
+        }
+    }
+
+    private static String qualifiedNameOf(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter.runtime;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Length-prefixed values of the binary layout, used by the companion {@code XxxCodec} classes
+ * generated for {@code @Builder(binary = true)}.
+ * <p>
+ * A length is an {@code int}, which is {@code -1} for {@code null}. Strings are encoded as UTF-8
+ * straight into the buffer, and decoded without copying when the buffer is backed by an array.
+ */
+public final class BinaryBuffers {
+    private BinaryBuffers() {}
+
+    public static int sizeOf(@Nullable String value) {
+        return Integer.BYTES + (value == null ? 0 : utf8Length(value));
+    }
+
+    public static void putString(ByteBuffer buffer, @Nullable String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+
+        buffer.putInt(utf8Length(value));
+
+        for (var i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+
+            if (c < 0x80) {
+                buffer.put((byte) c);
+
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+
+            } else if (isSurrogatePair(value, i)) {
+                final var codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+                i += 1;
+
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+
+            } else if (Character.isSurrogate(c)) {
+                // like `String.getBytes()`, a lone surrogate is replaced
+                buffer.put((byte) '?');
+
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    public static @Nullable String getString(ByteBuffer buffer) {
+        final var length = getLength(buffer);
+
+        if (length < 0) {
+            return null;
+        }
+
+        final var position = buffer.position();
+        final String value;
+
+        if (buffer.hasArray()) {
+            value = new String(
+                buffer.array(),
+                buffer.arrayOffset() + position,
+                length,
+                StandardCharsets.UTF_8
+            );
+
+        } else {
+            value = StandardCharsets.UTF_8.decode(buffer.slice(position, length)).toString();
+        }
+
+        buffer.position(position + length);
+
+        return value;
+    }
+
+    public static int sizeOf(byte @Nullable [] value) {
+        return Integer.BYTES + (value == null ? 0 : value.length);
+    }
+
+    public static void putBytes(ByteBuffer buffer, byte @Nullable [] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+
+        } else {
+            buffer.putInt(value.length).put(value);
+        }
+    }
+
+    public static byte @Nullable [] getBytes(ByteBuffer buffer) {
+        final var length = getLength(buffer);
+
+        if (length < 0) {
+            return null;
+        }
+
+        final var value = new byte[length];
+        buffer.get(value);
+
+        return value;
+    }
+
+    /**
+     * Read the length of a {@code null}able value, which is {@code -1} for {@code null}.
+     *
+     * @throws IllegalArgumentException if the length is invalid, e.g. of a corrupted buffer
+     */
+    public static int getLength(ByteBuffer buffer) {
+        final var length = buffer.getInt();
+
+        if (length < -1 || length > buffer.remaining()) {
+            throw new IllegalArgumentException(
+                "Invalid length %d at position %d".formatted(length, buffer.position() - 4)
+            );
+        }
+
+        return length;
+    }
+
+    private static int utf8Length(String value) {
+        var length = value.length();
+
+        for (var i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+
+            if (c < 0x80) {
+                continue;
+
+            } else if (c < 0x800) {
+                length += 1;
+
+            } else if (isSurrogatePair(value, i)) {
+                // 4 bytes for 2 chars
+                length += 2;
+                i += 1;
+
+            } else if (! Character.isSurrogate(c)) {
+                length += 2;
+            }
+        }
+
+        return length;
+    }
+
+    private static boolean isSurrogatePair(String value, int index) {
+        return Character.isHighSurrogate(value.charAt(index))
+            && index + 1 < value.length()
+            && Character.isLowSurrogate(value.charAt(index + 1));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter.runtime;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+
+/**
+ * Number of targets built by the {@code build()} generated for {@code @Builder(monitored = true)},
+ * held by a static field of the builder container.
+ * <p>
+ * The count is a {@link LongAdder}, so concurrent builds do not contend on a single variable.
+ * Each counter is registered as the MXBean {@code io.github.iyanging.crafter:type=BuildCounter}
+ * named by its target class, unless JMX is not available or the name is already registered, e.g.
+ * by the same target class of another class loader, because monitoring must never fail a build.
+ * <p>
+ * The platform MBeanServer holds the registered counter, and so its target class and class
+ * loader, until it is unregistered. Applications whose class loaders are discarded, e.g. web
+ * applications being redeployed, should call {@link #unregister(Class)} for their monitored target
+ * classes on shutdown.
+ */
+public final class BuildCounter implements BuildCounterMXBean {
+    private static final String DOMAIN = "io.github.iyanging.crafter";
+
+    // the registered counters, so that only the counter of the same target class is unregistered
+    private static final Map<ObjectName, BuildCounter> REGISTERED_MAP = new ConcurrentHashMap<>();
+
+    private final Class<?> targetClass;
+    private final LongAdder buildCount = new LongAdder();
+
+    private BuildCounter(Class<?> targetClass) {
+        this.targetClass = targetClass;
+    }
+
+    /**
+     * Create the counter of the target class, and register it as an MXBean.
+     */
+    public static BuildCounter register(Class<?> targetClass) {
+        final var counter = new BuildCounter(targetClass);
+
+        try {
+            final var name = makeObjectName(targetClass);
+
+            ManagementFactory.getPlatformMBeanServer().registerMBean(counter, name);
+            REGISTERED_MAP.put(name, counter);
+
+        } catch (JMException | SecurityException e) {
+            // still counted, but only visible through the returned counter
+        }
+
+        return counter;
+    }
+
+    /**
+     * Unregister the MXBean of the target class, which releases its class loader. The MXBean of
+     * the same name registered for the target class of another class loader is left untouched.
+     * Builds are still counted afterwards, but are no longer visible through JMX.
+     */
+    public static void unregister(Class<?> targetClass) {
+        try {
+            final var name = makeObjectName(targetClass);
+            final var counter = REGISTERED_MAP.get(name);
+
+            if (counter == null
+                || counter.targetClass != targetClass
+                || ! REGISTERED_MAP.remove(name, counter)) {
+                return;
+            }
+
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+
+        } catch (JMException | SecurityException e) {
+            // already unregistered through the MBeanServer itself
+        }
+    }
+
+    private static ObjectName makeObjectName(Class<?> targetClass)
+        throws MalformedObjectNameException {
+        return new ObjectName(
+            "%s:type=BuildCounter,name=%s"
+                .formatted(DOMAIN, ObjectName.quote(targetClass.getName()))
+        );
+    }
+
+    public void increment() {
+        buildCount.increment();
+    }
+
+    @Override
+    public String getTargetClassName() { return targetClass.getName(); }
+
+    @Override
+    public long getBuildCount() { return buildCount.sum(); }
+
+    @Override
+    public void resetBuildCount() {
+        buildCount.reset();
+    }
+}
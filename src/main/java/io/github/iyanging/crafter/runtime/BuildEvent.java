@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter.runtime;
+
+import jdk.jfr.*;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * JFR event of a target built by the {@code build()} generated for
+ * {@code @Builder(monitored = true)}, whose duration is the creator call.
+ * <p>
+ * The event is enabled by default, without a threshold. Everything is guarded by
+ * {@link #isEnabled()}, so the event costs nothing but its allocation while it is disabled, which
+ * the JIT eliminates once {@code build()} is inlined.
+ */
+@Name("io.github.iyanging.crafter.Build")
+@Label("Build")
+@Category("Crafter")
+@Description("A target built by a generated build()")
+@StackTrace(false)
+public final class BuildEvent extends Event {
+    @Label("Target Class")
+    private @Nullable Class<?> targetClass;
+
+    private BuildEvent() {}
+
+    /**
+     * Start timing a build.
+     */
+    public static BuildEvent start() {
+        final var event = new BuildEvent();
+
+        if (event.isEnabled()) {
+            event.begin();
+        }
+
+        return event;
+    }
+
+    /**
+     * Stop timing the build of the target class, and commit the event if it passes its
+     * threshold.
+     */
+    public void finish(Class<?> targetClass) {
+        if (isEnabled()) {
+            end();
+
+            if (shouldCommit()) {
+                this.targetClass = targetClass;
+                commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter.runtime;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Factory of a target, which invokes its creator and starts its builder without reflection.
+ * <p>
+ * Factories are generated into the {@link BuilderIndex} for every {@code @Builder} in the
+ * compilation, and looked up by a {@link BuilderRegistry}.
+ */
+public final class BuilderFactory<T> {
+    private final Class<T> targetClass;
+    private final List<String> parameterNames;
+    private final List<Class<?>> parameterTypes;
+    private final Supplier<?> builder;
+    private final Function<@Nullable Object[], T> creator;
+
+    public BuilderFactory(
+        Class<T> targetClass,
+        List<String> parameterNames,
+        List<Class<?>> parameterTypes,
+        Supplier<?> builder,
+        Function<@Nullable Object[], T> creator
+    ) {
+        this.targetClass = targetClass;
+        this.parameterNames = List.copyOf(parameterNames);
+        this.parameterTypes = List.copyOf(parameterTypes);
+        this.builder = builder;
+        this.creator = creator;
+    }
+
+    public Class<T> targetClass() { return targetClass; }
+
+    /** Names of the creator parameters, in parameter order. */
+    public List<String> parameterNames() { return parameterNames; }
+
+    /** Erased types of the creator parameters, in parameter order. */
+    public List<Class<?>> parameterTypes() { return parameterTypes; }
+
+    /**
+     * Start the generated builder, like {@code XxxBuilder.builder()}, whose first stage is only
+     * known to the generated code.
+     */
+    public Object builder() {
+        return builder.get();
+    }
+
+    /**
+     * Directly invoke the creator with the arguments in parameter order, primitives given by
+     * their boxes. Defaults do not apply, so every argument must be given.
+     *
+     * @throws IllegalArgumentException if the number of arguments does not match
+     * @throws ClassCastException if an argument is not of its parameter type
+     */
+    public T create(@Nullable Object... arguments) {
+        if (arguments.length != parameterTypes.size()) {
+            throw new IllegalArgumentException(
+                "%s takes %d arguments, but got %d"
+                    .formatted(targetClass.getName(), parameterTypes.size(), arguments.length)
+            );
+        }
+
+        return creator.apply(arguments);
+    }
+
+    @Override
+    public String toString() {
+        return "BuilderFactory[%s]".formatted(targetClass.getName());
+    }
+}
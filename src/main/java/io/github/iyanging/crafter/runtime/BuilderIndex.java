@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter.runtime;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Index of the targets built by the builders of a compilation, generated for the option
+ * {@code crafter.index}, and registered as a service in {@code META-INF/services}, so that the
+ * indexes of all jars are merged by a {@link BuilderRegistry}.
+ */
+public interface BuilderIndex {
+    /**
+     * The factory of exactly the given target class, or {@code null} if it is not indexed.
+     */
+    <T> @Nullable BuilderFactory<T> find(Class<T> targetClass);
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter.runtime;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Lookup of the {@link BuilderFactory} of a target class across the given {@link BuilderIndex}es.
+ * <p>
+ * Each target class is looked up in the indexes once, the result is kept by a
+ * {@link ClassValue}, so later lookups are a single read without reflection, and do not keep
+ * the target class from being unloaded. A {@code BuilderRegistry} is thread-safe.
+ */
+public final class BuilderRegistry {
+    private static final class DefaultHolder {
+        private static final BuilderRegistry DEFAULT = load(BuilderRegistry.class.getClassLoader());
+    }
+
+    private final List<BuilderIndex> indexList;
+
+    private final ClassValue<Optional<BuilderFactory<?>>> factoryCache = new ClassValue<>() {
+        @Override
+        protected Optional<BuilderFactory<?>> computeValue(Class<?> targetClass) {
+            for (final var index : indexList) {
+                final BuilderFactory<?> factory = index.find(targetClass);
+
+                if (factory != null) {
+                    return Optional.of(factory);
+                }
+            }
+
+            return Optional.empty();
+        }
+    };
+
+    /**
+     * Look up in the given indexes, in order.
+     */
+    public BuilderRegistry(List<? extends BuilderIndex> indexes) {
+        this.indexList = List.copyOf(indexes);
+    }
+
+    /**
+     * The registry of the indexes on the class path of crafter, loaded at first use.
+     */
+    public static BuilderRegistry getDefault() { return DefaultHolder.DEFAULT; }
+
+    /**
+     * Load the indexes visible to the class loader by {@link ServiceLoader}.
+     */
+    public static BuilderRegistry load(@Nullable ClassLoader classLoader) {
+        final var indexList = ServiceLoader.load(BuilderIndex.class, classLoader)
+            .stream()
+            .map(ServiceLoader.Provider::get)
+            .toList();
+
+        return new BuilderRegistry(indexList);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Optional<BuilderFactory<T>> find(Class<T> targetClass) {
+        // the factory was found by exactly this class
+        return factoryCache.get(targetClass).map(f -> (BuilderFactory<T>) f);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the target class is not indexed
+     */
+    public <T> BuilderFactory<T> get(Class<T> targetClass) {
+        return find(targetClass).orElseThrow(
+            () -> new IllegalArgumentException(
+                "%s has no indexed builder".formatted(targetClass.getName())
+            )
+        );
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter.runtime;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Source of configuration values, used by the {@code fromMap()} and {@code fromProperties()}
+ * generated for {@code @Builder(config = true)}.
+ * <p>
+ * Values are looked up by the prefix followed by the key. Strings are converted to the parameter
+ * type, values which already are of the parameter type are taken as they are. Instead of failing
+ * at the first problem, missing keys and invalid values are collected, and all of them are
+ * reported by {@link #check(String)}. A {@code ConfigReader} is not thread-safe.
+ */
+public final class ConfigReader {
+    private final Function<String, ? extends @Nullable Object> lookup;
+    private final String prefix;
+
+    private final List<String> missingKeyList = new ArrayList<>();
+    private final List<String> invalidValueList = new ArrayList<>();
+
+    public ConfigReader(Function<String, ? extends @Nullable Object> lookup, String prefix) {
+        this.lookup = lookup;
+        this.prefix = prefix;
+    }
+
+    /** The value of an optional key, or {@code null}. */
+    public @Nullable Object find(String key) {
+        return lookup.apply(prefix + key);
+    }
+
+    /** The value of a required key, or {@code null} if it is missing, which is reported. */
+    public @Nullable Object require(String key) {
+        final var value = find(key);
+
+        if (value == null) {
+            missingKeyList.add(prefix + key);
+        }
+
+        return value;
+    }
+
+    /**
+     * @throws IllegalArgumentException naming every missing key and invalid value
+     */
+    public void check(String targetName) {
+        if (missingKeyList.isEmpty() && invalidValueList.isEmpty()) {
+            return;
+        }
+
+        final var problemList = new ArrayList<String>();
+
+        if (! missingKeyList.isEmpty()) {
+            problemList.add(
+                "Missing keys of %s: %s".formatted(targetName, String.join(", ", missingKeyList))
+            );
+        }
+
+        if (! invalidValueList.isEmpty()) {
+            problemList.add(
+                "Invalid values of %s: %s"
+                    .formatted(targetName, String.join(", ", invalidValueList))
+            );
+        }
+
+        throw new IllegalArgumentException(String.join("; ", problemList));
+    }
+
+    // the converters below return a placeholder for null and invalid values, which are reported
+
+    public @Nullable String asString(String key, @Nullable Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    public boolean asBoolean(String key, @Nullable Object value) {
+        if (value == null || value instanceof Boolean) {
+            return value != null && (Boolean) value;
+        }
+
+        final var text = value.toString().trim();
+
+        if (text.equalsIgnoreCase("true")) {
+            return true;
+
+        } else if (! text.equalsIgnoreCase("false")) {
+            reportInvalid(key, "boolean", value);
+        }
+
+        return false;
+    }
+
+    public byte asByte(String key, @Nullable Object value) {
+        final var number = asLong(key, value, "byte", Byte.MIN_VALUE, Byte.MAX_VALUE);
+        return (byte) number;
+    }
+
+    public short asShort(String key, @Nullable Object value) {
+        final var number = asLong(key, value, "short", Short.MIN_VALUE, Short.MAX_VALUE);
+        return (short) number;
+    }
+
+    public int asInt(String key, @Nullable Object value) {
+        final var number = asLong(key, value, "int", Integer.MIN_VALUE, Integer.MAX_VALUE);
+        return (int) number;
+    }
+
+    public long asLong(String key, @Nullable Object value) {
+        return asLong(key, value, "long", Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    public float asFloat(String key, @Nullable Object value) {
+        if (value == null || value instanceof Float) {
+            return value == null ? 0 : (Float) value;
+        }
+
+        try {
+            return Float.parseFloat(value.toString().trim());
+
+        } catch (NumberFormatException e) {
+            reportInvalid(key, "float", value);
+            return 0;
+        }
+    }
+
+    public double asDouble(String key, @Nullable Object value) {
+        if (value == null || value instanceof Double) {
+            return value == null ? 0 : (Double) value;
+        }
+
+        try {
+            return Double.parseDouble(value.toString().trim());
+
+        } catch (NumberFormatException e) {
+            reportInvalid(key, "double", value);
+            return 0;
+        }
+    }
+
+    public @Nullable BigDecimal asBigDecimal(String key, @Nullable Object value) {
+        if (value == null || value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+
+        try {
+            return new BigDecimal(value.toString().trim());
+
+        } catch (NumberFormatException e) {
+            reportInvalid(key, "decimal", value);
+            return null;
+        }
+    }
+
+    /**
+     * The constant name a value denotes, ignoring case and treating {@code -} as {@code _}, so
+     * {@code read-only} denotes {@code READ_ONLY}. The generated code switches on it.
+     */
+    public static String asConstantName(Object value) {
+        return value.toString().trim().replace('-', '_').toUpperCase(Locale.ROOT);
+    }
+
+    /** Report a value which denotes no constant of the enum. */
+    public <E extends Enum<E>> @Nullable E reportInvalidEnum(
+        String key,
+        Object value,
+        String enumName
+    ) {
+        reportInvalid(key, enumName, value);
+        return null;
+    }
+
+    /**
+     * Convert an ISO-8601 duration, e.g. {@code PT30S}, or a number followed by one of the units
+     * {@code ns}, {@code us}, {@code ms}, {@code s}, {@code m}, {@code h} and {@code d}, e.g.
+     * {@code 30s}. A number without unit is in milliseconds.
+     */
+    public @Nullable Duration asDuration(String key, @Nullable Object value) {
+        if (value == null || value instanceof Duration) {
+            return (Duration) value;
+        }
+
+        final var text = value.toString().trim().toLowerCase(Locale.ROOT);
+
+        try {
+            if (text.startsWith("p") || text.startsWith("-p")) {
+                return Duration.parse(text.toUpperCase(Locale.ROOT));
+            }
+
+            var unitStart = text.length();
+            while (unitStart > 0 && Character.isLetter(text.charAt(unitStart - 1))) {
+                unitStart -= 1;
+            }
+
+            final var amount = Long.parseLong(text.substring(0, unitStart));
+
+            return switch (text.substring(unitStart)) {
+                case "ns" -> Duration.ofNanos(amount);
+                case "us" -> Duration.ofNanos(Math.multiplyExact(amount, 1_000L));
+                case "", "ms" -> Duration.ofMillis(amount);
+                case "s" -> Duration.ofSeconds(amount);
+                case "m" -> Duration.ofMinutes(amount);
+                case "h" -> Duration.ofHours(amount);
+                case "d" -> Duration.ofDays(amount);
+
+                default -> {
+                    reportInvalid(key, "duration", value);
+                    yield null;
+                }
+            };
+
+        } catch (DateTimeParseException | ArithmeticException | NumberFormatException e) {
+            reportInvalid(key, "duration", value);
+            return null;
+        }
+    }
+
+    private long asLong(String key, @Nullable Object value, String type, long min, long max) {
+        if (value == null) {
+            return 0;
+        }
+
+        final long number;
+
+        if (
+            value instanceof Long || value instanceof Integer
+                || value instanceof Short || value instanceof Byte
+        ) {
+            number = ((Number) value).longValue();
+
+        } else {
+            try {
+                number = Long.parseLong(value.toString().trim());
+
+            } catch (NumberFormatException e) {
+                reportInvalid(key, type, value);
+                return 0;
+            }
+        }
+
+        if (number < min || number > max) {
+            reportInvalid(key, type, value);
+            return 0;
+        }
+
+        return number;
+    }
+
+    private void reportInvalid(String key, String type, Object value) {
+        invalidValueList.add("%s%s is not a valid %s: %s".formatted(prefix, key, type, value));
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter.runtime;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Combinators of {@code CompletableFuture}, used by the {@code buildAsync()} generated for
+ * {@code @Builder(async = true)}.
+ */
+public final class Futures {
+    private Futures() {}
+
+    /**
+     * Like {@link CompletableFuture#allOf(CompletableFuture[])}, but fails as soon as any of the
+     * futures fails, instead of waiting for the others. {@code null} futures are ignored.
+     */
+    @SuppressWarnings("FutureReturnValueIgnored")
+    public static CompletableFuture<Void> allOrFirstFailure(
+        @Nullable CompletableFuture<?>... futures
+    ) {
+        final var pendingFutures = Arrays.stream(futures)
+            .filter(Objects::nonNull)
+            .toArray(CompletableFuture<?>[]::new);
+
+        final var all = CompletableFuture.allOf(pendingFutures);
+
+        for (final var future : pendingFutures) {
+            future.whenComplete((value, error) -> {
+                if (error != null) {
+                    all.completeExceptionally(error);
+                }
+            });
+        }
+
+        return all;
+    }
+}
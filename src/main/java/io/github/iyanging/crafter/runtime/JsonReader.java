@@ -0,0 +1,509 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter.runtime;
+
+import java.util.Arrays;
+
+
+/**
+ * Minimal pull parser of JSON text, used by the companion {@code XxxJson} classes generated for
+ * {@code @Builder(json = true)}.
+ * <p>
+ * Values are pulled one by one in document order, numbers are parsed straight from the text
+ * without boxing, and strings are only copied when they contain escapes. Any malformed input is
+ * reported by an {@code IllegalArgumentException} with the position of the offending character.
+ * A {@code JsonReader} is not thread-safe.
+ */
+public final class JsonReader {
+    // the state of every open container, the document itself being the outermost one
+    private static final byte EMPTY = 0;
+    private static final byte NONEMPTY = 1;
+    private static final byte AFTER_COMMA = 2;
+
+    private final String json;
+    private int position = 0;
+
+    private byte[] stateStack = new byte[16];
+    private boolean[] objectStack = new boolean[16];
+    private int depth = 0;
+
+    public JsonReader(String json) {
+        this.json = json;
+    }
+
+    public void beginObject() {
+        beforeValue();
+        expect('{');
+        push(true);
+    }
+
+    public void endObject() {
+        end('}', true);
+    }
+
+    public void beginArray() {
+        beforeValue();
+        expect('[');
+        push(false);
+    }
+
+    public void endArray() {
+        end(']', false);
+    }
+
+    /**
+     * Whether the current object or array has another member, which consumes the separating
+     * comma.
+     */
+    public boolean hasNext() {
+        final var c = peek();
+
+        switch (stateStack[depth]) {
+            case NONEMPTY -> {
+                if (c == ',') {
+                    position += 1;
+                    stateStack[depth] = AFTER_COMMA;
+                    return true;
+                }
+
+                if (c == '}' || c == ']') {
+                    return false;
+                }
+
+                throw error("Expected ',' or the end of " + describeContainer());
+            }
+
+            case AFTER_COMMA -> {
+                return true;
+            }
+
+            default -> {
+                return c != '}' && c != ']';
+            }
+        }
+    }
+
+    public String nextName() {
+        if (depth == 0 || ! objectStack[depth]) {
+            throw error("Expected a value instead of a name");
+        }
+
+        stateStack[depth] = NONEMPTY;
+
+        expect('"');
+        final var name = readString();
+        expect(':');
+
+        return name;
+    }
+
+    public String nextString() {
+        beforeValue();
+        expect('"');
+
+        return readString();
+    }
+
+    public boolean nextBoolean() {
+        beforeValue();
+
+        if (json.startsWith("true", peekPosition())) {
+            skipLiteral("true");
+            return true;
+
+        } else if (json.startsWith("false", position)) {
+            skipLiteral("false");
+            return false;
+        }
+
+        throw error("Expected a boolean");
+    }
+
+    /**
+     * Consume a {@code null} if it is the next value, or leave the reader untouched.
+     */
+    public boolean nextIfNull() {
+        if (json.startsWith("null", peekPosition())) {
+            beforeValue();
+            skipLiteral("null");
+            return true;
+        }
+
+        return false;
+    }
+
+    public int nextInt() {
+        final var start = peekPosition();
+        final var value = nextLong();
+
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            position = start;
+            throw error("Expected an int");
+        }
+
+        return (int) value;
+    }
+
+    public long nextLong() {
+        beforeValue();
+
+        final var start = peekPosition();
+
+        if (! scanNumber()) {
+            position = start;
+            throw error("Expected an integer");
+        }
+
+        final var negative = json.charAt(start) == '-';
+
+        // accumulate negatively, so that Long.MIN_VALUE does not overflow
+        var value = 0L;
+
+        for (var i = negative ? start + 1 : start; i < position; i++) {
+            final var digit = json.charAt(i) - '0';
+
+            if (value < (Long.MIN_VALUE + digit) / 10) {
+                position = start;
+                throw error("Expected a long");
+            }
+
+            value = value * 10 - digit;
+        }
+
+        if (! negative) {
+            if (value == Long.MIN_VALUE) {
+                position = start;
+                throw error("Expected a long");
+            }
+
+            value = -value;
+        }
+
+        return value;
+    }
+
+    public double nextDouble() {
+        // the number grammar of JSON is a subset of what Double.parseDouble accepts
+        return Double.parseDouble(nextNumberText());
+    }
+
+    public float nextFloat() {
+        return Float.parseFloat(nextNumberText());
+    }
+
+    /**
+     * The next number as it is written, e.g. to construct a {@code BigDecimal} without loss.
+     */
+    public String nextNumberText() {
+        beforeValue();
+
+        final var start = peekPosition();
+        scanNumber();
+
+        return json.substring(start, position);
+    }
+
+    /**
+     * Skip the next value, including all nested values, e.g. of an unknown member.
+     */
+    public void skipValue() {
+        switch (peek()) {
+            case '{' -> {
+                beginObject();
+
+                while (hasNext()) {
+                    nextName();
+                    skipValue();
+                }
+
+                endObject();
+            }
+
+            case '[' -> {
+                beginArray();
+
+                while (hasNext()) {
+                    skipValue();
+                }
+
+                endArray();
+            }
+
+            case '"' -> nextString();
+            case 't', 'f' -> nextBoolean();
+
+            default -> {
+                if (! nextIfNull()) {
+                    nextNumberText();
+                }
+            }
+        }
+    }
+
+    /**
+     * Check that nothing but whitespace follows the value read.
+     */
+    public void endDocument() {
+        if (depth != 0 || peekPosition() != json.length()) {
+            throw error("Expected the end of the document");
+        }
+    }
+
+    private void beforeValue() {
+        if (depth == 0) {
+            if (stateStack[0] != EMPTY) {
+                throw error("Expected a single top-level value");
+            }
+
+            stateStack[0] = NONEMPTY;
+
+        } else if (! objectStack[depth]) {
+            stateStack[depth] = NONEMPTY;
+        }
+    }
+
+    private void push(boolean object) {
+        depth += 1;
+
+        if (depth == stateStack.length) {
+            stateStack = Arrays.copyOf(stateStack, depth * 2);
+            objectStack = Arrays.copyOf(objectStack, depth * 2);
+        }
+
+        stateStack[depth] = EMPTY;
+        objectStack[depth] = object;
+    }
+
+    private void end(char close, boolean object) {
+        if (depth == 0 || objectStack[depth] != object) {
+            throw error("Expected '%s' to close an open container".formatted(close));
+        }
+
+        if (stateStack[depth] == AFTER_COMMA) {
+            throw error("Expected a member after ','");
+        }
+
+        expect(close);
+        depth -= 1;
+    }
+
+    private String readString() {
+        // fast path: no escape, so the string is a plain substring
+        final var start = position;
+
+        while (position < json.length()) {
+            final var c = json.charAt(position);
+
+            if (c == '"') {
+                position += 1;
+                return json.substring(start, position - 1);
+            }
+
+            if (c == '\\') {
+                break;
+            }
+
+            if (c < 0x20) {
+                throw error("Unescaped control character in string");
+            }
+
+            position += 1;
+        }
+
+        final var builder = new StringBuilder(position - start + 16)
+            .append(json, start, position);
+
+        while (position < json.length()) {
+            final var c = json.charAt(position++);
+
+            if (c == '"') {
+                return builder.toString();
+            }
+
+            if (c < 0x20) {
+                position -= 1;
+                throw error("Unescaped control character in string");
+            }
+
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+
+            if (position == json.length()) {
+                break;
+            }
+
+            switch (json.charAt(position++)) {
+                case '"' -> builder.append('"');
+                case '\\' -> builder.append('\\');
+                case '/' -> builder.append('/');
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'n' -> builder.append('\n');
+                case 'r' -> builder.append('\r');
+                case 't' -> builder.append('\t');
+                case 'u' -> builder.append(readUnicodeEscape());
+
+                default -> {
+                    position -= 1;
+                    throw error("Invalid escape sequence");
+                }
+            }
+        }
+
+        throw error("Unterminated string");
+    }
+
+    private char readUnicodeEscape() {
+        if (position + 4 > json.length()) {
+            throw error("Invalid unicode escape");
+        }
+
+        var value = 0;
+
+        for (var i = 0; i < 4; i++) {
+            final var digit = Character.digit(json.charAt(position), 16);
+
+            if (digit < 0) {
+                throw error("Invalid unicode escape");
+            }
+
+            value = value * 16 + digit;
+            position += 1;
+        }
+
+        return (char) value;
+    }
+
+    /**
+     * Scan a number of the JSON grammar, i.e. without a plus sign, leading zeros or a bare dot,
+     * and return whether it is an integer.
+     */
+    private boolean scanNumber() {
+        if (peekRaw() == '-') {
+            position += 1;
+        }
+
+        if (peekRaw() == '0') {
+            position += 1;
+
+        } else if (scanDigits() == 0) {
+            throw error("Expected a number");
+        }
+
+        var integer = true;
+
+        if (peekRaw() == '.') {
+            position += 1;
+            integer = false;
+
+            if (scanDigits() == 0) {
+                throw error("Expected a digit after '.'");
+            }
+        }
+
+        if (peekRaw() == 'e' || peekRaw() == 'E') {
+            position += 1;
+            integer = false;
+
+            if (peekRaw() == '+' || peekRaw() == '-') {
+                position += 1;
+            }
+
+            if (scanDigits() == 0) {
+                throw error("Expected a digit in the exponent");
+            }
+        }
+
+        expectDelimiter();
+        return integer;
+    }
+
+    private int scanDigits() {
+        final var start = position;
+
+        while (position < json.length()) {
+            final var c = json.charAt(position);
+
+            if (c < '0' || c > '9') {
+                break;
+            }
+
+            position += 1;
+        }
+
+        return position - start;
+    }
+
+    /** Consume a literal known to be next, e.g. {@code true}. */
+    private void skipLiteral(String literal) {
+        position += literal.length();
+        expectDelimiter();
+    }
+
+    /** Check that a number or a literal is followed by a delimiter, e.g. not {@code trueX}. */
+    private void expectDelimiter() {
+        switch (peekRaw()) {
+            case 0, ' ', '\n', '\r', '\t', ',', ']', '}' -> {
+                // a delimiter, or the end of the document
+            }
+
+            default -> throw error("Unexpected character");
+        }
+    }
+
+    private void expect(char expected) {
+        if (peek() != expected) {
+            throw error("Expected '%s'".formatted(expected));
+        }
+
+        position += 1;
+    }
+
+    /** The next non-whitespace character, or {@code 0} at the end of the document. */
+    private char peek() {
+        peekPosition();
+        return peekRaw();
+    }
+
+    private char peekRaw() {
+        return position < json.length() ? json.charAt(position) : 0;
+    }
+
+    /** Skip whitespace, and return the position of the next character. */
+    private int peekPosition() {
+        while (position < json.length()) {
+            final var c = json.charAt(position);
+
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                break;
+            }
+
+            position += 1;
+        }
+
+        return position;
+    }
+
+    private String describeContainer() {
+        return objectStack[depth] ? "object" : "array";
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("%s at position %d".formatted(message, position));
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2024 iyanging
+ *
+ * crafter is licensed under Mulan PSL v2.
+ * You can use this software according to the terms and conditions of the Mulan PSL v2.
+ * You may obtain a copy of Mulan PSL v2 at:
+ *     http://license.coscl.org.cn/MulanPSL2
+ *
+ * THIS SOFTWARE IS PROVIDED ON AN "AS IS" BASIS, WITHOUT WARRANTIES OF ANY KIND,
+ * EITHER EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO NON-INFRINGEMENT,
+ * MERCHANTABILITY OR FIT FOR A PARTICULAR PURPOSE.
+ *
+ * See the Mulan PSL v2 for more details.
+ */
+
+package io.github.iyanging.crafter.runtime;
+
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Minimal writer of compact JSON text, used by the companion {@code XxxJson} classes generated
+ * for {@code @Builder(json = true)}.
+ * <p>
+ * Commas and colons are placed automatically, so members are written by {@link #name(String)}
+ * followed by one value. Primitives are appended without boxing. A {@code JsonWriter} is not
+ * thread-safe, and does not check the nesting of containers.
+ */
+public final class JsonWriter {
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final StringBuilder output;
+    private boolean needsComma = false;
+
+    public JsonWriter() {
+        this(new StringBuilder());
+    }
+
+    public JsonWriter(StringBuilder output) {
+        this.output = output;
+    }
+
+    public JsonWriter beginObject() {
+        beforeValue();
+        output.append('{');
+        needsComma = false;
+
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        output.append('}');
+        needsComma = true;
+
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        beforeValue();
+        output.append('[');
+        needsComma = false;
+
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        output.append(']');
+        needsComma = true;
+
+        return this;
+    }
+
+    public JsonWriter name(String name) {
+        beforeValue();
+        appendString(name);
+        output.append(':');
+        needsComma = false;
+
+        return this;
+    }
+
+    public JsonWriter nullValue() {
+        beforeValue();
+        output.append("null");
+        needsComma = true;
+
+        return this;
+    }
+
+    public JsonWriter value(@Nullable String value) {
+        if (value == null) {
+            return nullValue();
+        }
+
+        beforeValue();
+        appendString(value);
+        needsComma = true;
+
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        beforeValue();
+        output.append(value);
+        needsComma = true;
+
+        return this;
+    }
+
+    public JsonWriter value(@Nullable Boolean value) {
+        if (value == null) {
+            return nullValue();
+        }
+
+        return value(value.booleanValue());
+    }
+
+    public JsonWriter value(long value) {
+        beforeValue();
+        output.append(value);
+        needsComma = true;
+
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code value} is {@code NaN} or infinite, which JSON
+     *     cannot represent
+     */
+    public JsonWriter value(float value) {
+        if (! Float.isFinite(value)) {
+            throw new IllegalArgumentException("JSON cannot represent " + value);
+        }
+
+        beforeValue();
+        output.append(value);
+        needsComma = true;
+
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@code value} is {@code NaN} or infinite, which JSON
+     *     cannot represent
+     */
+    public JsonWriter value(double value) {
+        if (! Double.isFinite(value)) {
+            throw new IllegalArgumentException("JSON cannot represent " + value);
+        }
+
+        beforeValue();
+        output.append(value);
+        needsComma = true;
+
+        return this;
+    }
+
+    /**
+     * Write a boxed or arbitrary-precision number as it is printed by {@code toString()}.
+     *
+     * @throws IllegalArgumentException if {@code value} is {@code NaN} or infinite, which JSON
+     *     cannot represent
+     */
+    public JsonWriter value(@Nullable Number value) {
+        if (value == null) {
+            return nullValue();
+        }
+
+        if (
+            (value instanceof Double d && ! Double.isFinite(d))
+                || (value instanceof Float f && ! Float.isFinite(f))
+        ) {
+            throw new IllegalArgumentException("JSON cannot represent " + value);
+        }
+
+        beforeValue();
+        output.append(value);
+        needsComma = true;
+
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return output.toString();
+    }
+
+    private void beforeValue() {
+        if (needsComma) {
+            output.append(',');
+        }
+    }
+
+    private void appendString(String value) {
+        output.append('"');
+
+        // copy unescaped runs at once
+        var start = 0;
+
+        for (var i = 0; i < value.length(); i++) {
+            final var c = value.charAt(i);
+
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+
+            output.append(value, start, i);
+            start = i + 1;
+
+            switch (c) {
+                case '"' -> output.append("\\\"");
+                case '\\' -> output.append("\\\\");
+                case '\b' -> output.append("\\b");
+                case '\f' -> output.append("\\f");
+                case '\n' -> output.append("\\n");
+                case '\r' -> output.append("\\r");
+                case '\t' -> output.append("\\t");
+
+                default -> output.append("\\u00")
+                    .append(HEX_DIGITS[c >> 4])
+                    .append(HEX_DIGITS[c & 0xF]);
+            }
+        }
+
+        output.append(value, start, value.length()).append('"');
+    }
+}
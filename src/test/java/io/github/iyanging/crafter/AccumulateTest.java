@@ -0,0 +1,124 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.junit.jupiter.api.Test;
+
+
+public class AccumulateTest {
+    @Builder
+    public record Order(
+        String id,
+        @Builder.Accumulate(expectedSize = 4) List<String> lines,
+        @Builder.Accumulate Set<Integer> codes,
+        @Builder.Accumulate Map<String, Integer> counts
+    ) {
+        public Order {
+            lines = List.copyOf(lines);
+        }
+    }
+
+    @Builder(unordered = true, reusable = true)
+    public record Basket<T>(@Builder.Accumulate List<T> items, int size) {}
+
+    @Test
+    public void accumulate_elements() {
+        final var order = OrderBuilder.builder()
+            .id("a")
+            .addLines("x")
+            .addAllLines(List.of("y", "z"))
+            .addCodes(1)
+            .addAllCodes(List.of(1, 2))
+            .putCounts("x", 1)
+            .putAllCounts(Map.of("y", 2))
+            .build();
+
+        assertThat(order).isEqualTo(
+            new Order("a", List.of("x", "y", "z"), Set.of(1, 2), Map.of("x", 1, "y", 2))
+        );
+        assertThatThrownBy(() -> order.lines().add("w"))
+            .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void nothing_accumulated_is_empty() {
+        final var order = OrderBuilder.builder().id("a").build();
+
+        assertThat(order).isEqualTo(new Order("a", List.of(), Set.of(), Map.of()));
+    }
+
+    @Test
+    public void immutable_collections_are_not_copied() {
+        final var lines = List.of("x", "y");
+
+        final var order = OrderBuilder.builder().id("a").lines(lines).build();
+
+        assertThat(order.lines()).isSameAs(lines);
+    }
+
+    @Test
+    public void mutable_collections_are_copied() {
+        final var lines = new ArrayList<>(List.of("x"));
+
+        final var order = OrderBuilder.builder().id("a").lines(lines).build();
+        lines.add("y");
+
+        assertThat(order.lines()).containsExactly("x");
+    }
+
+    @Test
+    public void accumulate_after_the_whole_collection() {
+        final var order = OrderBuilder.builder()
+            .id("a")
+            .addLines("x")
+            .lines(List.of("y"))
+            .addLines("z")
+            .build();
+
+        assertThat(order.lines()).containsExactly("y", "z");
+    }
+
+    @Test
+    public void reusable_builders_are_reset() {
+        final var builder = BasketBuilder.<String>builder();
+
+        assertThat(builder.addItems("a").size(1).build()).isEqualTo(new Basket<>(List.of("a"), 1));
+        assertThat(builder.addItems("b").size(1).build()).isEqualTo(new Basket<>(List.of("b"), 1));
+    }
+
+    @Test
+    public void only_collections_can_be_accumulated() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(),
+            Map.of(
+                "test.Entity",
+                """
+                    package test;
+
+                    import java.util.List;
+
+                    import io.github.iyanging.crafter.Builder;
+
+                    @Builder
+                    public record Entity(
+                        @Builder.Accumulate String a,
+                        @Builder.Accumulate List<? extends Number> b
+                    ) {}
+
+                    """
+            )
+        );
+
+        assertFalse(result.success());
+        assertThat(result.diagnostics().toString()).contains("Parameter a").contains("Parameter b");
+    }
+}
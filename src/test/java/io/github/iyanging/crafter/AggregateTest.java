@@ -0,0 +1,81 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.junit.jupiter.api.Test;
+
+
+public class AggregateTest {
+    private static final Map<String, String> SOURCES = Map.of(
+        "test.Entity",
+        """
+            package test;
+
+            import io.github.iyanging.crafter.Builder;
+
+            @Builder
+            public record Entity(String a, int b) {}
+
+            """,
+        "test.Other",
+        """
+            package test;
+
+            import io.github.iyanging.crafter.Builder;
+
+            @Builder(unordered = true)
+            public record Other(long c) {}
+
+            """,
+        "test.nested.Item",
+        """
+            package test.nested;
+
+            import io.github.iyanging.crafter.Builder;
+
+            @Builder(json = true)
+            public record Item(String d) {}
+
+            """,
+        "test.Usage",
+        """
+            package test;
+
+            public class Usage {
+                public static Entity entity() {
+                    return Builders.EntityBuilder.builder().a("a").b(1).build();
+                }
+            }
+
+            """
+    );
+
+    @Test
+    public void builders_are_nested_per_package() throws Exception {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of("-Acrafter.aggregate=true"),
+            SOURCES
+        );
+
+        assertTrue(result.success(), result.diagnostics().toString());
+
+        // companions are still written on their own
+        assertThat(result.generatedSources())
+            .containsOnlyKeys("test.Builders", "test.nested.Builders", "test.nested.ItemJson");
+        assertThat(result.generatedSources().get("test.Builders"))
+            .contains("class EntityBuilder")
+            .contains("class OtherBuilder");
+        assertThat(result.originatingFiles().get("test.Builders"))
+            .hasSize(2)
+            .allMatch(f -> f.endsWith("Entity.java") || f.endsWith("Other.java"));
+
+        final var entity = result.loadClass("test.Usage").getMethod("entity").invoke(null);
+        assertThat(entity).hasToString("Entity[a=a, b=1]");
+    }
+}
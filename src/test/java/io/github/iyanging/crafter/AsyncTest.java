@@ -0,0 +1,140 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class AsyncTest {
+    private static final Executor DIRECT = Runnable::run;
+
+    @Builder(async = true)
+    public record Profile(
+        String name,
+        int age,
+        @Builder.Default("NO_TAGS") List<String> tags
+    ) {
+        static final List<String> NO_TAGS = List.of();
+
+        static final AtomicInteger CALLS = new AtomicInteger();
+
+        public Profile {
+            CALLS.incrementAndGet();
+        }
+    }
+
+    @BeforeEach
+    public void resetCalls() {
+        Profile.CALLS.set(0);
+    }
+
+    @Test
+    public void build_from_values_and_stages() {
+        final var age = new CompletableFuture<Integer>();
+
+        final var profile = ProfileBuilder.asyncBuilder()
+            .name("a")
+            .age(age)
+            .buildAsync(DIRECT);
+
+        assertThat(profile).isNotDone();
+        assertThat(Profile.CALLS).hasValue(0);
+
+        age.complete(30);
+
+        assertThat(Profile.CALLS).hasValue(1);
+        assertThat(profile).isCompletedWithValue(new Profile("a", 30, List.of()));
+    }
+
+    @Test
+    public void defaulted_parameters_can_be_stages() {
+        final var profile = ProfileBuilder.asyncBuilder()
+            .name(CompletableFuture.completedFuture("a"))
+            .age(30)
+            .tags(CompletableFuture.completedFuture(List.of("x")))
+            .buildAsync(DIRECT);
+
+        assertThat(profile).isCompletedWithValue(new Profile("a", 30, List.of("x")));
+    }
+
+    @Test
+    public void fail_on_the_first_failure() {
+        final var name = new CompletableFuture<String>();
+        final var error = new IllegalStateException("unavailable");
+
+        final var profile = ProfileBuilder.asyncBuilder()
+            .name(name)
+            .age(CompletableFuture.failedFuture(error))
+            .buildAsync(DIRECT);
+
+        // `name` never completes, which must not delay the failure
+        assertThat(profile).isCompletedExceptionally();
+        assertThatThrownBy(profile::join).hasCause(error);
+        assertThat(Profile.CALLS).hasValue(0);
+    }
+
+    @Test
+    public void invoke_the_creator_on_the_executor() throws Exception {
+        final var executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "creator"));
+
+        try {
+            final var thread = new CompletableFuture<String>();
+
+            final var profile = ProfileBuilder.asyncBuilder()
+                .name(CompletableFuture.supplyAsync(() -> "a"))
+                .age(CompletableFuture.supplyAsync(() -> 30))
+                .buildAsync(
+                    command -> executor.execute(
+                        () -> {
+                            thread.complete(Thread.currentThread().getName());
+                            command.run();
+                        }
+                    )
+                );
+
+            assertThat(profile.get(10, TimeUnit.SECONDS))
+                .isEqualTo(new Profile("a", 30, List.of()));
+            assertThat(thread).isCompletedWithValue("creator");
+
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void stage_parameters_cannot_be_set_asynchronously() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(),
+            Map.of(
+                "test.Entity",
+                """
+                    package test;
+
+                    import java.util.concurrent.CompletableFuture;
+
+                    import io.github.iyanging.crafter.Builder;
+
+                    @Builder(async = true)
+                    public record Entity(CompletableFuture<String> a) {}
+
+                    """
+            )
+        );
+
+        assertFalse(result.success());
+        assertThat(result.diagnostics().toString()).contains("Parameter a");
+    }
+}
@@ -0,0 +1,122 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.junit.jupiter.api.Test;
+
+
+public class BatchTest {
+    @Builder(batch = true)
+    public record BatchRow(int id, long amount, String name) {}
+
+    @Builder(batch = true)
+    public record BatchCell<T>(T value, boolean flag) {}
+
+    @Test
+    public void build_all_from_columns() {
+        final var rows = BatchRowBuilder.buildAll(
+            new int[] { 1, 2 },
+            new long[] { 10L, 20L },
+            new String[] { "a", "b" }
+        );
+
+        assertThat(rows).containsExactly(
+            new BatchRow(1, 10L, "a"),
+            new BatchRow(2, 20L, "b")
+        );
+    }
+
+    @Test
+    public void build_into_targets() {
+        final var targets = new BatchRow[2];
+
+        BatchRowBuilder.buildInto(
+            targets,
+            new int[] { 1, 2 },
+            new long[] { 10L, 20L },
+            new String[] { "a", "b" }
+        );
+
+        assertThat(targets).containsExactly(
+            new BatchRow(1, 10L, "a"),
+            new BatchRow(2, 20L, "b")
+        );
+    }
+
+    @Test
+    public void build_into_targets_in_parallel() {
+        final var size = 10_000;
+        final var ids = IntStream.range(0, size).toArray();
+        final var amounts = IntStream.range(0, size).mapToLong(i -> i * 10L).toArray();
+        final var names = IntStream.range(0, size)
+            .mapToObj(Integer::toString)
+            .toArray(String[]::new);
+
+        final var targets = new BatchRow[size];
+        BatchRowBuilder.buildIntoParallel(targets, ids, amounts, names);
+
+        for (var i = 0; i < size; i++) {
+            assertThat(targets[i]).isEqualTo(new BatchRow(i, i * 10L, Integer.toString(i)));
+        }
+    }
+
+    @Test
+    public void build_all_generic_targets() {
+        final List<BatchCell<String>> cells = BatchCellBuilder.buildAll(
+            new String[] { "a", "b" },
+            new boolean[] { true, false }
+        );
+
+        assertThat(cells).containsExactly(
+            new BatchCell<>("a", true),
+            new BatchCell<>("b", false)
+        );
+    }
+
+    @Test
+    public void columns_must_have_the_same_length() {
+        assertThatThrownBy(
+            () -> BatchRowBuilder.buildAll(
+                new int[] { 1, 2 },
+                new long[] { 10L },
+                new String[] { "a", "b" }
+            )
+        )
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("amount");
+    }
+
+    @Test
+    public void creators_without_parameters_are_rejected() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(),
+            Map.of(
+                "test.Entity",
+                """
+                    package test;
+
+                    import io.github.iyanging.crafter.Builder;
+
+                    public class Entity {
+                        @Builder(batch = true)
+                        public static Entity empty() {
+                            return new Entity();
+                        }
+                    }
+
+                    """
+            )
+        );
+
+        assertFalse(result.success());
+        assertThat(result.diagnostics().toString()).contains("at least one parameter");
+    }
+}
@@ -0,0 +1,134 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+public class BinaryTest {
+    public enum Color {
+        RED,
+        GREEN
+    }
+
+    @Builder(binary = true)
+    public record Point(int x, int y) {}
+
+    @Builder(binary = true)
+    public record Sample(
+        long id,
+        short shortValue,
+        byte byteValue,
+        char charValue,
+        float floatValue,
+        double doubleValue,
+        boolean flag,
+        @Nullable Integer boxed,
+        @Nullable Boolean boxedFlag,
+        @Nullable String name,
+        @Nullable Color color,
+        @Nullable Point origin,
+        List<String> tags,
+        List<@Nullable Color> colors,
+        List<Point> points
+    ) {}
+
+    @Builder(binary = true)
+    public record Blob(byte @Nullable [] data) {}
+
+    @TempDir
+    Path directory;
+
+    private static Sample makeSample(int i) {
+        return new Sample(
+            i,
+            (short) -i,
+            (byte) i,
+            (char) ('a' + i % 26),
+            i / 2f,
+            i / 3.0,
+            i % 2 == 0,
+            i % 3 == 0 ? null : i,
+            i % 5 == 0 ? null : i % 2 == 0,
+            i % 7 == 0 ? null : "\u540d " + i,
+            i % 4 == 0 ? null : Color.values()[i % 2],
+            i % 6 == 0 ? null : new Point(i, -i),
+            List.of("a", "b".repeat(i % 10)),
+            i % 2 == 0 ? List.of() : List.of(Color.GREEN, Color.RED),
+            List.of(new Point(1, 2), new Point(3, 4))
+        );
+    }
+
+    @Test
+    public void write_and_read_back_in_any_buffer() {
+        final var sample = makeSample(1);
+        final var size = SampleCodec.sizeOf(sample);
+
+        final var bufferList = List.of(
+            ByteBuffer.allocate(size),
+            ByteBuffer.allocateDirect(size),
+            ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN)
+        );
+
+        for (final var buffer : bufferList) {
+            SampleCodec.write(buffer, sample);
+            assertThat(buffer.hasRemaining()).isFalse();
+
+            buffer.flip();
+            assertThat(SampleCodec.read(buffer)).isEqualTo(sample);
+            assertThat(buffer.hasRemaining()).isFalse();
+        }
+    }
+
+    @Test
+    public void write_and_read_back_nulls() {
+        final var buffer = ByteBuffer.allocate(64);
+
+        BlobCodec.write(buffer, new Blob(new byte[] { 1, 2, 3 }));
+        BlobCodec.write(buffer, new Blob(null));
+        buffer.flip();
+
+        assertThat(BlobCodec.read(buffer).data()).containsExactly(1, 2, 3);
+        assertThat(BlobCodec.read(buffer).data()).isNull();
+    }
+
+    @Test
+    public void stream_a_mapped_file() throws IOException {
+        final var samples = IntStream.range(0, 1_000).mapToObj(BinaryTest::makeSample).toList();
+        final var file = directory.resolve("samples.bin");
+
+        final var buffer = ByteBuffer.allocate(
+            Long.BYTES + samples.stream().mapToInt(SampleCodec::sizeOf).sum()
+        );
+        SampleCodec.writeHeader(buffer);
+        samples.forEach(s -> SampleCodec.write(buffer, s));
+
+        Files.write(file, buffer.array());
+
+        try (var stream = SampleCodec.stream(file)) {
+            assertThat(stream.toList()).isEqualTo(samples);
+        }
+    }
+
+    @Test
+    public void reject_an_incompatible_header() {
+        final var buffer = ByteBuffer.allocate(Long.BYTES);
+        buffer.putLong(PointCodec.FINGERPRINT).flip();
+
+        assertThat(SampleCodec.FINGERPRINT).isNotEqualTo(PointCodec.FINGERPRINT);
+        assertThatThrownBy(() -> SampleCodec.stream(buffer))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Incompatible layout of Sample");
+    }
+}
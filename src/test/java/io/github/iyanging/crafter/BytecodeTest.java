@@ -0,0 +1,159 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.junit.jupiter.api.Test;
+
+
+public class BytecodeTest {
+    private static final Map<String, String> SOURCES = Map.of(
+        "test.Point",
+        """
+            package test;
+
+            import java.util.List;
+
+            import io.github.iyanging.crafter.Builder;
+
+            @Builder
+            public record Point(int x, long y, double z, String name, List<String> tags) {}
+
+            """,
+        "test.Box",
+        """
+            package test;
+
+            import io.github.iyanging.crafter.Builder;
+
+            @Builder
+            public record Box(
+                int width,
+                @Builder.Default("DEFAULT_LABEL") String label,
+                @Builder.Default("defaultSize") long size
+            ) {
+                public static final String DEFAULT_LABEL = "none";
+
+                static long defaultSize() {
+                    return 42L;
+                }
+            }
+
+            """,
+        "test.Money",
+        """
+            package test;
+
+            import io.github.iyanging.crafter.Builder;
+
+            public final class Money {
+                private final long cents;
+                private final String currency;
+
+                private Money(long cents, String currency) {
+                    this.cents = cents;
+                    this.currency = currency;
+                }
+
+                @Builder
+                public static Money of(long cents, String currency) {
+                    return new Money(cents, currency);
+                }
+
+                @Override
+                public String toString() {
+                    return cents + currency;
+                }
+            }
+
+            """,
+        "test.Other",
+        """
+            package test;
+
+            import io.github.iyanging.crafter.Builder;
+
+            @Builder(unordered = true)
+            public record Other(long c) {}
+
+            """,
+        "test.Usage",
+        """
+            package test;
+
+            import java.util.List;
+
+            public class Usage {
+                public static List<Object> targets() {
+                    return List.of(
+                        PointBuilder.builder()
+                            .x(1).y(2L).z(3.5).name("p").tags(List.of("a", "b"))
+                            .build(),
+                        BoxBuilder.builder().width(1).build(),
+                        BoxBuilder.builder().width(1).size(7L).label("l").build(),
+                        MoneyBuilder.builder().cents(5L).currency("EUR").build(),
+                        OtherBuilder.builder().c(3L).build()
+                    );
+                }
+            }
+
+            """
+    );
+
+    @Test
+    public void class_files_behave_like_sources() throws Exception {
+        final var sourceResult = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(),
+            SOURCES
+        );
+        final var bytecodeResult = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of("-Acrafter.backend=bytecode"),
+            SOURCES
+        );
+
+        assertTrue(sourceResult.success(), sourceResult.diagnostics().toString());
+        assertTrue(bytecodeResult.success(), bytecodeResult.diagnostics().toString());
+
+        // builders with options are still generated as source
+        assertThat(bytecodeResult.generatedSources()).containsOnlyKeys("test.OtherBuilder");
+        assertThat(bytecodeResult.originatingFiles().get("test.BoxBuilder$Builder"))
+            .singleElement()
+            .satisfies(f -> assertThat(f).endsWith("Box.java"));
+
+        final var sourceTargets = sourceResult.loadClass("test.Usage")
+            .getMethod("targets")
+            .invoke(null);
+        final var bytecodeTargets = bytecodeResult.loadClass("test.Usage")
+            .getMethod("targets")
+            .invoke(null);
+
+        assertThat(bytecodeTargets)
+            .hasToString(sourceTargets.toString())
+            .hasToString(
+                "[Point[x=1, y=2, z=3.5, name=p, tags=[a, b]], "
+                    + "Box[width=1, label=none, size=42], "
+                    + "Box[width=1, label=l, size=7], "
+                    + "5EUR, "
+                    + "Other[c=3]]"
+            );
+    }
+
+    @Test
+    public void reject_unknown_backend() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of("-Acrafter.backend=asm"),
+            SOURCES
+        );
+
+        assertThat(result.success()).isFalse();
+        assertThat(result.diagnostics())
+            .anyMatch(d -> d.getMessage(null).contains("crafter.backend"));
+    }
+}
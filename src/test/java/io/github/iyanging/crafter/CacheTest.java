@@ -0,0 +1,195 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+public class CacheTest {
+    private static final String ENTITY_SOURCE = """
+        package test;
+
+        import io.github.iyanging.crafter.Builder;
+
+        @Builder(rowMapper = true)
+        public record Entity(String a, Integer b) {}
+
+        """;
+
+    private static final String ANOTHER_SOURCE = """
+        package test;
+
+        import io.github.iyanging.crafter.Builder;
+
+        @Builder
+        public record Another(String a) {}
+
+        """;
+
+    @TempDir
+    Path cacheDir;
+
+    private InMemoryCompiler.Result compile(Map<String, String> sources, String... options) {
+        final var optionList = new ArrayList<String>();
+        optionList.add("-Acrafter.cacheDir=" + cacheDir);
+        optionList.addAll(List.of(options));
+
+        final var result = InMemoryCompiler.compile(List.of(new Crafter()), optionList, sources);
+        assertTrue(result.success(), result.diagnostics().toString());
+
+        return result;
+    }
+
+    private static String cacheNote(InMemoryCompiler.Result result) {
+        return result.diagnostics()
+            .stream()
+            .filter(d -> d.getKind() == Diagnostic.Kind.NOTE)
+            .map(d -> d.getMessage(null))
+            .filter(m -> m.contains("cache"))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    @Test
+    public void unchanged_creators_are_read_from_cache() {
+        final var sources = Map.of("test.Entity", ENTITY_SOURCE);
+
+        final var first = compile(sources);
+        final var second = compile(sources);
+
+        assertThat(cacheNote(first)).contains("0 hits, 1 misses");
+        assertThat(cacheNote(second)).contains("1 hits, 0 misses");
+
+        assertThat(second.generatedSources())
+            .containsOnlyKeys("test.EntityBuilder", "test.EntityRowMapper")
+            .isEqualTo(first.generatedSources());
+    }
+
+    @Test
+    public void changed_creators_are_generated_again() {
+        compile(Map.of("test.Entity", ENTITY_SOURCE));
+
+        final var changed = compile(
+            Map.of("test.Entity", ENTITY_SOURCE.replace("Integer b", "Long b"))
+        );
+
+        assertThat(cacheNote(changed)).contains("0 hits, 1 misses");
+        assertThat(changed.generatedSources().get("test.EntityBuilder")).contains("Long b");
+    }
+
+    @Test
+    public void least_recently_used_entries_are_evicted() throws IOException {
+        compile(
+            Map.of("test.Entity", ENTITY_SOURCE, "test.Another", ANOTHER_SOURCE),
+            "-Acrafter.cacheMaxEntries=1"
+        );
+
+        try (var entries = Files.list(cacheDir)) {
+            assertThat(entries).hasSize(1);
+        }
+    }
+
+    @Test
+    public void stale_temporary_files_are_swept() throws IOException {
+        final var stale = Files.createFile(cacheDir.resolve("stale.tmp"));
+        Files.setLastModifiedTime(stale, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+        // possibly being stored by a concurrent build
+        final var storing = Files.createFile(cacheDir.resolve("storing.tmp"));
+
+        compile(Map.of("test.Entity", ENTITY_SOURCE));
+
+        assertThat(stale).doesNotExist();
+        assertThat(storing).exists();
+    }
+
+    @Test
+    public void changed_parameter_types_are_generated_again() {
+        final var entitySource = """
+            package test;
+
+            import io.github.iyanging.crafter.Builder;
+
+            @Builder(binary = true)
+            public record Entity(Status status) {}
+
+            """;
+        final var statusSource = """
+            package test;
+
+            public enum Status { ACTIVE }
+
+            """;
+
+        compile(Map.of("test.Entity", entitySource, "test.Status", statusSource));
+
+        final var changed = compile(
+            Map.of(
+                "test.Entity",
+                entitySource,
+                "test.Status",
+                statusSource.replace("ACTIVE", "ACTIVE, CLOSED")
+            )
+        );
+
+        assertThat(cacheNote(changed)).contains("0 hits, 1 misses");
+    }
+
+    @Test
+    public void creators_with_warnings_are_not_cached() {
+        final var sources = Map.of(
+            "test.Entity",
+            """
+                package test;
+
+                import jakarta.validation.constraints.Email;
+
+                import io.github.iyanging.crafter.Builder;
+
+                @Builder(validate = true)
+                public record Entity(@Email String email) {}
+
+                """
+        );
+
+        compile(sources);
+        final var second = compile(sources);
+
+        assertThat(cacheNote(second)).contains("0 hits, 1 misses");
+        assertThat(second.diagnostics())
+            .anySatisfy(d -> {
+                assertThat(d.getKind()).isEqualTo(Diagnostic.Kind.WARNING);
+                assertThat(d.getMessage(null)).contains("@Email is not supported");
+            });
+    }
+
+    @Test
+    public void cache_hits_are_counted_by_stats() {
+        final var sources = Map.of("test.Entity", ENTITY_SOURCE);
+
+        final var first = compile(sources, "-Acrafter.stats=true");
+        final var second = compile(sources, "-Acrafter.stats=true");
+
+        assertThat(cacheNote(second)).contains("1 hits, 0 misses");
+        assertThat(second.generatedResources().get("crafter-stats.json"))
+            .contains("\"buildersGenerated\": 1")
+            .contains("\"stagesGenerated\": 3")
+            .isNotNull();
+        assertThat(first.generatedResources().get("crafter-stats.json"))
+            .contains("\"stagesGenerated\": 3");
+    }
+}
@@ -0,0 +1,134 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.junit.jupiter.api.Test;
+
+
+public class CollectTest {
+    public record Sale(String product, long amount) {}
+
+    @Builder
+    public record Summary(
+        String region,
+        @Builder.Collect("COUNT") long count,
+        @Builder.Collect("TOTAL") long total,
+        @Builder.Collect("productNames") List<String> products,
+        @Builder.Default("NO_NOTE") String note,
+        @Builder.Collect("byProduct") @Builder.Default("NO_TOTALS") Map<String, Long> totals
+    ) {
+        static final Collector<Sale, ?, Long> COUNT = Collectors.counting();
+
+        static final Collector<Sale, ?, Long> TOTAL = Collectors.summingLong(Sale::amount);
+
+        static final String NO_NOTE = "";
+
+        static final Map<String, Long> NO_TOTALS = Map.of();
+
+        static Collector<Sale, ?, List<String>> productNames() {
+            return Collectors.mapping(Sale::product, Collectors.toList());
+        }
+
+        static Collector<Sale, ?, Map<String, Long>> byProduct() {
+            return Collectors.groupingBy(Sale::product, Collectors.summingLong(Sale::amount));
+        }
+    }
+
+    @Builder(unordered = true)
+    public record Tally(@Builder.Collect("PRODUCTS") Set<String> products) {
+        static final Collector<Sale, ?, Set<String>> PRODUCTS = Collectors.mapping(
+            Sale::product,
+            Collectors.toUnmodifiableSet()
+        );
+    }
+
+    private static List<Sale> makeSales(int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> new Sale("p" + i % 7, i))
+            .toList();
+    }
+
+    @Test
+    public void collect_sequentially() {
+        final var summary = makeSales(3).stream().collect(SummaryBuilder.collector("east"));
+
+        assertThat(summary).isEqualTo(
+            new Summary(
+                "east",
+                3,
+                3,
+                List.of("p0", "p1", "p2"),
+                "",
+                Map.of("p0", 0L, "p1", 1L, "p2", 2L)
+            )
+        );
+    }
+
+    @Test
+    public void collect_in_parallel() {
+        final var sales = makeSales(100_000);
+
+        final var sequential = sales.stream().collect(SummaryBuilder.collector("east"));
+        final var parallel = sales.parallelStream().collect(SummaryBuilder.collector("east"));
+
+        assertThat(parallel).isEqualTo(sequential);
+        assertThat(parallel.count()).isEqualTo(100_000);
+        assertThat(parallel.products()).hasSize(100_000).startsWith("p0", "p1");
+    }
+
+    @Test
+    public void collectors_are_unordered_only_if_all_are() {
+        assertThat(SummaryBuilder.collector("east").characteristics())
+            .doesNotContain(Collector.Characteristics.UNORDERED);
+        assertThat(TallyBuilder.collector().characteristics())
+            .contains(Collector.Characteristics.UNORDERED);
+
+        assertThat(makeSales(100).parallelStream().collect(TallyBuilder.collector()))
+            .isEqualTo(new Tally(Set.of("p0", "p1", "p2", "p3", "p4", "p5", "p6")));
+    }
+
+    @Test
+    public void collectors_must_take_the_same_elements() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(),
+            Map.of(
+                "test.Entity",
+                """
+                    package test;
+
+                    import java.util.stream.Collector;
+                    import java.util.stream.Collectors;
+
+                    import io.github.iyanging.crafter.Builder;
+
+                    @Builder
+                    public record Entity(
+                        @Builder.Collect("A") long a,
+                        @Builder.Collect("B") long b,
+                        @Builder.Collect("MISSING") long c
+                    ) {
+                        static final Collector<String, ?, Long> A = Collectors.counting();
+
+                        static final Collector<Integer, ?, Long> B = Collectors.counting();
+                    }
+
+                    """
+            )
+        );
+
+        assertFalse(result.success());
+        assertThat(result.diagnostics().toString())
+            .contains("parameter b takes java.lang.Integer")
+            .contains("MISSING");
+    }
+}
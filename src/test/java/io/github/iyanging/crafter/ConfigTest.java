@@ -0,0 +1,140 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+
+public class ConfigTest {
+    public enum Mode {
+        READ_ONLY,
+        READ_WRITE
+    }
+
+    @Builder(config = true)
+    public record ServerConfig(
+        String host,
+        int port,
+        boolean secure,
+        @Nullable Long maxBytes,
+        BigDecimal ratio,
+        Mode mode,
+        Duration timeout,
+        @Builder.Default("DEFAULT_RETRIES") int retries
+    ) {
+        static final int DEFAULT_RETRIES = 3;
+    }
+
+    @Builder(config = true, configKeyStyle = Builder.KeyStyle.KEBAB)
+    public record PoolConfig(int maxPoolSize, Duration idleTimeout) {}
+
+    @Test
+    public void bind_from_map_with_prefix() {
+        final var config = ServerConfigBuilder.fromMap(
+            Map.of(
+                "server.host",
+                "localhost",
+                "server.port",
+                8080,
+                "server.secure",
+                "TRUE",
+                "server.ratio",
+                "0.75",
+                "server.mode",
+                "read-only",
+                "server.timeout",
+                "30s",
+                "other.port",
+                "1"
+            ),
+            "server."
+        );
+
+        assertThat(config).isEqualTo(
+            new ServerConfig(
+                "localhost",
+                8080,
+                true,
+                null,
+                new BigDecimal("0.75"),
+                Mode.READ_ONLY,
+                Duration.ofSeconds(30),
+                3
+            )
+        );
+    }
+
+    @Test
+    public void bind_from_properties_with_kebab_keys() {
+        final var defaults = new Properties();
+        defaults.setProperty("idle-timeout", "PT1M");
+
+        final var properties = new Properties(defaults);
+        properties.setProperty("max-pool-size", "16");
+
+        assertThat(PoolConfigBuilder.fromProperties(properties)).isEqualTo(
+            new PoolConfig(16, Duration.ofMinutes(1))
+        );
+    }
+
+    @Test
+    public void enum_constants_are_matched_by_normalized_name() {
+        final var properties = new Properties();
+        properties.setProperty("host", "localhost");
+        properties.setProperty("port", "8080");
+        properties.setProperty("secure", "false");
+        properties.setProperty("ratio", "1");
+        properties.setProperty("mode", " Read_Write ");
+        properties.setProperty("timeout", "1m");
+
+        assertThat(ServerConfigBuilder.fromProperties(properties).mode())
+            .isEqualTo(Mode.READ_WRITE);
+
+        final var map = Map.<String, Object>of(
+            "host",
+            "localhost",
+            "port",
+            8080,
+            "secure",
+            false,
+            "ratio",
+            1,
+            "mode",
+            Mode.READ_ONLY,
+            "timeout",
+            Duration.ZERO
+        );
+
+        assertThat(ServerConfigBuilder.fromMap(map).mode()).isEqualTo(Mode.READ_ONLY);
+
+        final var invalidMap = new HashMap<String, Object>(map);
+        invalidMap.put("mode", "append");
+
+        assertThatThrownBy(() -> ServerConfigBuilder.fromMap(invalidMap))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("mode is not a valid Mode: append");
+    }
+
+    @Test
+    public void report_every_missing_key_and_invalid_value() {
+        assertThatThrownBy(
+            () -> ServerConfigBuilder.fromMap(
+                Map.of("port", "http", "timeout", "soon", "maxBytes", "1", "retries", "x"),
+                ""
+            )
+        )
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Missing keys of ServerConfig: host, secure, ratio, mode")
+            .hasMessageContaining("port is not a valid int: http")
+            .hasMessageContaining("timeout is not a valid duration: soon")
+            .hasMessageContaining("retries is not a valid int: x");
+    }
+}
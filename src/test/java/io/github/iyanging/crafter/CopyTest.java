@@ -0,0 +1,109 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.junit.jupiter.api.Test;
+
+
+public class CopyTest {
+    @Builder(copy = true)
+    public record CopiedRecord<T>(String name, int size, List<T> items) {}
+
+    public static class CopiedClass {
+        final String name;
+        private final boolean enabled;
+        private final long count;
+
+        @Builder(copy = true)
+        public CopiedClass(String name, boolean enabled, long count) {
+            this.name = name;
+            this.enabled = enabled;
+            this.count = count;
+        }
+
+        public boolean isEnabled() { return enabled; }
+
+        public long getCount() { return count; }
+    }
+
+    @Test
+    public void with_replaces_one_record_component() {
+        final var source = new CopiedRecord<>("a", 1, List.of("x"));
+
+        assertThat(CopiedRecordBuilder.withSize(source, 2))
+            .isEqualTo(new CopiedRecord<>("a", 2, List.of("x")));
+        assertThat(CopiedRecordBuilder.withItems(source, List.of("y")))
+            .isEqualTo(new CopiedRecord<>("a", 1, List.of("y")));
+    }
+
+    @Test
+    public void from_prefills_the_builder() {
+        final var source = new CopiedRecord<>("a", 1, List.of("x"));
+
+        final var builder = CopiedRecordBuilder.from(source);
+        builder.name("b");
+
+        assertThat(builder.build()).isEqualTo(new CopiedRecord<>("b", 1, List.of("x")));
+    }
+
+    @Test
+    public void copy_class_through_getters_and_fields() {
+        final var source = new CopiedClass("a", true, 3L);
+
+        final var copied = CopiedClassBuilder.withCount(source, 4L);
+
+        assertThat(copied.name).isEqualTo("a");
+        assertThat(copied.isEnabled()).isTrue();
+        assertThat(copied.getCount()).isEqualTo(4L);
+
+        final var built = CopiedClassBuilder.from(source).build();
+
+        assertThat(built.name).isEqualTo("a");
+        assertThat(built.isEnabled()).isTrue();
+        assertThat(built.getCount()).isEqualTo(3L);
+    }
+
+    @Test
+    public void inaccessible_inherited_members_are_skipped() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(),
+            Map.of(
+                "base.Named",
+                """
+                    package base;
+
+                    public class Named {
+                        protected String getName() { return "named"; }
+                    }
+
+                    """,
+                "test.Child",
+                """
+                    package test;
+
+                    import io.github.iyanging.crafter.Builder;
+
+                    public class Child extends base.Named {
+                        public final String name;
+
+                        @Builder(copy = true)
+                        public Child(String name) { this.name = name; }
+                    }
+
+                    """
+            )
+        );
+
+        assertTrue(result.success(), result.diagnostics().toString());
+
+        assertThat(result.generatedSources().get("test.ChildBuilder"))
+            .doesNotContain("getName()")
+            .contains(".name");
+    }
+}
@@ -0,0 +1,125 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class DefaultTest {
+    @Builder
+    public record Connection(
+        String host,
+        @Builder.Default("DEFAULT_PORT") int port,
+        @Builder.Default("newTags") List<String> tags
+    ) {
+        static final int DEFAULT_PORT = 5432;
+
+        static final AtomicInteger NEW_TAGS_CALLS = new AtomicInteger();
+
+        static List<String> newTags() {
+            NEW_TAGS_CALLS.incrementAndGet();
+            return new ArrayList<>();
+        }
+    }
+
+    @Builder(unordered = true, reusable = true)
+    public record Page(@Builder.Default("FIRST") int number, int size) {
+        static final int FIRST = 1;
+    }
+
+    @BeforeEach
+    public void resetCalls() {
+        Connection.NEW_TAGS_CALLS.set(0);
+    }
+
+    @Test
+    public void defaults_are_used_when_not_set() {
+        final var connection = ConnectionBuilder.builder().host("localhost").build();
+
+        assertThat(connection).isEqualTo(new Connection("localhost", 5432, List.of()));
+        assertThat(Connection.NEW_TAGS_CALLS).hasValue(1);
+    }
+
+    @Test
+    public void defaults_are_not_computed_when_set() {
+        final var connection = ConnectionBuilder.builder()
+            .host("localhost")
+            .tags(List.of("a"))
+            .port(1)
+            .build();
+
+        assertThat(connection).isEqualTo(new Connection("localhost", 1, List.of("a")));
+        assertThat(Connection.NEW_TAGS_CALLS).hasValue(0);
+    }
+
+    @Test
+    public void defaulted_parameters_are_not_required_by_unordered_builders() {
+        final var builder = PageBuilder.builder();
+
+        assertThat(builder.size(10).build()).isEqualTo(new Page(1, 10));
+        // `build()` resets the reusable builder, including whether the default is overridden
+        assertThat(builder.number(3).size(10).build()).isEqualTo(new Page(3, 10));
+        assertThat(builder.size(20).build()).isEqualTo(new Page(1, 20));
+    }
+
+    @Test
+    public void default_must_be_an_assignable_static_member() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(),
+            Map.of(
+                "test.Entity",
+                """
+                    package test;
+
+                    import io.github.iyanging.crafter.Builder;
+
+                    @Builder
+                    public record Entity(@Builder.Default("NAME") int a) {
+                        static final String NAME = "a";
+                    }
+
+                    """
+            )
+        );
+
+        assertFalse(result.success());
+        assertThat(result.diagnostics().toString()).contains("NAME").contains("parameter a");
+    }
+
+    @Test
+    public void defaults_are_rendered_with_imports() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(),
+            Map.of(
+                "test.Entity",
+                """
+                    package test;
+
+                    import io.github.iyanging.crafter.Builder;
+
+                    @Builder
+                    public record Entity(@Builder.Default("DEFAULT_A") int a) {
+                        static final int DEFAULT_A = 1;
+                    }
+
+                    """
+            )
+        );
+
+        assertTrue(result.success(), result.diagnostics().toString());
+        assertThat(result.generatedSources().get("test.EntityBuilder"))
+            .contains(" Entity.DEFAULT_A")
+            .doesNotContain("test.Entity.DEFAULT_A");
+    }
+}
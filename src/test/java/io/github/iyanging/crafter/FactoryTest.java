@@ -0,0 +1,120 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.junit.jupiter.api.Test;
+
+
+public class FactoryTest {
+    public record CurrencyPair(String base, String quote) {
+        static final AtomicInteger CREATED = new AtomicInteger();
+
+        @Builder(intern = true)
+        public static CurrencyPair of(String base, String quote) {
+            CREATED.incrementAndGet();
+            return new CurrencyPair(base, quote);
+        }
+    }
+
+    public record Tagged<T>(T value, List<String> tags) {
+        static final List<String> NO_TAGS = List.of();
+
+        @Builder(intern = true)
+        public static <V> Tagged<V> tagged(V value, @Builder.Default("NO_TAGS") List<String> tags) {
+            return new Tagged<>(value, tags);
+        }
+    }
+
+    @Test
+    public void build_through_static_factory() {
+        final var tagged = TaggedBuilder.<Integer>builder()
+            .value(1)
+            .tags(List.of("a"))
+            .build();
+
+        assertThat(tagged).isEqualTo(new Tagged<>(1, List.of("a")));
+    }
+
+    @Test
+    public void equal_parameters_build_the_same_instance() {
+        final var created = CurrencyPair.CREATED.get();
+
+        final var first = CurrencyPairBuilder.builder().base("EUR").quote("USD").build();
+        final var second = CurrencyPairBuilder.builder().base("EUR").quote("USD").build();
+        final var third = CurrencyPairBuilder.builder().base("USD").quote("EUR").build();
+
+        assertThat(second).isSameAs(first);
+        assertThat(third).isNotSameAs(first).isEqualTo(new CurrencyPair("USD", "EUR"));
+        // the factory is not invoked for an interned pair
+        assertThat(CurrencyPair.CREATED.get() - created).isEqualTo(2);
+    }
+
+    @Test
+    public void defaults_are_part_of_the_interned_key() {
+        final var first = TaggedBuilder.<String>builder().value("a").build();
+        final var second = TaggedBuilder.<String>builder().value("a").tags(List.of()).build();
+        final var third = TaggedBuilder.<String>builder().value("a").tags(List.of("b")).build();
+
+        assertThat(second).isSameAs(first);
+        assertThat(third).isNotSameAs(first);
+    }
+
+    @Test
+    public void factory_must_be_static() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(),
+            Map.of(
+                "test.Entity",
+                """
+                    package test;
+
+                    import io.github.iyanging.crafter.Builder;
+
+                    public record Entity(String a) {
+                        @Builder
+                        public Entity copy(String a) { return new Entity(a); }
+                    }
+
+                    """
+            )
+        );
+
+        assertFalse(result.success());
+        assertThat(result.diagnostics().toString()).contains("static factory methods");
+    }
+
+    @Test
+    public void factories_must_not_share_a_builder() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(),
+            Map.of(
+                "test.Entity",
+                """
+                    package test;
+
+                    import io.github.iyanging.crafter.Builder;
+
+                    @Builder
+                    public record Entity(String a) {
+                        @Builder
+                        public static Entity of(String a) { return new Entity(a); }
+                    }
+
+                    """
+            )
+        );
+
+        assertFalse(result.success());
+        assertThat(result.diagnostics().toString())
+            .contains("test.EntityBuilder is already generated for test.Entity")
+            .doesNotContain("FilerException");
+    }
+}
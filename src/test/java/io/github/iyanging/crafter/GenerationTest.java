@@ -68,4 +68,183 @@ public class GenerationTest {
             results.generatedSources.get(0)
         );
     }
+
+    @Test
+    @Inline(
+        name = "Entity",
+        source = """
+            
+            import io.github.iyanging.crafter.Builder;
+            
+            @Builder(sealed = true)
+            public record Entity(String a, int b) {}
+    
+            """
+    )
+    public void sealed_generate_final_builder_with_sealed_stages(Results results) {
+        assertEquals(1, results.generatedSources.size());
+        assertStructureEquals(
+            """
+                
+                @Generated("%s")
+                public class EntityBuilder {
+                    private EntityBuilder() {}
+                
+                    public sealed interface FirstStage permits Builder { B_ a(String a); }
+                    public sealed interface B_ permits Builder { FinalStage b(int b); }
+                    public sealed interface FinalStage permits Builder { Entity build(); }
+    
+                    public static final class Builder implements FirstStage, B_, FinalStage {
+                        private String a;
+                        private int b;
+                
+                        private Builder() {}
+                
+                        @Override public B_ a(String a);
+                        @Override public FinalStage b(int b);
+                        @Override public Entity build();
+                    }
+                
+                    public static Builder builder();
+                }
+                
+                """.formatted(Crafter.TOOL_NAME),
+            results.generatedSources.get(0)
+        );
+    }
+
+    @Test
+    @Inline(
+        name = "Entity",
+        source = """
+            
+            import io.github.iyanging.crafter.Builder;
+            
+            @Builder(reusable = true)
+            public record Entity(String a, int b) {}
+    
+            """
+    )
+    public void reusable_generate_reset_and_thread_local_builder(Results results) {
+        assertEquals(1, results.generatedSources.size());
+        assertStructureEquals(
+            """
+                
+                @Generated("%s")
+                public class EntityBuilder {
+                    private static final ThreadLocal<Builder> REUSABLE_BUILDER =
+                        ThreadLocal.withInitial(Builder::new);
+                
+                    private EntityBuilder() {}
+                
+                    public interface FirstStage { B_ a(String a); }
+                    public interface B_ { FinalStage b(int b); }
+                    public interface FinalStage { Entity build(); }
+    
+                    public static class Builder implements FirstStage, B_, FinalStage {
+                        protected String a;
+                        protected int b;
+                
+                        @Override public B_ a(String a);
+                        @Override public FinalStage b(int b);
+                        @Override public Entity build();
+                        public Builder reset();
+                    }
+                
+                    public static Builder builder();
+                    public static Builder reusable();
+                }
+                
+                """.formatted(Crafter.TOOL_NAME),
+            results.generatedSources.get(0)
+        );
+    }
+
+    @Test
+    @Inline(
+        name = "Entity",
+        source = """
+            
+            import io.github.iyanging.crafter.Builder;
+            
+            @Builder(unordered = true)
+            public record Entity(String a, int b) {}
+    
+            """
+    )
+    public void unordered_generate_single_builder_without_stages(Results results) {
+        assertEquals(1, results.generatedSources.size());
+        assertStructureEquals(
+            """
+                
+                @Generated("%s")
+                public class EntityBuilder {
+                    private EntityBuilder() {}
+    
+                    public static class Builder {
+                        private static final String[] PARAMETER_NAMES$ = { "a", "b" };
+                        protected long assigned$;
+                        protected String a;
+                        protected int b;
+                
+                        public Builder a(String a);
+                        public Builder b(int b);
+                        public Entity build();
+                        private static String missing$(long assigned$);
+                    }
+                
+                    public static Builder builder();
+                }
+                
+                """.formatted(Crafter.TOOL_NAME),
+            results.generatedSources.get(0)
+        );
+    }
+
+    @Test
+    @Inline(
+        name = "Entity",
+        source = """
+            
+            import io.github.iyanging.crafter.Builder;
+            
+            @Builder
+            public record Entity(String a, @Builder.Default("B") int b) {
+                static final int B = 1;
+            }
+    
+            """
+    )
+    public void default_generate_optional_setter_on_final_stage(Results results) {
+        assertEquals(1, results.generatedSources.size());
+        assertStructureEquals(
+            """
+                
+                @Generated("%s")
+                public class EntityBuilder {
+                    private EntityBuilder() {}
+                
+                    public interface FirstStage { FinalStage a(String a); }
+                    public interface FinalStage {
+                        Entity build();
+                        FinalStage b(int b);
+                    }
+    
+                    public static class Builder implements FirstStage, FinalStage {
+                        protected String a;
+                        protected int b;
+                        protected boolean bAssigned$;
+                
+                        @Override public FinalStage a(String a);
+                        @Override public Entity build();
+                        @Override public FinalStage b(int b);
+                    }
+                
+                    public static Builder builder();
+                }
+                
+                """.formatted(Crafter.TOOL_NAME),
+            results.generatedSources.get(0)
+        );
+    }
 }
@@ -0,0 +1,167 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.gradle.testkit.runner.GradleRunner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+/**
+ * Gradle isolating processors must tie every generated file to exactly one originating element,
+ * so that editing one annotated type only recompiles that type and its builder.
+ */
+public class IncrementalTest {
+    private static final String ENTITY_SOURCE = """
+        package test;
+
+        import io.github.iyanging.crafter.Builder;
+
+        @Builder
+        public record Entity(String a, Integer b) {}
+
+        """;
+
+    private static final String ANOTHER_SOURCE = """
+        package test;
+
+        import io.github.iyanging.crafter.Builder;
+
+        public class Another {
+            String a;
+
+            @Builder
+            public Another(String a) { this.a = a; }
+
+            public static class Inner {
+                @Builder
+                public record InnerEntity(String a) {}
+            }
+        }
+
+        """;
+
+    @Test
+    public void each_builder_is_originated_from_its_own_source() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(),
+            Map.of(
+                "test.Entity",
+                ENTITY_SOURCE,
+                "test.Another",
+                ANOTHER_SOURCE
+            )
+        );
+
+        assertTrue(result.success(), result.diagnostics().toString());
+
+        assertThat(result.originatingFiles())
+            .containsOnlyKeys(
+                "test.EntityBuilder",
+                "test.AnotherBuilder",
+                "test.InnerEntityBuilder"
+            );
+
+        assertThat(result.originatingFiles().get("test.EntityBuilder"))
+            .singleElement()
+            .asString()
+            .endsWith("test/Entity.java");
+
+        assertThat(result.originatingFiles().get("test.AnotherBuilder"))
+            .singleElement()
+            .asString()
+            .endsWith("test/Another.java");
+
+        assertThat(result.originatingFiles().get("test.InnerEntityBuilder"))
+            .singleElement()
+            .asString()
+            .endsWith("test/Another.java");
+    }
+
+    @Test
+    public void editing_one_source_only_recompiles_its_builder(@TempDir Path projectDir)
+        throws IOException {
+        // the processor built by this project, see `tasks.test` in build.gradle.kts
+        final var processorPath = Objects.requireNonNull(
+            System.getProperty("crafter.processorPath")
+        );
+
+        Files.writeString(projectDir.resolve("settings.gradle"), "rootProject.name = 'app'\n");
+        Files.writeString(projectDir.resolve("build.gradle"), """
+            plugins { id 'java' }
+
+            def processor = files(property('processorPath').split(File.pathSeparator))
+
+            dependencies {
+                compileOnly processor
+                annotationProcessor processor
+            }
+            """);
+
+        final var sourceDir = Files.createDirectories(projectDir.resolve("src/main/java/test"));
+        Files.writeString(sourceDir.resolve("Entity.java"), ENTITY_SOURCE);
+        Files.writeString(sourceDir.resolve("Another.java"), ANOTHER_SOURCE);
+
+        final var runner = GradleRunner.create()
+            .withProjectDir(projectDir.toFile())
+            .withArguments("compileJava", "--info", "-PprocessorPath=" + processorPath);
+
+        runner.build();
+
+        final var classDir = projectDir.resolve("build/classes/java/main/test");
+        final var entityClasses = List.of("Entity.class", "EntityBuilder.class");
+        final var anotherClasses = List.of(
+            "Another.class",
+            "AnotherBuilder.class",
+            "InnerEntityBuilder.class"
+        );
+
+        final var compiledMap = lastModified(classDir, entityClasses);
+        final var untouchedMap = lastModified(classDir, anotherClasses);
+
+        Files.writeString(
+            sourceDir.resolve("Entity.java"),
+            ENTITY_SOURCE.replace("Integer b", "Integer b, Long c")
+        );
+
+        final var output = runner.build().getOutput();
+
+        assertThat(output).doesNotContain("Full recompilation is required");
+
+        assertThat(lastModified(classDir, entityClasses))
+            .allSatisfy((name, time) -> assertThat(time).isNotEqualTo(compiledMap.get(name)));
+        assertThat(lastModified(classDir, anotherClasses)).isEqualTo(untouchedMap);
+
+        assertThat(
+            Files.readString(
+                projectDir.resolve(
+                    "build/generated/sources/annotationProcessor/java/main/test/EntityBuilder.java"
+                )
+            )
+        )
+            .contains("Long c");
+    }
+
+    private static Map<String, FileTime> lastModified(Path directory, List<String> nameList)
+        throws IOException {
+        final var timeMap = new HashMap<String, FileTime>();
+
+        for (final var name : nameList) {
+            timeMap.put(name, Files.getLastModifiedTime(directory.resolve(name)));
+        }
+
+        return timeMap;
+    }
+}
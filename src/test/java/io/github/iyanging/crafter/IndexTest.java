@@ -0,0 +1,130 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+
+import io.github.iyanging.crafter.runtime.BuilderIndex;
+import io.github.iyanging.crafter.runtime.BuilderRegistry;
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.junit.jupiter.api.Test;
+
+
+public class IndexTest {
+    private static final Map<String, String> SOURCES = Map.of(
+        "test.Entity",
+        """
+            package test;
+
+            import io.github.iyanging.crafter.Builder;
+
+            @Builder
+            public record Entity(String a, int b) {}
+
+            """,
+        "test.Cell",
+        """
+            package test;
+
+            import io.github.iyanging.crafter.Builder;
+
+            @Builder
+            public record Cell<T>(T value) {}
+
+            """,
+        "test.other.Money",
+        """
+            package test.other;
+
+            import io.github.iyanging.crafter.Builder;
+
+            public final class Money {
+                private final long cents;
+
+                private Money(long cents) {
+                    this.cents = cents;
+                }
+
+                @Builder
+                public static Money of(long cents) {
+                    return new Money(cents);
+                }
+
+                @Override
+                public String toString() {
+                    return cents + "c";
+                }
+            }
+
+            """,
+        "test.other.Hidden",
+        """
+            package test.other;
+
+            import io.github.iyanging.crafter.Builder;
+
+            @Builder
+            record Hidden(long c) {}
+
+            """
+    );
+
+    @Test
+    public void look_up_factories_by_target_class() throws Exception {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of("-Acrafter.index=test.CrafterIndex"),
+            SOURCES
+        );
+
+        assertTrue(result.success(), result.diagnostics().toString());
+
+        assertThat(
+            result.generatedResources()
+                .get("META-INF/services/io.github.iyanging.crafter.runtime.BuilderIndex")
+        ).isEqualTo("test.CrafterIndex\n");
+
+        final var index = (BuilderIndex) result.loadClass("test.CrafterIndex")
+            .getConstructor()
+            .newInstance();
+        final var registry = new BuilderRegistry(List.of(index));
+
+        final var entityClass = result.loadClass("test.Entity");
+        final var entityFactory = registry.get(entityClass);
+
+        assertThat(entityFactory.parameterNames()).containsExactly("a", "b");
+        assertThat(entityFactory.parameterTypes()).containsExactly(String.class, int.class);
+        assertThat(entityFactory.create("a", 1)).hasToString("Entity[a=a, b=1]");
+        assertThat(entityFactory.builder().getClass().getName())
+            .isEqualTo("test.EntityBuilder$Builder");
+        assertThat(registry.find(entityClass)).get().isSameAs(entityFactory);
+
+        assertThat(registry.get(result.loadClass("test.Cell")).create("x"))
+            .hasToString("Cell[value=x]");
+        assertThat(registry.get(result.loadClass("test.other.Money")).create(5L))
+            .hasToString("5c");
+
+        // a package-private target of another package cannot be created by the index
+        assertThat(registry.find(result.loadClass("test.other.Hidden"))).isEmpty();
+        assertThat(result.diagnostics())
+            .anySatisfy(d -> {
+                assertThat(d.getKind()).isEqualTo(Diagnostic.Kind.WARNING);
+                assertThat(d.getMessage(null)).contains("test.other.Hidden is left out");
+            });
+
+        assertThat(registry.find(String.class)).isEmpty();
+    }
+
+    @Test
+    public void index_is_not_generated_by_default() {
+        final var result = InMemoryCompiler.compile(List.of(new Crafter()), List.of(), SOURCES);
+
+        assertTrue(result.success(), result.diagnostics().toString());
+        assertThat(result.generatedSources()).doesNotContainKey("test.CrafterIndex");
+        assertThat(result.generatedResources()).isEmpty();
+    }
+}
@@ -0,0 +1,195 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import io.github.iyanging.crafter.runtime.JsonReader;
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+
+public class JsonTest {
+    public enum Tier {
+        FREE,
+        PAID
+    }
+
+    @Builder(json = true)
+    public record Address(String city, @Nullable String zip) {}
+
+    @Builder(json = true)
+    public record Customer(
+        long id,
+        String name,
+        @Nullable Integer age,
+        double score,
+        boolean active,
+        BigDecimal balance,
+        @Nullable Tier tier,
+        Address address,
+        List<String> tags,
+        @Builder.Default("NO_ADDRESSES") List<Address> previousAddresses
+    ) {
+        static final List<Address> NO_ADDRESSES = List.of();
+    }
+
+    private static final Customer CUSTOMER = new Customer(
+        1L,
+        "a \"quoted\"\nname",
+        null,
+        0.5,
+        true,
+        new BigDecimal("12.30"),
+        Tier.PAID,
+        new Address("Hangzhou", null),
+        List.of("x", "y"),
+        List.of(new Address("Shanghai", "200000"))
+    );
+
+    @Test
+    public void write_and_read_back() {
+        final var json = CustomerJson.toJson(CUSTOMER);
+
+        assertThat(json).isEqualTo(
+            "{\"id\":1,\"name\":\"a \\\"quoted\\\"\\nname\",\"age\":null,\"score\":0.5,"
+                + "\"active\":true,\"balance\":12.30,\"tier\":\"PAID\","
+                + "\"address\":{\"city\":\"Hangzhou\",\"zip\":null},\"tags\":[\"x\",\"y\"],"
+                + "\"previousAddresses\":[{\"city\":\"Shanghai\",\"zip\":\"200000\"}]}"
+        );
+        assertThat(CustomerJson.fromJson(json)).isEqualTo(CUSTOMER);
+    }
+
+    @Test
+    public void read_in_any_order_and_skip_unknown_members() {
+        final var customer = CustomerJson.fromJson(
+            """
+                {
+                    "tags": [],
+                    "unknown": {"nested": [1, 2.5, "3", null, true]},
+                    "address": {"city": "Hangzhou"},
+                    "balance": 1e2,
+                    "active": false,
+                    "score": -1,
+                    "name": "b",
+                    "id": 2
+                }
+                """
+        );
+
+        assertThat(customer).isEqualTo(
+            new Customer(
+                2L,
+                "b",
+                null,
+                -1.0,
+                false,
+                new BigDecimal("1e2"),
+                null,
+                new Address("Hangzhou", null),
+                List.of(),
+                List.of()
+            )
+        );
+    }
+
+    @Test
+    public void read_from_a_shared_reader() {
+        final var reader = new JsonReader("[{\"city\":\"a\"},{\"city\":\"b\",\"zip\":\"1\"}]");
+
+        final var addresses = new ArrayList<Address>();
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            addresses.add(AddressJson.read(reader));
+        }
+        reader.endArray();
+        reader.endDocument();
+
+        assertThat(addresses).containsExactly(
+            new Address("a", null),
+            new Address("b", "1")
+        );
+    }
+
+    @Test
+    public void report_every_missing_member() {
+        assertThatThrownBy(() -> CustomerJson.fromJson("{\"id\":1,\"age\":3}"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("name, score, active, balance, address, tags");
+    }
+
+    @Test
+    public void report_malformed_documents_with_position() {
+        assertThatThrownBy(() -> AddressJson.fromJson("{\"city\":\"a\",}"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("position 12");
+
+        assertThatThrownBy(() -> AddressJson.fromJson("{\"city\":\"a\"} {}"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("end of the document");
+
+        assertThatThrownBy(() -> CustomerJson.fromJson("{\"id\":1.5}"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("Expected an integer");
+    }
+
+    @Test
+    public void numbers_and_literals_follow_the_json_grammar() {
+        for (final var number : List.of("1-2", "+1", "01", "-", "1.", ".5", "1e", "1x")) {
+            assertThatThrownBy(() -> new JsonReader(number).nextNumberText())
+                .as(number)
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        for (final var literal : List.of("trueX", "falsey", "null1")) {
+            assertThatThrownBy(() -> new JsonReader(literal).skipValue())
+                .as(literal)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unexpected character");
+        }
+
+        assertThat(new JsonReader(" -0.5E+3 ").nextNumberText()).isEqualTo("-0.5E+3");
+        assertThat(new JsonReader("-9223372036854775808").nextLong()).isEqualTo(Long.MIN_VALUE);
+        assertThatThrownBy(() -> new JsonReader("1e3").nextLong())
+            .hasMessageContaining("Expected an integer");
+
+        final var reader = new JsonReader("[true,null,0]");
+        reader.beginArray();
+        assertThat(reader.hasNext() && reader.nextBoolean()).isTrue();
+        assertThat(reader.hasNext() && reader.nextIfNull()).isTrue();
+        assertThat(reader.hasNext() ? reader.nextInt() : -1).isZero();
+        assertThat(reader.hasNext()).isFalse();
+        reader.endArray();
+        reader.endDocument();
+    }
+
+    @Test
+    public void unsupported_parameter_types_are_reported() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(),
+            Map.of(
+                "test.Entity",
+                """
+                    package test;
+
+                    import io.github.iyanging.crafter.Builder;
+
+                    @Builder(json = true)
+                    public record Entity(Thread thread) {}
+
+                    """
+            )
+        );
+
+        assertFalse(result.success());
+        assertThat(result.diagnostics().toString()).contains("cannot be mapped to JSON");
+    }
+}
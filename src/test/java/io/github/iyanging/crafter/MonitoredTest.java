@@ -0,0 +1,95 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.time.Duration;
+
+import javax.management.ObjectName;
+
+import io.github.iyanging.crafter.runtime.BuildCounter;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+
+public class MonitoredTest {
+    @Builder(monitored = true)
+    public record MonitoredPoint(int x, int y) {}
+
+    @Builder(monitored = true, unordered = true, reusable = true)
+    public record MonitoredCell<T>(T value) {}
+
+    @Builder(monitored = true)
+    public record MonitoredLine(int length) {}
+
+    @Test
+    public void builds_are_counted_by_mxbean() throws Exception {
+        final var name = new ObjectName(
+            "io.github.iyanging.crafter:type=BuildCounter,name=%s"
+                .formatted(ObjectName.quote(MonitoredCell.class.getName()))
+        );
+
+        MonitoredCellBuilder.reusable().value("a").build();
+        final var before = (long) ManagementFactory.getPlatformMBeanServer()
+            .getAttribute(name, "BuildCount");
+
+        MonitoredCellBuilder.reusable().value("b").build();
+        MonitoredCellBuilder.builder().value(1).build();
+
+        final var after = (long) ManagementFactory.getPlatformMBeanServer()
+            .getAttribute(name, "BuildCount");
+
+        assertThat(after - before).isEqualTo(2);
+    }
+
+    @Test
+    public void counters_can_be_unregistered() throws Exception {
+        final var name = new ObjectName(
+            "io.github.iyanging.crafter:type=BuildCounter,name=%s"
+                .formatted(ObjectName.quote(MonitoredLine.class.getName()))
+        );
+        final var server = ManagementFactory.getPlatformMBeanServer();
+
+        assertThat(MonitoredLineBuilder.builder().length(1).build().length()).isEqualTo(1);
+        assertThat(server.isRegistered(name)).isTrue();
+
+        BuildCounter.unregister(MonitoredLine.class);
+        assertThat(server.isRegistered(name)).isFalse();
+
+        // builds still work, and unregistering again is harmless
+        assertThat(MonitoredLineBuilder.builder().length(2).build().length()).isEqualTo(2);
+        BuildCounter.unregister(MonitoredLine.class);
+    }
+
+    @Test
+    public void builds_are_recorded_by_jfr() throws Exception {
+        final var path = Files.createTempFile("monitored", ".jfr");
+
+        try (var recording = new Recording()) {
+            recording.enable("io.github.iyanging.crafter.Build");
+            recording.start();
+
+            final var point = MonitoredPointBuilder.builder().x(1).y(2).build();
+            assertThat(point).isEqualTo(new MonitoredPoint(1, 2));
+
+            recording.stop();
+            recording.dump(path);
+        }
+
+        try {
+            assertThat(RecordingFile.readAllEvents(path))
+                .anySatisfy(event -> {
+                    assertThat(event.getEventType().getName())
+                        .isEqualTo("io.github.iyanging.crafter.Build");
+                    assertThat(event.getClass("targetClass").getName())
+                        .isEqualTo(MonitoredPoint.class.getName());
+                    assertThat(event.getDuration()).isGreaterThanOrEqualTo(Duration.ZERO);
+                });
+
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Rendering on several threads must not change what is generated, nor the order it is written in.
+ */
+public class ParallelismTest {
+    private static Map<String, String> makeSources(int count) {
+        final var sources = new LinkedHashMap<String, String>();
+
+        for (var i = 0; i < count; i++) {
+            sources.put(
+                "test.Entity" + i,
+                """
+                    package test;
+
+                    import io.github.iyanging.crafter.Builder;
+
+                    @Builder(rowMapper = true)
+                    public record Entity%d(String a, int b, long c) {}
+
+                    """.formatted(i)
+            );
+        }
+
+        return sources;
+    }
+
+    @Test
+    public void parallel_rendering_is_identical_to_sequential_rendering() {
+        final var sources = makeSources(32);
+
+        final var sequential = InMemoryCompiler.compile(List.of(new Crafter()), List.of(), sources);
+        final var parallel = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of("-Acrafter.parallelism=4"),
+            sources
+        );
+
+        assertTrue(sequential.success(), sequential.diagnostics().toString());
+        assertTrue(parallel.success(), parallel.diagnostics().toString());
+
+        assertThat(parallel.generatedSources()).hasSize(64);
+        assertThat(parallel.generatedSources().keySet())
+            .containsExactlyElementsOf(sequential.generatedSources().keySet());
+        assertThat(parallel.generatedSources()).isEqualTo(sequential.generatedSources());
+    }
+
+    @Test
+    public void parallelism_must_be_positive() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of("-Acrafter.parallelism=0"),
+            makeSources(1)
+        );
+
+        assertFalse(result.success());
+        assertThat(result.diagnostics().toString()).contains("crafter.parallelism");
+    }
+}
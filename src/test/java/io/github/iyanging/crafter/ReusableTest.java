@@ -0,0 +1,63 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+
+public class ReusableTest {
+    @Builder(reusable = true)
+    public record ReusablePoint(int x, int y, String label) {}
+
+    @Builder(reusable = true)
+    public record ReusableBox<T>(T value, List<T> values) {}
+
+    @Test
+    public void reusable_returns_the_same_builder_in_one_thread() {
+        assertThat(ReusablePointBuilder.reusable()).isSameAs(ReusablePointBuilder.reusable());
+    }
+
+    @Test
+    public void build_resets_the_builder() {
+        final var builder = ReusablePointBuilder.builder();
+
+        final var first = builder.x(1).y(2).label("first").build();
+
+        assertThat(first).isEqualTo(new ReusablePoint(1, 2, "first"));
+        assertThat(builder.x).isZero();
+        assertThat(builder.y).isZero();
+        assertThat(builder.label).isNull();
+
+        final var second = builder.x(3).y(4).label("second").build();
+
+        assertThat(second).isEqualTo(new ReusablePoint(3, 4, "second"));
+    }
+
+    @Test
+    public void reusable_discards_an_abandoned_chain() {
+        ReusablePointBuilder.reusable().x(1).y(2);
+
+        final var builder = ReusablePointBuilder.reusable();
+
+        assertThat(builder.x).isZero();
+        assertThat(builder.y).isZero();
+    }
+
+    @Test
+    public void reusable_serves_any_type_arguments() {
+        final var strings = ReusableBoxBuilder.<String>reusable()
+            .value("a")
+            .values(List.of("a", "b"))
+            .build();
+
+        final var integers = ReusableBoxBuilder.<Integer>reusable()
+            .value(1)
+            .values(List.of(1, 2))
+            .build();
+
+        assertThat(strings).isEqualTo(new ReusableBox<>("a", List.of("a", "b")));
+        assertThat(integers).isEqualTo(new ReusableBox<>(1, List.of(1, 2)));
+    }
+}
@@ -0,0 +1,170 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+
+public class RowMapperTest {
+    public enum Status {
+        ACTIVE,
+        CLOSED
+    }
+
+    @Builder(rowMapper = true)
+    public record Account(
+        long id,
+        String name,
+        @Nullable Integer age,
+        BigDecimal balance,
+        @Nullable Status status,
+        LocalDate createdAt
+    ) {}
+
+    @Builder(rowMapper = true)
+    public record Counter(String name, @Builder.Default("DEFAULT_HITS") int hits, long total) {
+        static final int DEFAULT_HITS = -1;
+    }
+
+    private static final List<String> LABELS = List.of(
+        "ID",
+        "NAME",
+        "AGE",
+        "BALANCE",
+        "STATUS",
+        "CREATED_AT"
+    );
+
+    @Test
+    public void map_rows_by_column_label() throws SQLException {
+        final var resultSet = makeResultSet(
+            LABELS,
+            List.of(
+                new @Nullable Object[] {
+                    1L,
+                    "a",
+                    30,
+                    BigDecimal.TEN,
+                    "ACTIVE",
+                    LocalDate.of(2024, 1, 1) },
+                new @Nullable Object[] {
+                    2L,
+                    "b",
+                    null,
+                    BigDecimal.ONE,
+                    null,
+                    LocalDate.of(2024, 1, 2) }
+            )
+        );
+
+        try (var accounts = AccountRowMapper.stream(resultSet)) {
+            assertThat(accounts).containsExactly(
+                new Account(1L, "a", 30, BigDecimal.TEN, Status.ACTIVE, LocalDate.of(2024, 1, 1)),
+                new Account(2L, "b", null, BigDecimal.ONE, null, LocalDate.of(2024, 1, 2))
+            );
+        }
+    }
+
+    @Test
+    public void report_every_missing_column() {
+        final var resultSet = makeResultSet(List.of("ID", "NAME"), List.of());
+
+        assertThatThrownBy(() -> AccountRowMapper.of(resultSet.getMetaData()))
+            .isInstanceOf(SQLException.class)
+            .hasMessageContaining("age, balance, status, createdAt");
+    }
+
+    @Test
+    public void defaulted_columns_are_optional() throws SQLException {
+        final var resultSet = makeResultSet(
+            List.of("NAME", "TOTAL"),
+            List.<@Nullable Object[]>of(new @Nullable Object[] { "a", 5L })
+        );
+
+        try (var counters = CounterRowMapper.stream(resultSet)) {
+            assertThat(counters).containsExactly(new Counter("a", -1, 5L));
+        }
+    }
+
+    @Test
+    public void primitive_null_falls_back_to_default_or_fails() throws SQLException {
+        final var labels = List.of("NAME", "HITS", "TOTAL");
+
+        final var defaulted = makeResultSet(
+            labels,
+            List.<@Nullable Object[]>of(new @Nullable Object[] { "a", null, 5L })
+        );
+        defaulted.next();
+
+        assertThat(CounterRowMapper.of(defaulted.getMetaData()).map(defaulted))
+            .isEqualTo(new Counter("a", -1, 5L));
+
+        final var required = makeResultSet(
+            labels,
+            List.<@Nullable Object[]>of(new @Nullable Object[] { "a", 1, null })
+        );
+        required.next();
+
+        assertThatThrownBy(() -> CounterRowMapper.of(required.getMetaData()).map(required))
+            .isInstanceOf(SQLException.class)
+            .hasMessage("Column of primitive parameter total of Counter is NULL");
+    }
+
+    /**
+     * In-memory stand-in of a JDBC {@link ResultSet}, which only supports what the generated
+     * mappers use.
+     */
+    private static ResultSet makeResultSet(List<String> labels, List<@Nullable Object[]> rows) {
+        final var metaData = (ResultSetMetaData) Proxy.newProxyInstance(
+            RowMapperTest.class.getClassLoader(),
+            new Class<?>[] { ResultSetMetaData.class },
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getColumnCount" -> labels.size();
+                case "getColumnLabel" -> labels.get((int) args[0] - 1);
+                default -> throw new UnsupportedOperationException(method.getName());
+            }
+        );
+
+        final var state = new Object() {
+            int row = -1;
+            boolean wasNull = false;
+        };
+
+        return (ResultSet) Proxy.newProxyInstance(
+            RowMapperTest.class.getClassLoader(),
+            new Class<?>[] { ResultSet.class },
+            (proxy, method, args) -> {
+                if (method.getName().equals("getMetaData")) {
+                    return metaData;
+
+                } else if (method.getName().equals("next")) {
+                    state.row += 1;
+                    return state.row < rows.size();
+
+                } else if (method.getName().equals("wasNull")) {
+                    return state.wasNull;
+                }
+
+                final var value = rows.get(state.row)[(int) args[0] - 1];
+                state.wasNull = value == null;
+
+                return switch (method.getName()) {
+                    case "getLong" -> value == null ? 0L : value;
+                    case "getInt" -> value == null ? 0 : value;
+                    case "getString", "getBigDecimal", "getObject" -> value;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                };
+            }
+        );
+    }
+}
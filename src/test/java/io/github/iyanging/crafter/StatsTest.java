@@ -0,0 +1,61 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.Diagnostic;
+
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.junit.jupiter.api.Test;
+
+
+public class StatsTest {
+    private static final Map<String, String> SOURCES = Map.of(
+        "test.Entity",
+        """
+            package test;
+
+            import io.github.iyanging.crafter.Builder;
+
+            @Builder
+            public record Entity(String a, Integer b, long c) {}
+
+            """
+    );
+
+    @Test
+    public void stats_are_reported_when_enabled() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of("-Acrafter.stats=true"),
+            SOURCES
+        );
+
+        assertTrue(result.success(), result.diagnostics().toString());
+
+        assertThat(result.generatedResources()).containsOnlyKeys("crafter-stats.json");
+        assertThat(result.generatedResources().get("crafter-stats.json"))
+            .contains("\"buildersGenerated\": 1")
+            // FirstStage, B_, C_ and FinalStage
+            .contains("\"stagesGenerated\": 4")
+            .contains("\"filesWritten\": 1")
+            .contains("\"generateBuilderForCreator\": { \"calls\": 1");
+
+        assertThat(result.diagnostics())
+            .anySatisfy(d -> {
+                assertThat(d.getKind()).isEqualTo(Diagnostic.Kind.NOTE);
+                assertThat(d.getMessage(null)).contains("generated 1 builders");
+            });
+    }
+
+    @Test
+    public void stats_are_not_reported_by_default() {
+        final var result = InMemoryCompiler.compile(List.of(new Crafter()), List.of(), SOURCES);
+
+        assertTrue(result.success(), result.diagnostics().toString());
+        assertThat(result.generatedResources()).isEmpty();
+    }
+}
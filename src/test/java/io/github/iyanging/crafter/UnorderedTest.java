@@ -0,0 +1,162 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+
+public class UnorderedTest {
+    @Builder(unordered = true)
+    public record UnorderedPoint(int x, int y, String label) {}
+
+    @Builder(unordered = true, reusable = true, copy = true)
+    public record UnorderedBox<T>(T value, List<T> values) {}
+
+    // more parameters than the bits of a long
+    @Builder(unordered = true)
+    public record UnorderedWide(
+        int p0,
+        int p1,
+        int p2,
+        int p3,
+        int p4,
+        int p5,
+        int p6,
+        int p7,
+        int p8,
+        int p9,
+        int p10,
+        int p11,
+        int p12,
+        int p13,
+        int p14,
+        int p15,
+        int p16,
+        int p17,
+        int p18,
+        int p19,
+        int p20,
+        int p21,
+        int p22,
+        int p23,
+        int p24,
+        int p25,
+        int p26,
+        int p27,
+        int p28,
+        int p29,
+        int p30,
+        int p31,
+        int p32,
+        int p33,
+        int p34,
+        int p35,
+        int p36,
+        int p37,
+        int p38,
+        int p39,
+        int p40,
+        int p41,
+        int p42,
+        int p43,
+        int p44,
+        int p45,
+        int p46,
+        int p47,
+        int p48,
+        int p49,
+        int p50,
+        int p51,
+        int p52,
+        int p53,
+        int p54,
+        int p55,
+        int p56,
+        int p57,
+        int p58,
+        int p59,
+        int p60,
+        int p61,
+        int p62,
+        int p63,
+        int p64,
+        int p65
+    ) {}
+
+    @Test
+    public void setters_can_be_called_in_any_order() {
+        final var point = UnorderedPointBuilder.builder()
+            .label("a")
+            .y(2)
+            .x(1)
+            .build();
+
+        assertThat(point).isEqualTo(new UnorderedPoint(1, 2, "a"));
+    }
+
+    @Test
+    public void build_names_every_missing_parameter() {
+        assertThatThrownBy(() -> UnorderedPointBuilder.builder().y(2).build())
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Missing parameters of UnorderedPoint: x, label");
+    }
+
+    @Test
+    public void reset_forgets_assigned_parameters() {
+        final var builder = UnorderedBoxBuilder.<String>builder();
+
+        builder.value("a").values(List.of("a")).build();
+
+        assertThatThrownBy(() -> builder.value("b").build())
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Missing parameters of UnorderedBox: values");
+    }
+
+    @Test
+    public void from_assigns_every_parameter() {
+        final var box = UnorderedBoxBuilder.from(new UnorderedBox<>("a", List.of("a")))
+            .value("b")
+            .build();
+
+        assertThat(box).isEqualTo(new UnorderedBox<>("b", List.of("a")));
+    }
+
+    @Test
+    public void mask_spans_several_words() {
+        final var builder = UnorderedWideBuilder.builder();
+
+        final var setters = UnorderedWideBuilder.Builder.class;
+        for (var i = 0; i < 66; i++) {
+            if (i == 3 || i == 65) {
+                continue;
+            }
+
+            invoke(setters, builder, "p" + i, i);
+        }
+
+        assertThatThrownBy(builder::build)
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("Missing parameters of UnorderedWide: p3, p65");
+
+        invoke(setters, builder, "p3", 3);
+        invoke(setters, builder, "p65", 65);
+
+        final var wide = builder.build();
+
+        assertThat(wide.p0()).isZero();
+        assertThat(wide.p3()).isEqualTo(3);
+        assertThat(wide.p65()).isEqualTo(65);
+    }
+
+    private static void invoke(Class<?> clazz, Object target, String name, int value) {
+        try {
+            clazz.getMethod(name, int.class).invoke(target, value);
+
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
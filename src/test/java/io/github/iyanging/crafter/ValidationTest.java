@@ -0,0 +1,187 @@
+package io.github.iyanging.crafter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.validation.constraints.*;
+
+import io.github.iyanging.crafter.util.InMemoryCompiler;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+
+public class ValidationTest {
+    @Builder(validate = true)
+    public record Signup(
+        @NotBlank @Size(max = 8) String name,
+        @Pattern(
+            regexp = "[a-z]+@example\\.com",
+            flags = Pattern.Flag.CASE_INSENSITIVE
+        ) String email,
+        @Min(18) @Max(150) int age,
+        @PositiveOrZero BigDecimal balance,
+        @NotEmpty List<String> roles,
+        @Nullable @Positive Long referrer,
+        @Builder.Default("DEFAULT_LEVEL") @Min(1) int level
+    ) {
+        static final int DEFAULT_LEVEL = 1;
+    }
+
+    @Test
+    @SuppressWarnings("NullAway") // the generated setter does not carry the type-use @Nullable
+    public void valid_parameters_are_built() {
+        final var signup = SignupBuilder.builder()
+            .name("alice")
+            .email("Alice@Example.com")
+            .age(30)
+            .balance(BigDecimal.ZERO)
+            .roles(List.of("admin"))
+            .referrer(null)
+            .build();
+
+        assertThat(signup.level()).isEqualTo(1);
+    }
+
+    @Test
+    public void every_violation_is_reported() {
+        assertThatThrownBy(
+            () -> SignupBuilder.builder()
+                .name(" ")
+                .email("alice@example.org")
+                .age(17)
+                .balance(BigDecimal.valueOf(-1))
+                .roles(List.of())
+                .referrer(0L)
+                .level(0)
+                .build()
+        )
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage(
+                "Invalid Signup: "
+                    + "name must not be blank, "
+                    + "email must match \"[a-z]+@example\\.com\", "
+                    + "age must be greater than or equal to 18, "
+                    + "balance must be greater than or equal to 0, "
+                    + "roles must not be empty, "
+                    + "referrer must be greater than 0, "
+                    + "level must be greater than or equal to 1"
+            );
+    }
+
+    @Test
+    public void size_is_checked() {
+        assertThatThrownBy(
+            () -> SignupBuilder.builder()
+                .name("a-very-long-name")
+                .email("alice@example.com")
+                .age(151)
+                .balance(BigDecimal.ONE)
+                .roles(List.of("admin"))
+                .referrer(1L)
+                .build()
+        )
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage(
+                "Invalid Signup: "
+                    + "name size must be between 0 and 8, "
+                    + "age must be less than or equal to 150"
+            );
+    }
+
+    @Builder(validate = true)
+    public record Coupon(
+        @Pattern.List({ @Pattern(regexp = "[A-Z0-9]+"), @Pattern(regexp = "SALE.*") }) String code,
+        @Size(min = 1) @Size(max = 2) List<String> items
+    ) {}
+
+    @Test
+    public void repeated_constraints_are_checked() {
+        assertThat(CouponBuilder.builder().code("SALE10").items(List.of("a")).build())
+            .isEqualTo(new Coupon("SALE10", List.of("a")));
+
+        assertThatThrownBy(
+            () -> CouponBuilder.builder().code("sale").items(List.of("a", "b", "c")).build()
+        )
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage(
+                "Invalid Coupon: "
+                    + "code must match \"[A-Z0-9]+\", "
+                    + "code must match \"SALE.*\", "
+                    + "items size must be between 0 and 2"
+            );
+
+        assertThatThrownBy(() -> CouponBuilder.builder().code("SALE").items(List.of()).build())
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Invalid Coupon: items size must be between 1 and 2147483647");
+    }
+
+    @Builder(validate = true)
+    public record Handle(
+        @Pattern(regexp = "[a-z]+") String fooBar,
+        @Pattern(regexp = "[0-9]+") String foo_bar
+    ) {}
+
+    @Test
+    public void patterns_of_parameters_alike_in_snake_case_are_kept_apart() {
+        assertThat(HandleBuilder.builder().fooBar("abc").foo_bar("123").build())
+            .isEqualTo(new Handle("abc", "123"));
+
+        assertThatThrownBy(() -> HandleBuilder.builder().fooBar("abc").foo_bar("abc").build())
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Invalid Handle: foo_bar must match \"[0-9]+\"");
+    }
+
+    @Test
+    public void constraint_must_apply_to_parameter_type() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(),
+            Map.of(
+                "test.Entity",
+                """
+                    package test;
+
+                    import io.github.iyanging.crafter.Builder;
+                    import jakarta.validation.constraints.Size;
+
+                    @Builder(validate = true)
+                    public record Entity(@Size(max = 1) Integer a) {}
+
+                    """
+            )
+        );
+
+        assertFalse(result.success());
+        assertThat(result.diagnostics().toString()).contains("@Size cannot be applied");
+    }
+
+    @Test
+    public void unsupported_constraints_are_only_warned() {
+        final var result = InMemoryCompiler.compile(
+            List.of(new Crafter()),
+            List.of(),
+            Map.of(
+                "test.Entity",
+                """
+                    package test;
+
+                    import io.github.iyanging.crafter.Builder;
+                    import jakarta.validation.constraints.Email;
+
+                    @Builder(validate = true)
+                    public record Entity(@Email String a) {}
+
+                    """
+            )
+        );
+
+        assertTrue(result.success(), result.diagnostics().toString());
+        assertThat(result.diagnostics().toString()).contains("@Email is not supported");
+    }
+}
@@ -10,6 +10,7 @@ import java.nio.charset.StandardCharsets;
 import javax.tools.JavaFileObject;
 
 import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
@@ -220,7 +221,10 @@ public class CodeStructureAssertion {
     }
 
     private static CompilationUnit parse(String role, String code) {
-        final var result = new JavaParser().parse(code);
+        final var result = new JavaParser(
+            new ParserConfiguration()
+                .setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17)
+        ).parse(code);
 
         if (result.isSuccessful()) {
             return result.getResult().orElseThrow();
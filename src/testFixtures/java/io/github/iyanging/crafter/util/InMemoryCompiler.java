@@ -0,0 +1,248 @@
+package io.github.iyanging.crafter.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import javax.annotation.processing.Processor;
+import javax.tools.*;
+
+import com.sun.source.util.JavacTask;
+import com.sun.source.util.TaskListener;
+import org.jspecify.annotations.Nullable;
+
+
+/**
+ * Compile sources in memory with the given processors, while recording the originating files
+ * passed to the {@link javax.annotation.processing.Filer}. Shared by the tests and the
+ * benchmarks.
+ */
+public class InMemoryCompiler {
+
+    public record Result(
+        boolean success,
+        List<Diagnostic<? extends JavaFileObject>> diagnostics,
+        Map<String, String> generatedSources,
+        Map<String, String> generatedResources,
+        Map<String, List<String>> originatingFiles,
+        ClassLoader classLoader
+    ) {
+        public Class<?> loadClass(String className) {
+            try {
+                return classLoader.loadClass(className);
+
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    public static Result compile(
+        List<Processor> processors,
+        List<String> options,
+        Map<String, String> sources
+    ) {
+        return compile(processors, options, sources, List.of());
+    }
+
+    /**
+     * Compile as {@link #compile(List, List, Map)}, while the listeners observe the phases of
+     * javac, e.g. to measure annotation processing.
+     */
+    public static Result compile(
+        List<Processor> processors,
+        List<String> options,
+        Map<String, String> sources,
+        List<TaskListener> listeners
+    ) {
+        final var compiler = ToolProvider.getSystemJavaCompiler();
+        final var diagnostics = new DiagnosticCollector<JavaFileObject>();
+
+        final var sourceFiles = sources.entrySet()
+            .stream()
+            .map(e -> new SourceFile(e.getKey(), e.getValue()))
+            .toList();
+
+        final var fileManager = new MemoryFileManager(
+            compiler.getStandardFileManager(diagnostics, Locale.ENGLISH, StandardCharsets.UTF_8)
+        );
+
+        final var allOptions = new ArrayList<String>();
+        allOptions.add("-classpath");
+        allOptions.add(System.getProperty("java.class.path"));
+        allOptions.addAll(options);
+
+        final var task = (JavacTask) compiler.getTask(
+            null,
+            fileManager,
+            diagnostics,
+            allOptions,
+            null,
+            sourceFiles
+        );
+        task.setProcessors(processors);
+        listeners.forEach(task::addTaskListener);
+
+        final var success = task.call();
+
+        final var classLoader = new ClassLoader(InMemoryCompiler.class.getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                final var output = fileManager.classFiles.get(name);
+
+                if (output == null) {
+                    throw new ClassNotFoundException(name);
+                }
+
+                final var bytes = output.content.toByteArray();
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        };
+
+        final var generatedSources = new LinkedHashMap<String, String>();
+        fileManager.sourceFiles.forEach(
+            (name, output) -> generatedSources.put(
+                name,
+                output.content.toString(StandardCharsets.UTF_8)
+            )
+        );
+
+        final var generatedResources = new LinkedHashMap<String, String>();
+        fileManager.resourceFiles.forEach(
+            (name, output) -> generatedResources.put(
+                name,
+                output.content.toString(StandardCharsets.UTF_8)
+            )
+        );
+
+        return new Result(
+            success,
+            diagnostics.getDiagnostics(),
+            generatedSources,
+            generatedResources,
+            fileManager.originatingFiles,
+            classLoader
+        );
+    }
+
+    private static URI makeUri(String className, JavaFileObject.Kind kind) {
+        return URI.create("mem:///" + className.replace('.', '/') + kind.extension);
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject {
+        private final String code;
+
+        SourceFile(String className, String code) {
+            super(makeUri(className, Kind.SOURCE), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) { return code; }
+    }
+
+    private static class OutputFile extends SimpleJavaFileObject {
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        OutputFile(String className, Kind kind) {
+            this(makeUri(className, kind), kind);
+        }
+
+        OutputFile(URI uri, Kind kind) {
+            super(uri, kind);
+        }
+
+        @Override
+        public OutputStream openOutputStream() { return content; }
+
+        // generated class files are read back by javac
+        @Override
+        public InputStream openInputStream() {
+            return new ByteArrayInputStream(content.toByteArray());
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+        private final Map<String, OutputFile> sourceFiles = new LinkedHashMap<>();
+        private final Map<String, OutputFile> classFiles = new LinkedHashMap<>();
+        private final Map<String, OutputFile> resourceFiles = new LinkedHashMap<>();
+        private final Map<String, List<String>> originatingFiles = new LinkedHashMap<>();
+
+        MemoryFileManager(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(
+            Location location,
+            String className,
+            JavaFileObject.Kind kind,
+            @Nullable FileObject sibling
+        ) {
+            final var output = new OutputFile(className, kind);
+
+            if (kind == JavaFileObject.Kind.CLASS) {
+                classFiles.put(className, output);
+
+            } else {
+                sourceFiles.put(className, output);
+            }
+
+            return output;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutputForOriginatingFiles(
+            Location location,
+            String className,
+            JavaFileObject.Kind kind,
+            FileObject... originatingFiles
+        ) {
+            this.originatingFiles.put(
+                className,
+                Arrays.stream(originatingFiles).map(FileObject::getName).toList()
+            );
+
+            return getJavaFileForOutput(location, className, kind, null);
+        }
+
+        @Override
+        public FileObject getFileForOutput(
+            Location location,
+            String packageName,
+            String relativeName,
+            @Nullable FileObject sibling
+        ) {
+            final var path = packageName.isEmpty()
+                ? relativeName
+                : packageName.replace('.', '/') + "/" + relativeName;
+
+            final var output = new OutputFile(
+                URI.create("mem:///" + path),
+                JavaFileObject.Kind.OTHER
+            );
+            resourceFiles.put(path, output);
+
+            return output;
+        }
+
+        @Override
+        public FileObject getFileForOutputForOriginatingFiles(
+            Location location,
+            String packageName,
+            String relativeName,
+            FileObject... originatingFiles
+        ) {
+            return getFileForOutput(location, packageName, relativeName, null);
+        }
+    }
+}